@@ -0,0 +1,227 @@
+package org.howard.edu.lsp.assignment3.benchmark;
+
+import org.howard.edu.lsp.assignment3.CSVReader;
+import org.howard.edu.lsp.assignment3.CSVWriter;
+import org.howard.edu.lsp.assignment3.DataTransformer;
+import org.howard.edu.lsp.assignment3.ETLPipeline;
+import org.howard.edu.lsp.assignment3.Product;
+import org.howard.edu.lsp.assignment3.ProductCsvGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the assignment 3 ETL stages.
+ * 
+ * Measures CSVReader.readProducts, DataTransformer.transform,
+ * CSVWriter.writeProducts and the end-to-end ETLPipeline.processProducts
+ * over generated inputs of each size in {@link Input#rows}. Every benchmark
+ * reports throughput and, through sampling, the p50/p99/p999 latency of an
+ * operation; running with the gc profiler adds the allocation rate and
+ * bytes allocated per operation, counted across all threads of the fork.
+ * 
+ * Usage:
+ * mvn -B -Pjmh package -DskipTests
+ * java -jar target/benchmarks.jar -prof gc [-p rows=10000]
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+@State(Scope.Thread)
+public class ETLBenchmark {
+    
+    /** Directory for generated inputs and outputs, reused across runs */
+    private static final Path WORK_DIR = Paths.get("benchmark-data");
+    
+    /** Seed for generated inputs so runs are comparable */
+    private static final long SEED = 42L;
+    
+    /**
+     * A generated input file and the file each operation writes to.
+     */
+    @State(Scope.Benchmark)
+    public static class Input {
+        
+        /** Input size in rows */
+        @Param({"10000", "1000000", "10000000"})
+        public int rows;
+        
+        /** Path to the generated input file */
+        Path input;
+        
+        /** Path to the output file */
+        Path output;
+        
+        /**
+         * Generates the input file, unless an earlier run already did.
+         * 
+         * @throws IOException if the input cannot be generated
+         */
+        @Setup(Level.Trial)
+        public void generate() throws IOException {
+            Files.createDirectories(WORK_DIR);
+            input = WORK_DIR.resolve("products_" + rows + ".csv");
+            output = WORK_DIR.resolve("transformed_" + rows + ".csv");
+            if (!Files.exists(input)) {
+                new ProductCsvGenerator(SEED).generate(input.toString(), rows);
+            }
+        }
+    }
+    
+    /**
+     * The products read from the input file, for benchmarking the transform alone.
+     */
+    @State(Scope.Benchmark)
+    public static class Extracted {
+        
+        /** Products as read from the input file */
+        List<Product> products;
+        
+        /**
+         * Reads the input file once per trial.
+         * 
+         * @param input the generated input
+         * @throws IOException if the input cannot be read
+         */
+        @Setup(Level.Trial)
+        public void read(Input input) throws IOException {
+            products = new CSVReader().readProducts(input.input.toString());
+        }
+    }
+    
+    /**
+     * The transformed products, for benchmarking the write alone.
+     */
+    @State(Scope.Benchmark)
+    public static class Transformed {
+        
+        /** Products as transformed from the input file */
+        List<Product> products;
+        
+        /**
+         * Reads and transforms the input file once per trial.
+         * 
+         * @param input the generated input
+         * @throws IOException if the input cannot be read
+         */
+        @Setup(Level.Trial)
+        public void transform(Input input) throws IOException {
+            products = new DataTransformer().transform(new CSVReader().readProducts(input.input.toString()));
+        }
+    }
+    
+    /**
+     * A pipeline with its progress messages discarded, so they do not distort the measurement.
+     */
+    @State(Scope.Benchmark)
+    public static class Pipeline {
+        
+        /** The pipeline under test */
+        ETLPipeline pipeline;
+        
+        /** Standard output before it was discarded */
+        private PrintStream originalOut;
+        
+        /**
+         * Creates the pipeline and discards standard output.
+         */
+        @Setup(Level.Trial)
+        public void open() {
+            pipeline = new ETLPipeline();
+            originalOut = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+        
+        /**
+         * Restores standard output.
+         */
+        @TearDown(Level.Trial)
+        public void close() {
+            System.setOut(originalOut);
+        }
+    }
+    
+    /** Reader under test */
+    private final CSVReader reader = new CSVReader();
+    
+    /** Transformer under test */
+    private final DataTransformer transformer = new DataTransformer();
+    
+    /** Writer under test */
+    private final CSVWriter writer = new CSVWriter();
+    
+    /**
+     * Benchmarks the extract stage.
+     * 
+     * @param input the generated input
+     * @param blackhole consumes the products read
+     * @throws IOException if the input cannot be read
+     */
+    @Benchmark
+    public void read(Input input, Blackhole blackhole) throws IOException {
+        blackhole.consume(reader.readProducts(input.input.toString()));
+    }
+    
+    /**
+     * Benchmarks the transform stage.
+     * 
+     * @param extracted the products read from the input
+     * @param blackhole consumes the transformed products
+     */
+    @Benchmark
+    public void transform(Extracted extracted, Blackhole blackhole) {
+        blackhole.consume(transformer.transform(extracted.products));
+    }
+    
+    /**
+     * Benchmarks the load stage.
+     * 
+     * @param input the generated input and the output to write
+     * @param transformed the products to write
+     * @param blackhole consumes the size of the written file
+     * @throws IOException if the output cannot be written
+     */
+    @Benchmark
+    public void write(Input input, Transformed transformed, Blackhole blackhole) throws IOException {
+        writer.writeProducts(transformed.products, input.output.toString());
+        blackhole.consume(Files.size(input.output));
+    }
+    
+    /**
+     * Benchmarks extract, transform and load end to end.
+     * 
+     * @param input the generated input and the output to write
+     * @param pipeline the pipeline to run
+     * @param blackhole consumes the size of the written file
+     * @throws IOException if the input cannot be read or the output written
+     */
+    @Benchmark
+    public void endToEnd(Input input, Pipeline pipeline, Blackhole blackhole) throws IOException {
+        pipeline.pipeline.processProducts(input.input.toString(), input.output.toString());
+        blackhole.consume(Files.size(input.output));
+    }
+}
@@ -0,0 +1,192 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that reads its source on a background thread.
+ * 
+ * The background thread reads the source, typically a decompressing stream,
+ * into a small fixed set of blocks handed over through
+ * {@link SpscRingBuffer}s, so decompression overlaps with whatever the
+ * reading thread does with the bytes. Once every block is full the
+ * background thread waits for the reader to return one.
+ * 
+ * Failures of the source are rethrown to the reader. Closing the stream
+ * stops the background thread and closes the source.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+final class BackgroundInputStream extends InputStream {
+    
+    /** Size of each block */
+    static final int BLOCK_SIZE = 1 << 16;
+    
+    /** Number of blocks shared by the two threads */
+    private static final int BLOCK_COUNT = 8;
+    
+    /**
+     * Buffer holding a run of bytes read from the source.
+     */
+    private static final class Block {
+        
+        /** Bytes read from the source */
+        final byte[] data = new byte[BLOCK_SIZE];
+        
+        /** Number of valid bytes in data */
+        int length;
+    }
+    
+    /** Blocks filled by the background thread, waiting to be read */
+    private final SpscRingBuffer<Block> filled = new SpscRingBuffer<>(BLOCK_COUNT);
+    
+    /** Blocks returned by the reader, waiting to be filled */
+    private final SpscRingBuffer<Block> free = new SpscRingBuffer<>(BLOCK_COUNT);
+    
+    /** Thread reading the source */
+    private final Thread producer;
+    
+    /** Failure of the source, set before the queues are aborted */
+    private volatile IOException failure;
+    
+    /** Block being read, or null before the first read and after the last */
+    private Block current;
+    
+    /** Read position in the current block */
+    private int position;
+    
+    /** Whether the end of the source has been reached */
+    private boolean finished;
+    
+    /** Whether the stream has been closed; read by the background thread */
+    private volatile boolean closed;
+    
+    /**
+     * Starts reading a source in the background.
+     * 
+     * @param source the stream to read; closed by the background thread when done
+     * @param threadName the name of the background thread
+     */
+    BackgroundInputStream(InputStream source, String threadName) {
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            free.offer(new Block());
+        }
+        producer = new Thread(() -> fill(source), threadName);
+        producer.setDaemon(true);
+        producer.start();
+    }
+    
+    /**
+     * Background loop reading the source into free blocks until it ends.
+     */
+    private void fill(InputStream source) {
+        try (InputStream in = source) {
+            while (true) {
+                Block block = free.take();
+                int length = 0;
+                int read;
+                while (length < BLOCK_SIZE && (read = in.read(block.data, length, BLOCK_SIZE - length)) >= 0) {
+                    length += read;
+                }
+                if (length > 0) {
+                    block.length = length;
+                    filled.put(block);
+                }
+                if (length < BLOCK_SIZE) {
+                    break;
+                }
+            }
+            filled.close();
+        } catch (IOException e) {
+            fail(e);
+        } catch (RuntimeException e) {
+            fail(new IOException(e.getMessage(), e));
+        }
+    }
+    
+    private void fail(IOException e) {
+        if (!closed) {
+            failure = e;
+        }
+        filled.abort();
+        free.abort();
+    }
+    
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return current.data[position++] & 0xFF;
+    }
+    
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current.data, position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+    
+    @Override
+    public int available() {
+        return current == null ? 0 : current.length - position;
+    }
+    
+    /**
+     * Makes sure the current block has unread bytes, taking the next one if needed.
+     * 
+     * @return false at the end of the source
+     */
+    private boolean ensureData() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (current != null && position < current.length) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+        if (current != null) {
+            // Never waits: there are no more blocks than free can hold
+            free.put(current);
+            current = null;
+        }
+        
+        Block next;
+        try {
+            next = filled.take();
+        } catch (IOException e) {
+            throw failure != null ? failure : e;
+        }
+        if (next == null) {
+            finished = true;
+            return false;
+        }
+        current = next;
+        position = 0;
+        return true;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        filled.abort();
+        free.abort();
+        try {
+            producer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
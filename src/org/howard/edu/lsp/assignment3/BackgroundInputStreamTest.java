@@ -0,0 +1,211 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+/**
+ * JUnit test class for BackgroundInputStream.
+ * Checks that the bytes read are exactly the source's, whether the source
+ * ends inside a block or exactly on a block boundary, that failures of the
+ * source reach the reader, and that closing stops the background thread.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class BackgroundInputStreamTest {
+    
+    /** Size of a block handed over between the threads */
+    private static final int BLOCK = BackgroundInputStream.BLOCK_SIZE;
+    
+    /**
+     * Source returning at most a few bytes per read, then failing or ending.
+     */
+    private static final class TricklingSource extends InputStream {
+        
+        /** Bytes the source yields */
+        private final byte[] data;
+        
+        /** Failure thrown once the bytes are used up, or null to end normally */
+        private final IOException failure;
+        
+        /** Read position */
+        private int position;
+        
+        /** Whether the source has been closed */
+        volatile boolean closed;
+        
+        /**
+         * Constructs a source of the given bytes.
+         */
+        TricklingSource(byte[] data, IOException failure) {
+            this.data = data;
+            this.failure = failure;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+        
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (position == data.length) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return -1;
+            }
+            int count = Math.min(Math.min(length, 1000), data.length - position);
+            System.arraycopy(data, position, bytes, offset, count);
+            position += count;
+            return count;
+        }
+        
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+    
+    /**
+     * Draws random bytes.
+     */
+    private static byte[] bytes(int count, long seed) {
+        byte[] bytes = new byte[count];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+    
+    /**
+     * Reads a stream to the end, mixing single-byte and bulk reads of varying sizes.
+     */
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[3 * BLOCK];
+        Random random = new Random(7);
+        while (true) {
+            if (random.nextInt(4) == 0) {
+                int b = in.read();
+                if (b < 0) {
+                    break;
+                }
+                out.write(b);
+            } else {
+                int read = in.read(buffer, 0, 1 + random.nextInt(buffer.length));
+                if (read < 0) {
+                    break;
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+    
+    /**
+     * Checks whether a thread with the given name is running.
+     */
+    private static boolean running(String threadName) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().equals(threadName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Tests that every byte is read in order, for sources ending inside a
+     * block, exactly on a block boundary and after more blocks than are
+     * shared between the threads.
+     */
+    @Test
+    @DisplayName("Test reading the source")
+    public void testReadsSource() throws IOException {
+        int[] sizes = {0, 1, BLOCK - 1, BLOCK, BLOCK + 1, 2 * BLOCK, 20 * BLOCK, 20 * BLOCK + 17};
+        for (int size : sizes) {
+            byte[] data = bytes(size, size);
+            TricklingSource source = new TricklingSource(data, null);
+            try (BackgroundInputStream in = new BackgroundInputStream(source, "test-background")) {
+                assertArrayEquals(data, readAll(in), "size " + size);
+                assertEquals(-1, in.read(), "size " + size);
+                assertEquals(-1, in.read(new byte[8], 0, 8), "size " + size);
+                assertEquals(0, in.read(new byte[8], 0, 0), "size " + size);
+            }
+            assertTrue(source.closed, "size " + size);
+        }
+    }
+    
+    /**
+     * Tests that a failure of the source is rethrown to the reader once the
+     * full blocks read before it are consumed, with no byte out of place.
+     */
+    @Test
+    @DisplayName("Test source failure")
+    public void testSourceFailure() throws IOException {
+        for (int size : new int[] {0, BLOCK / 2, 3 * BLOCK, 3 * BLOCK + 5}) {
+            byte[] data = bytes(size, size);
+            IOException failure = new IOException("Corrupt input");
+            TricklingSource source = new TricklingSource(data, failure);
+            try (BackgroundInputStream in = new BackgroundInputStream(source, "test-background")) {
+                byte[] read = new byte[size];
+                int length = 0;
+                IOException e = assertThrows(IOException.class, () -> {
+                    int offset = 0;
+                    int count;
+                    while ((count = in.read(read, offset, Math.max(1, size - offset))) >= 0) {
+                        offset += count;
+                    }
+                });
+                assertTrue(e == failure, "size " + size + ": " + e);
+                while (length < size && read[length] == data[length]) {
+                    length++;
+                }
+                // Bytes of a block cut short by the failure are dropped, but never garbled
+                assertTrue(length >= size / BLOCK * BLOCK, "size " + size + ": only " + length + " bytes matched");
+                assertThrows(IOException.class, in::read);
+            }
+            assertTrue(source.closed, "size " + size);
+        }
+        
+        InputStream broken = new ByteArrayInputStream(new byte[0]) {
+            @Override
+            public synchronized int read(byte[] bytes, int offset, int length) {
+                throw new IllegalStateException("Broken source");
+            }
+        };
+        try (BackgroundInputStream in = new BackgroundInputStream(broken, "test-background")) {
+            IOException e = assertThrows(IOException.class, in::read);
+            assertTrue(e.getCause() instanceof IllegalStateException, String.valueOf(e.getCause()));
+        }
+    }
+    
+    /**
+     * Tests that closing mid-stream, while the background thread waits for a
+     * free block, stops the thread and closes the source.
+     */
+    @Test
+    @DisplayName("Test close mid-stream")
+    public void testCloseMidStream() throws IOException {
+        String threadName = "test-background-close";
+        byte[] data = bytes(40 * BLOCK, 1);
+        TricklingSource source = new TricklingSource(data, null);
+        BackgroundInputStream in = new BackgroundInputStream(source, threadName);
+        byte[] start = new byte[100];
+        assertEquals(100, in.read(start, 0, start.length));
+        assertEquals(data[0], start[0]);
+        assertTrue(in.available() > 0);
+        
+        in.close();
+        assertFalse(running(threadName));
+        assertTrue(source.closed);
+        assertThrows(IOException.class, in::read);
+        in.close();
+    }
+}
@@ -0,0 +1,528 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * ETL run over many input files at once.
+ * 
+ * The input is a directory, whose CSV files (compressed or not) are all
+ * processed, or a glob pattern such as {@code vendors/*.csv} or
+ * {@code drops/**.csv.gz}. Each input file gets its own output file, named
+ * like the default pipeline's output and compressed if the writer is, in
+ * the output directory, plus a summary of all files in {@link #SUMMARY_FILE}.
+ * 
+ * Files are scheduled largest first on a fork-join pool. At most
+ * maxConcurrentFiles files are processed at a time to bound disk traffic;
+ * each of those workers takes the next file from the shared list when it
+ * finishes one, so small files fill in behind large ones. A reader created
+ * with the same pool splits large files into chunks, which idle pool
+ * threads steal. A file that fails is reported in the summary and does not
+ * stop the others.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class BatchETL {
+    
+    /** Prefix added to input file names to name their outputs */
+    public static final String OUTPUT_PREFIX = "transformed_";
+    
+    /** Name of the summary file written to the output directory */
+    public static final String SUMMARY_FILE = "batch_summary.csv";
+    
+    /** Name of the price summary report written to the output directory when a summary is set */
+    public static final String AGGREGATES_FILE = "batch_aggregates.csv";
+    
+    /** Header row of the summary file */
+    private static final String SUMMARY_HEADER = "File,Products,InputBytes,OutputBytes,Millis,Status";
+    
+    /** Characters that make a path a glob pattern */
+    private static final String GLOB_CHARACTERS = "*?[{";
+    
+    /**
+     * Outcome of processing one input file.
+     */
+    public static final class FileResult {
+        
+        /** The input file */
+        private final Path input;
+        
+        /** The output file */
+        private final Path output;
+        
+        /** Number of products written, or -1 if the file failed */
+        private final int productCount;
+        
+        /** Size of the input file in bytes */
+        private final long inputBytes;
+        
+        /** Size of the output file in bytes, or 0 if the file failed */
+        private final long outputBytes;
+        
+        /** Time spent on the file in milliseconds */
+        private final long millis;
+        
+        /** Failure message, or null if the file succeeded */
+        private final String error;
+        
+        FileResult(Path input, Path output, int productCount, long inputBytes, long outputBytes,
+                   long millis, String error) {
+            this.input = input;
+            this.output = output;
+            this.productCount = productCount;
+            this.inputBytes = inputBytes;
+            this.outputBytes = outputBytes;
+            this.millis = millis;
+            this.error = error;
+        }
+        
+        /**
+         * Gets the input file.
+         * 
+         * @return the input path
+         */
+        public Path getInput() {
+            return input;
+        }
+        
+        /**
+         * Gets the output file.
+         * 
+         * @return the output path, which does not exist if the file failed
+         */
+        public Path getOutput() {
+            return output;
+        }
+        
+        /**
+         * Gets the number of products written.
+         * 
+         * @return the product count, or -1 if the file failed
+         */
+        public int getProductCount() {
+            return productCount;
+        }
+        
+        /**
+         * Gets the size of the input file.
+         * 
+         * @return the input size in bytes
+         */
+        public long getInputBytes() {
+            return inputBytes;
+        }
+        
+        /**
+         * Gets the size of the output file.
+         * 
+         * @return the output size in bytes, or 0 if the file failed
+         */
+        public long getOutputBytes() {
+            return outputBytes;
+        }
+        
+        /**
+         * Gets the time spent on the file.
+         * 
+         * @return the elapsed time in milliseconds
+         */
+        public long getMillis() {
+            return millis;
+        }
+        
+        /**
+         * Gets the reason the file failed.
+         * 
+         * @return the failure message, or null if the file succeeded
+         */
+        public String getError() {
+            return error;
+        }
+        
+        /**
+         * Checks whether the file was processed successfully.
+         * 
+         * @return true if the output was written
+         */
+        public boolean isSuccessful() {
+            return error == null;
+        }
+    }
+    
+    /** Component responsible for reading CSV files */
+    private final CSVReader csvReader;
+    
+    /** Component responsible for transforming product data */
+    private final DataTransformer dataTransformer;
+    
+    /** Component responsible for writing CSV files */
+    private final CSVWriter csvWriter;
+    
+    /** Pool the files are scheduled on */
+    private final ForkJoinPool pool;
+    
+    /** Maximum number of files processed at the same time */
+    private final int maxConcurrentFiles;
+    
+    /** Registry receiving file counts and per-file durations */
+    private PipelineMetrics metrics = PipelineMetrics.NOOP;
+    
+    /** Summary receiving the products of every successful file, or null */
+    private ProductSummary summary;
+    
+    /** Results of the last run, in file name order */
+    private List<FileResult> results = Collections.emptyList();
+    
+    /**
+     * Constructs a batch run on the common fork-join pool with one file per available processor.
+     * 
+     * @param csvReader the CSV reader
+     * @param dataTransformer the transformer
+     * @param csvWriter the CSV writer
+     * @throws IllegalArgumentException if any component is null
+     */
+    public BatchETL(CSVReader csvReader, DataTransformer dataTransformer, CSVWriter csvWriter) {
+        this(csvReader, dataTransformer, csvWriter, ForkJoinPool.commonPool(),
+             Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Constructs a batch run with a custom pool and concurrency cap.
+     * 
+     * @param csvReader the CSV reader, ideally created with the same pool so large files are split
+     * @param dataTransformer the transformer
+     * @param csvWriter the CSV writer
+     * @param pool the pool the files are scheduled on
+     * @param maxConcurrentFiles the maximum number of files processed at the same time
+     * @throws IllegalArgumentException if any component or the pool is null, or the cap is not positive
+     */
+    public BatchETL(CSVReader csvReader, DataTransformer dataTransformer, CSVWriter csvWriter,
+                    ForkJoinPool pool, int maxConcurrentFiles) {
+        if (csvReader == null || dataTransformer == null || csvWriter == null || pool == null) {
+            throw new IllegalArgumentException("Pipeline components cannot be null");
+        }
+        if (maxConcurrentFiles <= 0) {
+            throw new IllegalArgumentException("Maximum concurrent files must be positive");
+        }
+        this.csvReader = csvReader;
+        this.dataTransformer = dataTransformer;
+        this.csvWriter = csvWriter;
+        this.pool = pool;
+        this.maxConcurrentFiles = maxConcurrentFiles;
+    }
+    
+    /**
+     * Sets the metrics registry that receives file counts and per-file durations.
+     * 
+     * @param metrics the registry to report to
+     * @throws IllegalArgumentException if the registry is null
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics registry cannot be null");
+        }
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Sets the summary that receives the price statistics of every file that
+     * succeeds. Each file is summarized on its own and merged in once it is
+     * complete, so files processed in parallel never share an accumulator, and
+     * the report is written to {@link #AGGREGATES_FILE} in the output directory.
+     * 
+     * @param summary the summary, or null to gather none
+     */
+    public void setSummary(ProductSummary summary) {
+        this.summary = summary;
+    }
+    
+    /**
+     * Processes every file matching the input and writes the summary, and
+     * the price summary report if a {@link ProductSummary} is set.
+     * 
+     * @param input a directory, whose .csv, .csv.gz and .csv.zz files are processed, or a glob pattern
+     * @param outputDirectory the directory receiving the output files and summary, created if missing
+     * @return the total number of products written
+     * @throws IOException if the input cannot be listed, two inputs map to the same output,
+     *         or a summary cannot be written
+     * @throws IllegalArgumentException if either argument is null or empty
+     */
+    public int run(String input, String outputDirectory) throws IOException {
+        if (input == null || input.trim().isEmpty()) {
+            throw new IllegalArgumentException("Input directory or pattern cannot be null or empty");
+        }
+        if (outputDirectory == null || outputDirectory.trim().isEmpty()) {
+            throw new IllegalArgumentException("Output directory cannot be null or empty");
+        }
+        
+        Path outputRoot = Paths.get(outputDirectory).toAbsolutePath().normalize();
+        Path base = baseDirectory(input);
+        List<Path> inputs = resolveInputs(input, outputRoot);
+        Files.createDirectories(outputRoot);
+        
+        // Largest files first, so a big file is never left to run alone at the end
+        Path[] files = inputs.toArray(new Path[0]);
+        long[] sizes = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            sizes[i] = Files.size(files[i]);
+        }
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> -sizes[i]).thenComparing(i -> files[i]));
+        
+        // Compressed and plain inputs with the same name would share an output
+        Path[] outputs = new Path[files.length];
+        Map<Path, Path> inputsByOutput = new HashMap<>();
+        for (int i = 0; i < files.length; i++) {
+            String name = CompressionCodec.stripExtension(files[i].getFileName().toString());
+            outputs[i] = outputRoot.resolve(base.relativize(files[i]))
+                                   .resolveSibling(OUTPUT_PREFIX + name + csvWriter.getCompression().extension());
+            Path other = inputsByOutput.put(outputs[i], files[i]);
+            if (other != null) {
+                throw new IOException("Input files '" + other + "' and '" + files[i] + "' would both be written to '"
+                                      + outputs[i] + "'");
+            }
+        }
+        
+        FileResult[] fileResults = new FileResult[files.length];
+        AtomicInteger next = new AtomicInteger();
+        List<ForkJoinTask<?>> workers = new ArrayList<>();
+        for (int w = 0; w < Math.min(maxConcurrentFiles, files.length); w++) {
+            workers.add(pool.submit(() -> {
+                int position;
+                while ((position = next.getAndIncrement()) < order.length) {
+                    int i = order[position];
+                    fileResults[i] = processFile(files[i], outputs[i], sizes[i]);
+                }
+            }));
+        }
+        for (ForkJoinTask<?> worker : workers) {
+            worker.join();
+        }
+        
+        results = Collections.unmodifiableList(Arrays.asList(fileResults));
+        writeSummary(outputRoot.resolve(SUMMARY_FILE), base);
+        if (summary != null) {
+            summary.writeReport(outputRoot.resolve(AGGREGATES_FILE).toString());
+        }
+        
+        int productCount = 0;
+        for (FileResult result : results) {
+            if (result.isSuccessful()) {
+                productCount += result.getProductCount();
+            }
+        }
+        return productCount;
+    }
+    
+    /**
+     * Transforms one file into a temporary output that replaces the target once complete.
+     */
+    private FileResult processFile(Path input, Path output, long inputBytes) {
+        long start = System.nanoTime();
+        Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(output.getParent());
+            int productCount;
+            ProductSummary fileSummary = summary == null ? null : new ProductSummary();
+            ProductBatchSink writer = csvWriter.openBatchSink(temp.toString());
+            if (fileSummary != null) {
+                writer = fileSummary.summarizingBatchSink(writer);
+            }
+            try (ProductBatchSink sink = dataTransformer.transformingBatchSink(writer)) {
+                productCount = csvReader.readBatches(input.toString(), new ProductBatch(), sink);
+            }
+            IncrementalETL.moveReplacing(temp, output);
+            if (csvWriter.isIndexing()) {
+                IncrementalETL.moveReplacing(Paths.get(ProductIndex.indexPathFor(temp.toString())),
+                                             Paths.get(ProductIndex.indexPathFor(output.toString())));
+            }
+            if (fileSummary != null) {
+                summary.merge(fileSummary);
+            }
+            
+            long elapsed = System.nanoTime() - start;
+            long outputBytes = Files.size(output);
+            metrics.incrementCounter("batch.files", 1);
+            metrics.incrementCounter("extract.bytes_read", inputBytes);
+            metrics.incrementCounter("load.bytes_written", outputBytes);
+            metrics.recordValue("batch.file_duration_ns", elapsed);
+            return new FileResult(input, output, productCount, inputBytes, outputBytes, elapsed / 1_000_000, null);
+            
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temp);
+                Files.deleteIfExists(Paths.get(ProductIndex.indexPathFor(temp.toString())));
+            } catch (IOException ignored) {
+                // The failure being reported matters more than the leftover file
+            }
+            System.err.println("Error processing " + input + ": " + e.getMessage());
+            metrics.incrementCounter("batch.files_failed", 1);
+            String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            return new FileResult(input, output, -1, inputBytes, 0, (System.nanoTime() - start) / 1_000_000, message);
+        }
+    }
+    
+    /**
+     * Gets the directory files are listed from: the input itself if it is a
+     * directory, otherwise the part of the pattern before the first path
+     * component containing a glob character.
+     * 
+     * @param input a directory or glob pattern
+     * @return the absolute base directory
+     */
+    static Path baseDirectory(String input) {
+        int firstGlob = firstGlobIndex(input);
+        if (firstGlob == input.length()) {
+            return Paths.get(input).toAbsolutePath().normalize();
+        }
+        int split = patternStart(input, firstGlob) - 1;
+        Path directory = Paths.get(split < 0 ? "." : split == 0 ? "/" : input.substring(0, split));
+        return directory.toAbsolutePath().normalize();
+    }
+    
+    /**
+     * Lists the files matching a directory or glob pattern, excluding anything in
+     * the output directory, in name order.
+     * 
+     * @param input a directory or glob pattern
+     * @param outputRoot the absolute output directory
+     * @return the matching files
+     * @throws IOException if no file matches or the directory cannot be listed
+     */
+    static List<Path> resolveInputs(String input, Path outputRoot) throws IOException {
+        Path base = baseDirectory(input);
+        int firstGlob = firstGlobIndex(input);
+        PathMatcher matcher;
+        int depth;
+        if (firstGlob == input.length()) {
+            if (!Files.isDirectory(base)) {
+                throw new IOException("Input directory '" + input + "' not found. Please ensure the directory exists.");
+            }
+            matcher = path -> CompressionCodec.stripExtension(path.getFileName().toString())
+                                              .toLowerCase(Locale.ROOT).endsWith(".csv");
+            depth = 1;
+        } else {
+            String pattern = input.substring(patternStart(input, firstGlob));
+            PathMatcher relativeMatcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+            matcher = path -> relativeMatcher.matches(base.relativize(path));
+            depth = pattern.contains("**") ? Integer.MAX_VALUE : pattern.split("[/\\\\]").length;
+        }
+        
+        List<Path> inputs;
+        try (Stream<Path> paths = Files.walk(base, depth)) {
+            inputs = paths.filter(Files::isRegularFile)
+                          .filter(path -> !path.startsWith(outputRoot))
+                          .filter(matcher::matches)
+                          .sorted()
+                          .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new IOException("Failed to list input files: " + input + ". " + e.getMessage(), e);
+        }
+        if (inputs.isEmpty()) {
+            throw new IOException("No input files match '" + input + "'");
+        }
+        return inputs;
+    }
+    
+    /**
+     * Gets the index of the first glob character, or the input length if there is none.
+     */
+    private static int firstGlobIndex(String input) {
+        int firstGlob = input.length();
+        for (char c : GLOB_CHARACTERS.toCharArray()) {
+            int index = input.indexOf(c);
+            if (index >= 0) {
+                firstGlob = Math.min(firstGlob, index);
+            }
+        }
+        return firstGlob;
+    }
+    
+    /**
+     * Gets the start of the path component holding the first glob character.
+     */
+    private static int patternStart(String input, int firstGlob) {
+        for (int i = firstGlob - 1; i >= 0; i--) {
+            char c = input.charAt(i);
+            if (c == '/' || c == File.separatorChar) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * Writes one summary row per file, in file name order, followed by a total row.
+     */
+    private void writeSummary(Path summaryPath, Path base) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(SUMMARY_HEADER);
+        long products = 0;
+        long inputBytes = 0;
+        long outputBytes = 0;
+        int failed = 0;
+        for (FileResult result : results) {
+            String status = result.isSuccessful() ? "OK" : "FAILED: " + result.getError().replaceAll("[,\r\n]+", " ");
+            lines.add(base.relativize(result.getInput()) + "," + Math.max(0, result.getProductCount()) + ","
+                      + result.getInputBytes() + "," + result.getOutputBytes() + "," + result.getMillis() + "," + status);
+            products += Math.max(0, result.getProductCount());
+            inputBytes += result.getInputBytes();
+            outputBytes += result.getOutputBytes();
+            failed += result.isSuccessful() ? 0 : 1;
+        }
+        lines.add("TOTAL," + products + "," + inputBytes + "," + outputBytes + ",,"
+                  + (failed == 0 ? "OK" : failed + " FAILED"));
+        
+        try {
+            Files.write(summaryPath, lines, Charset.defaultCharset());
+        } catch (IOException e) {
+            throw new IOException("Failed to write to file: " + summaryPath + ". " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Gets the per-file results of the last run.
+     * 
+     * @return the results in file name order
+     */
+    public List<FileResult> getResults() {
+        return results;
+    }
+    
+    /**
+     * Gets the number of files that failed during the last run.
+     * 
+     * @return the number of failed files
+     */
+    public int getFailedFileCount() {
+        int failed = 0;
+        for (FileResult result : results) {
+            if (!result.isSuccessful()) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+}
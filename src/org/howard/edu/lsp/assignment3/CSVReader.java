@@ -1,8 +1,15 @@
 package org.howard.edu.lsp.assignment3;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 
 public class CSVReader {
@@ -10,6 +17,148 @@ public class CSVReader {
     /** Expected number of columns in the input CSV file */
     private static final int EXPECTED_COLUMNS = 4;
     
+    /** Default file size (1 MB) from which the memory-mapped scanner is used */
+    public static final long DEFAULT_MAPPED_SCAN_THRESHOLD = 1L << 20;
+    
+    /** Default size of the byte ranges (16 MB) parsed by each worker in parallel mode */
+    static final long DEFAULT_PARALLEL_CHUNK_SIZE = 16L << 20;
+    
+    /** Number of chunks kept in flight per worker to bound memory in parallel mode */
+    private static final int CHUNKS_IN_FLIGHT_PER_WORKER = 2;
+    
+    /** Charset used to decode compressed input, matching FileReader */
+    private static final Charset CHARSET = Charset.defaultCharset();
+    
+    /** Files at least this many bytes long are read through the memory-mapped scanner */
+    private final long mappedScanThreshold;
+    
+    /** Pool used to parse chunks in parallel, or null to read sequentially */
+    private final ForkJoinPool pool;
+    
+    /** Size of the byte ranges parsed by each worker in parallel mode */
+    private final long parallelChunkSize;
+    
+    /** Dictionary encoding categories as they are parsed */
+    private final CategoryDictionary categories = CategoryDictionary.shared();
+    
+    /** Registry receiving counts of skipped rows by reason */
+    private PipelineMetrics metrics = PipelineMetrics.NOOP;
+    
+    /** File receiving rejected rows instead of warnings, or null to print warnings */
+    private String quarantinePath;
+    
+    /** Largest share of rejected rows tolerated before a read fails */
+    private double maxErrorRatio = 1.0;
+    
+    /**
+     * Constructs a CSV reader that memory-maps files of at least
+     * {@link #DEFAULT_MAPPED_SCAN_THRESHOLD} bytes and reads smaller files line by line.
+     */
+    public CSVReader() {
+        this(DEFAULT_MAPPED_SCAN_THRESHOLD);
+    }
+    
+    /**
+     * Constructs a CSV reader with a custom memory-mapping threshold.
+     * Use 0 to always memory-map and {@link Long#MAX_VALUE} to always use
+     * the line-by-line reader.
+     * 
+     * @param mappedScanThreshold file size in bytes from which files are memory-mapped
+     * @throws IllegalArgumentException if the threshold is negative
+     */
+    public CSVReader(long mappedScanThreshold) {
+        this(mappedScanThreshold, null);
+    }
+    
+    /**
+     * Constructs a CSV reader that parses memory-mapped files in parallel.
+     * 
+     * Memory-mapped files are split into byte ranges aligned on line boundaries,
+     * each range is parsed on a worker of the given pool, and the results are
+     * passed to the sink in original file order. A boundary that falls inside
+     * a quoted field is caught when the range before it is merged, and the
+     * ranges after it are parsed again from the real record start. Output and
+     * warnings, including line numbers, are identical to sequential reading.
+     * 
+     * @param mappedScanThreshold file size in bytes from which files are memory-mapped
+     * @param pool the pool used to parse chunks, or null to read sequentially
+     * @throws IllegalArgumentException if the threshold is negative
+     */
+    public CSVReader(long mappedScanThreshold, ForkJoinPool pool) {
+        this(mappedScanThreshold, pool, DEFAULT_PARALLEL_CHUNK_SIZE);
+    }
+    
+    /**
+     * Constructs a CSV reader that parses memory-mapped files in parallel
+     * with a custom chunk size. Files no larger than one chunk are read
+     * sequentially. Small chunks let tests cover chunk boundaries with small files.
+     * 
+     * @param mappedScanThreshold file size in bytes from which files are memory-mapped
+     * @param pool the pool used to parse chunks, or null to read sequentially
+     * @param parallelChunkSize the size in bytes of the ranges parsed by each worker
+     * @throws IllegalArgumentException if the threshold is negative or the chunk size is not positive
+     */
+    CSVReader(long mappedScanThreshold, ForkJoinPool pool, long parallelChunkSize) {
+        if (mappedScanThreshold < 0) {
+            throw new IllegalArgumentException("Mapped scan threshold cannot be negative");
+        }
+        if (parallelChunkSize <= 0) {
+            throw new IllegalArgumentException("Parallel chunk size must be positive");
+        }
+        this.mappedScanThreshold = mappedScanThreshold;
+        this.pool = pool;
+        this.parallelChunkSize = parallelChunkSize;
+    }
+    
+    /**
+     * Sets the metrics registry that receives counts of skipped rows by reason.
+     * 
+     * @param metrics the registry to report to
+     * @throws IllegalArgumentException if the registry is null
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics registry cannot be null");
+        }
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Sets a quarantine file receiving every rejected row instead of printing
+     * a warning per row. The file is rewritten by each read and holds a
+     * {@code LineNumber,Reason,Row} header followed by one line per rejected
+     * row, with the original row text last.
+     * 
+     * @param quarantinePath the quarantine file, or null to print warnings
+     */
+    public void setQuarantineFile(String quarantinePath) {
+        this.quarantinePath = quarantinePath;
+    }
+    
+    /**
+     * Sets the largest share of rejected rows tolerated before a read fails.
+     * The ratio is checked continuously once {@value RejectLog#MIN_ROWS_FOR_RATIO}
+     * rows have been read, and over the whole file at the end.
+     * 
+     * @param maxErrorRatio a ratio between 0 (no rejected rows) and 1 (the default, never fail)
+     * @throws IllegalArgumentException if the ratio is outside [0, 1]
+     */
+    public void setMaxErrorRatio(double maxErrorRatio) {
+        if (!(maxErrorRatio >= 0 && maxErrorRatio <= 1)) {
+            throw new IllegalArgumentException("Maximum error ratio must be between 0 and 1");
+        }
+        this.maxErrorRatio = maxErrorRatio;
+    }
+    
+    /**
+     * Gets the largest share of rejected rows tolerated before a read fails.
+     * 
+     * @return the maximum error ratio
+     */
+    public double getMaxErrorRatio() {
+        return maxErrorRatio;
+    }
+    
     /**
      * Reads product data from a CSV file and converts it to a list of Product objects.
      * 
@@ -22,7 +171,49 @@ public class CSVReader {
      * @throws IllegalArgumentException if the file path is null or empty
      */
     public List<Product> readProducts(String filePath) throws IOException {
+        List<Product> products = new ArrayList<>();
+        readProducts(filePath, products::add);
+        return products;
+    }
+    
+    /**
+     * Reads product data from a CSV file and passes each valid product to the sink
+     * as soon as it is parsed, without holding the whole file in memory.
+     * 
+     * Files compressed with gzip or zlib are recognized by their leading bytes
+     * and decompressed on a background thread while they are parsed.
+     * 
+     * @param filePath the path to the CSV file to read
+     * @param sink the sink receiving each parsed product in file order
+     * @return the number of products passed to the sink
+     * @throws IOException if the file cannot be read or the sink fails
+     * @throws IllegalArgumentException if the file path is null or empty, or the sink is null
+     */
+    public int readProducts(String filePath, ProductSink sink) throws IOException {
+        return readProducts(filePath, sink, null);
+    }
+    
+    /**
+     * Reads products like {@link #readProducts(String, ProductSink)}, skipping
+     * valid rows that a filter rules out from their raw bytes.
+     * 
+     * Only files read through the memory-mapped scanner are filtered this way;
+     * small and compressed files pass every valid row to the sink, so the
+     * sink must still apply the full predicate. Skipped rows count as
+     * accepted towards the error ratio.
+     * 
+     * @param filePath the path to the CSV file to read
+     * @param sink the sink receiving each parsed product in file order
+     * @param filter the filter deciding which rows are parsed, or null to parse every row
+     * @return the number of products passed to the sink
+     * @throws IOException if the file cannot be read or the sink fails
+     * @throws IllegalArgumentException if the file path is null or empty, or the sink is null
+     */
+    int readProducts(String filePath, ProductSink sink, MappedCSVScanner.RowFilter filter) throws IOException {
         validateFilePath(filePath);
+        if (sink == null) {
+            throw new IllegalArgumentException("Product sink cannot be null");
+        }
         
         // Check if file exists first
         File inputFile = new File(filePath);
@@ -30,84 +221,707 @@ public class CSVReader {
             throw new IOException("Input file '" + filePath + "' not found. Please ensure the file exists.");
         }
         
-        List<Product> products = new ArrayList<>();
+        try (RejectLog rejects = openRejectLog()) {
+            int productCount = readProducts(inputFile, sink, filter, rejects);
+            finishRejects(rejects, inputFile);
+            return productCount;
+        }
+    }
+    
+    /**
+     * Reads products through the fastest path suited to the file.
+     * 
+     * @param inputFile the existing file to read
+     * @param sink the sink receiving each parsed product in file order
+     * @param filter the filter applied by the memory-mapped paths, or null
+     * @param rejects the log recording rejected rows
+     * @return the number of products passed to the sink
+     * @throws IOException if the file cannot be read, the sink fails or too many rows are rejected
+     */
+    private int readProducts(File inputFile, ProductSink sink, MappedCSVScanner.RowFilter filter, RejectLog rejects)
+            throws IOException {
+        CompressionCodec codec = CompressionCodec.detect(inputFile.toPath());
+        if (codec != CompressionCodec.NONE) {
+            return readProductsCompressed(inputFile, codec, sink, rejects);
+        }
+        
+        if (inputFile.length() >= mappedScanThreshold) {
+            if (pool != null && inputFile.length() > parallelChunkSize) {
+                return readProductsParallel(inputFile, sink, filter, rejects);
+            }
+            return readProductsMapped(inputFile, sink, filter, rejects);
+        }
         
         try (BufferedReader reader = new BufferedReader(new FileReader(inputFile))) {
-            String line;
-            int lineNumber = 0;
+            return readLines(reader, sink, rejects);
+        } catch (IOException e) {
+            throw new IOException("Failed to read file: " + inputFile.getPath() + ". " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Opens a log recording the rows rejected by one read, with this reader's
+     * quarantine file and error ratio.
+     * 
+     * @return the reject log, to be closed by the caller
+     * @throws IOException if the quarantine file cannot be created
+     */
+    RejectLog openRejectLog() throws IOException {
+        return new RejectLog(metrics, quarantinePath, maxErrorRatio);
+    }
+    
+    /**
+     * Checks the error ratio once a whole file has been read.
+     * 
+     * @param rejects the log of the read
+     * @param inputFile the file that was read
+     * @throws IOException if too many rows were rejected
+     */
+    private static void finishRejects(RejectLog rejects, File inputFile) throws IOException {
+        try {
+            rejects.finish();
+        } catch (IOException e) {
+            throw new IOException("Failed to read file: " + inputFile.getPath() + ". " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Reads a compressed CSV file, decompressing it on a background thread so
+     * that decompression overlaps with parsing.
+     * 
+     * @param inputFile the file to read
+     * @param codec the compression format of the file
+     * @param sink the sink receiving each parsed product in file order
+     * @param rejects the log recording rejected rows
+     * @return the number of products passed to the sink
+     * @throws IOException if the file cannot be read or decompressed, or the sink fails
+     */
+    private int readProductsCompressed(File inputFile, CompressionCodec codec, ProductSink sink, RejectLog rejects)
+            throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                 new InputStreamReader(openDecompressed(inputFile, codec), CHARSET), BackgroundInputStream.BLOCK_SIZE)) {
+            return readLines(reader, sink, rejects);
+        } catch (IOException e) {
+            throw new IOException("Failed to read file: " + inputFile.getPath() + ". " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Opens a compressed file as a stream of decompressed bytes produced by a background thread.
+     */
+    private static InputStream openDecompressed(File inputFile, CompressionCodec codec) throws IOException {
+        InputStream compressed = new FileInputStream(inputFile);
+        try {
+            return new BackgroundInputStream(codec.decompress(compressed), "etl-decompress");
+        } catch (IOException | RuntimeException e) {
+            compressed.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Parses lines from a reader, skipping the header, blank lines and invalid rows.
+     * 
+     * @param reader the reader positioned at the start of the file
+     * @param sink the sink receiving each parsed product in file order
+     * @param rejects the log recording rejected rows
+     * @return the number of products passed to the sink
+     * @throws IOException if reading fails, the sink fails or too many rows are rejected
+     */
+    private int readLines(BufferedReader reader, ProductSink sink, RejectLog rejects) throws IOException {
+        int productCount = 0;
+        String line;
+        int lineNumber = 0;
+        RejectLog.Rejection rejection = new RejectLog.Rejection();
+        
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int recordLineNumber = lineNumber;
             
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                line = line.trim();
-                
-                // Skip empty lines
-                if (line.isEmpty()) {
-                    continue;
+            // A quoted field may hold line breaks, continuing the record on the next lines
+            if (line.indexOf(CsvSyntax.QUOTE) >= 0 && CsvSyntax.endsInQuotedField(line)) {
+                StringBuilder record = new StringBuilder(line);
+                String next;
+                while ((next = reader.readLine()) != null) {
+                    lineNumber++;
+                    int scanned = record.length();
+                    record.append('\n').append(next);
+                    if (!CsvSyntax.endsInQuotedField(record, scanned)) {
+                        break;
+                    }
                 }
-                
+                line = record.toString();
+            }
+            line = line.trim();
+            
+            // Skip empty lines
+            if (line.isEmpty()) {
+                continue;
+            }
+            
+            // Skip header row (first line)
+            if (recordLineNumber == 1) {
+                continue;
+            }
+            
+            Product product = parseProductFromLine(line, recordLineNumber, rejection);
+            if (product == null) {
+                // Continue processing other lines instead of failing completely
+                rejects.reject(recordLineNumber, rejection, line);
+                continue;
+            }
+            
+            rejects.accept();
+            sink.accept(product);
+            productCount++;
+        }
+        
+        return productCount;
+    }
+    
+    /**
+     * Reads product data from a CSV file into columnar batches.
+     * 
+     * The batch is filled with valid rows in file order and passed to the sink
+     * each time it is full, and once more at the end if any rows remain. Large
+     * files read through the memory-mapped scanner are parsed straight into
+     * the batch without creating a Product per row. Skipped rows produce the
+     * same warnings as {@link #readProducts(String, ProductSink)}.
+     * 
+     * @param filePath the path to the CSV file to read
+     * @param batch the batch to fill, cleared first and reused for every call to the sink
+     * @param sink the sink receiving each full batch
+     * @return the number of products passed to the sink
+     * @throws IOException if the file cannot be read or the sink fails
+     * @throws IllegalArgumentException if the file path is null or empty, or the batch or sink is null
+     */
+    public int readBatches(String filePath, ProductBatch batch, ProductBatchSink sink) throws IOException {
+        validateFilePath(filePath);
+        if (batch == null || sink == null) {
+            throw new IllegalArgumentException("Product batch and sink cannot be null");
+        }
+        
+        File inputFile = new File(filePath);
+        if (!inputFile.exists()) {
+            throw new IOException("Input file '" + filePath + "' not found. Please ensure the file exists.");
+        }
+        
+        batch.clear();
+        int productCount;
+        try (RejectLog rejects = openRejectLog()) {
+            boolean mapped = inputFile.length() >= mappedScanThreshold
+                             && (pool == null || inputFile.length() <= parallelChunkSize);
+            if (mapped && CompressionCodec.detect(inputFile.toPath()) == CompressionCodec.NONE) {
+                productCount = readBatchesMapped(inputFile, batch, sink, rejects);
+            } else {
+                // Other read paths, including compressed input, already produce Products; collect them into batches
+                productCount = readProducts(inputFile, product -> {
+                    batch.add(product);
+                    if (batch.isFull()) {
+                        sink.accept(batch);
+                        batch.clear();
+                    }
+                }, null, rejects);
+            }
+            finishRejects(rejects, inputFile);
+        }
+        
+        if (batch.size() > 0) {
+            sink.accept(batch);
+            batch.clear();
+        }
+        return productCount;
+    }
+    
+    /**
+     * Reads rows through the memory-mapped scanner straight into a batch.
+     * 
+     * @param inputFile the file to read
+     * @param batch the batch to fill
+     * @param sink the sink receiving each full batch
+     * @param rejects the log recording rejected rows
+     * @return the number of rows added to batches
+     * @throws IOException if the file cannot be read, the sink fails or too many rows are rejected
+     */
+    private int readBatchesMapped(File inputFile, ProductBatch batch, ProductBatchSink sink, RejectLog rejects)
+            throws IOException {
+        int[] productCount = {0};
+        
+        try (FileChannel channel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ)) {
+            MappedCSVScanner scanner = new MappedCSVScanner(channel);
+            scanner.scan(batchLineHandler(0, batch, sink, rejects, productCount));
+            
+        } catch (IOException e) {
+            throw new IOException("Failed to read file: " + inputFile.getPath() + ". " + e.getMessage(), e);
+        }
+        
+        return productCount[0];
+    }
+    
+    /**
+     * Reads the rows in a line-aligned byte range of a file into batches.
+     * 
+     * Used to resume reading part way through a file: rows are parsed exactly as
+     * {@link #readBatches} parses them, and warnings carry line numbers counted
+     * from the start of the file. Full batches are passed to the sink; rows
+     * still in the batch at the end of the range are left for the caller. If
+     * the range ends inside a quoted field, reading stops before that record
+     * and the scanner's {@link MappedCSVScanner#endOffset()} tells where.
+     * 
+     * @param scanner a scanner over the open file
+     * @param start the offset of a record start
+     * @param end the offset of a line start, or the file size
+     * @param linesBefore the number of lines before the start offset, including blank ones
+     * @param batch the batch to fill
+     * @param sink the sink receiving each full batch
+     * @param rejects the log recording rejected rows, see {@link #openRejectLog()}
+     * @return the number of lines read, including blank ones
+     * @throws IOException if the file cannot be read, the sink fails or too many rows are rejected
+     */
+    int readBatchRange(MappedCSVScanner scanner, long start, long end, int linesBefore,
+                       ProductBatch batch, ProductBatchSink sink, RejectLog rejects) throws IOException {
+        return scanner.scan(start, end, batchLineHandler(linesBefore, batch, sink, rejects, new int[1]));
+    }
+    
+    /**
+     * Creates a scanner callback that parses rows into a batch, skipping the
+     * header row and reporting invalid rows.
+     * 
+     * @param linesBefore the number of lines before the scanned range
+     * @param batch the batch to fill
+     * @param sink the sink receiving each full batch
+     * @param rejects the log recording rejected rows
+     * @param productCount single-element counter of rows added to the batch
+     * @return the callback
+     */
+    private MappedCSVScanner.LineHandler batchLineHandler(int linesBefore, ProductBatch batch, ProductBatchSink sink,
+                                                           RejectLog rejects, int[] productCount) {
+        RejectLog.Rejection rejection = new RejectLog.Rejection();
+        return (relativeLineNumber, row) -> {
+            int lineNumber = linesBefore + relativeLineNumber;
+            // Skip header row (first line)
+            if (lineNumber == 1) {
+                return;
+            }
+            
+            if (!parseRowIntoBatch(row, lineNumber, batch, rejection)) {
+                rejects.reject(lineNumber, rejection, row.line());
+                return;
+            }
+            
+            rejects.accept();
+            productCount[0]++;
+            if (batch.isFull()) {
+                sink.accept(batch);
+                batch.clear();
+            }
+        };
+    }
+    
+    /**
+     * Parses a row located by the memory-mapped scanner into the next row of a batch.
+     * Plain rows with a two-decimal price and non-empty fields are copied column by
+     * column; anything else goes through {@link #parseProductFromRow}, so rejected
+     * rows are rejected for exactly the same reason.
+     * 
+     * @param row the scanner's view of the current line
+     * @param lineNumber the line number for error reporting
+     * @param batch the batch to append to
+     * @param rejection filled in if the row is rejected
+     * @return false if the row format is invalid
+     */
+    private boolean parseRowIntoBatch(MappedCSVScanner.Row row, int lineNumber, ProductBatch batch,
+                                      RejectLog.Rejection rejection) {
+        long priceCents = row.columnCount() < EXPECTED_COLUMNS || row.isUnterminated()
+            ? FixedPointPrice.UNKNOWN : row.parseCents(2);
+        if (priceCents == FixedPointPrice.UNKNOWN || row.isEmpty(0) || row.isEmpty(1) || row.isEmpty(3)) {
+            Product product = parseProductFromRow(row, lineNumber, rejection);
+            if (product == null) {
+                return false;
+            }
+            batch.add(product);
+            return true;
+        }
+        
+        int categoryCode = row.intern(3, categories);
+        String category = categoryCode == CategoryDictionary.NO_CODE ? row.text(3) : null;
+        
+        int index = batch.beginRow(row.text(0), FixedPointPrice.toDouble(priceCents), priceCents,
+                                   categoryCode, category);
+        if (row.isAscii(1)) {
+            int offset = batch.reserveName(index, row.length(1));
+            row.copyTo(1, batch.nameBytes, offset);
+        } else {
+            batch.setNameText(index, row.text(1));
+        }
+        return true;
+    }
+    
+    /**
+     * Reads products through the memory-mapped scanner.
+     * Produces the same products and warnings as the line-by-line reader.
+     * 
+     * @param inputFile the file to read
+     * @param sink the sink receiving each parsed product in file order
+     * @param filter the filter ruling out rows before they are parsed, or null
+     * @param rejects the log recording rejected rows
+     * @return the number of products passed to the sink
+     * @throws IOException if the file cannot be read, the sink fails or too many rows are rejected
+     */
+    private int readProductsMapped(File inputFile, ProductSink sink, MappedCSVScanner.RowFilter filter,
+                                   RejectLog rejects) throws IOException {
+        int[] productCount = {0};
+        RejectLog.Rejection rejection = new RejectLog.Rejection();
+        
+        try (FileChannel channel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ)) {
+            MappedCSVScanner scanner = new MappedCSVScanner(channel);
+            scanner.scan((lineNumber, row) -> {
                 // Skip header row (first line)
                 if (lineNumber == 1) {
-                    continue;
+                    return;
                 }
                 
-                try {
-                    Product product = parseProductFromLine(line, lineNumber);
+                if (filter != null && !filter.mayMatch(row)) {
+                    rejects.accept();
+                    return;
+                }
+                
+                Product product = parseProductFromRow(row, lineNumber, rejection);
+                if (product == null) {
+                    rejects.reject(lineNumber, rejection, row.line());
+                    return;
+                }
+                
+                rejects.accept();
+                sink.accept(product);
+                productCount[0]++;
+            });
+            
+        } catch (IOException e) {
+            throw new IOException("Failed to read file: " + inputFile.getPath() + ". " + e.getMessage(), e);
+        }
+        
+        return productCount[0];
+    }
+    
+    /**
+     * Reads products by parsing line-aligned chunks of a memory-mapped file in parallel.
+     * 
+     * Chunks are merged strictly in file order on the calling thread, so the sink
+     * sees the same sequence as with sequential reading. Only a bounded number of
+     * chunks is parsed ahead of the merge to keep memory use flat.
+     * 
+     * @param inputFile the file to read
+     * @param sink the sink receiving each parsed product in file order
+     * @param filter the filter ruling out rows before they are parsed, or null
+     * @param rejects the log recording rejected rows
+     * @return the number of products passed to the sink
+     * @throws IOException if the file cannot be read, the sink fails or too many rows are rejected
+     */
+    private int readProductsParallel(File inputFile, ProductSink sink, MappedCSVScanner.RowFilter filter,
+                                     RejectLog rejects) throws IOException {
+        int productCount = 0;
+        
+        try (FileChannel channel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ)) {
+            MappedCSVScanner boundaryScanner = new MappedCSVScanner(channel);
+            long size = channel.size();
+            int maxInFlight = Math.max(1, pool.getParallelism() * CHUNKS_IN_FLIGHT_PER_WORKER);
+            Deque<ForkJoinTask<ChunkResult>> inFlight = new ArrayDeque<>();
+            
+            long chunkStart = 0;
+            int lineOffset = 0;
+            while (chunkStart < size || !inFlight.isEmpty()) {
+                // Keep the pool busy with chunks ahead of the merge point
+                while (chunkStart < size && inFlight.size() < maxInFlight) {
+                    long start = chunkStart;
+                    long end = boundaryScanner.nextLineStart(Math.min(size, start + parallelChunkSize));
+                    inFlight.addLast(pool.submit(() -> parseChunk(channel, start, end, filter)));
+                    chunkStart = end;
+                }
+                
+                ChunkResult chunk = joinChunk(inFlight.removeFirst());
+                int nextFailure = 0;
+                for (int i = 0; i < chunk.products.size(); i++) {
+                    // Report rows that failed before this product, with global line numbers
+                    while (nextFailure < chunk.failedPositions.size() && chunk.failedPositions.get(nextFailure) == i) {
+                        reportFailedRow(chunk, nextFailure++, lineOffset, rejects);
+                    }
+                    rejects.accept();
+                    Product product = chunk.products.get(i);
                     if (product != null) {
-                        products.add(product);
+                        sink.accept(product);
+                        productCount++;
+                    }
+                }
+                while (nextFailure < chunk.failedPositions.size()) {
+                    reportFailedRow(chunk, nextFailure++, lineOffset, rejects);
+                }
+                lineOffset += chunk.lineCount;
+                
+                if (chunk.endOffset != chunk.end) {
+                    // A quoted field crossed the chunk boundary, so the chunks after it started mid-record
+                    for (ForkJoinTask<ChunkResult> task : inFlight) {
+                        task.cancel(false);
                     }
-                } catch (Exception e) {
-                    System.err.println("Warning: Skipping row " + lineNumber + " due to error: " + e.getMessage());
-                    // Continue processing other lines instead of failing completely
+                    inFlight.clear();
+                    chunkStart = chunk.endOffset;
                 }
             }
             
         } catch (IOException e) {
-            throw new IOException("Failed to read file: " + filePath + ". " + e.getMessage(), e);
+            throw new IOException("Failed to read file: " + inputFile.getPath() + ". " + e.getMessage(), e);
         }
         
-        return products;
+        return productCount;
+    }
+    
+    /**
+     * Parses one line-aligned chunk of the file on a pool worker.
+     * Line numbers in the result are relative to the start of the chunk.
+     * 
+     * The chunk is assumed to start at a record boundary. If it ends inside a
+     * quoted field, parsing stops before that record, or carries on past the
+     * chunk end if the record started the chunk; the result's end offset
+     * tells where the next chunk really starts.
+     * 
+     * @param channel the open channel of the input file
+     * @param start the offset of the first line in the chunk
+     * @param end the offset just past the chunk
+     * @param filter the filter ruling out rows before they are parsed, or null
+     * @return the products and failed rows found in the chunk
+     * @throws IOException if the chunk cannot be mapped
+     */
+    private ChunkResult parseChunk(FileChannel channel, long start, long end, MappedCSVScanner.RowFilter filter)
+            throws IOException {
+        ChunkResult result = new ChunkResult();
+        result.end = end;
+        MappedCSVScanner scanner = new MappedCSVScanner(channel);
+        RejectLog.Rejection rejection = new RejectLog.Rejection();
+        
+        MappedCSVScanner.LineHandler handler = (lineNumber, row) -> {
+            // Skip header row (first line of the file)
+            if (start == 0 && lineNumber == 1) {
+                return;
+            }
+            
+            if (filter != null && !filter.mayMatch(row)) {
+                // Keeps the row's place so it still counts as accepted, in order
+                result.products.add(null);
+                return;
+            }
+            
+            Product product = parseProductFromRow(row, lineNumber, rejection);
+            if (product != null) {
+                result.products.add(product);
+            } else {
+                // The warning needs the global line number, so keep the raw line for later
+                result.failedPositions.add(result.products.size());
+                result.failedLines.add(lineNumber);
+                result.failedText.add(row.line());
+            }
+        };
+        
+        long limit = end;
+        result.lineCount = scanner.scan(start, limit, handler);
+        while (scanner.endOffset() == start) {
+            // A single record is longer than the chunk; widen it until the record fits
+            limit = scanner.nextLineStart(Math.min(channel.size(), start + 2 * (limit - start)));
+            result.lineCount = scanner.scan(start, limit, handler);
+        }
+        result.endOffset = scanner.endOffset();
+        return result;
+    }
+    
+    /**
+     * Waits for a chunk to finish parsing, unwrapping I/O failures.
+     * 
+     * @param task the chunk task
+     * @return the chunk result
+     * @throws IOException if the chunk could not be read
+     */
+    private ChunkResult joinChunk(ForkJoinTask<ChunkResult> task) throws IOException {
+        try {
+            return task.join();
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Records a failed row using its global line number.
+     * The row is parsed again so the message is exactly the sequential one.
+     * 
+     * @param chunk the chunk containing the failed row
+     * @param index the index of the failed row within the chunk
+     * @param lineOffset the number of lines in all earlier chunks
+     * @param rejects the log recording rejected rows
+     * @throws IOException if the quarantine file cannot be written or too many rows are rejected
+     */
+    private void reportFailedRow(ChunkResult chunk, int index, int lineOffset, RejectLog rejects) throws IOException {
+        int lineNumber = lineOffset + chunk.failedLines.get(index);
+        String text = chunk.failedText.get(index);
+        RejectLog.Rejection rejection = new RejectLog.Rejection();
+        parseProductFromLine(text, lineNumber, rejection);
+        rejects.reject(lineNumber, rejection, text);
     }
     
     /**
-     * Parses a single CSV line into a Product object.
+     * Parses a row located by the memory-mapped scanner into a Product object.
+     * Mirrors {@link #parseProductFromLine} but reads fields straight from the
+     * mapped bytes, so only the final field Strings are allocated.
      * 
-     * @param line the CSV line to parse
+     * @param row the scanner's view of the current line
      * @param lineNumber the line number for error reporting
-     * @return a Product object created from the CSV line
-     * @throws IllegalArgumentException if the line format is invalid
+     * @param rejection filled in if the row is rejected
+     * @return a Product object created from the row, or null if the row format is invalid
      */
-    private Product parseProductFromLine(String line, int lineNumber) {
-        String[] columns = line.split(",");
+    private Product parseProductFromRow(MappedCSVScanner.Row row, int lineNumber, RejectLog.Rejection rejection) {
+        if (row.isUnterminated()) {
+            rejectUnterminated(lineNumber, rejection);
+            return null;
+        }
+        if (row.columnCount() < EXPECTED_COLUMNS) {
+            rejection.set(RejectReason.INSUFFICIENT_COLUMNS,
+                String.format("Insufficient columns: expected %d but found %d", 
+                            EXPECTED_COLUMNS, row.columnCount()));
+            return null;
+        }
         
-        // Trim whitespace from each column
-        for (int i = 0; i < columns.length; i++) {
-            columns[i] = columns[i].trim();
+        // Parse price straight from the mapped bytes, as exact cents when possible
+        long priceCents = row.parseCents(2);
+        double price = priceCents != FixedPointPrice.UNKNOWN
+            ? FixedPointPrice.toDouble(priceCents)
+            : row.parseDouble(2);
+        if (Double.isNaN(price) && !NumberSyntax.isDouble(row.text(2))) {
+            rejectInvalidPrice(row.text(2), lineNumber, rejection);
+            return null;
+        }
+        
+        String productId = row.text(0);
+        String name = row.text(1);
+        String category = categoryText(row);
+        
+        // Basic validation
+        if (!validateProductData(productId, name, category, price, lineNumber, rejection)) {
+            return null;
+        }
+        
+        return createProduct(productId, name, price, priceCents, category);
+    }
+    
+    /**
+     * Gets the category field of a row as the dictionary's canonical String,
+     * so known categories are neither decoded nor allocated per row.
+     * 
+     * @param row the scanner's view of the current line
+     * @return the category text
+     */
+    private String categoryText(MappedCSVScanner.Row row) {
+        if (row.isEmpty(3)) {
+            return "";
+        }
+        int code = row.intern(3, categories);
+        return code == CategoryDictionary.NO_CODE ? row.text(3) : categories.name(code);
+    }
+    
+    /**
+     * Parses a single CSV record into a Product object.
+     * 
+     * @param line the trimmed CSV record to parse, which may span lines inside quoted fields
+     * @param lineNumber the line number for error reporting
+     * @param rejection filled in if the line is rejected
+     * @return a Product object created from the CSV line, or null if the line format is invalid
+     */
+    private Product parseProductFromLine(String line, int lineNumber, RejectLog.Rejection rejection) {
+        String[] columns;
+        if (line.indexOf(CsvSyntax.QUOTE) < 0) {
+            columns = line.split(",");
+            
+            // Trim whitespace from each column
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = columns[i].trim();
+            }
+        } else {
+            columns = CsvSyntax.split(line);
+            if (columns == null) {
+                rejectUnterminated(lineNumber, rejection);
+                return null;
+            }
         }
         
         if (columns.length < EXPECTED_COLUMNS) {
-            throw new IllegalArgumentException(
+            rejection.set(RejectReason.INSUFFICIENT_COLUMNS,
                 String.format("Insufficient columns: expected %d but found %d", 
                             EXPECTED_COLUMNS, columns.length));
+            return null;
         }
         
-        try {
-            String productId = columns[0];
-            String name = columns[1];
-            String priceStr = columns[2];
-            String category = columns[3];
-            
-            // Parse price
-            double price = Double.parseDouble(priceStr);
-            
-            // Basic validation
-            validateProductData(productId, name, category, price, lineNumber);
-            
-            return new Product(productId, name, price, category);
-            
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException(
-                String.format("Invalid price format in line %d: %s", lineNumber, e.getMessage()));
+        String productId = columns[0];
+        String name = columns[1];
+        String priceStr = columns[2];
+        String category = columns[3];
+        
+        // Parse price, as exact cents when possible
+        long priceCents = FixedPointPrice.parseCents(priceStr);
+        double price;
+        if (priceCents != FixedPointPrice.UNKNOWN) {
+            price = FixedPointPrice.toDouble(priceCents);
+        } else if (NumberSyntax.isDouble(priceStr)) {
+            price = Double.parseDouble(priceStr);
+        } else {
+            rejectInvalidPrice(priceStr, lineNumber, rejection);
+            return null;
+        }
+        
+        // Basic validation
+        if (!validateProductData(productId, name, category, price, lineNumber, rejection)) {
+            return null;
+        }
+        
+        return createProduct(productId, name, price, priceCents, category);
+    }
+    
+    /**
+     * Rejects a row whose price is not a number, with the message the number parser would give.
+     * 
+     * @param priceText the trimmed price text
+     * @param lineNumber the line number for error reporting
+     * @param rejection the rejection to fill in
+     */
+    private static void rejectInvalidPrice(String priceText, int lineNumber, RejectLog.Rejection rejection) {
+        rejection.set(RejectReason.INVALID_PRICE,
+            String.format("Invalid price format in line %d: %s", lineNumber, NumberSyntax.errorMessage(priceText)));
+    }
+    
+    /**
+     * Rejects a row whose last quoted field is never closed before the end of the file.
+     * 
+     * @param lineNumber the line number for error reporting
+     * @param rejection the rejection to fill in
+     */
+    private static void rejectUnterminated(int lineNumber, RejectLog.Rejection rejection) {
+        rejection.set(RejectReason.UNTERMINATED_QUOTE, "Unterminated quoted field in line " + lineNumber);
+    }
+    
+    /**
+     * Creates a product, carrying the price as fixed-point cents when it was parsed exactly.
+     * 
+     * @param productId product ID
+     * @param name product name
+     * @param price product price in dollars
+     * @param priceCents product price in cents, or FixedPointPrice.UNKNOWN
+     * @param category product category
+     * @return the new product
+     */
+    private Product createProduct(String productId, String name, double price, long priceCents, String category) {
+        Product product = new Product(productId, name, price, category);
+        if (priceCents != FixedPointPrice.UNKNOWN) {
+            product.setPriceCents(priceCents);
         }
+        return product;
     }
     
     /**
@@ -118,21 +932,32 @@ public class CSVReader {
      * @param category product category
      * @param price product price
      * @param lineNumber line number for error reporting
-     * @throws IllegalArgumentException if validation fails
+     * @param rejection filled in if validation fails
+     * @return true if the data is valid
      */
-    private void validateProductData(String productId, String name, String category, double price, int lineNumber) {
+    private boolean validateProductData(String productId, String name, String category, double price, int lineNumber,
+                                        RejectLog.Rejection rejection) {
         if (productId.isEmpty()) {
-            throw new IllegalArgumentException("Product ID cannot be empty in line " + lineNumber);
+            rejection.set(RejectReason.EMPTY_PRODUCT_ID, "Product ID cannot be empty in line " + lineNumber);
+            return false;
         }
         if (name.isEmpty()) {
-            throw new IllegalArgumentException("Product name cannot be empty in line " + lineNumber);
+            rejection.set(RejectReason.EMPTY_NAME, "Product name cannot be empty in line " + lineNumber);
+            return false;
         }
         if (category.isEmpty()) {
-            throw new IllegalArgumentException("Product category cannot be empty in line " + lineNumber);
+            rejection.set(RejectReason.EMPTY_CATEGORY, "Product category cannot be empty in line " + lineNumber);
+            return false;
         }
         if (price < 0) {
-            throw new IllegalArgumentException("Product price cannot be negative in line " + lineNumber);
+            rejection.set(RejectReason.NEGATIVE_PRICE, "Product price cannot be negative in line " + lineNumber);
+            return false;
+        }
+        if (Double.isNaN(price) || Double.isInfinite(price)) {
+            rejection.set(RejectReason.INVALID_PRICE, "Product price must be a finite number in line " + lineNumber);
+            return false;
         }
+        return true;
     }
     
     /**
@@ -147,6 +972,33 @@ public class CSVReader {
         }
     }
     
+    /**
+     * Products and failed rows parsed from one chunk in parallel mode.
+     */
+    private static final class ChunkResult {
+        
+        /** Products parsed from the chunk, in file order, with null for rows ruled out by the filter */
+        final List<Product> products = new ArrayList<>();
+        
+        /** Number of products parsed before each failed row */
+        final List<Integer> failedPositions = new ArrayList<>();
+        
+        /** Chunk-relative line numbers of rows that failed to parse */
+        final List<Integer> failedLines = new ArrayList<>();
+        
+        /** Trimmed text of each failed row */
+        final List<String> failedText = new ArrayList<>();
+        
+        /** Number of lines in the chunk, including blank ones */
+        int lineCount;
+        
+        /** Offset just past the chunk as it was submitted */
+        long end;
+        
+        /** Offset just past the last record parsed, where the next chunk must start */
+        long endOffset;
+    }
+    
     /**
      * Gets the expected number of columns in the CSV file.
      * This method is provided for testing purposes.
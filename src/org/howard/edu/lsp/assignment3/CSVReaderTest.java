@@ -0,0 +1,213 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * JUnit test class for CSVReader.
+ * Checks that the line-by-line reader, the memory-mapped scanner and the
+ * parallel chunked reader parse RFC 4180 input into the same products and
+ * reject the same rows with the same line numbers.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class CSVReaderTest {
+    
+    /** Chunk sizes for the parallel reader, small enough to split the test files many times */
+    private static final long[] CHUNK_SIZES = {1, 7, 16, 64, 100, 257, 1000};
+    
+    /** Workers parsing chunks in parallel */
+    private static final int PARALLELISM = 4;
+    
+    /**
+     * Builds a test file exercising quoting, blank lines, malformed rows and
+     * quoted fields at every offset within an 8-byte word.
+     * 
+     * @param newline the line separator, also used inside quoted fields
+     * @param trailingNewline whether the last row ends with a line separator
+     * @param unterminatedTail whether the file ends inside a quoted field
+     */
+    private static String content(String newline, boolean trailingNewline, boolean unterminatedTail) {
+        List<String> rows = new ArrayList<>();
+        rows.add("ProductID,Name,Price,Category");
+        rows.add("1,\"Widget, large\",10.00,Toys");
+        rows.add("2,\"The \"\"Best\"\" Widget\",5.50,Books");
+        rows.add("3,\"Multi" + newline + "line name\",7.25,Electronics");
+        rows.add("4, Spaced ,  3.00 , Toys ");
+        rows.add("");
+        rows.add("5,Only three,1.00");
+        rows.add("6,Bad price,abc,Books");
+        rows.add("7,\"\",1.00,Books");
+        rows.add("8,Negative,-1.00,Books");
+        rows.add("9,Quoted price,\"1,200.00\",Electronics");
+        rows.add("10,\"\"\"\",2.00,\"Home, Garden\"");
+        for (int k = 0; k < 18; k++) {
+            String padding = "abcdefghijklmnopqr".substring(0, k);
+            rows.add((100 + k) + ",\"" + padding + "\"\"q\"\", ok\"," + k + ".75,Cat" + (k % 3));
+            rows.add((200 + k) + "," + padding + "x,\"" + (k + 1) + ".50\",Electronics");
+            rows.add((300 + k) + "," + padding + "y" + ",1" + k + ".00,\"" + padding + "\"");
+        }
+        for (int i = 0; i < 60; i++) {
+            rows.add((400 + i) + ",\"Line one " + i + newline + "line two, with \"\"comma\"\"\","
+                     + (i * 13 % 700) + ".0" + (i % 10) + "," + (i % 2 == 0 ? "Toys" : "Electronics"));
+        }
+        rows.add("999,Last row,1.00,Books");
+        if (unterminatedTail) {
+            rows.add("1000,\"never closed,1.00,Toys" + newline + "1001,Swallowed,2.00,Toys");
+        }
+        String text = String.join(newline, rows);
+        return trailingNewline ? text + newline : text;
+    }
+    
+    /**
+     * Reads a file through a reader, returning the described products followed
+     * by the quarantine file, which holds every rejected row with its line number.
+     */
+    private static List<String> read(CSVReader reader, Path input, Path quarantine) throws IOException {
+        reader.setQuarantineFile(quarantine.toString());
+        List<String> result = new ArrayList<>();
+        reader.readProducts(input.toString(), product -> result.add(TestProducts.describe(product)));
+        result.add(new String(Files.readAllBytes(quarantine), StandardCharsets.UTF_8));
+        return result;
+    }
+    
+    /**
+     * Reads a file through a reader's batch path, in the same form as {@link #read}.
+     */
+    private static List<String> readBatches(CSVReader reader, Path input, Path quarantine) throws IOException {
+        reader.setQuarantineFile(quarantine.toString());
+        List<String> result = new ArrayList<>();
+        reader.readBatches(input.toString(), new ProductBatch(16), batch -> {
+            for (int row = 0; row < batch.size(); row++) {
+                result.add(TestProducts.describe(batch.toProduct(row)));
+            }
+        });
+        result.add(new String(Files.readAllBytes(quarantine), StandardCharsets.UTF_8));
+        return result;
+    }
+    
+    /**
+     * Checks every reader path against the line-by-line reader for one file.
+     */
+    private static void assertParity(Path tempDir, String content, String description) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        Path quarantine = tempDir.resolve("quarantine.csv");
+        Files.write(input, content.getBytes(StandardCharsets.UTF_8));
+        
+        List<String> expected = read(new CSVReader(Long.MAX_VALUE), input, quarantine);
+        assertEquals(expected, read(new CSVReader(0), input, quarantine), description + ", mapped");
+        assertEquals(expected, readBatches(new CSVReader(Long.MAX_VALUE), input, quarantine),
+                     description + ", line batches");
+        assertEquals(expected, readBatches(new CSVReader(0), input, quarantine), description + ", mapped batches");
+        
+        ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+        try {
+            for (long chunkSize : CHUNK_SIZES) {
+                assertEquals(expected, read(new CSVReader(0, pool, chunkSize), input, quarantine),
+                             description + ", parallel with " + chunkSize + "-byte chunks");
+                assertEquals(expected, readBatches(new CSVReader(0, pool, chunkSize), input, quarantine),
+                             description + ", parallel batches with " + chunkSize + "-byte chunks");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Tests that the line reader applies RFC 4180 quoting.
+     */
+    @Test
+    @DisplayName("Test quoted fields")
+    public void testQuotedFields(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        Files.write(input, content("\r\n", true, false).getBytes(StandardCharsets.UTF_8));
+        
+        List<Product> products = new CSVReader(Long.MAX_VALUE).readProducts(input.toString());
+        
+        assertEquals("Widget, large", products.get(0).getName());
+        assertEquals("The \"Best\" Widget", products.get(1).getName());
+        // Line breaks inside quoted fields are read as LF, on every reader path
+        assertEquals("Multi\nline name", products.get(2).getName());
+        assertEquals("Spaced", products.get(3).getName());
+        assertEquals("Toys", products.get(3).getCategory());
+        assertEquals(300, products.get(3).getPriceCents());
+        assertEquals("\"", products.get(4).getName());
+        assertEquals("Home, Garden", products.get(4).getCategory());
+        assertEquals("999", products.get(products.size() - 1).getProductId());
+    }
+    
+    /**
+     * Tests parity with LF line endings, with and without a trailing newline.
+     */
+    @Test
+    @DisplayName("Test reader parity with LF")
+    public void testParityLf(@TempDir Path tempDir) throws IOException {
+        assertParity(tempDir, content("\n", true, false), "LF");
+        assertParity(tempDir, content("\n", false, false), "LF without trailing newline");
+    }
+    
+    /**
+     * Tests parity with CRLF line endings, with and without a trailing newline.
+     */
+    @Test
+    @DisplayName("Test reader parity with CRLF")
+    public void testParityCrlf(@TempDir Path tempDir) throws IOException {
+        assertParity(tempDir, content("\r\n", true, false), "CRLF");
+        assertParity(tempDir, content("\r\n", false, false), "CRLF without trailing newline");
+    }
+    
+    /**
+     * Tests parity when the file ends inside a quoted field.
+     */
+    @Test
+    @DisplayName("Test reader parity with unterminated quote")
+    public void testParityUnterminated(@TempDir Path tempDir) throws IOException {
+        assertParity(tempDir, content("\n", true, true), "unterminated LF");
+        assertParity(tempDir, content("\r\n", false, true), "unterminated CRLF");
+    }
+    
+    /**
+     * Tests that small mapping windows, which cut records at every offset,
+     * find the same records as one window over the whole file.
+     */
+    @Test
+    @DisplayName("Test scanner window boundaries")
+    public void testScannerWindows(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        Files.write(input, content("\r\n", false, false).getBytes(StandardCharsets.UTF_8));
+        
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            List<String> expected = scan(new MappedCSVScanner(channel));
+            for (int windowSize = 80; windowSize <= 200; windowSize += 13) {
+                assertEquals(expected, scan(new MappedCSVScanner(channel, windowSize)), "window " + windowSize);
+            }
+        }
+    }
+    
+    /**
+     * Scans a file, describing each record by its line number and fields.
+     */
+    private static List<String> scan(MappedCSVScanner scanner) throws IOException {
+        List<String> records = new ArrayList<>();
+        scanner.scan((lineNumber, row) -> {
+            StringBuilder record = new StringBuilder().append(lineNumber);
+            for (int column = 0; column < row.columnCount(); column++) {
+                record.append('|').append(row.text(column));
+            }
+            records.add(record.toString());
+        });
+        return records;
+    }
+}
@@ -1,9 +1,14 @@
 package org.howard.edu.lsp.assignment3;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.zip.DeflaterOutputStream;
 
 
 public class CSVWriter {
@@ -11,12 +16,126 @@ public class CSVWriter {
     /** CSV header matching Assignment 2 output format */
     private static final String CSV_HEADER = "ProductID,Name,Price,Category,PriceRange";
     
+    /** Default size of the output buffer (1 MB) */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    
+    /** Smallest accepted output buffer size */
+    private static final int MIN_BUFFER_SIZE = 64;
+    
+    /** Charset used to encode text, matching FileWriter */
+    private static final Charset CHARSET = Charset.defaultCharset();
+    
+    /** Line separator bytes, matching PrintWriter.println */
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(CHARSET);
+    
+    /**
+     * Controls when written data is forced to the storage device.
+     */
+    public enum SyncPolicy {
+        /** Never fsync; leave flushing to the operating system */
+        NONE,
+        /** Fsync once when the file is closed */
+        ON_CLOSE,
+        /** Fsync after every buffer flush and when the file is closed */
+        EVERY_FLUSH
+    }
+    
+    /** Size of the reusable output buffer in bytes */
+    private final int bufferSize;
+    
+    /** When written data is forced to disk */
+    private final SyncPolicy syncPolicy;
+    
+    /** Compression applied to written files */
+    private final CompressionCodec compression;
+    
+    /** Whether full-row CSV files are written with a ProductID index */
+    private boolean indexing;
+    
+    /**
+     * Constructs a CSV writer with a {@link #DEFAULT_BUFFER_SIZE} buffer that never fsyncs.
+     */
+    public CSVWriter() {
+        this(DEFAULT_BUFFER_SIZE, SyncPolicy.NONE);
+    }
+    
+    /**
+     * Constructs a CSV writer with a custom buffer size and fsync policy.
+     * 
+     * @param bufferSize size in bytes of the buffer rows are encoded into before each write
+     * @param syncPolicy when written data is forced to the storage device
+     * @throws IllegalArgumentException if the buffer is too small or the policy is null
+     */
+    public CSVWriter(int bufferSize, SyncPolicy syncPolicy) {
+        this(bufferSize, syncPolicy, CompressionCodec.NONE);
+    }
+    
+    /**
+     * Constructs a CSV writer that compresses the files it writes.
+     * 
+     * @param bufferSize size in bytes of the buffer rows are encoded into before each write
+     * @param syncPolicy when written data is forced to the storage device
+     * @param compression the compression applied to written files
+     * @throws IllegalArgumentException if the buffer is too small or the policy or codec is null
+     */
+    public CSVWriter(int bufferSize, SyncPolicy syncPolicy, CompressionCodec compression) {
+        if (compression == null) {
+            throw new IllegalArgumentException("Compression codec cannot be null");
+        }
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be at least " + MIN_BUFFER_SIZE + " bytes");
+        }
+        if (syncPolicy == null) {
+            throw new IllegalArgumentException("Sync policy cannot be null");
+        }
+        this.bufferSize = bufferSize;
+        this.syncPolicy = syncPolicy;
+        this.compression = compression;
+    }
+    
+    /**
+     * Gets the compression applied to written files.
+     * 
+     * @return the compression codec
+     */
+    public CompressionCodec getCompression() {
+        return compression;
+    }
+    
+    /**
+     * Enables or disables writing a ProductID index next to each full-row CSV
+     * file, named by {@link ProductIndex#indexPathFor}. The index is written
+     * when the file is closed and can then be opened with {@link ProductIndex}.
+     * Files written with selected columns are not indexed.
+     * 
+     * @param indexing true to write an index with each file
+     * @throws IllegalArgumentException if indexing is enabled and the output is compressed
+     */
+    public void setIndexing(boolean indexing) {
+        if (indexing && compression != CompressionCodec.NONE) {
+            throw new IllegalArgumentException("Compressed output cannot be indexed");
+        }
+        this.indexing = indexing;
+    }
+    
+    /**
+     * Checks whether CSV files are written with a ProductID index.
+     * 
+     * @return true if indexing is enabled
+     */
+    public boolean isIndexing() {
+        return indexing;
+    }
+    
     /**
      * Writes a list of products to a CSV file with the exact format from Assignment 2.
      * 
      * The output format follows the pattern:
      * ProductID,Name,Price,Category,PriceRange
      * 
+     * Fields containing a comma, quote or line break, or with blanks at either
+     * end, are quoted as RFC 4180 describes so that they read back unchanged.
+     * 
      * @param products the list of products to write
      * @param filePath the path where the CSV file will be created
      * @throws IOException if the file cannot be written
@@ -25,45 +144,558 @@ public class CSVWriter {
     public void writeProducts(List<Product> products, String filePath) throws IOException {
         validateInputs(products, filePath);
         
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
-            // Write header row
-            writer.println(CSV_HEADER);
-            
+        try (ProductSink sink = openProductSink(filePath)) {
             // Write product data
             for (Product product : products) {
-                if (product != null) {
-                    String csvLine = formatProductToCsv(product);
-                    writer.println(csvLine);
-                }
+                sink.accept(product);
             }
-            
+        }
+    }
+    
+    /**
+     * Opens a sink that writes products to a CSV file one row at a time.
+     * The header row is written immediately; each accepted product is encoded
+     * straight into the output buffer, which is written to the file in large
+     * blocks, and the file is closed when the sink is closed.
+     * 
+     * @param filePath the path where the CSV file will be created
+     * @return a sink writing CSV rows to the given file
+     * @throws IOException if the file cannot be opened for writing
+     * @throws IllegalArgumentException if the file path is null or empty
+     */
+    public ProductSink openProductSink(String filePath) throws IOException {
+        return openChannelSink(filePath);
+    }
+    
+    /**
+     * Opens a sink like {@link #openProductSink(String)} that writes only some
+     * columns, in the given order. Each column is encoded exactly as in a
+     * full row, and the header names the selected columns.
+     * 
+     * @param filePath the path where the CSV file will be created
+     * @param columns the columns to write, for example from {@link ProductQuery#getColumns()}
+     * @return a sink writing the selected columns of each product to the given file
+     * @throws IOException if the file cannot be opened for writing
+     * @throws IllegalArgumentException if the file path is null or empty, or no columns are given
+     */
+    public ProductSink openProductSink(String filePath, List<ProductQuery.Field> columns) throws IOException {
+        if (columns == null || columns.isEmpty()) {
+            throw new IllegalArgumentException("Columns cannot be null or empty");
+        }
+        return openChannelSink(filePath, columns.toArray(new ProductQuery.Field[0]));
+    }
+    
+    /**
+     * Opens a sink that writes columnar batches to a CSV file.
+     * Rows are encoded exactly as {@link #openProductSink} would encode the
+     * equivalent products; ASCII names are copied straight from the batch.
+     * 
+     * @param filePath the path where the CSV file will be created
+     * @return a sink writing each batch's rows to the given file
+     * @throws IOException if the file cannot be opened for writing
+     * @throws IllegalArgumentException if the file path is null or empty
+     */
+    public ProductBatchSink openBatchSink(String filePath) throws IOException {
+        return openChannelSink(filePath);
+    }
+    
+    /**
+     * Opens a sink like {@link #openProductSink} that also exposes its write
+     * position and accepts pre-encoded rows copied from another file.
+     * 
+     * @param filePath the path where the CSV file will be created
+     * @return a sink writing CSV rows to the given file
+     * @throws IOException if the file cannot be opened for writing
+     * @throws IllegalArgumentException if the file path is null or empty
+     */
+    ChannelProductSink openChannelSink(String filePath) throws IOException {
+        return openChannelSink(filePath, null);
+    }
+    
+    /**
+     * Opens a channel sink writing the given columns, or full rows.
+     * 
+     * @param filePath the path where the CSV file will be created
+     * @param columns the columns written for each product, or null for full rows
+     * @return a sink writing CSV rows to the given file
+     * @throws IOException if the file cannot be opened for writing
+     * @throws IllegalArgumentException if the file path is null or empty
+     */
+    private ChannelProductSink openChannelSink(String filePath, ProductQuery.Field[] columns) throws IOException {
+        validateFilePath(filePath);
+        
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+                                       StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
         } catch (IOException e) {
             throw new IOException("Failed to write to file: " + filePath + ". " + e.getMessage(), e);
         }
+        
+        DeflaterOutputStream compressor = null;
+        try {
+            compressor = compression.compress(Channels.newOutputStream(channel), syncPolicy == SyncPolicy.EVERY_FLUSH);
+        } catch (IOException e) {
+            channel.close();
+            throw new IOException("Failed to write to file: " + filePath + ". " + e.getMessage(), e);
+        }
+        ProductIndex.Builder index = indexing && columns == null ? new ProductIndex.Builder() : null;
+        ChannelProductSink sink = new ChannelProductSink(channel, compressor, filePath, columns, index);
+        
+        // Write header row
+        sink.writeText(columns == null ? CSV_HEADER : header(columns));
+        sink.writeBytes(LINE_SEPARATOR);
+        
+        return sink;
     }
     
     /**
-     * Formats a single Product object into CSV format.
-     * This method replicates the exact output format from Assignment 2.
+     * Reopens a partly written CSV file to continue writing it, discarding
+     * everything after the given offset. No header row is written.
      * 
-     * @param product the product to format
-     * @return a CSV-formatted string representing the product
+     * @param filePath the path of the existing CSV file
+     * @param offset the offset at which writing resumes, at most the file size
+     * @return a sink appending CSV rows at the offset
+     * @throws IOException if the file cannot be opened or is shorter than the offset, or the output is compressed
+     * @throws IllegalArgumentException if the file path is null or empty
+     */
+    ChannelProductSink reopenChannelSink(String filePath, long offset) throws IOException {
+        validateFilePath(filePath);
+        if (compression != CompressionCodec.NONE) {
+            throw new IOException("Cannot resume writing compressed file: " + filePath);
+        }
+        if (indexing) {
+            throw new IOException("Cannot resume writing indexed file: " + filePath);
+        }
+        
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new IOException("Failed to write to file: " + filePath + ". " + e.getMessage(), e);
+        }
+        
+        try {
+            if (channel.size() < offset) {
+                throw new IOException("File is shorter than the resume offset " + offset);
+            }
+            channel.truncate(offset);
+            channel.position(offset);
+        } catch (IOException e) {
+            channel.close();
+            throw new IOException("Failed to write to file: " + filePath + ". " + e.getMessage(), e);
+        }
+        
+        ChannelProductSink sink = new ChannelProductSink(channel, null, filePath, null, null);
+        sink.written = offset;
+        return sink;
+    }
+    
+    /**
+     * Sink encoding products directly into a reusable byte buffer that is
+     * flushed to a file channel, through the compressor if there is one,
+     * whenever it fills up.
+     * The row format replicates the exact output format from Assignment 2.
      */
-    private String formatProductToCsv(Product product) {
-        // Format price to 2 decimal places (matching Assignment 2 format)
-        String formattedPrice = String.format("%.2f", product.getPrice());
+    final class ChannelProductSink implements ProductSink, ProductBatchSink {
         
-        // Create CSV line with exact column order from Assignment 2
-        String[] csvFields = {
-            product.getProductId(),
-            product.getName(),
-            formattedPrice,
-            product.getCategory(),
-            product.getPriceRange()
-        };
+        /** Channel of the output file */
+        private final FileChannel channel;
         
-        // Join with commas (using String.join like Assignment 2)
-        return String.join(",", csvFields);
+        /** Compressor in front of the channel, or null to write uncompressed */
+        private final DeflaterOutputStream compressor;
+        
+        /** Number of uncompressed bytes already written */
+        private long written;
+        
+        /** Output file path for error reporting */
+        private final String filePath;
+        
+        /** Reusable output buffer */
+        private final byte[] buffer = new byte[bufferSize];
+        
+        /** Number of bytes currently held in the buffer */
+        private int count;
+        
+        /** Scratch space for writing price digits in reverse order */
+        private final byte[] digits = new byte[20];
+        
+        /** Dictionary holding the encoded category names */
+        private final CategoryDictionary dictionary = CategoryDictionary.shared();
+        
+        /** Columns written for each product, or null for full rows */
+        private final ProductQuery.Field[] columns;
+        
+        /** Index collecting the offset of each row, or null if the file is not indexed */
+        private final ProductIndex.Builder index;
+        
+        ChannelProductSink(FileChannel channel, DeflaterOutputStream compressor, String filePath,
+                           ProductQuery.Field[] columns, ProductIndex.Builder index) {
+            this.channel = channel;
+            this.compressor = compressor;
+            this.filePath = filePath;
+            this.columns = columns;
+            this.index = index;
+        }
+        
+        @Override
+        public void accept(Product product) throws IOException {
+            if (product == null) {
+                return;
+            }
+            if (columns != null) {
+                writeColumns(product);
+                return;
+            }
+            if (index != null) {
+                index.add(product.getProductId(), position());
+            }
+            
+            // Create CSV line with exact column order from Assignment 2
+            writeField(product.getProductId());
+            writeByte((byte) ',');
+            writeField(product.getName());
+            writeByte((byte) ',');
+            writePrice(product.hasPriceCents() ? product.getPriceCents() : FixedPointPrice.UNKNOWN,
+                       product.getPrice());
+            writeByte((byte) ',');
+            writeCategory(product.getCategoryCode(), product.getCategory());
+            writeByte((byte) ',');
+            writePriceRange(product.getRange(), product.getPriceRange());
+            writeBytes(LINE_SEPARATOR);
+        }
+        
+        /**
+         * Encodes the selected columns of a product as one row.
+         */
+        private void writeColumns(Product product) throws IOException {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writeByte((byte) ',');
+                }
+                switch (columns[i]) {
+                    case ID:
+                        writeField(product.getProductId());
+                        break;
+                    case NAME:
+                        writeField(product.getName());
+                        break;
+                    case PRICE:
+                        writePrice(product.hasPriceCents() ? product.getPriceCents() : FixedPointPrice.UNKNOWN,
+                                   product.getPrice());
+                        break;
+                    case CATEGORY:
+                        writeCategory(product.getCategoryCode(), product.getCategory());
+                        break;
+                    default:
+                        writePriceRange(product.getRange(), product.getPriceRange());
+                        break;
+                }
+            }
+            writeBytes(LINE_SEPARATOR);
+        }
+        
+        /**
+         * Gets the file offset at which the next byte will be written.
+         * 
+         * @return the number of bytes written so far, including buffered ones
+         */
+        long position() {
+            return written + count;
+        }
+        
+        /**
+         * Writes all buffered rows to the file and forces them to the storage
+         * device, so that everything before {@link #position()} survives a crash.
+         * 
+         * @throws IOException if the rows cannot be written or forced, or the output is compressed
+         */
+        void checkpoint() throws IOException {
+            if (compressor != null) {
+                throw new IOException("Cannot checkpoint compressed file: " + filePath);
+            }
+            flushBuffer();
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new IOException("Failed to write to file: " + filePath + ". " + e.getMessage(), e);
+            }
+        }
+        
+        /**
+         * Copies a range of already encoded rows from another file, bypassing the
+         * buffer and letting the operating system move the bytes directly.
+         * 
+         * @param source the channel to copy from
+         * @param offset the offset of the first byte to copy
+         * @param length the number of bytes to copy
+         * @throws IOException if the range cannot be copied in full or the output is compressed
+         */
+        void copyFrom(FileChannel source, long offset, long length) throws IOException {
+            if (compressor != null) {
+                throw new IOException("Cannot copy encoded rows into compressed file: " + filePath);
+            }
+            if (index != null) {
+                throw new IOException("Cannot copy encoded rows into indexed file: " + filePath);
+            }
+            flushBuffer();
+            long copied = 0;
+            try {
+                while (copied < length) {
+                    long transferred = source.transferTo(offset + copied, length - copied, channel);
+                    if (transferred <= 0) {
+                        throw new IOException("Unexpected end of source after " + copied + " of " + length + " bytes");
+                    }
+                    copied += transferred;
+                }
+            } catch (IOException e) {
+                throw new IOException("Failed to write to file: " + filePath + ". " + e.getMessage(), e);
+            } finally {
+                written += copied;
+            }
+        }
+        
+        @Override
+        public void accept(ProductBatch batch) throws IOException {
+            for (int i = 0; i < batch.size; i++) {
+                if (index != null) {
+                    index.add(batch.productIds[i], position());
+                }
+                writeField(batch.productIds[i]);
+                writeByte((byte) ',');
+                if (batch.nameLength[i] < 0) {
+                    writeField(batch.nameText[i]);
+                } else {
+                    writeFieldBytes(batch.nameBytes, batch.nameStart[i], batch.nameLength[i]);
+                }
+                writeByte((byte) ',');
+                writePrice(batch.priceCents[i], batch.prices[i]);
+                writeByte((byte) ',');
+                writeCategory(batch.categoryCodes[i], batch.categoryText[i]);
+                writeByte((byte) ',');
+                PriceRange range = PriceRange.fromCode(batch.priceRanges[i]);
+                writePriceRange(range, range == null ? "" : null);
+                writeBytes(LINE_SEPARATOR);
+            }
+        }
+        
+        /**
+         * Writes a category, copying the dictionary's pre-encoded bytes when it has a code.
+         * 
+         * @param code the category code, or CategoryDictionary.NO_CODE
+         * @param category the category text, used only if there is no code
+         */
+        private void writeCategory(int code, String category) throws IOException {
+            if (code == CategoryDictionary.NO_CODE) {
+                writeField(category);
+            } else {
+                byte[] bytes = dictionary.bytes(code);
+                writeFieldBytes(bytes, 0, bytes.length);
+            }
+        }
+        
+        /**
+         * Writes a price range, copying its pre-encoded label when it is a known range.
+         * 
+         * @param range the price range, or null if it is not a known range
+         * @param label the price range text, used only if the range is null
+         */
+        private void writePriceRange(PriceRange range, String label) throws IOException {
+            if (range == null) {
+                writeField(label);
+            } else {
+                writeBytes(range.bytes());
+            }
+        }
+        
+        /**
+         * Encodes a price with 2 decimal places (matching Assignment 2 format).
+         * 
+         * @param cents the price in cents, or FixedPointPrice.UNKNOWN to format the dollar price
+         * @param price the price in dollars
+         */
+        private void writePrice(long cents, double price) throws IOException {
+            if (cents == FixedPointPrice.UNKNOWN) {
+                writeText(String.format("%.2f", price));
+                return;
+            }
+            
+            int length = 0;
+            long value = cents / 100;
+            do {
+                digits[length++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+            
+            ensureCapacity(length + 3);
+            while (length > 0) {
+                buffer[count++] = digits[--length];
+            }
+            buffer[count++] = '.';
+            buffer[count++] = (byte) ('0' + (cents % 100) / 10);
+            buffer[count++] = (byte) ('0' + cents % 10);
+        }
+        
+        /**
+         * Encodes a field, quoting it if it would not read back unchanged otherwise.
+         */
+        private void writeField(String text) throws IOException {
+            writeText(text != null && CsvSyntax.needsQuoting(text) ? CsvSyntax.quote(text) : text);
+        }
+        
+        /**
+         * Writes an already encoded field, quoting it if it would not read back unchanged otherwise.
+         */
+        private void writeFieldBytes(byte[] bytes, int offset, int length) throws IOException {
+            if (CsvSyntax.needsQuoting(bytes, offset, length)) {
+                writeText(CsvSyntax.quote(new String(bytes, offset, length, CHARSET)));
+            } else {
+                writeBytes(bytes, offset, length);
+            }
+        }
+        
+        /**
+         * Encodes text, writing ASCII characters directly and falling back to
+         * the charset encoder for anything else.
+         */
+        private void writeText(String text) throws IOException {
+            // String.join and println write "null" for null fields
+            if (text == null) {
+                text = "null";
+            }
+            
+            int length = text.length();
+            for (int i = 0; i < length; i++) {
+                if (text.charAt(i) >= 0x80) {
+                    writeBytes(text.getBytes(CHARSET));
+                    return;
+                }
+            }
+            
+            if (length > buffer.length) {
+                writeBytes(text.getBytes(CHARSET));
+                return;
+            }
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                buffer[count++] = (byte) text.charAt(i);
+            }
+        }
+        
+        private void writeByte(byte b) throws IOException {
+            ensureCapacity(1);
+            buffer[count++] = b;
+        }
+        
+        private void writeBytes(byte[] bytes) throws IOException {
+            writeBytes(bytes, 0, bytes.length);
+        }
+        
+        private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+            if (length > buffer.length) {
+                // Too large to buffer; write it straight through
+                flushBuffer();
+                writeFully(ByteBuffer.wrap(bytes, offset, length));
+                return;
+            }
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, count, length);
+            count += length;
+        }
+        
+        private void ensureCapacity(int length) throws IOException {
+            if (count + length > buffer.length) {
+                flushBuffer();
+            }
+        }
+        
+        /**
+         * Writes the buffered bytes to the channel as one block.
+         */
+        private void flushBuffer() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            writeFully(ByteBuffer.wrap(buffer, 0, count));
+            count = 0;
+            if (syncPolicy == SyncPolicy.EVERY_FLUSH) {
+                if (compressor != null) {
+                    compressor.flush();
+                }
+                channel.force(false);
+            }
+        }
+        
+        private void writeFully(ByteBuffer bytes) throws IOException {
+            try {
+                if (compressor != null) {
+                    int length = bytes.remaining();
+                    compressor.write(bytes.array(), bytes.arrayOffset() + bytes.position(), length);
+                    bytes.position(bytes.limit());
+                    written += length;
+                    return;
+                }
+                while (bytes.hasRemaining()) {
+                    written += channel.write(bytes);
+                }
+            } catch (IOException e) {
+                throw new IOException("Failed to write to file: " + filePath + ". " + e.getMessage(), e);
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            try {
+                flushBuffer();
+                if (compressor != null) {
+                    // Write the compressed trailer before the data is forced to disk
+                    try {
+                        compressor.finish();
+                        compressor.flush();
+                    } catch (IOException e) {
+                        throw new IOException("Failed to write to file: " + filePath + ". " + e.getMessage(), e);
+                    }
+                }
+                if (syncPolicy != SyncPolicy.NONE) {
+                    channel.force(true);
+                }
+                if (index != null) {
+                    index.write(filePath, written, syncPolicy != SyncPolicy.NONE);
+                }
+            } finally {
+                try {
+                    if (compressor != null) {
+                        compressor.close();
+                    }
+                } finally {
+                    try {
+                        channel.close();
+                    } finally {
+                        if (index != null) {
+                            // Deletes the index's run files if the file was abandoned before its index was written
+                            index.close();
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Builds the header row naming the selected columns.
+     * 
+     * @param columns the selected columns
+     * @return the header row
+     */
+    private static String header(ProductQuery.Field[] columns) {
+        StringBuilder header = new StringBuilder();
+        for (ProductQuery.Field column : columns) {
+            if (header.length() > 0) {
+                header.append(',');
+            }
+            header.append(column.header());
+        }
+        return header.toString();
     }
     
     /**
@@ -78,6 +710,16 @@ public class CSVWriter {
             throw new IllegalArgumentException("Products list cannot be null");
         }
         
+        validateFilePath(filePath);
+    }
+    
+    /**
+     * Validates that the provided file path is not null or empty.
+     * 
+     * @param filePath the file path to validate
+     * @throws IllegalArgumentException if the file path is null or empty
+     */
+    private void validateFilePath(String filePath) {
         if (filePath == null || filePath.trim().isEmpty()) {
             throw new IllegalArgumentException("File path cannot be null or empty");
         }
@@ -0,0 +1,221 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide dictionary assigning small int codes to category names.
+ * 
+ * Categories are encoded once when a row is parsed; from then on every
+ * product in the pipeline refers to the same canonical String instance and
+ * its code, the transformer compares codes instead of strings, and the
+ * writer copies each category's pre-encoded bytes. The well-known categories
+ * have fixed codes, so comparisons against them need no lookup.
+ * 
+ * Lookups are lock-free against an immutable snapshot; adding a category
+ * copies the snapshot, which is cheap because categories are few. The
+ * dictionary stops growing at {@link #MAX_SIZE} entries, after which new
+ * categories get {@link #NO_CODE} and are carried as plain Strings.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public final class CategoryDictionary {
+    
+    /** Code of the Electronics category */
+    public static final int ELECTRONICS = 0;
+    
+    /** Code of the Premium Electronics category */
+    public static final int PREMIUM_ELECTRONICS = 1;
+    
+    /** Code given to categories once the dictionary is full */
+    public static final int NO_CODE = -1;
+    
+    /** Maximum number of categories that get a code */
+    public static final int MAX_SIZE = 4096;
+    
+    /** Charset used to encode category names, matching the reader and writer */
+    private static final Charset CHARSET = Charset.defaultCharset();
+    
+    /** The dictionary shared by all pipeline stages */
+    private static final CategoryDictionary SHARED = new CategoryDictionary();
+    
+    /**
+     * Immutable view of the dictionary used for lock-free lookups.
+     */
+    private static final class Snapshot {
+        
+        /** Category names indexed by code */
+        final String[] names;
+        
+        /** Encoded bytes of each category name, indexed by code */
+        final byte[][] bytes;
+        
+        /**
+         * Open-addressing table of code + 1 by hash of the encoded bytes, 0 marking
+         * an empty slot. Only names that decode back from their bytes unchanged are
+         * included, so a byte match always means the same name.
+         */
+        final int[] byteTable;
+        
+        Snapshot(String[] names, byte[][] bytes) {
+            this.names = names;
+            this.bytes = bytes;
+            this.byteTable = new int[Integer.highestOneBit(Math.max(8, names.length) * 4 - 1) << 1];
+            int mask = byteTable.length - 1;
+            for (int code = 0; code < names.length; code++) {
+                if (!new String(bytes[code], CHARSET).equals(names[code])) {
+                    continue;
+                }
+                int slot = hash(bytes[code], 0, bytes[code].length) & mask;
+                while (byteTable[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                byteTable[slot] = code + 1;
+            }
+        }
+    }
+    
+    /** Current snapshot, replaced whenever a category is added */
+    private volatile Snapshot snapshot;
+    
+    /** Category codes by name; only added to while holding the lock */
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    
+    /**
+     * Constructs a dictionary holding the well-known categories.
+     */
+    private CategoryDictionary() {
+        String[] names = {"Electronics", "Premium Electronics"};
+        byte[][] bytes = new byte[names.length][];
+        for (int code = 0; code < names.length; code++) {
+            bytes[code] = names[code].getBytes(CHARSET);
+            codes.put(names[code], code);
+        }
+        snapshot = new Snapshot(names, bytes);
+    }
+    
+    /**
+     * Gets the dictionary shared by all pipeline stages.
+     * 
+     * @return the shared dictionary
+     */
+    public static CategoryDictionary shared() {
+        return SHARED;
+    }
+    
+    /**
+     * Gets the code of a category, adding it if it is new.
+     * 
+     * @param category the category name
+     * @return the category code, or {@link #NO_CODE} if the category is null or the dictionary is full
+     */
+    public int intern(String category) {
+        if (category == null) {
+            return NO_CODE;
+        }
+        
+        // Fast path: already known, found without locking
+        Integer code = codes.get(category);
+        return code != null ? code : add(category);
+    }
+    
+    /**
+     * Gets the code of a category given as encoded bytes, adding it if it is new.
+     * Known categories are found without creating a String.
+     * 
+     * @param bytes the buffer holding the encoded category
+     * @param offset the offset of the first byte
+     * @param length the number of bytes
+     * @return the category code, or {@link #NO_CODE} if the dictionary is full
+     */
+    int intern(byte[] bytes, int offset, int length) {
+        int code = find(snapshot, bytes, offset, length);
+        if (code != NO_CODE) {
+            return code;
+        }
+        return intern(new String(bytes, offset, length, CHARSET));
+    }
+    
+    /**
+     * Adds a category under the lock, publishing a new snapshot.
+     */
+    private synchronized int add(String category) {
+        Integer existing = codes.get(category);
+        if (existing != null) {
+            return existing;
+        }
+        
+        Snapshot current = snapshot;
+        int code = current.names.length;
+        if (code >= MAX_SIZE) {
+            return NO_CODE;
+        }
+        
+        String[] names = Arrays.copyOf(current.names, code + 1);
+        byte[][] bytes = Arrays.copyOf(current.bytes, code + 1);
+        names[code] = category;
+        bytes[code] = category.getBytes(CHARSET);
+        codes.put(category, code);
+        snapshot = new Snapshot(names, bytes);
+        return code;
+    }
+    
+    /**
+     * Finds a category by its encoded bytes in a snapshot.
+     */
+    private static int find(Snapshot snapshot, byte[] bytes, int offset, int length) {
+        int[] table = snapshot.byteTable;
+        int mask = table.length - 1;
+        for (int slot = hash(bytes, offset, length) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int code = table[slot] - 1;
+            byte[] known = snapshot.bytes[code];
+            if (Arrays.equals(known, 0, known.length, bytes, offset, offset + length)) {
+                return code;
+            }
+        }
+        return NO_CODE;
+    }
+    
+    /**
+     * Hashes a byte range.
+     */
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+    
+    /**
+     * Gets the canonical name of a category code.
+     * 
+     * @param code a code returned by this dictionary
+     * @return the category name
+     */
+    public String name(int code) {
+        return snapshot.names[code];
+    }
+    
+    /**
+     * Gets the encoded bytes of a category code, as the writer would encode its name.
+     * The returned array must not be modified.
+     * 
+     * @param code a code returned by this dictionary
+     * @return the encoded category name
+     */
+    byte[] bytes(int code) {
+        return snapshot.bytes[code];
+    }
+    
+    /**
+     * Gets the number of categories with a code.
+     * 
+     * @return the dictionary size
+     */
+    public int size() {
+        return snapshot.names.length;
+    }
+}
@@ -0,0 +1,354 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ETL run over a large input that can be interrupted and resumed without
+ * redoing the work already done.
+ * 
+ * The input is processed in record-aligned segments of a fixed number of
+ * bytes. After each segment the output file is flushed and forced to disk
+ * and a small checkpoint file is replaced atomically with the input offset
+ * and line number reached, the output offset and the number of products
+ * written so far. A run that finds a usable checkpoint truncates the output
+ * back to the checkpointed offset and continues from the checkpointed input
+ * offset, so rows written after the last checkpoint are simply written again.
+ * The finished output is identical to a full run of
+ * {@link ETLPipeline#processProducts}, and the checkpoint is deleted.
+ * 
+ * A checkpoint is ignored, and the run starts over, if it is unreadable, was
+ * written under different business rules, the input file has changed since,
+ * or the output file is shorter than the checkpointed offset. Compressed
+ * input and output are not supported, since both are addressed by byte offset.
+ * The reader's quarantine file and error ratio only cover the rows read
+ * since the run started or resumed.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class CheckpointedETL {
+    
+    /** Identifies a checkpoint file ("ETLC") */
+    private static final int CHECKPOINT_MAGIC = 0x45544C43;
+    
+    /** Version of the checkpoint file layout */
+    private static final int CHECKPOINT_VERSION = 1;
+    
+    /** Default number of input bytes (256 MB) processed between checkpoints */
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 256L << 20;
+    
+    /** Component responsible for reading CSV files */
+    private final CSVReader csvReader;
+    
+    /** Component responsible for transforming product data */
+    private final DataTransformer dataTransformer;
+    
+    /** Component responsible for writing CSV files */
+    private final CSVWriter csvWriter;
+    
+    /** Number of input bytes processed between checkpoints */
+    private final long checkpointInterval;
+    
+    /** Registry receiving checkpoint counts */
+    private PipelineMetrics metrics = PipelineMetrics.NOOP;
+    
+    /** Input offset the last run resumed from, 0 if it started from scratch */
+    private long resumedOffset;
+    
+    /** Number of checkpoints written during the last run */
+    private int checkpointCount;
+    
+    /**
+     * Constructs a checkpointed run with {@link #DEFAULT_CHECKPOINT_INTERVAL}.
+     * 
+     * @param csvReader the CSV reader
+     * @param dataTransformer the transformer
+     * @param csvWriter the CSV writer, which must not compress its output
+     * @throws IllegalArgumentException if any component is null or the writer compresses its output
+     */
+    public CheckpointedETL(CSVReader csvReader, DataTransformer dataTransformer, CSVWriter csvWriter) {
+        this(csvReader, dataTransformer, csvWriter, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+    
+    /**
+     * Constructs a checkpointed run with a custom checkpoint interval.
+     * Shorter intervals lose less work on failure at the cost of more frequent disk syncs.
+     * 
+     * @param csvReader the CSV reader
+     * @param dataTransformer the transformer
+     * @param csvWriter the CSV writer, which must not compress its output
+     * @param checkpointInterval the number of input bytes processed between checkpoints
+     * @throws IllegalArgumentException if any component is null, the writer compresses its
+     *         output or the interval is not positive
+     */
+    public CheckpointedETL(CSVReader csvReader, DataTransformer dataTransformer, CSVWriter csvWriter,
+                           long checkpointInterval) {
+        if (csvReader == null || dataTransformer == null || csvWriter == null) {
+            throw new IllegalArgumentException("Pipeline components cannot be null");
+        }
+        if (csvWriter.getCompression() != CompressionCodec.NONE) {
+            // Resuming truncates the output at a byte offset
+            throw new IllegalArgumentException("Checkpointed runs require uncompressed output");
+        }
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive");
+        }
+        this.csvReader = csvReader;
+        this.dataTransformer = dataTransformer;
+        this.csvWriter = csvWriter;
+        this.checkpointInterval = checkpointInterval;
+    }
+    
+    /**
+     * Sets the metrics registry that receives checkpoint counts.
+     * 
+     * @param metrics the registry to report to
+     * @throws IllegalArgumentException if the registry is null
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics registry cannot be null");
+        }
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Transforms the input file into the output file, resuming from the
+     * checkpoint left by an earlier interrupted run if there is a usable one.
+     * 
+     * @param inputFilePath path to the source CSV file, which must not be compressed
+     * @param outputFilePath path where the transformed CSV file will be written
+     * @param checkpointPath path of the checkpoint file, deleted once the run completes
+     * @return the number of products in the output file
+     * @throws IOException if file reading or writing operations fail, or the input is compressed
+     * @throws IllegalArgumentException if any path is null or empty
+     */
+    public long run(String inputFilePath, String outputFilePath, String checkpointPath) throws IOException {
+        validatePath(inputFilePath, "Input file path");
+        validatePath(outputFilePath, "Output file path");
+        validatePath(checkpointPath, "Checkpoint file path");
+        
+        Path input = Paths.get(inputFilePath);
+        Path output = Paths.get(outputFilePath);
+        Path checkpointFile = Paths.get(checkpointPath);
+        if (!Files.exists(input)) {
+            throw new IOException("Input file '" + inputFilePath + "' not found. Please ensure the file exists.");
+        }
+        if (CompressionCodec.detect(input) != CompressionCodec.NONE) {
+            throw new IOException("Checkpointed runs require uncompressed input: " + inputFilePath);
+        }
+        
+        long rulesFingerprint = dataTransformer.rulesFingerprint();
+        Checkpoint checkpoint = Checkpoint.load(checkpointFile, rulesFingerprint, input, output);
+        resumedOffset = 0;
+        checkpointCount = 0;
+        
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long inputSize = channel.size();
+            MappedCSVScanner scanner = new MappedCSVScanner(channel);
+            
+            CSVWriter.ChannelProductSink out;
+            if (checkpoint == null) {
+                checkpoint = new Checkpoint();
+                checkpoint.inputSize = inputSize;
+                checkpoint.inputModified = lastModifiedNanos(input);
+                out = csvWriter.openChannelSink(outputFilePath);
+            } else {
+                resumedOffset = checkpoint.inputOffset;
+                System.out.println("Resuming from checkpoint at input offset " + checkpoint.inputOffset
+                                   + " (" + checkpoint.productCount + " products already written)");
+                out = csvWriter.reopenChannelSink(outputFilePath, checkpoint.outputOffset);
+            }
+            
+            try (CSVWriter.ChannelProductSink sink = out; RejectLog rejects = csvReader.openRejectLog()) {
+                ProductBatchSink transforming = dataTransformer.transformingBatchSink(sink);
+                ProductBatch batch = new ProductBatch();
+                // Counts rows as their batches go to the transformer
+                long[] productCount = {checkpoint.productCount};
+                ProductBatchSink counting = full -> {
+                    productCount[0] += full.size();
+                    transforming.accept(full);
+                };
+                
+                while (checkpoint.inputOffset < inputSize) {
+                    long end = scanner.nextLineStart(Math.min(inputSize, checkpoint.inputOffset + checkpointInterval));
+                    if (end <= checkpoint.inputOffset) {
+                        end = inputSize;
+                    }
+                    int lines = csvReader.readBatchRange(scanner, checkpoint.inputOffset, end, checkpoint.lineCount,
+                                                         batch, counting, rejects);
+                    while (scanner.endOffset() == checkpoint.inputOffset) {
+                        // A single record is longer than the segment; widen it until the record fits
+                        end = scanner.nextLineStart(Math.min(inputSize, end + (end - checkpoint.inputOffset)));
+                        lines = csvReader.readBatchRange(scanner, checkpoint.inputOffset, end, checkpoint.lineCount,
+                                                         batch, counting, rejects);
+                    }
+                    // The segment ends early if a quoted field crosses its end
+                    end = scanner.endOffset();
+                    if (batch.size() > 0) {
+                        counting.accept(batch);
+                        batch.clear();
+                    }
+                    
+                    sink.checkpoint();
+                    checkpoint.inputOffset = end;
+                    checkpoint.lineCount += lines;
+                    checkpoint.outputOffset = sink.position();
+                    checkpoint.productCount = productCount[0];
+                    if (end < inputSize) {
+                        checkpoint.save(checkpointFile, rulesFingerprint);
+                        checkpointCount++;
+                    }
+                }
+                
+                try {
+                    rejects.finish();
+                } catch (IOException e) {
+                    throw new IOException("Failed to read file: " + inputFilePath + ". " + e.getMessage(), e);
+                }
+            }
+        }
+        
+        Files.deleteIfExists(checkpointFile);
+        metrics.incrementCounter("checkpoint.written", checkpointCount);
+        metrics.incrementCounter("checkpoint.resumed_bytes", resumedOffset);
+        return checkpoint.productCount;
+    }
+    
+    /**
+     * Progress of a run, as recorded in the checkpoint file.
+     */
+    private static final class Checkpoint {
+        
+        /** Size of the input file when the run started */
+        long inputSize;
+        
+        /** Modification time of the input file in nanoseconds when the run started */
+        long inputModified;
+        
+        /** Offset of the first input line not yet processed */
+        long inputOffset;
+        
+        /** Number of input lines before inputOffset, including blank ones */
+        int lineCount;
+        
+        /** Length of the output written for the lines before inputOffset */
+        long outputOffset;
+        
+        /** Number of products written for the lines before inputOffset */
+        long productCount;
+        
+        /**
+         * Writes the checkpoint atomically.
+         * 
+         * @param checkpointPath the checkpoint file
+         * @param rulesFingerprint the fingerprint of the rules the output is produced with
+         * @throws IOException if the checkpoint cannot be written
+         */
+        void save(Path checkpointPath, long rulesFingerprint) throws IOException {
+            Path parent = checkpointPath.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(parent, checkpointPath.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                     DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel))) {
+                    out.writeInt(CHECKPOINT_MAGIC);
+                    out.writeInt(CHECKPOINT_VERSION);
+                    out.writeLong(rulesFingerprint);
+                    out.writeLong(inputSize);
+                    out.writeLong(inputModified);
+                    out.writeLong(inputOffset);
+                    out.writeInt(lineCount);
+                    out.writeLong(outputOffset);
+                    out.writeLong(productCount);
+                    out.flush();
+                    // The new checkpoint must be on disk before it replaces the old one
+                    channel.force(true);
+                }
+                IncrementalETL.moveReplacing(temp, checkpointPath);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        
+        /**
+         * Reads a checkpoint file if it is usable for the given rules, input and output.
+         * 
+         * @param checkpointPath the checkpoint file
+         * @param rulesFingerprint the fingerprint of the current rules
+         * @param input the input file the checkpoint must describe
+         * @param output the output file the checkpoint must describe
+         * @return the checkpoint, or null if it is missing, unreadable or stale
+         */
+        static Checkpoint load(Path checkpointPath, long rulesFingerprint, Path input, Path output) {
+            if (!Files.exists(checkpointPath) || !Files.exists(output)) {
+                return null;
+            }
+            
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(checkpointPath)))) {
+                if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION
+                        || in.readLong() != rulesFingerprint) {
+                    return null;
+                }
+                Checkpoint checkpoint = new Checkpoint();
+                checkpoint.inputSize = in.readLong();
+                checkpoint.inputModified = in.readLong();
+                checkpoint.inputOffset = in.readLong();
+                checkpoint.lineCount = in.readInt();
+                checkpoint.outputOffset = in.readLong();
+                checkpoint.productCount = in.readLong();
+                if (checkpoint.inputSize != Files.size(input) || checkpoint.inputModified != lastModifiedNanos(input)
+                        || checkpoint.inputOffset > checkpoint.inputSize || checkpoint.outputOffset > Files.size(output)) {
+                    return null;
+                }
+                return checkpoint;
+            } catch (IOException e) {
+                System.err.println("Warning: Ignoring unreadable checkpoint file " + checkpointPath + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+    
+    /**
+     * Gets the modification time of a file in nanoseconds, as precise as the file system allows.
+     */
+    private static long lastModifiedNanos(Path path) throws IOException {
+        return Files.getLastModifiedTime(path).to(TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Validates that a path is not null or empty.
+     */
+    private static void validatePath(String path, String description) {
+        if (path == null || path.trim().isEmpty()) {
+            throw new IllegalArgumentException(description + " cannot be null or empty");
+        }
+    }
+    
+    /**
+     * Gets the input offset the last run resumed from.
+     * 
+     * @return the offset, or 0 if the last run started from scratch
+     */
+    public long getResumedOffset() {
+        return resumedOffset;
+    }
+    
+    /**
+     * Gets the number of checkpoints written during the last run.
+     * 
+     * @return the checkpoint count
+     */
+    public int getCheckpointCount() {
+        return checkpointCount;
+    }
+}
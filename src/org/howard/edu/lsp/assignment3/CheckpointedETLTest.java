@@ -0,0 +1,210 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JUnit test class for CheckpointedETL.
+ * Interrupts runs after a number of checkpoints and checks that resuming
+ * produces exactly the output of an uninterrupted run.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class CheckpointedETLTest {
+    
+    /** Input bytes between checkpoints, small enough for dozens of checkpoints per file */
+    private static final long CHECKPOINT_INTERVAL = 1024;
+    
+    /** Number of checkpoints written before the simulated failure */
+    private static final int CHECKPOINTS_BEFORE_FAILURE = 5;
+    
+    /** Categories cycled through by the generated rows */
+    private static final String[] CATEGORIES = {"Electronics", "Books", "Toys", "Education"};
+    
+    /**
+     * Transformer whose batch sink fails once a number of batches were written,
+     * as if the process had been killed. Every checkpoint segment is one batch.
+     */
+    private static final class FailingTransformer extends DataTransformer {
+        
+        /** Number of batches accepted before failing */
+        private final int batchesBeforeFailure;
+        
+        /**
+         * Constructs a transformer that fails on the batch after the given number.
+         */
+        FailingTransformer(int batchesBeforeFailure) {
+            this.batchesBeforeFailure = batchesBeforeFailure;
+        }
+        
+        @Override
+        public ProductBatchSink transformingBatchSink(ProductBatchSink downstream) {
+            ProductBatchSink transforming = super.transformingBatchSink(downstream);
+            int[] accepted = {0};
+            return batch -> {
+                if (accepted[0]++ == batchesBeforeFailure) {
+                    throw new IOException("Simulated failure");
+                }
+                transforming.accept(batch);
+            };
+        }
+    }
+    
+    /**
+     * Writes an input file of products, including quoted fields with commas and
+     * line breaks and a few malformed rows, and moves its modification time past
+     * the previous one so a rewrite is noticed on file systems with coarse timestamps.
+     */
+    private static void writeInput(Path input, int count) throws IOException {
+        FileTime previous = Files.exists(input) ? Files.getLastModifiedTime(input) : null;
+        List<String> lines = new ArrayList<>();
+        lines.add("ProductID,Name,Price,Category");
+        for (int id = 1; id <= count; id++) {
+            String price = (id * 37 % 900) + "." + String.format("%02d", id % 100);
+            if (id % 97 == 0) {
+                lines.add(id + ",\"Item, with comma\nand line break " + id + "\"," + price + ",Toys");
+            } else if (id % 211 == 0) {
+                lines.add(id + ",Broken " + id + ",not a price,Books");
+            } else {
+                lines.add(id + ",Item " + id + "," + price + "," + CATEGORIES[id % CATEGORIES.length]);
+            }
+        }
+        Files.write(input, lines, StandardCharsets.UTF_8);
+        if (previous != null) {
+            Files.setLastModifiedTime(input, FileTime.fromMillis(previous.toMillis() + 2000));
+        }
+    }
+    
+    /**
+     * Writes the output of an uninterrupted full run.
+     */
+    private static byte[] fullRun(Path input, Path output) throws IOException {
+        new CSVWriter().writeProducts(new DataTransformer().transform(new CSVReader().readProducts(input.toString())),
+                                      output.toString());
+        return Files.readAllBytes(output);
+    }
+    
+    /**
+     * Creates a checkpointed run with the test interval.
+     */
+    private static CheckpointedETL checkpointed(DataTransformer transformer) {
+        return new CheckpointedETL(new CSVReader(), transformer, new CSVWriter(), CHECKPOINT_INTERVAL);
+    }
+    
+    /**
+     * Runs until the simulated failure and checks that the checkpoint was left behind.
+     */
+    private static void runUntilFailure(Path input, Path output, Path checkpoint) {
+        CheckpointedETL failing = checkpointed(new FailingTransformer(CHECKPOINTS_BEFORE_FAILURE));
+        IOException e = assertThrows(IOException.class,
+                                     () -> failing.run(input.toString(), output.toString(), checkpoint.toString()));
+        assertEquals("Simulated failure", e.getMessage());
+        assertEquals(CHECKPOINTS_BEFORE_FAILURE, failing.getCheckpointCount());
+        assertTrue(Files.exists(checkpoint), "Checkpoint should survive the failure");
+    }
+    
+    /**
+     * Tests that an uninterrupted run matches a full run and removes its checkpoint.
+     */
+    @Test
+    @DisplayName("Test uninterrupted run")
+    public void testUninterruptedRun(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        Path output = tempDir.resolve("out.csv");
+        Path checkpoint = tempDir.resolve("out.checkpoint");
+        writeInput(input, 2000);
+        byte[] expected = fullRun(input, tempDir.resolve("full.csv"));
+        
+        CheckpointedETL etl = checkpointed(new DataTransformer());
+        long products = etl.run(input.toString(), output.toString(), checkpoint.toString());
+        
+        assertEquals(0, etl.getResumedOffset());
+        assertTrue(etl.getCheckpointCount() > 20, "Expected many checkpoints, got " + etl.getCheckpointCount());
+        assertEquals(new CSVReader().readProducts(input.toString()).size(), products);
+        assertArrayEquals(expected, Files.readAllBytes(output));
+        assertFalse(Files.exists(checkpoint));
+    }
+    
+    /**
+     * Tests that a run stopped after a few checkpoints resumes to the same output.
+     */
+    @Test
+    @DisplayName("Test resume after failure")
+    public void testResume(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        Path output = tempDir.resolve("out.csv");
+        Path checkpoint = tempDir.resolve("out.checkpoint");
+        writeInput(input, 2000);
+        byte[] expected = fullRun(input, tempDir.resolve("full.csv"));
+        
+        runUntilFailure(input, output, checkpoint);
+        
+        CheckpointedETL etl = checkpointed(new DataTransformer());
+        long products = etl.run(input.toString(), output.toString(), checkpoint.toString());
+        
+        assertTrue(etl.getResumedOffset() >= CHECKPOINTS_BEFORE_FAILURE * CHECKPOINT_INTERVAL,
+                   "Expected to resume after the last checkpoint, resumed at " + etl.getResumedOffset());
+        assertEquals(new CSVReader().readProducts(input.toString()).size(), products);
+        assertArrayEquals(expected, Files.readAllBytes(output));
+        assertFalse(Files.exists(checkpoint));
+    }
+    
+    /**
+     * Tests that a checkpoint is ignored once the input has changed.
+     */
+    @Test
+    @DisplayName("Test checkpoint ignored after input change")
+    public void testInputChanged(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        Path output = tempDir.resolve("out.csv");
+        Path checkpoint = tempDir.resolve("out.checkpoint");
+        writeInput(input, 2000);
+        
+        runUntilFailure(input, output, checkpoint);
+        writeInput(input, 2100);
+        byte[] expected = fullRun(input, tempDir.resolve("full.csv"));
+        
+        CheckpointedETL etl = checkpointed(new DataTransformer());
+        etl.run(input.toString(), output.toString(), checkpoint.toString());
+        
+        assertEquals(0, etl.getResumedOffset());
+        assertArrayEquals(expected, Files.readAllBytes(output));
+        assertFalse(Files.exists(checkpoint));
+    }
+    
+    /**
+     * Tests that a checkpoint is ignored if the output is shorter than the checkpointed offset.
+     */
+    @Test
+    @DisplayName("Test checkpoint ignored after output truncation")
+    public void testOutputTruncated(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        Path output = tempDir.resolve("out.csv");
+        Path checkpoint = tempDir.resolve("out.checkpoint");
+        writeInput(input, 2000);
+        byte[] expected = fullRun(input, tempDir.resolve("full.csv"));
+        
+        runUntilFailure(input, output, checkpoint);
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.WRITE)) {
+            channel.truncate(10);
+        }
+        
+        CheckpointedETL etl = checkpointed(new DataTransformer());
+        etl.run(input.toString(), output.toString(), checkpoint.toString());
+        
+        assertEquals(0, etl.getResumedOffset());
+        assertArrayEquals(expected, Files.readAllBytes(output));
+    }
+}
@@ -0,0 +1,424 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads files written by {@link ColumnarWriter}.
+ * 
+ * Opening a file reads only its footer. Columns are memory-mapped on first
+ * use, one block at a time, so a scan that looks at prices alone never
+ * touches the name or ID bytes, and blocks whose price statistics rule out a
+ * match can be skipped without mapping anything.
+ * 
+ * A reader is not safe for use by multiple threads.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class ColumnarReader implements Closeable {
+    
+    /** Size of the trailer: footer length and magic */
+    private static final int TRAILER_SIZE = 2 * Integer.BYTES;
+    
+    /** Size of the file header: magic and version */
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    
+    /** Size of a block entry in the footer: row count, price and category statistics, column locations */
+    private static final int BLOCK_ENTRY_SIZE = 3 * Integer.BYTES + 2 * Double.BYTES
+        + ColumnarWriter.COLUMN_COUNT * 2 * Long.BYTES;
+    
+    /** Channel of the file being read */
+    private final FileChannel channel;
+    
+    /** File path for error reporting */
+    private final String filePath;
+    
+    /** Category names by file dictionary code */
+    private final String[] dictionary;
+    
+    /** Number of rows in each block */
+    private final int[] blockRows;
+    
+    /** Lowest price in each block */
+    private final double[] minPrices;
+    
+    /** Highest price in each block */
+    private final double[] maxPrices;
+    
+    /** Lowest category code in each block */
+    private final int[] minCategories;
+    
+    /** Highest category code in each block */
+    private final int[] maxCategories;
+    
+    /** File offset of each column, indexed by block then column */
+    private final long[][] columnOffsets;
+    
+    /** Length in bytes of each column, indexed by block then column */
+    private final long[][] columnLengths;
+    
+    /** Total number of rows */
+    private final long rowCount;
+    
+    /** Most recently mapped region of each column */
+    private final ByteBuffer[] mapped = new ByteBuffer[ColumnarWriter.COLUMN_COUNT];
+    
+    /** Block of the most recently mapped region of each column, -1 for none */
+    private final int[] mappedBlocks = {-1, -1, -1, -1, -1};
+    
+    /**
+     * Opens a columnar file and reads its footer.
+     * 
+     * @param filePath the path to the file
+     * @throws IOException if the file cannot be read or is not a valid columnar file
+     * @throws IllegalArgumentException if the file path is null or empty
+     */
+    public ColumnarReader(String filePath) throws IOException {
+        if (filePath == null || filePath.trim().isEmpty()) {
+            throw new IllegalArgumentException("File path cannot be null or empty");
+        }
+        this.filePath = filePath;
+        
+        try {
+            channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new IOException("Failed to read file: " + filePath + ". " + e.getMessage(), e);
+        }
+        
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE) {
+                throw invalid("file is too short");
+            }
+            ByteBuffer header = readFully(0, HEADER_SIZE);
+            if (header.getInt() != ColumnarWriter.MAGIC) {
+                throw invalid("missing header");
+            }
+            int version = header.getInt();
+            if (version != ColumnarWriter.VERSION) {
+                throw invalid("unsupported version " + version);
+            }
+            
+            ByteBuffer trailer = readFully(size - TRAILER_SIZE, TRAILER_SIZE);
+            int footerLength = trailer.getInt();
+            if (trailer.getInt() != ColumnarWriter.MAGIC) {
+                throw invalid("missing footer, the file may be truncated");
+            }
+            if (footerLength < 0 || footerLength > size - HEADER_SIZE - TRAILER_SIZE) {
+                throw invalid("corrupt footer length");
+            }
+            ByteBuffer footer = readFully(size - TRAILER_SIZE - footerLength, footerLength);
+            
+            dictionary = new String[count(footer, Integer.BYTES)];
+            for (int i = 0; i < dictionary.length; i++) {
+                int length = footer.getInt();
+                if (length < 0 || length > footer.remaining()) {
+                    throw invalid("corrupt dictionary");
+                }
+                byte[] name = new byte[length];
+                footer.get(name);
+                dictionary[i] = new String(name, StandardCharsets.UTF_8);
+            }
+            
+            int blockCount = count(footer, BLOCK_ENTRY_SIZE);
+            blockRows = new int[blockCount];
+            minPrices = new double[blockCount];
+            maxPrices = new double[blockCount];
+            minCategories = new int[blockCount];
+            maxCategories = new int[blockCount];
+            columnOffsets = new long[blockCount][ColumnarWriter.COLUMN_COUNT];
+            columnLengths = new long[blockCount][ColumnarWriter.COLUMN_COUNT];
+            for (int block = 0; block < blockCount; block++) {
+                blockRows[block] = footer.getInt();
+                minPrices[block] = footer.getDouble();
+                maxPrices[block] = footer.getDouble();
+                minCategories[block] = footer.getInt();
+                maxCategories[block] = footer.getInt();
+                for (int column = 0; column < ColumnarWriter.COLUMN_COUNT; column++) {
+                    columnOffsets[block][column] = footer.getLong();
+                    columnLengths[block][column] = footer.getLong();
+                    if (columnOffsets[block][column] < HEADER_SIZE || columnLengths[block][column] < 0
+                            || columnOffsets[block][column] + columnLengths[block][column] > size) {
+                        throw invalid("column outside the file");
+                    }
+                }
+            }
+            rowCount = footer.getLong();
+        } catch (BufferUnderflowException e) {
+            channel.close();
+            throw invalid("corrupt footer");
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Reads an entry count from the footer, checking that the footer can hold that many entries.
+     */
+    private int count(ByteBuffer footer, int entrySize) throws IOException {
+        int count = footer.getInt();
+        if (count < 0 || count > footer.remaining() / entrySize) {
+            throw invalid("corrupt footer");
+        }
+        return count;
+    }
+    
+    private IOException invalid(String reason) {
+        return new IOException("Failed to read file: " + filePath + ". Not a valid columnar file: " + reason);
+    }
+    
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw invalid("unexpected end of file");
+            }
+        }
+        return buffer.flip();
+    }
+    
+    /**
+     * Gets the total number of rows in the file.
+     * 
+     * @return the row count
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+    
+    /**
+     * Gets the number of blocks in the file.
+     * 
+     * @return the block count
+     */
+    public int getBlockCount() {
+        return blockRows.length;
+    }
+    
+    /**
+     * Gets the number of rows in a block.
+     * 
+     * @param block the block index
+     * @return the row count of the block
+     */
+    public int getBlockRowCount(int block) {
+        return blockRows[block];
+    }
+    
+    /**
+     * Gets the lowest price in a block.
+     * 
+     * @param block the block index
+     * @return the minimum price
+     */
+    public double getBlockMinPrice(int block) {
+        return minPrices[block];
+    }
+    
+    /**
+     * Gets the highest price in a block.
+     * 
+     * @param block the block index
+     * @return the maximum price
+     */
+    public double getBlockMaxPrice(int block) {
+        return maxPrices[block];
+    }
+    
+    /**
+     * Checks, from block statistics alone, whether a block can hold a price in a range.
+     * 
+     * @param block the block index
+     * @param minPrice the lowest price of interest, inclusive
+     * @param maxPrice the highest price of interest, inclusive
+     * @return false if no row of the block has a price in the range
+     */
+    public boolean mayContainPrice(int block, double minPrice, double maxPrice) {
+        return maxPrices[block] >= minPrice && minPrices[block] <= maxPrice;
+    }
+    
+    /**
+     * Checks, from block statistics alone, whether a block can hold a category.
+     * 
+     * @param block the block index
+     * @param categoryCode a file dictionary code, see {@link #getCategoryCode(String)}
+     * @return false if no row of the block has the category
+     */
+    public boolean mayContainCategory(int block, int categoryCode) {
+        return categoryCode >= minCategories[block] && categoryCode <= maxCategories[block];
+    }
+    
+    /**
+     * Gets the number of distinct categories in the file.
+     * 
+     * @return the dictionary size
+     */
+    public int getCategoryCount() {
+        return dictionary.length;
+    }
+    
+    /**
+     * Gets the category name of a file dictionary code.
+     * 
+     * @param code a code from {@link #categoryCodes(int)}
+     * @return the category name, or null for {@link ColumnarWriter#NULL_CATEGORY}
+     */
+    public String getCategory(int code) {
+        return code == ColumnarWriter.NULL_CATEGORY ? null : dictionary[code];
+    }
+    
+    /**
+     * Gets the file dictionary code of a category name.
+     * 
+     * @param category the category name
+     * @return the code, or {@link ColumnarWriter#NULL_CATEGORY} if no row has the category
+     */
+    public int getCategoryCode(String category) {
+        for (int i = 0; i < dictionary.length; i++) {
+            if (dictionary[i].equals(category)) {
+                return i;
+            }
+        }
+        return ColumnarWriter.NULL_CATEGORY;
+    }
+    
+    /**
+     * Gets the prices of a block, read in place from the file.
+     * 
+     * @param block the block index
+     * @return a read-only view with one price per row
+     * @throws IOException if the column cannot be mapped
+     */
+    public DoubleBuffer prices(int block) throws IOException {
+        return column(block, ColumnarWriter.PRICE_COLUMN).asDoubleBuffer();
+    }
+    
+    /**
+     * Gets the category codes of a block, read in place from the file.
+     * 
+     * @param block the block index
+     * @return a read-only view with one code per row, see {@link #getCategory(int)}
+     * @throws IOException if the column cannot be mapped
+     */
+    public IntBuffer categoryCodes(int block) throws IOException {
+        return column(block, ColumnarWriter.CATEGORY_COLUMN).asIntBuffer();
+    }
+    
+    /**
+     * Gets the price range codes of a block, read in place from the file.
+     * 
+     * @param block the block index
+     * @return a read-only view with one {@link PriceRange#code()} per row,
+     *         or {@link PriceRange#UNSET_CODE} where no range was set
+     * @throws IOException if the column cannot be mapped
+     */
+    public ByteBuffer priceRanges(int block) throws IOException {
+        return column(block, ColumnarWriter.RANGE_COLUMN);
+    }
+    
+    /**
+     * Gets the product ID of a row.
+     * 
+     * @param block the block index
+     * @param row the row within the block
+     * @return the product ID
+     * @throws IOException if the column cannot be mapped
+     */
+    public String productId(int block, int row) throws IOException {
+        return text(block, row, ColumnarWriter.ID_COLUMN);
+    }
+    
+    /**
+     * Gets the name of a row.
+     * 
+     * @param block the block index
+     * @param row the row within the block
+     * @return the product name
+     * @throws IOException if the column cannot be mapped
+     */
+    public String name(int block, int row) throws IOException {
+        return text(block, row, ColumnarWriter.NAME_COLUMN);
+    }
+    
+    /**
+     * Reads every row back into products and passes them to a sink, in file order.
+     * 
+     * @param sink the sink receiving the products; not closed
+     * @throws IOException if the file cannot be read or the sink fails
+     */
+    public void read(ProductSink sink) throws IOException {
+        for (int block = 0; block < getBlockCount(); block++) {
+            DoubleBuffer prices = prices(block);
+            IntBuffer categories = categoryCodes(block);
+            ByteBuffer ranges = priceRanges(block);
+            for (int row = 0; row < blockRows[block]; row++) {
+                Product product = new Product(productId(block, row), name(block, row),
+                                              prices.get(row), getCategory(categories.get(row)));
+                byte range = ranges.get(row);
+                if (range != PriceRange.UNSET_CODE) {
+                    product.setPriceRange(PriceRange.fromCode(range));
+                }
+                sink.accept(product);
+            }
+        }
+    }
+    
+    /**
+     * Reads every row back into products.
+     * 
+     * @return the products in file order
+     * @throws IOException if the file cannot be read
+     */
+    public List<Product> readProducts() throws IOException {
+        List<Product> products = new ArrayList<>((int) Math.min(rowCount, Integer.MAX_VALUE));
+        read(products::add);
+        return products;
+    }
+    
+    private String text(int block, int row, int column) throws IOException {
+        if (row < 0 || row >= blockRows[block]) {
+            throw new IndexOutOfBoundsException("Row " + row + " is outside block " + block);
+        }
+        ByteBuffer data = column(block, column);
+        int bytesStart = (blockRows[block] + 1) * Integer.BYTES;
+        int start = data.getInt(row * Integer.BYTES);
+        int end = data.getInt((row + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        data.get(bytesStart + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Maps one column of a block, reusing the mapping of the previous call for the same column.
+     */
+    private ByteBuffer column(int block, int column) throws IOException {
+        if (mappedBlocks[column] != block) {
+            try {
+                mapped[column] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                             columnOffsets[block][column], columnLengths[block][column]);
+            } catch (IOException e) {
+                throw new IOException("Failed to read file: " + filePath + ". " + e.getMessage(), e);
+            }
+            mapped[column].order(ByteOrder.LITTLE_ENDIAN);
+            mappedBlocks[column] = block;
+        }
+        return mapped[column].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
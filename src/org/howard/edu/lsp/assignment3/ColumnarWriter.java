@@ -0,0 +1,470 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes transformed products to a compact binary columnar file, as an
+ * alternative to the CSV written by {@link CSVWriter}.
+ * 
+ * Rows are grouped into blocks. Within a block every column is stored
+ * contiguously with a fixed type: product IDs and names as UTF-8 strings
+ * behind an offset array, prices as doubles, categories as codes into a
+ * dictionary stored once per file, and price ranges as one byte each. Each
+ * block records the minimum and maximum price and category code, and a
+ * footer at the end of the file indexes every column of every block, so a
+ * reader can map the file and touch only the columns and blocks it needs.
+ * See {@link ColumnarReader} for the matching reader.
+ * 
+ * File layout (little-endian):
+ * <pre>
+ * header:  int magic "PCOL", int version
+ * blocks:  per column, padded to 8 bytes:
+ *          ids and names: int offsets[rows + 1], UTF-8 bytes
+ *          prices: double[rows]; categories: int[rows] (-1 for null); ranges: byte[rows]
+ * footer:  int dictionary size, per entry int length + UTF-8 bytes
+ *          int block count, per block: int rows, double min/max price,
+ *          int min/max category, per column long offset + long length
+ *          long row count
+ * trailer: int footer length, int magic
+ * </pre>
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class ColumnarWriter {
+    
+    /** Identifies a columnar product file ("PCOL") */
+    static final int MAGIC = 0x50434F4C;
+    
+    /** Version of the file layout */
+    static final int VERSION = 1;
+    
+    /** Number of columns in each block */
+    static final int COLUMN_COUNT = 5;
+    
+    /** Index of the product ID column */
+    static final int ID_COLUMN = 0;
+    
+    /** Index of the name column */
+    static final int NAME_COLUMN = 1;
+    
+    /** Index of the price column */
+    static final int PRICE_COLUMN = 2;
+    
+    /** Index of the category column */
+    static final int CATEGORY_COLUMN = 3;
+    
+    /** Index of the price range column */
+    static final int RANGE_COLUMN = 4;
+    
+    /** Category code stored for a null category */
+    static final int NULL_CATEGORY = -1;
+    
+    /** Column alignment in bytes, so numeric columns can be viewed in place */
+    static final int ALIGNMENT = 8;
+    
+    /** Default number of rows per block */
+    public static final int DEFAULT_BLOCK_ROWS = 1 << 16;
+    
+    /** Number of rows per block */
+    private final int blockRows;
+    
+    /**
+     * Constructs a writer with {@link #DEFAULT_BLOCK_ROWS} rows per block.
+     */
+    public ColumnarWriter() {
+        this(DEFAULT_BLOCK_ROWS);
+    }
+    
+    /**
+     * Constructs a writer with a custom block size.
+     * Smaller blocks let readers skip more precisely at the cost of a larger footer.
+     * 
+     * @param blockRows the number of rows per block
+     * @throws IllegalArgumentException if the block size is not positive
+     */
+    public ColumnarWriter(int blockRows) {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.blockRows = blockRows;
+    }
+    
+    /**
+     * Writes a list of products to a columnar file.
+     * 
+     * @param products the list of products to write
+     * @param filePath the path where the file will be created
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if products list is null or file path is invalid
+     */
+    public void writeProducts(List<Product> products, String filePath) throws IOException {
+        if (products == null) {
+            throw new IllegalArgumentException("Products list cannot be null");
+        }
+        
+        try (ColumnarSink sink = openSink(filePath)) {
+            for (Product product : products) {
+                sink.accept(product);
+            }
+        }
+    }
+    
+    /**
+     * Opens a sink that writes products, one at a time or in batches, to a
+     * columnar file. The footer is written when the sink is closed.
+     * 
+     * @param filePath the path where the file will be created
+     * @return a sink writing to the given file
+     * @throws IOException if the file cannot be opened for writing
+     * @throws IllegalArgumentException if the file path is null or empty
+     */
+    public ColumnarSink openSink(String filePath) throws IOException {
+        if (filePath == null || filePath.trim().isEmpty()) {
+            throw new IllegalArgumentException("File path cannot be null or empty");
+        }
+        
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+                                       StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new IOException("Failed to write to file: " + filePath + ". " + e.getMessage(), e);
+        }
+        
+        ColumnarSink sink = new ColumnarSink(channel, filePath);
+        ByteBuffer header = ByteBuffer.allocate(ALIGNMENT).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        sink.write(header);
+        return sink;
+    }
+    
+    /**
+     * Growable little-endian byte buffer holding one column of the current block.
+     */
+    private static final class ColumnBuffer {
+        
+        /** Bytes written so far */
+        private ByteBuffer bytes = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        
+        void ensure(int length) {
+            if (bytes.remaining() < length) {
+                int capacity = Math.max(bytes.capacity() * 2, bytes.position() + length);
+                ByteBuffer larger = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+                bytes.flip();
+                larger.put(bytes);
+                bytes = larger;
+            }
+        }
+        
+        void putInt(int value) {
+            ensure(Integer.BYTES);
+            bytes.putInt(value);
+        }
+        
+        void putDouble(double value) {
+            ensure(Double.BYTES);
+            bytes.putDouble(value);
+        }
+        
+        void put(byte value) {
+            ensure(1);
+            bytes.put(value);
+        }
+        
+        void put(byte[] source, int offset, int length) {
+            ensure(length);
+            bytes.put(source, offset, length);
+        }
+        
+        int size() {
+            return bytes.position();
+        }
+        
+        void clear() {
+            bytes.clear();
+        }
+    }
+    
+    /**
+     * Sink buffering one block of rows per column and appending each full block to the file.
+     */
+    public final class ColumnarSink implements ProductSink, ProductBatchSink {
+        
+        /** Channel of the output file */
+        private final FileChannel channel;
+        
+        /** Output file path for error reporting */
+        private final String filePath;
+        
+        /** Offsets of product IDs in idBytes, one more than the rows in the block */
+        private final ColumnBuffer idOffsets = new ColumnBuffer();
+        
+        /** UTF-8 bytes of the product IDs in the block */
+        private final ColumnBuffer idBytes = new ColumnBuffer();
+        
+        /** Offsets of names in nameBytes, one more than the rows in the block */
+        private final ColumnBuffer nameOffsets = new ColumnBuffer();
+        
+        /** UTF-8 bytes of the names in the block */
+        private final ColumnBuffer nameBytes = new ColumnBuffer();
+        
+        /** Prices of the block */
+        private final ColumnBuffer prices = new ColumnBuffer();
+        
+        /** Category codes of the block */
+        private final ColumnBuffer categories = new ColumnBuffer();
+        
+        /** Price range codes of the block */
+        private final ColumnBuffer ranges = new ColumnBuffer();
+        
+        /** Category names in file code order */
+        private final List<String> dictionary = new ArrayList<>();
+        
+        /** File codes of category names */
+        private final Map<String, Integer> codesByName = new HashMap<>();
+        
+        /** File code + 1 by shared dictionary code, 0 if not yet assigned */
+        private int[] codesBySharedCode = new int[16];
+        
+        /** Shared dictionary the batch category codes refer to */
+        private final CategoryDictionary sharedDictionary = CategoryDictionary.shared();
+        
+        /** Footer entries of the blocks written so far */
+        private final ColumnBuffer blockIndex = new ColumnBuffer();
+        
+        /** Number of blocks written so far */
+        private int blockCount;
+        
+        /** Rows in the current block */
+        private int rows;
+        
+        /** Total rows written */
+        private long rowCount;
+        
+        /** Lowest price in the current block */
+        private double minPrice;
+        
+        /** Highest price in the current block */
+        private double maxPrice;
+        
+        /** Lowest category code in the current block */
+        private int minCategory;
+        
+        /** Highest category code in the current block */
+        private int maxCategory;
+        
+        /** Bytes written to the file so far */
+        private long position;
+        
+        ColumnarSink(FileChannel channel, String filePath) {
+            this.channel = channel;
+            this.filePath = filePath;
+            startBlock();
+        }
+        
+        @Override
+        public void accept(Product product) throws IOException {
+            if (product == null) {
+                return;
+            }
+            putText(idOffsets, idBytes, product.getProductId());
+            putText(nameOffsets, nameBytes, product.getName());
+            PriceRange range = product.getRange();
+            endRow(product.getPrice(), fileCode(product.getCategoryCode(), product.getCategory()),
+                   range == null ? PriceRange.UNSET_CODE : range.code());
+        }
+        
+        @Override
+        public void accept(ProductBatch batch) throws IOException {
+            for (int i = 0; i < batch.size; i++) {
+                putText(idOffsets, idBytes, batch.productIds[i]);
+                if (batch.nameLength[i] < 0) {
+                    putText(nameOffsets, nameBytes, batch.nameText[i]);
+                } else {
+                    // Arena names are ASCII, which is already UTF-8
+                    nameOffsets.putInt(nameBytes.size());
+                    nameBytes.put(batch.nameBytes, batch.nameStart[i], batch.nameLength[i]);
+                }
+                endRow(batch.prices[i], fileCode(batch.categoryCodes[i], batch.categoryText[i]), batch.priceRanges[i]);
+            }
+        }
+        
+        private void putText(ColumnBuffer offsets, ColumnBuffer bytes, String text) {
+            offsets.putInt(bytes.size());
+            if (text != null) {
+                byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+                bytes.put(encoded, 0, encoded.length);
+            }
+        }
+        
+        /**
+         * Stores the fixed-width columns of a row whose strings were already stored,
+         * writing the block once it is full.
+         */
+        private void endRow(double price, int category, byte range) throws IOException {
+            prices.putDouble(price);
+            categories.putInt(category);
+            ranges.put(range);
+            minPrice = Math.min(minPrice, price);
+            maxPrice = Math.max(maxPrice, price);
+            minCategory = Math.min(minCategory, category);
+            maxCategory = Math.max(maxCategory, category);
+            rows++;
+            if (rows == blockRows) {
+                writeBlock();
+            }
+        }
+        
+        /**
+         * Gets the file dictionary code of a category, adding it if it is new.
+         */
+        private int fileCode(int sharedCode, String category) {
+            if (sharedCode >= 0 && sharedCode < codesBySharedCode.length && codesBySharedCode[sharedCode] != 0) {
+                return codesBySharedCode[sharedCode] - 1;
+            }
+            String name = sharedCode == CategoryDictionary.NO_CODE ? category : sharedDictionary.name(sharedCode);
+            if (name == null) {
+                return NULL_CATEGORY;
+            }
+            
+            Integer code = codesByName.get(name);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(name);
+                codesByName.put(name, code);
+            }
+            if (sharedCode >= 0) {
+                if (sharedCode >= codesBySharedCode.length) {
+                    codesBySharedCode = Arrays.copyOf(codesBySharedCode, Math.max(sharedCode + 1, codesBySharedCode.length * 2));
+                }
+                codesBySharedCode[sharedCode] = code + 1;
+            }
+            return code;
+        }
+        
+        private void startBlock() {
+            rows = 0;
+            minPrice = Double.POSITIVE_INFINITY;
+            maxPrice = Double.NEGATIVE_INFINITY;
+            minCategory = Integer.MAX_VALUE;
+            maxCategory = Integer.MIN_VALUE;
+            idOffsets.clear();
+            idBytes.clear();
+            nameOffsets.clear();
+            nameBytes.clear();
+            prices.clear();
+            categories.clear();
+            ranges.clear();
+        }
+        
+        /**
+         * Appends the current block's columns to the file and records them in the footer.
+         */
+        private void writeBlock() throws IOException {
+            if (rows == 0) {
+                return;
+            }
+            idOffsets.putInt(idBytes.size());
+            nameOffsets.putInt(nameBytes.size());
+            
+            blockIndex.putInt(rows);
+            blockIndex.putDouble(minPrice);
+            blockIndex.putDouble(maxPrice);
+            blockIndex.putInt(minCategory);
+            blockIndex.putInt(maxCategory);
+            writeColumn(idOffsets, idBytes);
+            writeColumn(nameOffsets, nameBytes);
+            writeColumn(prices, null);
+            writeColumn(categories, null);
+            writeColumn(ranges, null);
+            
+            rowCount += rows;
+            blockCount++;
+            startBlock();
+        }
+        
+        /**
+         * Writes one column, made of one or two buffers, and records its location.
+         */
+        private void writeColumn(ColumnBuffer first, ColumnBuffer second) throws IOException {
+            pad();
+            long start = position;
+            write(first.bytes.duplicate().flip());
+            if (second != null) {
+                write(second.bytes.duplicate().flip());
+            }
+            blockIndex.ensure(2 * Long.BYTES);
+            blockIndex.bytes.putLong(start).putLong(position - start);
+        }
+        
+        private void pad() throws IOException {
+            int padding = (int) (-position & (ALIGNMENT - 1));
+            if (padding > 0) {
+                write(ByteBuffer.allocate(padding));
+            }
+        }
+        
+        void write(ByteBuffer bytes) throws IOException {
+            try {
+                while (bytes.hasRemaining()) {
+                    position += channel.write(bytes);
+                }
+            } catch (IOException e) {
+                throw new IOException("Failed to write to file: " + filePath + ". " + e.getMessage(), e);
+            }
+        }
+        
+        /**
+         * Gets the number of rows written so far.
+         * 
+         * @return the row count
+         */
+        public long getRowCount() {
+            return rowCount + rows;
+        }
+        
+        /**
+         * Writes the last block and the footer, then closes the file.
+         * 
+         * @throws IOException if the file cannot be written
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                writeBlock();
+                
+                ColumnBuffer footer = new ColumnBuffer();
+                footer.putInt(dictionary.size());
+                for (String name : dictionary) {
+                    byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+                    footer.putInt(encoded.length);
+                    footer.put(encoded, 0, encoded.length);
+                }
+                footer.putInt(blockCount);
+                ByteBuffer index = blockIndex.bytes.duplicate().flip();
+                footer.put(index.array(), 0, index.limit());
+                footer.ensure(Long.BYTES + 2 * Integer.BYTES);
+                footer.bytes.putLong(rowCount);
+                int footerLength = footer.size();
+                footer.putInt(footerLength);
+                footer.putInt(MAGIC);
+                
+                pad();
+                write(footer.bytes.flip());
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
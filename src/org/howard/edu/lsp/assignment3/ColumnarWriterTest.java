@@ -0,0 +1,268 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * JUnit test class for ColumnarWriter and ColumnarReader.
+ * Checks that products written one at a time or in batches read back
+ * unchanged across full and partial blocks, that the per-block statistics
+ * bound every value in the block so pruning never skips a match, and that
+ * damaged files are rejected rather than misread.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class ColumnarWriterTest {
+    
+    /** Number of rows in the generated input */
+    private static final int ROWS = 10_000;
+    
+    /** Rows per block, chosen so the generated input ends in a partial block */
+    private static final int BLOCK_ROWS = 999;
+    
+    /**
+     * Describes every product in a list, apart from the exact cents the columnar file does not store.
+     */
+    private static List<String> describe(List<Product> products) {
+        List<String> descriptions = new ArrayList<>();
+        for (Product product : products) {
+            descriptions.add(TestProducts.describeIgnoringCents(product));
+        }
+        return descriptions;
+    }
+    
+    /**
+     * Reads every product in a columnar file.
+     */
+    private static List<String> read(Path file) throws IOException {
+        try (ColumnarReader reader = new ColumnarReader(file.toString())) {
+            return describe(reader.readProducts());
+        }
+    }
+    
+    /**
+     * Checks that every block but the last is full and the blocks add up to the row count.
+     */
+    private static void assertBlocks(ColumnarReader reader, int blockRows, int rows) {
+        assertEquals(rows, reader.getRowCount());
+        assertEquals((rows + blockRows - 1) / blockRows, reader.getBlockCount());
+        long total = 0;
+        for (int block = 0; block < reader.getBlockCount(); block++) {
+            int expected = Math.min(blockRows, rows - block * blockRows);
+            assertEquals(expected, reader.getBlockRowCount(block), "block " + block);
+            total += reader.getBlockRowCount(block);
+        }
+        assertEquals(rows, total);
+    }
+    
+    /**
+     * Products with a null category and names outside ASCII.
+     */
+    private static List<Product> unusualProducts() {
+        List<Product> products = new ArrayList<>();
+        products.add(new Product("1", "Caf\u00e9 cr\u00e8me", 4.5, "Food"));
+        products.add(new Product("2", "No category", 1.25, null));
+        products.add(new Product("3", "\u65e5\u672c\u8a9e", 30.0, "Books"));
+        products.add(new Product("4", "Emoji \ud83d\ude00", 0.99, null));
+        products.add(new Product("\u00fc5", "", 12.0, "Toys"));
+        for (Product product : products) {
+            product.setPriceRange(product.getPrice() < 10 ? PriceRange.LOW : PriceRange.MEDIUM);
+        }
+        return products;
+    }
+    
+    /**
+     * Tests that the list and batch sinks write files reading back as the
+     * transformed products, in blocks of the configured size with a partial last block.
+     */
+    @Test
+    @DisplayName("Test list and batch round trip")
+    public void testRoundTrip(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        ProductCsvGenerator generator = new ProductCsvGenerator(3);
+        generator.setQuotedRate(0.2);
+        generator.generate(input.toString(), ROWS);
+        DataTransformer transformer = new DataTransformer();
+        List<Product> products = transformer.transform(new CSVReader().readProducts(input.toString()));
+        assertNotEquals(0, products.size() % BLOCK_ROWS, "the last block should be partial");
+        List<String> expected = describe(products);
+        
+        Path list = tempDir.resolve("list.pcol");
+        new ColumnarWriter(BLOCK_ROWS).writeProducts(products, list.toString());
+        Path batches = tempDir.resolve("batches.pcol");
+        try (ProductBatchSink sink = transformer.transformingBatchSink(
+                 new ColumnarWriter(BLOCK_ROWS).openSink(batches.toString()))) {
+            new CSVReader().readBatches(input.toString(), new ProductBatch(100), sink);
+        }
+        
+        for (Path file : new Path[] {list, batches}) {
+            assertEquals(expected, read(file), file.toString());
+            try (ColumnarReader reader = new ColumnarReader(file.toString())) {
+                assertBlocks(reader, BLOCK_ROWS, products.size());
+            }
+        }
+        assertArrayEquals(Files.readAllBytes(list), Files.readAllBytes(batches));
+    }
+    
+    /**
+     * Tests null categories and non-ASCII IDs and names, written one at a time
+     * and in batches, across blocks of two rows.
+     */
+    @Test
+    @DisplayName("Test null categories and non-ASCII text")
+    public void testNullAndNonAscii(@TempDir Path tempDir) throws IOException {
+        List<Product> products = unusualProducts();
+        List<String> expected = describe(products);
+        
+        Path list = tempDir.resolve("list.pcol");
+        new ColumnarWriter(2).writeProducts(products, list.toString());
+        Path batches = tempDir.resolve("batches.pcol");
+        ProductBatch batch = new ProductBatch(8);
+        for (Product product : products) {
+            batch.add(product);
+        }
+        try (ColumnarWriter.ColumnarSink sink = new ColumnarWriter(2).openSink(batches.toString())) {
+            sink.accept(batch);
+            assertEquals(products.size(), sink.getRowCount());
+        }
+        
+        for (Path file : new Path[] {list, batches}) {
+            assertEquals(expected, read(file), file.toString());
+            try (ColumnarReader reader = new ColumnarReader(file.toString())) {
+                assertBlocks(reader, 2, products.size());
+                assertEquals(3, reader.getCategoryCount());
+                assertEquals(ColumnarWriter.NULL_CATEGORY, reader.categoryCodes(0).get(1));
+                assertEquals(ColumnarWriter.NULL_CATEGORY, reader.categoryCodes(1).get(1));
+                assertNull(reader.getCategory(ColumnarWriter.NULL_CATEGORY));
+                assertEquals(ColumnarWriter.NULL_CATEGORY, reader.getCategoryCode("Electronics"));
+                assertEquals("Books", reader.getCategory(reader.getCategoryCode("Books")));
+                assertEquals("\u65e5\u672c\u8a9e", reader.name(1, 0));
+                assertEquals("\u00fc5", reader.productId(2, 0));
+                assertEquals("", reader.name(2, 0));
+                assertThrows(IndexOutOfBoundsException.class, () -> reader.name(2, 1));
+            }
+        }
+    }
+    
+    /**
+     * Tests that the per-block price and category bounds hold every value of
+     * the block, so a block is never pruned when it has a match, and that
+     * sorted data lets most blocks be pruned.
+     */
+    @Test
+    @DisplayName("Test block statistics and pruning")
+    public void testPruning(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        new ProductCsvGenerator(8).generate(input.toString(), ROWS);
+        List<Product> products = new DataTransformer().transform(new CSVReader().readProducts(input.toString()));
+        products.sort(Comparator.comparingDouble(Product::getPrice));
+        Path file = tempDir.resolve("sorted.pcol");
+        new ColumnarWriter(BLOCK_ROWS).writeProducts(products, file.toString());
+        
+        double[] bounds = {0, 1, 10, 50, 99.99, 100, 250, 500, 1000, 5000};
+        try (ColumnarReader reader = new ColumnarReader(file.toString())) {
+            int blocks = reader.getBlockCount();
+            for (double low : bounds) {
+                for (double high : bounds) {
+                    int candidates = 0;
+                    for (int block = 0; block < blocks; block++) {
+                        DoubleBuffer prices = reader.prices(block);
+                        boolean matches = false;
+                        for (int row = 0; row < prices.limit(); row++) {
+                            matches |= prices.get(row) >= low && prices.get(row) <= high;
+                        }
+                        boolean mayContain = reader.mayContainPrice(block, low, high);
+                        assertTrue(mayContain || !matches, "block " + block + " pruned for " + low + ".." + high);
+                        candidates += mayContain ? 1 : 0;
+                    }
+                    if (low == high && low > 0) {
+                        // A single price falls in at most two adjacent blocks of sorted data
+                        assertTrue(candidates <= 2, candidates + " blocks for price " + low);
+                    }
+                }
+            }
+            
+            for (int block = 0; block < blocks; block++) {
+                DoubleBuffer prices = reader.prices(block);
+                double[] values = new double[prices.limit()];
+                prices.get(values);
+                Arrays.sort(values);
+                assertEquals(values[0], reader.getBlockMinPrice(block), "block " + block);
+                assertEquals(values[values.length - 1], reader.getBlockMaxPrice(block), "block " + block);
+                
+                IntBuffer codes = reader.categoryCodes(block);
+                for (int code = 0; code < reader.getCategoryCount(); code++) {
+                    boolean present = false;
+                    for (int row = 0; row < codes.limit(); row++) {
+                        present |= codes.get(row) == code;
+                    }
+                    assertTrue(reader.mayContainCategory(block, code) || !present, "block " + block + " code " + code);
+                }
+            }
+        }
+        
+        // Sorted by category, each block holds one or two categories and the rest can be pruned
+        products.sort(Comparator.comparing(Product::getCategory));
+        new ColumnarWriter(BLOCK_ROWS).writeProducts(products, file.toString());
+        try (ColumnarReader reader = new ColumnarReader(file.toString())) {
+            for (int code = 0; code < reader.getCategoryCount(); code++) {
+                String category = reader.getCategory(code);
+                for (int block = 0; block < reader.getBlockCount(); block++) {
+                    boolean present = false;
+                    IntBuffer codes = reader.categoryCodes(block);
+                    for (int row = 0; row < codes.limit(); row++) {
+                        present |= codes.get(row) == code;
+                    }
+                    assertEquals(present, reader.mayContainCategory(block, code), "block " + block + " " + category);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Tests that truncated files, files with a wrong magic number or version
+     * and files that are not columnar at all are rejected.
+     */
+    @Test
+    @DisplayName("Test damaged files")
+    public void testDamagedFiles(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("products.pcol");
+        new ColumnarWriter(2).writeProducts(unusualProducts(), file.toString());
+        byte[] content = Files.readAllBytes(file);
+        Path damaged = tempDir.resolve("damaged.pcol");
+        
+        for (int length : new int[] {0, 4, 8, content.length / 2, content.length - 4, content.length - 1}) {
+            Files.write(damaged, Arrays.copyOf(content, length));
+            IOException e = assertThrows(IOException.class, () -> new ColumnarReader(damaged.toString()));
+            assertTrue(e.getMessage().contains("Not a valid columnar file"), length + ": " + e.getMessage());
+        }
+        
+        for (int offset : new int[] {0, 4, content.length - 1}) {
+            byte[] corrupt = content.clone();
+            corrupt[offset] ^= 0x5A;
+            Files.write(damaged, corrupt);
+            IOException e = assertThrows(IOException.class, () -> new ColumnarReader(damaged.toString()));
+            assertTrue(e.getMessage().contains("Not a valid columnar file"), offset + ": " + e.getMessage());
+        }
+        
+        Files.write(damaged, "ProductID,Name,Price,Category\n1,Widget,1.00,Toys\n".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> new ColumnarReader(damaged.toString()));
+        assertThrows(IOException.class, () -> new ColumnarReader(tempDir.resolve("missing.pcol").toString()));
+        assertThrows(IllegalArgumentException.class, () -> new ColumnarReader(" "));
+        assertThrows(IllegalArgumentException.class, () -> new ColumnarWriter(0));
+        assertThrows(IllegalArgumentException.class, () -> new ColumnarWriter().writeProducts(null, file.toString()));
+    }
+}
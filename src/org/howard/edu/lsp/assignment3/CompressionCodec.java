@@ -0,0 +1,190 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression formats understood by {@link CSVReader} and {@link CSVWriter}.
+ * 
+ * The reader recognizes compressed files by their leading magic bytes, so
+ * file names do not matter; the writer compresses with the codec it is
+ * configured with. Only formats built into the JDK are supported.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public enum CompressionCodec {
+    
+    /** Plain, uncompressed CSV */
+    NONE(""),
+    
+    /** gzip (RFC 1952), as written by the gzip tool */
+    GZIP(".gz"),
+    
+    /** zlib-wrapped DEFLATE (RFC 1950) */
+    DEFLATE(".zz");
+    
+    /** Size of the compressor and decompressor buffers */
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+    
+    /** Number of leading bytes examined to detect the format */
+    private static final int MAGIC_LENGTH = 4;
+    
+    /** Leading bytes of a Zstandard frame, recognized only to reject it clearly */
+    private static final int ZSTD_MAGIC = 0x28B52FFD;
+    
+    /** File name extension conventionally used for the format */
+    private final String extension;
+    
+    CompressionCodec(String extension) {
+        this.extension = extension;
+    }
+    
+    /**
+     * Gets the file name extension conventionally used for the format.
+     * 
+     * @return the extension including its dot, or an empty string for NONE
+     */
+    public String extension() {
+        return extension;
+    }
+    
+    /**
+     * Looks up a codec by name, ignoring case.
+     * 
+     * @param name none, gzip or deflate
+     * @return the codec
+     * @throws IllegalArgumentException if the name is null or unknown
+     */
+    public static CompressionCodec fromName(String name) {
+        if (name != null) {
+            for (CompressionCodec codec : values()) {
+                if (codec.name().equalsIgnoreCase(name.trim())) {
+                    return codec;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unknown compression codec: " + name + " (expected none, gzip or deflate)");
+    }
+    
+    /**
+     * Detects the format of a file from its leading bytes.
+     * 
+     * zlib streams are only recognized with the header written at the default,
+     * fastest or best compression level; the remaining header ({@code x^})
+     * could just as well start a plain text file.
+     * 
+     * @param path the file to examine
+     * @return the detected codec, NONE for anything that is not compressed
+     * @throws IOException if the file cannot be read or uses an unsupported compression format
+     */
+    static CompressionCodec detect(Path path) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(MAGIC_LENGTH);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // Keep reading until the magic bytes are in or the file ends
+            }
+        }
+        magic.flip();
+        if (magic.remaining() < 2) {
+            return NONE;
+        }
+        
+        int b0 = magic.get(0) & 0xFF;
+        int b1 = magic.get(1) & 0xFF;
+        if (b0 == 0x1F && b1 == 0x8B) {
+            return GZIP;
+        }
+        if (b0 == 0x78 && (b1 == 0x01 || b1 == 0x9C || b1 == 0xDA)) {
+            return DEFLATE;
+        }
+        if (magic.remaining() == MAGIC_LENGTH && magic.getInt(0) == ZSTD_MAGIC) {
+            throw new IOException("Zstandard-compressed input is not supported: " + path);
+        }
+        return NONE;
+    }
+    
+    /**
+     * Removes any compression extension from a file name.
+     * 
+     * @param fileName the file name
+     * @return the name without a trailing .gz or .zz
+     */
+    static String stripExtension(String fileName) {
+        for (CompressionCodec codec : values()) {
+            if (codec != NONE && fileName.toLowerCase(Locale.ROOT).endsWith(codec.extension)) {
+                return fileName.substring(0, fileName.length() - codec.extension.length());
+            }
+        }
+        return fileName;
+    }
+    
+    /**
+     * Wraps a stream of compressed bytes so that reading it yields the original bytes.
+     * 
+     * @param in the compressed stream
+     * @return the decompressing stream, or the stream itself for NONE
+     * @throws IOException if the stream header is invalid
+     */
+    InputStream decompress(InputStream in) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPInputStream(in, STREAM_BUFFER_SIZE);
+            case DEFLATE:
+                // A stream given its own Inflater does not release it on close
+                Inflater inflater = new Inflater();
+                return new InflaterInputStream(in, inflater, STREAM_BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inflater.end();
+                        }
+                    }
+                };
+            default:
+                return in;
+        }
+    }
+    
+    /**
+     * Wraps a stream so that bytes written to it are compressed.
+     * 
+     * @param out the stream receiving compressed bytes
+     * @param syncFlush whether flushing pushes all data written so far through the compressor
+     * @return the compressing stream, or null for NONE
+     * @throws IOException if the stream header cannot be written
+     */
+    DeflaterOutputStream compress(OutputStream out, boolean syncFlush) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPOutputStream(out, STREAM_BUFFER_SIZE, syncFlush);
+            case DEFLATE:
+                Deflater deflater = new Deflater();
+                return new DeflaterOutputStream(out, deflater, STREAM_BUFFER_SIZE, syncFlush) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            deflater.end();
+                        }
+                    }
+                };
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * JUnit test class for CompressionCodec.
+ * Checks that files written compressed by CSVWriter decompress to exactly the
+ * plain output and read back as the same products, and that formats are
+ * recognized by their leading bytes rather than by file name.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class CompressionCodecTest {
+    
+    /** Number of rows in the generated input, enough for several decompression blocks */
+    private static final int ROWS = 20_000;
+    
+    /**
+     * Reads a file and describes every product in it.
+     */
+    private static List<String> read(Path file) throws IOException {
+        return TestProducts.describe(new CSVReader().readProducts(file.toString()));
+    }
+    
+    /**
+     * Reads every byte a codec decompresses from a file.
+     */
+    private static byte[] decompress(CompressionCodec codec, Path file) throws IOException {
+        try (InputStream in = codec.decompress(Files.newInputStream(file))) {
+            return in.readAllBytes();
+        }
+    }
+    
+    /**
+     * Detects the format of a file holding the given bytes.
+     */
+    private static CompressionCodec detect(Path tempDir, int... bytes) throws IOException {
+        byte[] content = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            content[i] = (byte) bytes[i];
+        }
+        Path file = Files.write(tempDir.resolve("magic.csv"), content);
+        return CompressionCodec.detect(file);
+    }
+    
+    /**
+     * Tests that gzip and deflate output, written row by row and in batches,
+     * decompresses to the plain output and reads back as the same products.
+     */
+    @Test
+    @DisplayName("Test compressed round trip")
+    public void testRoundTrip(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        ProductCsvGenerator generator = new ProductCsvGenerator(5);
+        generator.setQuotedRate(0.2);
+        generator.generate(input.toString(), ROWS);
+        List<Product> products = new CSVReader().readProducts(input.toString());
+        
+        Path plain = tempDir.resolve("plain.csv");
+        new CSVWriter().writeProducts(products, plain.toString());
+        byte[] plainBytes = Files.readAllBytes(plain);
+        List<String> expected = read(plain);
+        assertEquals(products.size(), expected.size());
+        
+        for (CompressionCodec codec : new CompressionCodec[] {CompressionCodec.GZIP, CompressionCodec.DEFLATE}) {
+            // A name without the extension, so only the magic bytes can identify the format
+            Path list = tempDir.resolve(codec + "-list.csv");
+            CSVWriter writer = new CSVWriter(CSVWriter.DEFAULT_BUFFER_SIZE, CSVWriter.SyncPolicy.NONE, codec);
+            writer.writeProducts(products, list.toString());
+            Path batches = tempDir.resolve(codec + "-batches" + codec.extension());
+            try (ProductBatchSink sink = writer.openBatchSink(batches.toString())) {
+                new CSVReader().readBatches(input.toString(), new ProductBatch(100), sink);
+            }
+            
+            for (Path file : new Path[] {list, batches}) {
+                assertEquals(codec, CompressionCodec.detect(file), file.toString());
+                assertTrue(Files.size(file) < plainBytes.length, file.toString());
+                assertArrayEquals(plainBytes, decompress(codec, file), file.toString());
+                assertEquals(expected, read(file), file.toString());
+            }
+        }
+    }
+    
+    /**
+     * Tests detection from the leading bytes, including short files, plain
+     * text that resembles a zlib header and a rejected Zstandard header.
+     */
+    @Test
+    @DisplayName("Test format detection")
+    public void testDetect(@TempDir Path tempDir) throws IOException {
+        assertEquals(CompressionCodec.NONE, detect(tempDir));
+        assertEquals(CompressionCodec.NONE, detect(tempDir, 0x1F));
+        assertEquals(CompressionCodec.GZIP, detect(tempDir, 0x1F, 0x8B));
+        assertEquals(CompressionCodec.GZIP, detect(tempDir, 0x1F, 0x8B, 0x08, 0x00, 0x00));
+        assertEquals(CompressionCodec.DEFLATE, detect(tempDir, 0x78, 0x01));
+        assertEquals(CompressionCodec.DEFLATE, detect(tempDir, 0x78, 0x9C, 0x00));
+        assertEquals(CompressionCodec.DEFLATE, detect(tempDir, 0x78, 0xDA, 0x00, 0x00));
+        assertEquals(CompressionCodec.NONE, detect(tempDir, 'x', '^', 'y', 'z'));
+        assertEquals(CompressionCodec.NONE, detect(tempDir, 'P', 'r', 'o', 'd', 'u', 'c', 't'));
+        assertEquals(CompressionCodec.NONE, detect(tempDir, 0x28, 0xB5, 0x2F));
+        
+        IOException e = assertThrows(IOException.class, () -> detect(tempDir, 0x28, 0xB5, 0x2F, 0xFD, 0x04));
+        assertTrue(e.getMessage().startsWith("Zstandard-compressed input is not supported"), e.getMessage());
+        Path zstd = tempDir.resolve("magic.csv");
+        assertThrows(IOException.class, () -> new CSVReader().readProducts(zstd.toString()));
+    }
+    
+    /**
+     * Tests codec names and extensions.
+     */
+    @Test
+    @DisplayName("Test names and extensions")
+    public void testNames() {
+        assertEquals(CompressionCodec.GZIP, CompressionCodec.fromName("gzip"));
+        assertEquals(CompressionCodec.DEFLATE, CompressionCodec.fromName(" Deflate "));
+        assertEquals(CompressionCodec.NONE, CompressionCodec.fromName("NONE"));
+        assertThrows(IllegalArgumentException.class, () -> CompressionCodec.fromName("zstd"));
+        assertThrows(IllegalArgumentException.class, () -> CompressionCodec.fromName(null));
+        
+        assertEquals("products.csv", CompressionCodec.stripExtension("products.csv.gz"));
+        assertEquals("products.csv", CompressionCodec.stripExtension("products.csv.ZZ"));
+        assertEquals("products.csv", CompressionCodec.stripExtension("products.csv"));
+    }
+}
@@ -0,0 +1,258 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits and quotes CSV records following RFC 4180.
+ * 
+ * A field is quoted if its first non-blank character is a double quote. A
+ * quoted field runs to the next quote that is not doubled, may contain commas
+ * and line breaks, and keeps its text exactly; a doubled quote stands for one
+ * quote. Anything after the closing quote is kept as written. Quotes anywhere
+ * else in a field are ordinary characters, so hand-edited rows such as
+ * {@code 17" Monitor} still read as they did before quoting was supported.
+ * 
+ * Unquoted fields are trimmed and trailing empty fields are dropped, exactly
+ * like {@code String.trim()} and {@code String.split(",")}, so rows without
+ * quotes split the same as they always have. Line breaks inside quoted
+ * fields are read as {@code \n} whatever the file uses.
+ * 
+ * {@link MappedCSVScanner} applies the same rules to mapped bytes.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+final class CsvSyntax {
+    
+    /** Quote character */
+    static final char QUOTE = '"';
+    
+    /**
+     * Utility class; not instantiable.
+     */
+    private CsvSyntax() {
+    }
+    
+    /**
+     * Splits a trimmed record into fields.
+     * 
+     * @param record the trimmed record, with line breaks inside quoted fields as {@code \n}
+     * @return the fields, or null if the record ends inside a quoted field
+     */
+    static String[] split(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        int columnCount = 0;
+        int length = record.length();
+        int start = 0;
+        while (true) {
+            int i = skipBlanks(record, start);
+            int end;
+            text.setLength(0);
+            if (i < length && record.charAt(i) == QUOTE) {
+                int close = unescape(record, i + 1, text);
+                if (close < 0) {
+                    return null;
+                }
+                end = nextComma(record, close + 1);
+                text.append(record, close + 1, trimEnd(record, close + 1, end));
+            } else {
+                end = nextComma(record, start);
+                text.append(record, i, trimEnd(record, i, end));
+            }
+            fields.add(text.toString());
+            
+            // String.split drops trailing empty fields, judged before trimming
+            if (end > start) {
+                columnCount = fields.size();
+            }
+            if (end == length) {
+                break;
+            }
+            start = end + 1;
+        }
+        return fields.subList(0, columnCount).toArray(new String[0]);
+    }
+    
+    /**
+     * Checks whether a record ends inside a quoted field, meaning the line
+     * break after it belongs to the field and the next line continues it.
+     * 
+     * @param record the record read so far
+     * @return true if the last field is an unterminated quoted field
+     */
+    static boolean endsInQuotedField(CharSequence record) {
+        return endsInQuotedField(record, 0, false);
+    }
+    
+    /**
+     * Checks whether a record still ends inside a quoted field after more
+     * text was appended to a part already known to end inside one, without
+     * scanning that part again.
+     * 
+     * @param record the record read so far
+     * @param from the length of the part that ended inside a quoted field
+     * @return true if the last field is an unterminated quoted field
+     */
+    static boolean endsInQuotedField(CharSequence record, int from) {
+        return endsInQuotedField(record, from, true);
+    }
+    
+    private static boolean endsInQuotedField(CharSequence record, int from, boolean inQuotes) {
+        int length = record.length();
+        int start = from;
+        while (true) {
+            int i = start;
+            if (!inQuotes) {
+                i = skipBlanks(record, start);
+                inQuotes = i < length && record.charAt(i) == QUOTE;
+                i = inQuotes ? i + 1 : i;
+            }
+            if (inQuotes) {
+                int close = closingQuote(record, i);
+                if (close < 0) {
+                    return true;
+                }
+                i = close + 1;
+                inQuotes = false;
+            }
+            int end = nextComma(record, i);
+            if (end == length) {
+                return false;
+            }
+            start = end + 1;
+        }
+    }
+    
+    /**
+     * Checks whether a field must be quoted to be read back unchanged: it
+     * contains a comma, quote or line break, or starts or ends with blanks
+     * that reading would trim.
+     * 
+     * @param field the field text
+     * @return true if the field must be quoted
+     */
+    static boolean needsQuoting(CharSequence field) {
+        int length = field.length();
+        if (length == 0) {
+            return false;
+        }
+        if (field.charAt(0) <= ' ' || field.charAt(length - 1) <= ' ') {
+            return true;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == QUOTE || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Checks whether an encoded field must be quoted, like {@link #needsQuoting(CharSequence)}.
+     * The charset must be ASCII-compatible.
+     * 
+     * @param bytes the array holding the field
+     * @param offset the offset of the field
+     * @param length the length of the field in bytes
+     * @return true if the field must be quoted
+     */
+    static boolean needsQuoting(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return false;
+        }
+        if ((bytes[offset] & 0xFF) <= ' ' || (bytes[offset + length - 1] & 0xFF) <= ' ') {
+            return true;
+        }
+        for (int i = offset; i < offset + length; i++) {
+            byte b = bytes[i];
+            if (b == ',' || b == QUOTE || b == '\n' || b == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Quotes a field if it needs quoting.
+     * 
+     * @param field the field text
+     * @return the field as written in a CSV file
+     */
+    static String quote(String field) {
+        if (!needsQuoting(field)) {
+            return field;
+        }
+        StringBuilder quoted = new StringBuilder(field.length() + 2).append(QUOTE);
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == QUOTE) {
+                quoted.append(QUOTE);
+            }
+            quoted.append(c);
+        }
+        return quoted.append(QUOTE).toString();
+    }
+    
+    /**
+     * Copies the content of a quoted field, undoubling quotes.
+     * 
+     * @return the index of the closing quote, or -1 if there is none
+     */
+    private static int unescape(String record, int i, StringBuilder text) {
+        while (true) {
+            int close = record.indexOf(QUOTE, i);
+            if (close < 0) {
+                return -1;
+            }
+            text.append(record, i, close);
+            if (close + 1 < record.length() && record.charAt(close + 1) == QUOTE) {
+                text.append(QUOTE);
+                i = close + 2;
+            } else {
+                return close;
+            }
+        }
+    }
+    
+    /**
+     * Finds the closing quote of a quoted field, skipping doubled quotes.
+     * 
+     * @return the index of the closing quote, or -1 if there is none
+     */
+    private static int closingQuote(CharSequence record, int i) {
+        int length = record.length();
+        for (; i < length; i++) {
+            if (record.charAt(i) == QUOTE) {
+                if (i + 1 < length && record.charAt(i + 1) == QUOTE) {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+    
+    private static int skipBlanks(CharSequence record, int i) {
+        while (i < record.length() && record.charAt(i) <= ' ') {
+            i++;
+        }
+        return i;
+    }
+    
+    private static int nextComma(CharSequence record, int i) {
+        while (i < record.length() && record.charAt(i) != ',') {
+            i++;
+        }
+        return i;
+    }
+    
+    private static int trimEnd(CharSequence record, int start, int end) {
+        while (end > start && record.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+}
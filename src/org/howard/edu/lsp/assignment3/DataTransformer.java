@@ -1,35 +1,112 @@
 package org.howard.edu.lsp.assignment3;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 
 public class DataTransformer {
     
-    /** Electronics category constant */
-    private static final String ELECTRONICS_CATEGORY = "Electronics";
+    /**
+     * Whether uppercasing ASCII letters byte by byte matches String.toUpperCase in the
+     * default locale; Turkish and Azerbaijani map 'i' to a non-ASCII capital
+     */
+    static final boolean ASCII_UPPERCASE_IS_EXACT =
+        !"tr".equals(Locale.getDefault().getLanguage()) && !"az".equals(Locale.getDefault().getLanguage());
+    
+    /** Default number of products from which the list transform runs in parallel */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 10_000;
+    
+    /** Default number of products transformed by each parallel task */
+    public static final int DEFAULT_BATCH_SIZE = 2_048;
+    
+    /** Pool used for parallel transforms, or null to always transform sequentially */
+    private final ForkJoinPool pool;
+    
+    /** Lists with fewer products than this are transformed sequentially */
+    private final int parallelThreshold;
+    
+    /** Maximum number of products transformed by a single parallel task */
+    private final int batchSize;
     
-    /** Premium Electronics category constant */
-    private static final String PREMIUM_ELECTRONICS = "Premium Electronics";
+    /** Compiled business rules */
+    private final TransformationRules rules;
     
-    /** Discount rate applied to Electronics (10%) */
-    private static final double DISCOUNT_RATE = 0.10;
+    /**
+     * Constructs a transformer that applies the default rules and uses the common
+     * fork-join pool for lists of at least {@link #DEFAULT_PARALLEL_THRESHOLD}
+     * products, staying sequential below that.
+     */
+    public DataTransformer() {
+        this(TransformationRules.defaults());
+    }
+    
+    /**
+     * Constructs a transformer that applies custom rules with the default parallelism settings.
+     * 
+     * @param rules the rules to apply
+     * @throws IllegalArgumentException if the rules are null
+     */
+    public DataTransformer(TransformationRules rules) {
+        this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD, DEFAULT_BATCH_SIZE, rules);
+    }
     
-    /** Price threshold for Premium Electronics classification */
-    private static final double PREMIUM_THRESHOLD = 500.00;
+    /**
+     * Constructs a transformer with custom parallelism settings.
+     * 
+     * @param pool the pool used for parallel transforms, or null to always run sequentially
+     * @param parallelThreshold minimum list size for a parallel transform
+     * @param batchSize maximum number of products handled by a single parallel task
+     * @throws IllegalArgumentException if the threshold or batch size is not positive
+     */
+    public DataTransformer(ForkJoinPool pool, int parallelThreshold, int batchSize) {
+        this(pool, parallelThreshold, batchSize, TransformationRules.defaults());
+    }
+    
+    /**
+     * Constructs a transformer with custom rules and parallelism settings.
+     * 
+     * @param pool the pool used for parallel transforms, or null to always run sequentially
+     * @param parallelThreshold minimum list size for a parallel transform
+     * @param batchSize maximum number of products handled by a single parallel task
+     * @param rules the rules to apply
+     * @throws IllegalArgumentException if the threshold or batch size is not positive or the rules are null
+     */
+    public DataTransformer(ForkJoinPool pool, int parallelThreshold, int batchSize, TransformationRules rules) {
+        if (rules == null) {
+            throw new IllegalArgumentException("Transformation rules cannot be null");
+        }
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("Parallel threshold must be positive");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+        this.batchSize = batchSize;
+        this.rules = rules;
+    }
     
     /**
      * Transforms a list of products according to business rules.
      * 
      * This method applies the following transformations in order:
      * 1. Convert product name to uppercase
-     * 2. Apply 10% discount if category is Electronics
+     * 2. Apply the category's discount (10% for Electronics by default)
      * 3. Round price to 2 decimal places using HALF_UP rounding
-     * 4. Recategorize to Premium Electronics if price > $500 and originally Electronics
+     * 4. Recategorize if price is above the original category's threshold
+     *    (Electronics above $500 become Premium Electronics by default)
      * 5. Determine price range based on final price
      * 
+     * Large lists are split into batches transformed in parallel; the result
+     * keeps the input order either way.
+     * 
      * @param products the list of products to transform
      * @return a new list containing transformed products
      * @throws IllegalArgumentException if the products list is null
@@ -39,6 +116,10 @@ public class DataTransformer {
             throw new IllegalArgumentException("Products list cannot be null");
         }
         
+        if (pool != null && pool.getParallelism() > 1 && products.size() >= parallelThreshold) {
+            return transformParallel(products);
+        }
+        
         List<Product> transformedProducts = new ArrayList<>();
         
         for (Product product : products) {
@@ -51,6 +132,199 @@ public class DataTransformer {
         return transformedProducts;
     }
     
+    /**
+     * Transforms a list of products in parallel batches while preserving input order.
+     * Each batch writes into its own slice of a shared result array, so no
+     * merging or sorting is needed afterwards.
+     * 
+     * @param products the list of products to transform
+     * @return a new list containing transformed products in input order
+     */
+    private List<Product> transformParallel(List<Product> products) {
+        Product[] input = products.toArray(new Product[0]);
+        Product[] output = new Product[input.length];
+        
+        pool.invoke(new TransformTask(input, output, 0, input.length));
+        
+        List<Product> transformedProducts = new ArrayList<>(output.length);
+        for (Product product : output) {
+            // Null input products leave gaps that are dropped, as in the sequential loop
+            if (product != null) {
+                transformedProducts.add(product);
+            }
+        }
+        return transformedProducts;
+    }
+    
+    /**
+     * Fork-join task transforming a slice of the input array.
+     */
+    private final class TransformTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        /** Products to transform */
+        private final Product[] input;
+        
+        /** Array receiving transformed products at the same indexes */
+        private final Product[] output;
+        
+        /** First index of the slice */
+        private final int from;
+        
+        /** Index just past the slice */
+        private final int to;
+        
+        TransformTask(Product[] input, Product[] output, int from, int to) {
+            this.input = input;
+            this.output = output;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= batchSize) {
+                for (int i = from; i < to; i++) {
+                    if (input[i] != null) {
+                        output[i] = transformProduct(input[i]);
+                    }
+                }
+                return;
+            }
+            
+            int middle = (from + to) >>> 1;
+            invokeAll(new TransformTask(input, output, from, middle),
+                      new TransformTask(input, output, middle, to));
+        }
+    }
+    
+    /**
+     * Wraps a downstream sink so every product is transformed before it is passed on.
+     * This lets the transform phase run row by row in a streaming pipeline.
+     * 
+     * @param downstream the sink receiving transformed products
+     * @return a sink that transforms each product and forwards it downstream
+     * @throws IllegalArgumentException if the downstream sink is null
+     */
+    public ProductSink transformingSink(ProductSink downstream) {
+        if (downstream == null) {
+            throw new IllegalArgumentException("Downstream sink cannot be null");
+        }
+        
+        return new ProductSink() {
+            @Override
+            public void accept(Product product) throws IOException {
+                if (product != null) {
+                    downstream.accept(transformProduct(product));
+                }
+            }
+            
+            @Override
+            public void close() throws IOException {
+                downstream.close();
+            }
+        };
+    }
+    
+    /**
+     * Transforms a columnar batch in place, applying the same rules as
+     * {@link #transformProduct} to every row.
+     * 
+     * Each rule runs as a loop over one or two primitive columns: names are
+     * uppercased across the whole ASCII name arena at once, and prices,
+     * categories and price ranges are updated without creating any objects for
+     * rows carried in fixed-point cents.
+     * 
+     * @param batch the batch to transform
+     * @throws IllegalArgumentException if the batch is null
+     */
+    public void transform(ProductBatch batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Product batch cannot be null");
+        }
+        
+        int size = batch.size;
+        
+        // Step 1: Convert names to uppercase
+        if (ASCII_UPPERCASE_IS_EXACT) {
+            byte[] names = batch.nameBytes;
+            for (int i = 0; i < batch.nameBytesUsed; i++) {
+                byte b = names[i];
+                if (b >= 'a' && b <= 'z') {
+                    names[i] = (byte) (b - ('a' - 'A'));
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (batch.nameLength[i] < 0) {
+                String name = batch.nameText[i];
+                batch.nameText[i] = name == null ? null : name.toUpperCase();
+            } else if (!ASCII_UPPERCASE_IS_EXACT) {
+                batch.setNameText(i, batch.getName(i).toUpperCase());
+            }
+        }
+        
+        // Steps 2-4: Discount, round, recategorize and classify by price
+        double[] prices = batch.prices;
+        long[] cents = batch.priceCents;
+        int[] categories = batch.categoryCodes;
+        byte[] ranges = batch.priceRanges;
+        for (int i = 0; i < size; i++) {
+            int category = categories[i];
+            double discountRate = rules.discountRate(category);
+            boolean discounted = discountRate != 0;
+            double price = prices[i];
+            long priceCents = cents[i];
+            if (priceCents != FixedPointPrice.UNKNOWN && discounted) {
+                priceCents = FixedPointPrice.applyDiscount(priceCents, price, discountRate,
+                                                           rules.discountBasisPoints(category));
+            }
+            
+            if (priceCents != FixedPointPrice.UNKNOWN) {
+                price = FixedPointPrice.toDouble(priceCents);
+            } else {
+                if (discounted) {
+                    price = price * (1 - discountRate);
+                }
+                price = roundToTwoDecimals(price);
+            }
+            prices[i] = price;
+            cents[i] = priceCents;
+            
+            if (price > rules.promotionThreshold(category)) {
+                categories[i] = rules.promotionCode(category);
+            }
+            ranges[i] = rules.classify(price).code();
+        }
+    }
+    
+    /**
+     * Wraps a downstream batch sink so every batch is transformed in place before it is passed on.
+     * 
+     * @param downstream the sink receiving transformed batches
+     * @return a sink that transforms each batch and forwards it downstream
+     * @throws IllegalArgumentException if the downstream sink is null
+     */
+    public ProductBatchSink transformingBatchSink(ProductBatchSink downstream) {
+        if (downstream == null) {
+            throw new IllegalArgumentException("Downstream sink cannot be null");
+        }
+        
+        return new ProductBatchSink() {
+            @Override
+            public void accept(ProductBatch batch) throws IOException {
+                transform(batch);
+                downstream.accept(batch);
+            }
+            
+            @Override
+            public void close() throws IOException {
+                downstream.close();
+            }
+        };
+    }
+    
     /**
      * Applies all transformation rules to a single product.
      * This method replicates the exact logic from Assignment 2's transformRow method.
@@ -58,7 +332,7 @@ public class DataTransformer {
      * @param originalProduct the product to transform
      * @return a new transformed product instance
      */
-    private Product transformProduct(Product originalProduct) {
+    public Product transformProduct(Product originalProduct) {
         // Create a new product instance to avoid modifying the original
         Product transformed = new Product(
             originalProduct.getProductId(),
@@ -71,27 +345,43 @@ public class DataTransformer {
         String uppercaseName = transformed.getName().toUpperCase();
         transformed.setName(uppercaseName);
         
-        // Step 2: Apply 10% discount if Electronics category
+        // Step 2: Apply the category's discount
         double price = transformed.getPrice();
-        String originalCategory = originalProduct.getCategory(); // Keep track of original category
+        // Rules are looked up by dictionary code; the original category decides all of them
+        int category = originalProduct.getCategoryCode();
+        double discountRate = rules.discountRate(category);
+        boolean discounted = discountRate != 0;
         
-        if (ELECTRONICS_CATEGORY.equals(transformed.getCategory())) {
-            price = price * (1 - DISCOUNT_RATE);
+        // Fixed-point path: exact cents in integer arithmetic, no BigDecimal
+        long priceCents = FixedPointPrice.UNKNOWN;
+        if (originalProduct.hasPriceCents()) {
+            priceCents = discounted
+                ? FixedPointPrice.applyDiscount(originalProduct.getPriceCents(), price, discountRate,
+                                                rules.discountBasisPoints(category))
+                : originalProduct.getPriceCents();
         }
         
-        // Round price to 2 decimals (half up)
-        price = roundToTwoDecimals(price);
-        transformed.setPrice(price);
+        if (priceCents != FixedPointPrice.UNKNOWN) {
+            transformed.setPriceCents(priceCents);
+            price = transformed.getPrice();
+        } else {
+            if (discounted) {
+                price = price * (1 - discountRate);
+            }
+            
+            // Round price to 2 decimals (half up)
+            price = roundToTwoDecimals(price);
+            transformed.setPrice(price);
+        }
         
-        // Step 3: Check if should be recategorized to Premium Electronics
+        // Step 3: Check if should be recategorized (e.g. to Premium Electronics)
         // Use original category for comparison (before any changes)
-        if (price > PREMIUM_THRESHOLD && ELECTRONICS_CATEGORY.equals(originalCategory)) {
-            transformed.setCategory(PREMIUM_ELECTRONICS);
+        if (price > rules.promotionThreshold(category)) {
+            transformed.setCategoryCode(rules.promotionCode(category));
         }
         
         // Step 4: Determine price range based on final price
-        String priceRange = determinePriceRange(price);
-        transformed.setPriceRange(priceRange);
+        transformed.setPriceRange(rules.classify(price));
         
         return transformed;
     }
@@ -99,6 +389,7 @@ public class DataTransformer {
     /**
      * Round price to 2 decimal places using HALF_UP rounding.
      * This method replicates the exact rounding logic from Assignment 2.
+     * Only used for prices that are not carried as fixed-point cents.
      * 
      * @param price the price to round
      * @return the rounded price
@@ -110,22 +401,22 @@ public class DataTransformer {
     }
     
     /**
-     * Determine price range category based on final price.
-     * This method replicates the exact price range logic from Assignment 2.
+     * Gets a fingerprint of the business rules applied by this transformer.
+     * Output produced under a different fingerprint must not be reused.
      * 
-     * @param price the final price after transformations
-     * @return the price range classification
+     * @return a value that changes whenever any rule changes
      */
-    private String determinePriceRange(double price) {
-        if (price <= 10.00) {
-            return "Low";
-        } else if (price <= 100.00) {
-            return "Medium";
-        } else if (price <= 500.00) {
-            return "High";
-        } else {
-            return "Premium";
-        }
+    long rulesFingerprint() {
+        return rules.fingerprint();
+    }
+    
+    /**
+     * Gets the business rules applied by this transformer.
+     * 
+     * @return the compiled rules
+     */
+    public TransformationRules getRules() {
+        return rules;
     }
     
     /**
@@ -135,7 +426,7 @@ public class DataTransformer {
      * @return the electronics category string
      */
     protected String getElectronicsCategory() {
-        return ELECTRONICS_CATEGORY;
+        return CategoryDictionary.shared().name(CategoryDictionary.ELECTRONICS);
     }
     
     /**
@@ -145,26 +436,26 @@ public class DataTransformer {
      * @return the premium electronics category string
      */
     protected String getPremiumElectronicsCategory() {
-        return PREMIUM_ELECTRONICS;
+        return CategoryDictionary.shared().name(CategoryDictionary.PREMIUM_ELECTRONICS);
     }
     
     /**
-     * Gets the discount rate applied to electronics.
+     * Gets the discount rate applied to electronics under this transformer's rules.
      * This method is provided for testing purposes.
      * 
      * @return the discount rate as a decimal
      */
     protected double getDiscountRate() {
-        return DISCOUNT_RATE;
+        return rules.discountRate(CategoryDictionary.ELECTRONICS);
     }
     
     /**
-     * Gets the premium threshold price.
+     * Gets the premium threshold price for electronics under this transformer's rules.
      * This method is provided for testing purposes.
      * 
      * @return the premium threshold price
      */
     protected double getPremiumThreshold() {
-        return PREMIUM_THRESHOLD;
+        return rules.promotionThreshold(CategoryDictionary.ELECTRONICS);
     }
 }
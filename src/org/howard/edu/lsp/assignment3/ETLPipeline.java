@@ -1,7 +1,12 @@
 package org.howard.edu.lsp.assignment3;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * 
@@ -20,6 +25,26 @@ public class ETLPipeline {
     /** Output file path constant from Assignment 2 */
     private static final String OUTPUT_FILE = "data/transformed_products.csv";
     
+    /** Output file path of binary columnar runs */
+    private static final String BINARY_OUTPUT_FILE = "data/transformed_products.pcol";
+    
+    /** Checkpoint file used by resumable runs of the default pipeline */
+    private static final String CHECKPOINT_FILE = "data/transformed_products.checkpoint";
+    
+    /** Command line usage */
+    private static final String USAGE = "Usage: ETLPipeline [--streaming | --columnar | --incremental | --pipelined"
+        + " | --binary | --resumable | --dedup first|last [--dedup-max-ids <n>] | --sort <keys> [--sort-memory <MB>]"
+        + " | --query <conditions> [--select <columns>] | --batch <input directory or glob> <output directory> [--max-files <n>]]"
+        + " [--rules <rules file>] [--compress none|gzip|deflate]"
+        + " [--quarantine <file>] [--max-error-ratio <0..1>] [--summary] [--index]"
+        + " [--metrics <file> [--metrics-interval <seconds>]]";
+    
+    /** Output file path of query results */
+    private static final String QUERY_OUTPUT_FILE = "data/query_results.csv";
+    
+    /** State file used by incremental runs of the default pipeline */
+    private static final String STATE_FILE = "data/transformed_products.state";
+    
     /** Component responsible for reading CSV files */
     private final CSVReader csvReader;
     
@@ -29,14 +54,27 @@ public class ETLPipeline {
     /** Component responsible for writing CSV files */
     private final CSVWriter csvWriter;
     
+    /** Registry receiving per-stage metrics */
+    private PipelineMetrics metrics;
+    
+    /** File receiving JSON metrics reports, or null to keep metrics in memory only */
+    private String metricsReportPath;
+    
+    /** Seconds between periodic metrics reports, or 0 for a final report only */
+    private long metricsReportIntervalSeconds;
+    
+    /** Whether runs write a price summary report next to their output */
+    private boolean summaryReport;
+    
+    /** Summary gathered by the last run, or null */
+    private ProductSummary lastSummary;
+    
     /**
      * Constructs a new ETL pipeline with default components.
      * Initializes all required components for the ETL process.
      */
     public ETLPipeline() {
-        this.csvReader = new CSVReader();
-        this.dataTransformer = new DataTransformer();
-        this.csvWriter = new CSVWriter();
+        this(new CSVReader(), new DataTransformer(), new CSVWriter());
     }
     
     /**
@@ -51,6 +89,66 @@ public class ETLPipeline {
         this.csvReader = csvReader;
         this.dataTransformer = dataTransformer;
         this.csvWriter = csvWriter;
+        setMetrics(new InMemoryPipelineMetrics());
+    }
+    
+    /**
+     * Sets the registry receiving per-stage metrics, including the reader's
+     * skipped-row counts. Defaults to an {@link InMemoryPipelineMetrics}.
+     * 
+     * @param metrics the registry to report to
+     * @throws IllegalArgumentException if the registry is null
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics registry cannot be null");
+        }
+        this.metrics = metrics;
+        csvReader.setMetrics(metrics);
+    }
+    
+    /**
+     * Gets the registry receiving per-stage metrics.
+     * 
+     * @return the metrics registry
+     */
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Enables JSON metrics reports for subsequent runs.
+     * A report is written at the end of each run and, if an interval is given,
+     * periodically while the run is in progress.
+     * 
+     * @param reportPath the file receiving the JSON report
+     * @param intervalSeconds seconds between periodic reports, or 0 for a final report only
+     * @throws IllegalArgumentException if the path is empty or the interval is negative
+     */
+    public void setMetricsReport(String reportPath, long intervalSeconds) {
+        if (reportPath == null || reportPath.trim().isEmpty()) {
+            throw new IllegalArgumentException("Metrics report path cannot be null or empty");
+        }
+        if (intervalSeconds < 0) {
+            throw new IllegalArgumentException("Metrics report interval cannot be negative");
+        }
+        this.metricsReportPath = reportPath;
+        this.metricsReportIntervalSeconds = intervalSeconds;
+    }
+    
+    /**
+     * Enables or disables price summary reports for subsequent runs that write
+     * the whole output. Counts, sums, extremes and approximate percentiles of
+     * the output prices, in total, per category and per price range, are
+     * gathered while the output is written and saved next to it, named by
+     * {@link ProductSummary#reportPathFor}. Directory runs save the report as
+     * {@link BatchETL#AGGREGATES_FILE} in the output directory. Incremental and
+     * resumable runs write only part of the output and never write a report.
+     * 
+     * @param enabled whether to write summary reports
+     */
+    public void setSummaryReport(boolean enabled) {
+        this.summaryReport = enabled;
     }
     
     /**
@@ -59,21 +157,32 @@ public class ETLPipeline {
      */
     public void runPipeline() {
         try {
-            // Extract phase
-            List<Product> products = csvReader.readProducts(INPUT_FILE);
-            int totalRowsRead = products.size() + 1; // +1 for header row
-            System.out.println("Extract phase completed");
-            
-            // Transform phase
-            List<Product> transformedProducts = dataTransformer.transform(products);
-            System.out.println("Transform phase completed");
-            
-            // Load phase
-            csvWriter.writeProducts(transformedProducts, OUTPUT_FILE);
-            System.out.println("Load phase completed");
-            
-            // Print summary (matching Assignment 2 format exactly)
-            printSummary(totalRowsRead, transformedProducts.size() + 1); // +1 for header in output
+            runReported(() -> {
+                // Extract phase
+                StageRecorder extract = new StageRecorder(metrics, "extract");
+                List<Product> products = csvReader.readProducts(INPUT_FILE);
+                extract.finish(products.size());
+                metrics.incrementCounter("extract.bytes_read", new File(INPUT_FILE).length());
+                int totalRowsRead = products.size() + 1; // +1 for header row
+                System.out.println("Extract phase completed");
+                
+                // Transform phase
+                StageRecorder transform = new StageRecorder(metrics, "transform");
+                List<Product> transformedProducts = dataTransformer.transform(products);
+                transform.finish(transformedProducts.size());
+                System.out.println("Transform phase completed");
+                
+                // Load phase
+                StageRecorder load = new StageRecorder(metrics, "load");
+                csvWriter.writeProducts(transformedProducts, OUTPUT_FILE);
+                load.finish(transformedProducts.size());
+                metrics.incrementCounter("load.bytes_written", new File(OUTPUT_FILE).length());
+                System.out.println("Load phase completed");
+                
+                // Print summary (matching Assignment 2 format exactly)
+                printSummary(totalRowsRead, transformedProducts.size() + 1); // +1 for header in output
+                return transformedProducts.size();
+            });
             
         } catch (IOException e) {
             System.err.println("Error during ETL process: " + e.getMessage());
@@ -92,21 +201,329 @@ public class ETLPipeline {
         validateFilePaths(inputFilePath, outputFilePath);
         
         try {
-            // Extract Phase
-            System.out.println("Starting ETL Pipeline...");
-            System.out.println("Phase 1: Extracting data from " + inputFilePath);
-            List<Product> products = csvReader.readProducts(inputFilePath);
-            System.out.println("Successfully extracted " + products.size() + " products");
+            runReported(() -> {
+                // Extract Phase
+                System.out.println("Starting ETL Pipeline...");
+                System.out.println("Phase 1: Extracting data from " + inputFilePath);
+                StageRecorder extract = new StageRecorder(metrics, "extract");
+                List<Product> products = csvReader.readProducts(inputFilePath);
+                extract.finish(products.size());
+                metrics.incrementCounter("extract.bytes_read", new File(inputFilePath).length());
+                System.out.println("Successfully extracted " + products.size() + " products");
+                
+                // Transform Phase
+                System.out.println("Phase 2: Transforming data...");
+                StageRecorder transform = new StageRecorder(metrics, "transform");
+                List<Product> transformedProducts = dataTransformer.transform(products);
+                transform.finish(transformedProducts.size());
+                System.out.println("Successfully transformed " + transformedProducts.size() + " products");
+                
+                // Load Phase
+                System.out.println("Phase 3: Loading data to " + outputFilePath);
+                StageRecorder load = new StageRecorder(metrics, "load");
+                ProductSummary summary = startSummary();
+                // Summarized as the rows are written, instead of in a second pass over the list
+                try (ProductSink sink = summarize(summary, csvWriter.openProductSink(outputFilePath))) {
+                    for (Product product : transformedProducts) {
+                        sink.accept(product);
+                    }
+                }
+                load.finish(transformedProducts.size());
+                metrics.incrementCounter("load.bytes_written", new File(outputFilePath).length());
+                finishSummary(summary, outputFilePath);
+                System.out.println("ETL Pipeline completed successfully!");
+                return transformedProducts.size();
+            });
+            
+        } catch (IOException e) {
+            System.err.println("ETL Pipeline failed during file operation: " + e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            System.err.println("ETL Pipeline failed with unexpected error: " + e.getMessage());
+            throw new RuntimeException("ETL Pipeline execution failed", e);
+        }
+    }
+    
+    /**
+     * Executes the ETL pipeline in streaming mode with custom file paths.
+     * 
+     * Rows flow from the reader through the transformer to the writer one at a
+     * time, so memory use stays constant regardless of the input size. The
+     * output file is identical to the one produced by {@link #processProducts}.
+     * 
+     * @param inputFilePath path to the source CSV file
+     * @param outputFilePath path where the transformed CSV file will be written
+     * @return the number of products written to the output file
+     * @throws IOException if file reading or writing operations fail
+     * @throws IllegalArgumentException if file paths are null or empty
+     */
+    public int processProductsStreaming(String inputFilePath, String outputFilePath) throws IOException {
+        validateFilePaths(inputFilePath, outputFilePath);
+        
+        try {
+            return runReported(() -> {
+                System.out.println("Starting streaming ETL Pipeline...");
+                System.out.println("Streaming data from " + inputFilePath + " to " + outputFilePath);
+                
+                // Stages are interleaved per row, so GC and allocation are measured for the whole run
+                StageRecorder pipeline = new StageRecorder(metrics, "pipeline");
+                ProductSummary summary = startSummary();
+                int productCount;
+                try (ProductSink sink = new MeteredStreamingSink(summarize(summary, csvWriter.openProductSink(outputFilePath)))) {
+                    productCount = csvReader.readProducts(inputFilePath, sink);
+                }
+                pipeline.finish(productCount);
+                metrics.incrementCounter("extract.bytes_read", new File(inputFilePath).length());
+                metrics.incrementCounter("load.bytes_written", new File(outputFilePath).length());
+                finishSummary(summary, outputFilePath);
+                
+                System.out.println("Successfully streamed " + productCount + " products");
+                System.out.println("ETL Pipeline completed successfully!");
+                return productCount;
+            });
+            
+        } catch (IOException e) {
+            System.err.println("ETL Pipeline failed during file operation: " + e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            System.err.println("ETL Pipeline failed with unexpected error: " + e.getMessage());
+            throw new RuntimeException("ETL Pipeline execution failed", e);
+        }
+    }
+    
+    /**
+     * Executes the ETL pipeline in streaming mode, keeping one product per ProductID.
+     * 
+     * Rows are deduplicated before they are transformed, so repeated IDs
+     * produce one output row each. With {@link ProductDeduplicator.Policy#LAST_WINS}
+     * a later row updates the earlier one in place, like an upsert. Once more
+     * than the given number of distinct IDs has been seen, rows are spilled to
+     * temporary files next to the output.
+     * 
+     * @param inputFilePath path to the source CSV file
+     * @param outputFilePath path where the transformed CSV file will be written
+     * @param policy which row is kept when a ProductID repeats
+     * @param maxIdsInMemory the number of distinct IDs held in memory before spilling
+     * @return the number of products written to the output file
+     * @throws IOException if file reading or writing operations fail
+     * @throws IllegalArgumentException if file paths are null or empty, the policy is null
+     *         or the budget is not positive
+     * @see ProductDeduplicator
+     */
+    public int processProductsDeduplicated(String inputFilePath, String outputFilePath,
+                                           ProductDeduplicator.Policy policy, int maxIdsInMemory)
+            throws IOException {
+        validateFilePaths(inputFilePath, outputFilePath);
+        // Checked before the output file is opened, so a bad argument leaves it untouched
+        if (policy == null) {
+            throw new IllegalArgumentException("Duplicate policy cannot be null");
+        }
+        if (maxIdsInMemory <= 0) {
+            throw new IllegalArgumentException("Maximum IDs in memory must be positive");
+        }
+        
+        try {
+            return runReported(() -> {
+                System.out.println("Starting deduplicating ETL Pipeline...");
+                System.out.println("Streaming data from " + inputFilePath + " to " + outputFilePath);
+                
+                StageRecorder pipeline = new StageRecorder(metrics, "pipeline");
+                Path spillDirectory = Paths.get(outputFilePath).toAbsolutePath().getParent();
+                ProductSummary summary = startSummary();
+                ProductDeduplicator deduplicator = new ProductDeduplicator(
+                    dataTransformer.transformingSink(summarize(summary, csvWriter.openProductSink(outputFilePath))),
+                    policy, maxIdsInMemory, spillDirectory);
+                deduplicator.setMetrics(metrics);
+                int readCount;
+                try (ProductSink sink = deduplicator) {
+                    readCount = csvReader.readProducts(inputFilePath, sink);
+                }
+                int productCount = (int) (readCount - deduplicator.getDuplicateCount());
+                pipeline.finish(productCount);
+                metrics.incrementCounter("extract.bytes_read", new File(inputFilePath).length());
+                metrics.incrementCounter("load.bytes_written", new File(outputFilePath).length());
+                finishSummary(summary, outputFilePath);
+                
+                System.out.println("Removed " + deduplicator.getDuplicateCount() + " duplicate products");
+                System.out.println("Successfully streamed " + productCount + " products");
+                System.out.println("ETL Pipeline completed successfully!");
+                return productCount;
+            });
             
-            // Transform Phase
-            System.out.println("Phase 2: Transforming data...");
-            List<Product> transformedProducts = dataTransformer.transform(products);
-            System.out.println("Successfully transformed " + transformedProducts.size() + " products");
+        } catch (IOException e) {
+            System.err.println("ETL Pipeline failed during file operation: " + e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            System.err.println("ETL Pipeline failed with unexpected error: " + e.getMessage());
+            throw new RuntimeException("ETL Pipeline execution failed", e);
+        }
+    }
+    
+    /**
+     * Executes the ETL pipeline in streaming mode, writing the products sorted.
+     * 
+     * Products are sorted after they are transformed, so price keys use the
+     * discounted price. Products that do not fit in the memory budget are
+     * sorted in runs written to temporary files next to the output and merged
+     * when the input is exhausted, so the input can be far larger than the heap.
+     * 
+     * @param inputFilePath path to the source CSV file
+     * @param outputFilePath path where the sorted CSV file will be written
+     * @param order the order to sort in, for example from {@link ProductSorter#parseOrder}
+     * @param memoryBudget the estimated bytes of products held in memory at once
+     * @return the number of products written to the output file
+     * @throws IOException if file reading or writing operations fail
+     * @throws IllegalArgumentException if file paths are null or empty, the order is null
+     *         or the budget is not positive
+     * @see ProductSorter
+     */
+    public int processProductsSorted(String inputFilePath, String outputFilePath, Comparator<Product> order,
+                                     long memoryBudget) throws IOException {
+        validateFilePaths(inputFilePath, outputFilePath);
+        // Checked before the output file is opened, so a bad argument leaves it untouched
+        if (order == null) {
+            throw new IllegalArgumentException("Sort order cannot be null");
+        }
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive");
+        }
+        
+        try {
+            return runReported(() -> {
+                System.out.println("Starting sorting ETL Pipeline...");
+                System.out.println("Streaming data from " + inputFilePath + " to " + outputFilePath);
+                
+                StageRecorder pipeline = new StageRecorder(metrics, "pipeline");
+                Path spillDirectory = Paths.get(outputFilePath).toAbsolutePath().getParent();
+                ProductSummary summary = startSummary();
+                ProductSorter sorter = new ProductSorter(summarize(summary, csvWriter.openProductSink(outputFilePath)),
+                                                         order, memoryBudget, spillDirectory);
+                sorter.setMetrics(metrics);
+                int productCount;
+                try (ProductSink sink = dataTransformer.transformingSink(sorter)) {
+                    productCount = csvReader.readProducts(inputFilePath, sink);
+                }
+                pipeline.finish(productCount);
+                metrics.incrementCounter("extract.bytes_read", new File(inputFilePath).length());
+                metrics.incrementCounter("load.bytes_written", new File(outputFilePath).length());
+                finishSummary(summary, outputFilePath);
+                
+                System.out.println("Sorted " + productCount + " products using " + sorter.getRunCount() + " run files");
+                System.out.println("ETL Pipeline completed successfully!");
+                return productCount;
+            });
             
-            // Load Phase
-            System.out.println("Phase 3: Loading data to " + outputFilePath);
-            csvWriter.writeProducts(transformedProducts, outputFilePath);
-            System.out.println("ETL Pipeline completed successfully!");
+        } catch (IOException e) {
+            System.err.println("ETL Pipeline failed during file operation: " + e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            System.err.println("ETL Pipeline failed with unexpected error: " + e.getMessage());
+            throw new RuntimeException("ETL Pipeline execution failed", e);
+        }
+    }
+    
+    /**
+     * Executes the ETL pipeline in streaming mode, writing only the selected
+     * columns of the transformed products that match a query.
+     * 
+     * The query's conditions are pushed down into the scan of the input:
+     * rows that cannot match are skipped on their raw bytes, before any
+     * String or Product is created for them, and the remaining rows are
+     * transformed and checked in full. Files too small for the memory-mapped
+     * scanner, and compressed files, are checked after the transform only;
+     * the results are the same either way.
+     * 
+     * @param inputFilePath path to the source CSV file
+     * @param outputFilePath path where the matching products will be written
+     * @param query the conditions and columns, for example from {@link ProductQuery#parse(String, String)}
+     * @return the number of matching products written to the output file
+     * @throws IOException if file reading or writing operations fail
+     * @throws IllegalArgumentException if file paths are null or empty, or the query is null
+     * @see ProductQuery
+     */
+    public int processQuery(String inputFilePath, String outputFilePath, ProductQuery query) throws IOException {
+        validateFilePaths(inputFilePath, outputFilePath);
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        
+        try {
+            return runReported(() -> {
+                System.out.println("Starting query ETL Pipeline...");
+                System.out.println("Selecting products where " + (query.toString().isEmpty() ? "true" : query)
+                                   + " from " + inputFilePath + " to " + outputFilePath);
+                
+                StageRecorder pipeline = new StageRecorder(metrics, "pipeline");
+                ProductSummary summary = startSummary();
+                int[] matchCount = {0};
+                int parsedCount;
+                try (ProductSink output = summarize(summary, csvWriter.openProductSink(outputFilePath, query.getColumns()));
+                     ProductSink sink = dataTransformer.transformingSink(query.filteringSink(product -> {
+                         output.accept(product);
+                         matchCount[0]++;
+                     }))) {
+                    parsedCount = csvReader.readProducts(inputFilePath, sink, query.pushdown(dataTransformer.getRules()));
+                }
+                pipeline.finish(matchCount[0]);
+                metrics.incrementCounter("query.parsed_rows", parsedCount);
+                metrics.incrementCounter("query.matched_rows", matchCount[0]);
+                metrics.incrementCounter("extract.bytes_read", new File(inputFilePath).length());
+                metrics.incrementCounter("load.bytes_written", new File(outputFilePath).length());
+                finishSummary(summary, outputFilePath);
+                
+                System.out.println("Parsed " + parsedCount + " products after pushdown");
+                System.out.println("Matched " + matchCount[0] + " products");
+                System.out.println("ETL Pipeline completed successfully!");
+                return matchCount[0];
+            });
+            
+        } catch (IOException e) {
+            System.err.println("ETL Pipeline failed during file operation: " + e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            System.err.println("ETL Pipeline failed with unexpected error: " + e.getMessage());
+            throw new RuntimeException("ETL Pipeline execution failed", e);
+        }
+    }
+    
+    /**
+     * Executes the ETL pipeline in streaming mode over columnar batches.
+     * 
+     * Rows are read into a reusable {@link ProductBatch}, transformed in place
+     * and written a batch at a time, so no Product objects are created for
+     * plain rows. The output file is identical to the one produced by
+     * {@link #processProducts}.
+     * 
+     * @param inputFilePath path to the source CSV file
+     * @param outputFilePath path where the transformed CSV file will be written
+     * @return the number of products written to the output file
+     * @throws IOException if file reading or writing operations fail
+     * @throws IllegalArgumentException if file paths are null or empty
+     */
+    public int processProductsColumnar(String inputFilePath, String outputFilePath) throws IOException {
+        validateFilePaths(inputFilePath, outputFilePath);
+        
+        try {
+            return runReported(() -> {
+                System.out.println("Starting columnar ETL Pipeline...");
+                System.out.println("Streaming batches from " + inputFilePath + " to " + outputFilePath);
+                
+                StageRecorder pipeline = new StageRecorder(metrics, "pipeline");
+                ProductSummary summary = startSummary();
+                int productCount;
+                try (ProductBatchSink sink = dataTransformer.transformingBatchSink(
+                        summarizeBatches(summary, csvWriter.openBatchSink(outputFilePath)))) {
+                    productCount = csvReader.readBatches(inputFilePath, new ProductBatch(), sink);
+                }
+                pipeline.finish(productCount);
+                metrics.incrementCounter("extract.bytes_read", new File(inputFilePath).length());
+                metrics.incrementCounter("load.bytes_written", new File(outputFilePath).length());
+                finishSummary(summary, outputFilePath);
+                
+                System.out.println("Successfully streamed " + productCount + " products");
+                System.out.println("ETL Pipeline completed successfully!");
+                return productCount;
+            });
             
         } catch (IOException e) {
             System.err.println("ETL Pipeline failed during file operation: " + e.getMessage());
@@ -117,6 +534,419 @@ public class ETLPipeline {
         }
     }
     
+    /**
+     * Executes the ETL pipeline over columnar batches, writing a binary columnar
+     * file instead of CSV.
+     * 
+     * The file holds the same products as the CSV written by {@link #processProducts},
+     * with typed, dictionary-encoded columns that {@link ColumnarReader} can scan selectively.
+     * 
+     * @param inputFilePath path to the source CSV file
+     * @param outputFilePath path where the columnar file will be written
+     * @return the number of products written to the output file
+     * @throws IOException if file reading or writing operations fail
+     * @throws IllegalArgumentException if file paths are null or empty
+     * @see ColumnarWriter
+     */
+    public int processProductsBinary(String inputFilePath, String outputFilePath) throws IOException {
+        validateFilePaths(inputFilePath, outputFilePath);
+        
+        try {
+            return runReported(() -> {
+                System.out.println("Starting binary columnar ETL Pipeline...");
+                System.out.println("Streaming batches from " + inputFilePath + " to " + outputFilePath);
+                
+                StageRecorder pipeline = new StageRecorder(metrics, "pipeline");
+                ProductSummary summary = startSummary();
+                int productCount;
+                ColumnarWriter writer = new ColumnarWriter();
+                try (ProductBatchSink sink = dataTransformer.transformingBatchSink(
+                        summarizeBatches(summary, writer.openSink(outputFilePath)))) {
+                    productCount = csvReader.readBatches(inputFilePath, new ProductBatch(), sink);
+                }
+                pipeline.finish(productCount);
+                metrics.incrementCounter("extract.bytes_read", new File(inputFilePath).length());
+                metrics.incrementCounter("load.bytes_written", new File(outputFilePath).length());
+                finishSummary(summary, outputFilePath);
+                
+                System.out.println("Successfully streamed " + productCount + " products");
+                System.out.println("ETL Pipeline completed successfully!");
+                return productCount;
+            });
+            
+        } catch (IOException e) {
+            System.err.println("ETL Pipeline failed during file operation: " + e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            System.err.println("ETL Pipeline failed with unexpected error: " + e.getMessage());
+            throw new RuntimeException("ETL Pipeline execution failed", e);
+        }
+    }
+    
+    /**
+     * Executes the ETL pipeline with extract, transform and load running concurrently.
+     * 
+     * Each stage runs on its own thread and batches flow between them through
+     * bounded ring buffers, so reading and writing overlap with transforming.
+     * The output file is identical to the one produced by {@link #processProducts}.
+     * 
+     * @param inputFilePath path to the source CSV file
+     * @param outputFilePath path where the transformed CSV file will be written
+     * @return the number of products written to the output file
+     * @throws IOException if file reading or writing operations fail
+     * @throws IllegalArgumentException if file paths are null or empty
+     * @see PipelinedETL
+     */
+    public int processProductsPipelined(String inputFilePath, String outputFilePath) throws IOException {
+        validateFilePaths(inputFilePath, outputFilePath);
+        
+        try {
+            return runReported(() -> {
+                System.out.println("Starting pipelined ETL Pipeline...");
+                System.out.println("Streaming batches from " + inputFilePath + " to " + outputFilePath);
+                
+                PipelinedETL pipelined = new PipelinedETL(csvReader, dataTransformer, csvWriter);
+                pipelined.setMetrics(metrics);
+                ProductSummary summary = startSummary();
+                pipelined.setSummary(summary);
+                StageRecorder pipeline = new StageRecorder(metrics, "pipeline");
+                int productCount = pipelined.run(inputFilePath, outputFilePath);
+                pipeline.finish(productCount);
+                metrics.incrementCounter("extract.bytes_read", new File(inputFilePath).length());
+                metrics.incrementCounter("load.bytes_written", new File(outputFilePath).length());
+                finishSummary(summary, outputFilePath);
+                
+                System.out.println("Successfully streamed " + productCount + " products");
+                System.out.println("ETL Pipeline completed successfully!");
+                return productCount;
+            });
+            
+        } catch (IOException e) {
+            System.err.println("ETL Pipeline failed during file operation: " + e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            System.err.println("ETL Pipeline failed with unexpected error: " + e.getMessage());
+            throw new RuntimeException("ETL Pipeline execution failed", e);
+        }
+    }
+    
+    /**
+     * Executes the ETL pipeline over every file in a directory or matching a glob pattern.
+     * 
+     * Each input file is written to its own output file in the output directory,
+     * alongside a summary of all files; see {@link BatchETL}. Files are scheduled
+     * on a fork-join pool with one thread per available processor.
+     * 
+     * @param input a directory, whose .csv files are processed, or a glob pattern
+     * @param outputDirectory the directory receiving the output files and summary
+     * @param maxConcurrentFiles the maximum number of files processed at the same time
+     * @return the total number of products written
+     * @throws IOException if the input cannot be listed or the summary cannot be written
+     * @throws IllegalArgumentException if a path is null or empty, or the cap is not positive
+     */
+    public int processDirectory(String input, String outputDirectory, int maxConcurrentFiles) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            return runReported(() -> {
+                System.out.println("Starting batch ETL Pipeline...");
+                System.out.println("Processing " + input + " into " + outputDirectory);
+                
+                // Large files are split into chunks on the same pool the files are scheduled on
+                CSVReader batchReader = new CSVReader(CSVReader.DEFAULT_MAPPED_SCAN_THRESHOLD, pool);
+                batchReader.setMetrics(metrics);
+                batchReader.setMaxErrorRatio(csvReader.getMaxErrorRatio());
+                BatchETL batch = new BatchETL(batchReader, dataTransformer, csvWriter, pool, maxConcurrentFiles);
+                batch.setMetrics(metrics);
+                ProductSummary summary = startSummary();
+                batch.setSummary(summary);
+                StageRecorder pipeline = new StageRecorder(metrics, "pipeline");
+                int productCount = batch.run(input, outputDirectory);
+                pipeline.finish(productCount);
+                lastSummary = summary;
+                
+                int fileCount = batch.getResults().size();
+                int failedCount = batch.getFailedFileCount();
+                System.out.println("Processed " + fileCount + " files with " + productCount + " products"
+                                   + (failedCount > 0 ? " (" + failedCount + " files failed)" : ""));
+                System.out.println("Summary written to: "
+                                   + Paths.get(outputDirectory).resolve(BatchETL.SUMMARY_FILE));
+                if (summary != null) {
+                    System.out.println("Price summary written to: "
+                                       + Paths.get(outputDirectory).resolve(BatchETL.AGGREGATES_FILE));
+                }
+                System.out.println("ETL Pipeline completed " + (failedCount > 0 ? "with errors" : "successfully!"));
+                return productCount;
+            });
+            
+        } catch (IOException e) {
+            System.err.println("ETL Pipeline failed during file operation: " + e.getMessage());
+            throw e;
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("ETL Pipeline failed with unexpected error: " + e.getMessage());
+            throw new RuntimeException("ETL Pipeline execution failed", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Executes the ETL pipeline incrementally with custom file paths.
+     * 
+     * Only products that are new or changed since the run that wrote the state
+     * file are transformed; unchanged rows are copied from the existing output.
+     * The output file is identical to the one produced by {@link #processProducts}.
+     * 
+     * @param inputFilePath path to the source CSV file
+     * @param outputFilePath path of the transformed CSV file to create or patch
+     * @param statePath path of the state file kept between runs
+     * @return the number of products in the output file
+     * @throws IOException if file reading or writing operations fail
+     * @throws IllegalArgumentException if file paths are null or empty, or the writer compresses its output
+     */
+    public int processProductsIncremental(String inputFilePath, String outputFilePath, String statePath)
+            throws IOException {
+        validateFilePaths(inputFilePath, outputFilePath);
+        IncrementalETL incremental = new IncrementalETL(csvReader, dataTransformer, csvWriter);
+        
+        try {
+            return runReported(() -> {
+                System.out.println("Starting incremental ETL Pipeline...");
+                System.out.println("Updating " + outputFilePath + " from " + inputFilePath);
+                
+                incremental.setMetrics(metrics);
+                StageRecorder pipeline = new StageRecorder(metrics, "pipeline");
+                int productCount = incremental.run(inputFilePath, outputFilePath, statePath);
+                pipeline.finish(productCount);
+                
+                if (incremental.isUpToDate()) {
+                    System.out.println("Input unchanged; " + productCount + " products already up to date");
+                } else {
+                    System.out.println("Reused " + incremental.getReusedRows() + " unchanged products, transformed "
+                                       + incremental.getTransformedRows() + " new or changed products, removed "
+                                       + incremental.getRemovedRows() + " products");
+                }
+                System.out.println("ETL Pipeline completed successfully!");
+                return productCount;
+            });
+            
+        } catch (IOException e) {
+            System.err.println("ETL Pipeline failed during file operation: " + e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            System.err.println("ETL Pipeline failed with unexpected error: " + e.getMessage());
+            throw new RuntimeException("ETL Pipeline execution failed", e);
+        }
+    }
+    
+    /**
+     * Executes the ETL pipeline with periodic checkpoints, resuming an earlier
+     * interrupted run from its last checkpoint.
+     * 
+     * The output file is identical to the one produced by {@link #processProducts}.
+     * 
+     * @param inputFilePath path to the source CSV file, which must not be compressed
+     * @param outputFilePath path where the transformed CSV file will be written
+     * @param checkpointPath path of the checkpoint file, deleted once the run completes
+     * @return the number of products written to the output file
+     * @throws IOException if file reading or writing operations fail
+     * @throws IllegalArgumentException if file paths are null or empty, or the writer compresses its output
+     * @see CheckpointedETL
+     */
+    public long processProductsResumable(String inputFilePath, String outputFilePath, String checkpointPath)
+            throws IOException {
+        validateFilePaths(inputFilePath, outputFilePath);
+        CheckpointedETL checkpointed = new CheckpointedETL(csvReader, dataTransformer, csvWriter);
+        
+        try {
+            return runReported(() -> {
+                System.out.println("Starting resumable ETL Pipeline...");
+                System.out.println("Streaming from " + inputFilePath + " to " + outputFilePath
+                                   + " with checkpoints in " + checkpointPath);
+                
+                checkpointed.setMetrics(metrics);
+                StageRecorder pipeline = new StageRecorder(metrics, "pipeline");
+                long productCount = checkpointed.run(inputFilePath, outputFilePath, checkpointPath);
+                pipeline.finish(productCount);
+                
+                System.out.println("Successfully streamed " + productCount + " products after "
+                                   + checkpointed.getCheckpointCount() + " checkpoints");
+                System.out.println("ETL Pipeline completed successfully!");
+                return productCount;
+            });
+            
+        } catch (IOException e) {
+            System.err.println("ETL Pipeline failed during file operation: " + e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            System.err.println("ETL Pipeline failed with unexpected error: " + e.getMessage());
+            throw new RuntimeException("ETL Pipeline execution failed", e);
+        }
+    }
+    
+    /**
+     * Starts the price summary of a run if summary reports are enabled.
+     * 
+     * @return a new summary, or null if reports are disabled
+     */
+    private ProductSummary startSummary() {
+        lastSummary = null;
+        return summaryReport ? new ProductSummary() : null;
+    }
+    
+    /**
+     * Wraps a sink in a summary if there is one.
+     */
+    private static ProductSink summarize(ProductSummary summary, ProductSink sink) {
+        return summary == null ? sink : summary.summarizingSink(sink);
+    }
+    
+    /**
+     * Wraps a batch sink in a summary if there is one.
+     */
+    private static ProductBatchSink summarizeBatches(ProductSummary summary, ProductBatchSink sink) {
+        return summary == null ? sink : summary.summarizingBatchSink(sink);
+    }
+    
+    /**
+     * Writes the summary report of a run next to its output, if there is a summary.
+     * 
+     * @param summary the run's summary, or null
+     * @param outputFilePath the run's output file
+     * @throws IOException if the report cannot be written
+     */
+    private void finishSummary(ProductSummary summary, String outputFilePath) throws IOException {
+        lastSummary = summary;
+        if (summary == null) {
+            return;
+        }
+        String reportPath = ProductSummary.reportPathFor(outputFilePath);
+        summary.writeReport(reportPath);
+        System.out.println("Price summary written to: " + reportPath);
+    }
+    
+    /**
+     * Opens a metrics reporter if reports are enabled.
+     * 
+     * @return the reporter, or null if metrics are kept in memory only
+     */
+    private MetricsReporter openMetricsReporter() {
+        if (metricsReportPath == null) {
+            return null;
+        }
+        return new MetricsReporter(metrics, Paths.get(metricsReportPath), metricsReportIntervalSeconds);
+    }
+    
+    /**
+     * Runs the body of a pipeline mode while metrics are reported, writing the
+     * final report when the body finishes or fails.
+     * 
+     * @param run the body of the mode
+     * @return the result of the body
+     * @throws IOException if the body fails or the final report cannot be written
+     */
+    private <T> T runReported(PipelineRun<T> run) throws IOException {
+        MetricsReporter reporter = openMetricsReporter();
+        try (reporter) {
+            return run.run();
+        }
+    }
+    
+    /**
+     * Body of a pipeline mode, run by {@link #runReported}.
+     * 
+     * @param <T> the result of the mode, usually the number of products written
+     */
+    @FunctionalInterface
+    private interface PipelineRun<T> {
+        
+        /**
+         * Runs the mode.
+         * 
+         * @return the result of the mode
+         * @throws IOException if file reading or writing operations fail
+         */
+        T run() throws IOException;
+    }
+    
+    /**
+     * Streaming sink that transforms and writes each product while recording
+     * per-row latency of the extract, transform and load stages.
+     * Extract latency is the time spent in the reader between two rows.
+     */
+    private final class MeteredStreamingSink implements ProductSink {
+        
+        /** Sink writing transformed products */
+        private final ProductSink writer;
+        
+        /** Time the previous row finished loading */
+        private long lastRowEnd = System.nanoTime();
+        
+        /** Total nanoseconds spent reading rows */
+        private long extractNanos;
+        
+        /** Total nanoseconds spent transforming rows */
+        private long transformNanos;
+        
+        /** Total nanoseconds spent writing rows */
+        private long loadNanos;
+        
+        /** Number of rows passed through */
+        private long rows;
+        
+        /**
+         * Constructs a metered sink.
+         * 
+         * @param writer the sink writing transformed products
+         */
+        MeteredStreamingSink(ProductSink writer) {
+            this.writer = writer;
+        }
+        
+        @Override
+        public void accept(Product product) throws IOException {
+            if (product == null) {
+                return;
+            }
+            
+            long readEnd = System.nanoTime();
+            Product transformed = dataTransformer.transformProduct(product);
+            long transformEnd = System.nanoTime();
+            writer.accept(transformed);
+            long loadEnd = System.nanoTime();
+            
+            metrics.recordValue("extract.latency_ns", readEnd - lastRowEnd);
+            metrics.recordValue("transform.latency_ns", transformEnd - readEnd);
+            metrics.recordValue("load.latency_ns", loadEnd - transformEnd);
+            extractNanos += readEnd - lastRowEnd;
+            transformNanos += transformEnd - readEnd;
+            loadNanos += loadEnd - transformEnd;
+            lastRowEnd = loadEnd;
+            rows++;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            long loadStart = System.nanoTime();
+            writer.close();
+            loadNanos += System.nanoTime() - loadStart;
+            
+            recordStage("extract", extractNanos);
+            recordStage("transform", transformNanos);
+            recordStage("load", loadNanos);
+        }
+        
+        /**
+         * Reports the row count, total time and throughput of one stage.
+         */
+        private void recordStage(String stage, long nanos) {
+            metrics.incrementCounter(stage + ".rows", rows);
+            metrics.recordValue(stage + ".duration_ns", nanos);
+            metrics.setGauge(stage + ".rows_per_sec", nanos == 0 ? 0.0 : rows * 1e9 / nanos);
+        }
+    }
+    
     /**
      * Print execution summary that exactly matches Assignment 2's printSummary method.
      * 
@@ -184,13 +1014,241 @@ public class ETLPipeline {
         return csvWriter;
     }
     
+    /**
+     * Gets the price summary gathered by the last run.
+     * This method provides access to the summary for testing purposes.
+     * 
+     * @return the summary, or null if the last run wrote no summary report
+     */
+    protected ProductSummary getLastSummary() {
+        return lastSummary;
+    }
+    
     /**
      * Main method that replicates Assignment 2's main method exactly.
+     * With --streaming, rows flow from the reader through the transformer to
+     * the writer one at a time, so memory use stays constant. With --columnar,
+     * rows stream through reusable column batches instead of Product objects.
+     * With --incremental, only products changed since the previous incremental
+     * run are transformed and the existing output is patched. With --pipelined,
+     * extract, transform and load run concurrently on their own threads. With
+     * --binary, the output is written as a binary columnar file. With
+     * --resumable, progress is checkpointed so an interrupted run continues
+     * where it stopped when started again. With --batch, every CSV file in a directory or matching a glob pattern is
+     * processed into an output directory, at most --max-files at a time. With
+     * --dedup, only the first or last row of each ProductID is kept, holding at
+     * most --dedup-max-ids IDs in memory before spilling to disk. With --sort,
+     * the output is sorted by comma-separated keys such as category,price:desc,
+     * using at most about --sort-memory megabytes of heap before sorting on
+     * disk. With --query, only products matching conditions such as
+     * category = "Premium Electronics" and price &gt; 800 are written to
+     * data/query_results.csv, limited to the --select columns if given. With
+     * --rules, the business rules are loaded from a properties file instead of
+     * the defaults. With --compress, output files are compressed with the given
+     * codec and get its file extension; compressed input is always detected.
+     * With --quarantine, rejected rows are written to the given file instead of
+     * printed as warnings. With --max-error-ratio, a run fails once more than
+     * that share of input rows is rejected. With --summary, price statistics
+     * per category and price range are gathered while the output is written
+     * and saved in a report next to it. With --index, each CSV output file gets
+     * a ProductID index next to it for {@link ProductIndex} lookups. With
+     * --metrics, per-stage metrics are written as JSON to the given file when
+     * the run ends and, with --metrics-interval, every that many seconds.
      * 
-     * @param args command line arguments (not used)
+     * @param args command line arguments, as described in the usage message
      */
     public static void main(String[] args) {
-        ETLPipeline pipeline = new ETLPipeline();
-        pipeline.runPipeline();
+        String mode = null;
+        String rulesPath = null;
+        String batchInput = null;
+        String batchOutput = null;
+        int maxFiles = Runtime.getRuntime().availableProcessors();
+        boolean maxFilesSet = false;
+        CompressionCodec compression = CompressionCodec.NONE;
+        CSVReader reader = new CSVReader();
+        String quarantinePath = null;
+        ProductDeduplicator.Policy dedupPolicy = null;
+        int maxDedupIds = ProductDeduplicator.DEFAULT_MAX_IDS_IN_MEMORY;
+        boolean maxDedupIdsSet = false;
+        Comparator<Product> sortOrder = null;
+        long sortMemory = ProductSorter.DEFAULT_MEMORY_BUDGET;
+        boolean sortMemorySet = false;
+        boolean summaryReport = false;
+        boolean index = false;
+        String metricsPath = null;
+        long metricsInterval = 0;
+        boolean metricsIntervalSet = false;
+        String queryConditions = null;
+        String queryColumns = null;
+        ProductQuery query = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (("--streaming".equals(option) || "--columnar".equals(option) || "--incremental".equals(option)
+                        || "--pipelined".equals(option) || "--binary".equals(option) || "--resumable".equals(option))
+                        && mode == null) {
+                    mode = option;
+                } else if ("--batch".equals(option) && mode == null && i + 2 < args.length) {
+                    mode = option;
+                    batchInput = args[++i];
+                    batchOutput = args[++i];
+                } else if ("--dedup".equals(option) && mode == null && i + 1 < args.length) {
+                    mode = option;
+                    dedupPolicy = ProductDeduplicator.Policy.fromName(args[++i]);
+                } else if ("--sort".equals(option) && mode == null && i + 1 < args.length) {
+                    mode = option;
+                    sortOrder = ProductSorter.parseOrder(args[++i]);
+                } else if ("--query".equals(option) && mode == null && i + 1 < args.length) {
+                    mode = option;
+                    queryConditions = args[++i];
+                } else if ("--select".equals(option) && i + 1 < args.length) {
+                    queryColumns = args[++i];
+                } else if ("--sort-memory".equals(option) && i + 1 < args.length) {
+                    long megabytes = Long.parseLong(args[++i]);
+                    sortMemorySet = true;
+                    if (megabytes <= 0 || megabytes > Long.MAX_VALUE >> 20) {
+                        throw new IllegalArgumentException("--sort-memory must be a positive number of megabytes");
+                    }
+                    sortMemory = megabytes << 20;
+                } else if ("--dedup-max-ids".equals(option) && i + 1 < args.length) {
+                    maxDedupIds = Integer.parseInt(args[++i]);
+                    maxDedupIdsSet = true;
+                    if (maxDedupIds <= 0) {
+                        throw new IllegalArgumentException("--dedup-max-ids must be positive");
+                    }
+                } else if ("--max-files".equals(option) && i + 1 < args.length) {
+                    maxFiles = Integer.parseInt(args[++i]);
+                    maxFilesSet = true;
+                    if (maxFiles <= 0) {
+                        throw new IllegalArgumentException("--max-files must be positive");
+                    }
+                } else if ("--rules".equals(option) && i + 1 < args.length) {
+                    rulesPath = args[++i];
+                } else if ("--compress".equals(option) && i + 1 < args.length) {
+                    compression = CompressionCodec.fromName(args[++i]);
+                } else if ("--quarantine".equals(option) && i + 1 < args.length) {
+                    quarantinePath = args[++i];
+                    reader.setQuarantineFile(quarantinePath);
+                } else if ("--summary".equals(option)) {
+                    summaryReport = true;
+                } else if ("--index".equals(option)) {
+                    index = true;
+                } else if ("--metrics".equals(option) && i + 1 < args.length) {
+                    metricsPath = args[++i];
+                    if (metricsPath.trim().isEmpty()) {
+                        throw new IllegalArgumentException("--metrics requires a report file");
+                    }
+                } else if ("--metrics-interval".equals(option) && i + 1 < args.length) {
+                    metricsInterval = Long.parseLong(args[++i]);
+                    metricsIntervalSet = true;
+                    if (metricsInterval <= 0) {
+                        throw new IllegalArgumentException("--metrics-interval must be a positive number of seconds");
+                    }
+                } else if ("--max-error-ratio".equals(option) && i + 1 < args.length) {
+                    reader.setMaxErrorRatio(Double.parseDouble(args[++i]));
+                } else {
+                    throw new IllegalArgumentException("Unexpected argument: " + option);
+                }
+            }
+            if (("--binary".equals(mode) || "--resumable".equals(mode)) && compression != CompressionCodec.NONE) {
+                throw new IllegalArgumentException(mode + " output cannot be compressed");
+            }
+            if ("--batch".equals(mode) && quarantinePath != null) {
+                throw new IllegalArgumentException("--quarantine cannot be combined with --batch");
+            }
+            if (summaryReport && ("--incremental".equals(mode) || "--resumable".equals(mode))) {
+                throw new IllegalArgumentException("--summary cannot be combined with " + mode);
+            }
+            if (index && compression != CompressionCodec.NONE) {
+                throw new IllegalArgumentException("--index cannot be combined with --compress");
+            }
+            if (index && ("--incremental".equals(mode) || "--resumable".equals(mode) || "--binary".equals(mode)
+                          || "--query".equals(mode))) {
+                throw new IllegalArgumentException("--index cannot be combined with " + mode);
+            }
+            if (maxDedupIdsSet && dedupPolicy == null) {
+                throw new IllegalArgumentException("--dedup-max-ids requires --dedup");
+            }
+            if (maxFilesSet && !"--batch".equals(mode)) {
+                throw new IllegalArgumentException("--max-files requires --batch");
+            }
+            if (sortMemorySet && sortOrder == null) {
+                throw new IllegalArgumentException("--sort-memory requires --sort");
+            }
+            if (metricsIntervalSet && metricsPath == null) {
+                throw new IllegalArgumentException("--metrics-interval requires --metrics");
+            }
+            if (queryColumns != null && queryConditions == null) {
+                throw new IllegalArgumentException("--select requires --query");
+            }
+            if (queryConditions != null) {
+                query = ProductQuery.parse(queryConditions, queryColumns);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return;
+        }
+        
+        ETLPipeline pipeline;
+        try {
+            DataTransformer transformer = rulesPath == null ? new DataTransformer()
+                : new DataTransformer(TransformationRules.load(rulesPath));
+            CSVWriter writer = new CSVWriter(CSVWriter.DEFAULT_BUFFER_SIZE, CSVWriter.SyncPolicy.NONE, compression);
+            writer.setIndexing(index);
+            pipeline = new ETLPipeline(reader, transformer, writer);
+            pipeline.setSummaryReport(summaryReport);
+            if (metricsPath != null) {
+                pipeline.setMetricsReport(metricsPath, metricsInterval);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error loading transformation rules: " + e.getMessage());
+            return;
+        }
+        
+        if (mode == null && compression == CompressionCodec.NONE && !summaryReport) {
+            pipeline.runPipeline();
+            return;
+        }
+        String outputFile = OUTPUT_FILE + compression.extension();
+        try {
+            switch (mode == null ? "" : mode) {
+                case "":
+                    pipeline.processProducts(INPUT_FILE, outputFile);
+                    break;
+                case "--streaming":
+                    pipeline.processProductsStreaming(INPUT_FILE, outputFile);
+                    break;
+                case "--columnar":
+                    pipeline.processProductsColumnar(INPUT_FILE, outputFile);
+                    break;
+                case "--incremental":
+                    pipeline.processProductsIncremental(INPUT_FILE, OUTPUT_FILE, STATE_FILE);
+                    break;
+                case "--pipelined":
+                    pipeline.processProductsPipelined(INPUT_FILE, outputFile);
+                    break;
+                case "--resumable":
+                    pipeline.processProductsResumable(INPUT_FILE, OUTPUT_FILE, CHECKPOINT_FILE);
+                    break;
+                case "--binary":
+                    pipeline.processProductsBinary(INPUT_FILE, BINARY_OUTPUT_FILE);
+                    break;
+                case "--dedup":
+                    pipeline.processProductsDeduplicated(INPUT_FILE, outputFile, dedupPolicy, maxDedupIds);
+                    break;
+                case "--sort":
+                    pipeline.processProductsSorted(INPUT_FILE, outputFile, sortOrder, sortMemory);
+                    break;
+                case "--query":
+                    pipeline.processQuery(INPUT_FILE, QUERY_OUTPUT_FILE + compression.extension(), query);
+                    break;
+                default:
+                    pipeline.processDirectory(batchInput, batchOutput, maxFiles);
+                    break;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error during ETL process: " + e.getMessage());
+        }
     }
 }
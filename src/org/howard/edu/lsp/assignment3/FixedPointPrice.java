@@ -0,0 +1,167 @@
+package org.howard.edu.lsp.assignment3;
+
+/**
+ * Fixed-point price arithmetic on whole cents stored in a {@code long}.
+ * 
+ * Prices written with at most two decimal places are carried as cents from
+ * parsing to writing, so discounts, rounding and formatting need no BigDecimal
+ * or String.format. Every operation produces exactly the same result as the
+ * original double/BigDecimal path; inputs it cannot handle exactly are
+ * reported as {@link #UNKNOWN} so callers fall back to that path.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+final class FixedPointPrice {
+    
+    /** Marker for a price that is not available in fixed-point form */
+    static final long UNKNOWN = Long.MIN_VALUE;
+    
+    /** Largest cents value handled in fixed point (below 2^53, so cents / 100.0 is exact-nearest) */
+    static final long MAX_CENTS = 999_999_999_999_999L;
+    
+    /** Largest cents value a discount is computed for without risk of double rounding drift */
+    private static final long MAX_DISCOUNT_CENTS = 100_000_000_000L;
+    
+    /** Denominator of a basis-point rate */
+    private static final long BASIS_POINTS = 10_000;
+    
+    /**
+     * Utility class; not instantiable.
+     */
+    private FixedPointPrice() {
+    }
+    
+    /**
+     * Parses a plain decimal price such as "12.99", "5" or ".5" into cents.
+     * 
+     * @param text the trimmed price text
+     * @return the price in cents, or {@link #UNKNOWN} if the text is not a plain
+     *         non-negative decimal with at most two decimal places
+     */
+    static long parseCents(CharSequence text) {
+        long cents = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (fractionDigits == 2 || cents > MAX_CENTS / 10) {
+                    return UNKNOWN;
+                }
+                cents = cents * 10 + (c - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return UNKNOWN;
+            }
+        }
+        return scale(cents, digits, fractionDigits);
+    }
+    
+    /**
+     * Scales a parsed mantissa to cents.
+     * 
+     * @param mantissa the digits read, ignoring the decimal point
+     * @param digits the number of digits read
+     * @param fractionDigits the number of digits after the decimal point, or -1 if there was no point
+     * @return the price in cents, or {@link #UNKNOWN} if it is out of range
+     */
+    static long scale(long mantissa, int digits, int fractionDigits) {
+        if (digits == 0) {
+            return UNKNOWN;
+        }
+        for (int i = Math.max(fractionDigits, 0); i < 2; i++) {
+            if (mantissa > MAX_CENTS / 10) {
+                return UNKNOWN;
+            }
+            mantissa *= 10;
+        }
+        return mantissa;
+    }
+    
+    /**
+     * Converts cents to the double nearest to the decimal price, which is the
+     * same value {@code Double.parseDouble} and {@code BigDecimal.doubleValue} yield.
+     * 
+     * @param cents the price in cents
+     * @return the price in dollars
+     */
+    static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+    
+    /**
+     * Applies a discount and rounds the result HALF_UP to whole cents.
+     * 
+     * The result matches {@code new BigDecimal(price * (1 - discountRate)).setScale(2, HALF_UP)}.
+     * When the exact decimal result lies on a half cent, the double product may
+     * sit slightly above or below it, so the double product is compared against
+     * the half cent exactly with a fused multiply-add.
+     * 
+     * @param cents the undiscounted price in cents
+     * @param price the undiscounted price as a double
+     * @param discountRate the discount as a fraction, e.g. 0.10
+     * @param discountBasisPoints the same discount in basis points, e.g. 1000
+     * @return the discounted price in cents, or {@link #UNKNOWN} if it cannot be computed exactly
+     */
+    static long applyDiscount(long cents, double price, double discountRate, long discountBasisPoints) {
+        if (cents < 0 || cents > MAX_DISCOUNT_CENTS || discountBasisPoints < 0 || discountBasisPoints > BASIS_POINTS) {
+            return UNKNOWN;
+        }
+        
+        long scaled = cents * (BASIS_POINTS - discountBasisPoints);
+        long whole = scaled / BASIS_POINTS;
+        long remainder = scaled % BASIS_POINTS;
+        if (remainder != BASIS_POINTS / 2) {
+            return remainder > BASIS_POINTS / 2 ? whole + 1 : whole;
+        }
+        
+        // Exactly half a cent in decimal: decide on the binary value like BigDecimal would
+        double discounted = price * (1 - discountRate);
+        double difference = Math.fma(discounted, 200.0, -(2.0 * whole + 1.0));
+        return difference >= 0 ? whole + 1 : whole;
+    }
+    
+    /**
+     * Converts a discount rate to basis points if it is a whole number of them.
+     * 
+     * @param discountRate the discount as a fraction
+     * @return the discount in basis points, or -1 if it has finer precision
+     */
+    static long toBasisPoints(double discountRate) {
+        double scaled = discountRate * BASIS_POINTS;
+        long basisPoints = Math.round(scaled);
+        return basisPoints / (double) BASIS_POINTS == discountRate ? basisPoints : -1;
+    }
+    
+    /**
+     * Appends cents formatted with two decimal places, identical to
+     * {@code String.format("%.2f", cents / 100.0)}.
+     * 
+     * @param cents a non-negative price in cents
+     * @param out the builder to append to
+     * @return the builder
+     */
+    static StringBuilder appendTo(long cents, StringBuilder out) {
+        long remainder = cents % 100;
+        out.append(cents / 100).append('.');
+        if (remainder < 10) {
+            out.append('0');
+        }
+        return out.append(remainder);
+    }
+    
+    /**
+     * Formats cents with two decimal places.
+     * 
+     * @param cents a non-negative price in cents
+     * @return the formatted price
+     */
+    static String format(long cents) {
+        return appendTo(cents, new StringBuilder(20)).toString();
+    }
+}
@@ -0,0 +1,116 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * JUnit test class for FixedPointPrice.
+ * Checks that the fixed-point price path produces exactly the output of the
+ * original double/BigDecimal/String.format path.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class FixedPointPriceTest {
+    
+    /** Discount applied to Electronics, matching DataTransformer */
+    private static final double DISCOUNT_RATE = 0.10;
+    
+    /**
+     * Formats a price the way the pipeline did before fixed-point pricing.
+     */
+    private static String legacyPrice(String text, boolean discounted) {
+        double price = Double.parseDouble(text);
+        if (discounted) {
+            price = price * (1 - DISCOUNT_RATE);
+        }
+        double rounded = new BigDecimal(price).setScale(2, RoundingMode.HALF_UP).doubleValue();
+        return String.format("%.2f", rounded);
+    }
+    
+    /**
+     * Formats a price through the fixed-point path.
+     */
+    private static String fixedPrice(String text, boolean discounted) {
+        long cents = FixedPointPrice.parseCents(text);
+        assertNotEquals(FixedPointPrice.UNKNOWN, cents, "Expected a fixed-point price for " + text);
+        if (discounted) {
+            cents = FixedPointPrice.applyDiscount(cents, FixedPointPrice.toDouble(cents), DISCOUNT_RATE, 1000);
+        }
+        return FixedPointPrice.format(cents);
+    }
+    
+    /**
+     * Tests that the pipeline output still matches the committed golden file.
+     */
+    @Test
+    @DisplayName("Test pipeline output matches golden file")
+    public void testGoldenFile(@TempDir Path tempDir) throws IOException {
+        Path output = tempDir.resolve("transformed_products.csv");
+        
+        new ETLPipeline().processProducts("data/products.csv", output.toString());
+        
+        assertEquals(Files.readAllLines(Paths.get("data/transformed_products.csv")),
+                     Files.readAllLines(output));
+    }
+    
+    /**
+     * Tests every price up to $2,000.00 with and without the discount.
+     */
+    @Test
+    @DisplayName("Test fixed-point prices match BigDecimal rounding")
+    public void testMatchesLegacyRounding() {
+        for (long cents = 0; cents <= 200_000; cents++) {
+            String text = (cents / 100) + "." + String.format("%02d", cents % 100);
+            assertEquals(legacyPrice(text, false), fixedPrice(text, false), text);
+            assertEquals(legacyPrice(text, true), fixedPrice(text, true), text);
+        }
+    }
+    
+    /**
+     * Tests discounted prices that land exactly on half a cent.
+     */
+    @Test
+    @DisplayName("Test half-cent discount results")
+    public void testHalfCentTies() {
+        String[] prices = {"12.95", "0.05", "199.95", "555.55", "1000.05", "123456.75"};
+        for (String price : prices) {
+            assertEquals(legacyPrice(price, true), fixedPrice(price, true), price);
+        }
+    }
+    
+    /**
+     * Tests that prices outside the plain two-decimal form are left to the double path.
+     */
+    @Test
+    @DisplayName("Test unsupported price formats")
+    public void testUnsupportedFormats() {
+        String[] prices = {"", ".", "12.995", "1e3", "-1.00", "+5", "NaN", "1,5", "12345678901234567"};
+        for (String price : prices) {
+            assertEquals(FixedPointPrice.UNKNOWN, FixedPointPrice.parseCents(price), price);
+        }
+    }
+    
+    /**
+     * Tests parsing and formatting of short forms.
+     */
+    @Test
+    @DisplayName("Test parse and format")
+    public void testParseAndFormat() {
+        assertEquals(500, FixedPointPrice.parseCents("5"));
+        assertEquals(500, FixedPointPrice.parseCents("5."));
+        assertEquals(50, FixedPointPrice.parseCents(".5"));
+        assertEquals(710, FixedPointPrice.parseCents("007.10"));
+        assertEquals("0.00", FixedPointPrice.format(0));
+        assertEquals("0.05", FixedPointPrice.format(5));
+        assertEquals("899.99", FixedPointPrice.format(89_999));
+    }
+}
@@ -0,0 +1,156 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Default metrics registry keeping every metric in memory.
+ * 
+ * Counters use striped adders and histograms use {@link LatencyHistogram}, so
+ * recording from several threads is cheap and allocation-free once a metric
+ * exists. Snapshots are exported as JSON with names in sorted order.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class InMemoryPipelineMetrics implements PipelineMetrics {
+    
+    /** Percentiles included for each histogram in the JSON export */
+    private static final double[] EXPORTED_PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+    
+    /** Counters by name */
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    
+    /** Gauges by name */
+    private final Map<String, Double> gauges = new ConcurrentHashMap<>();
+    
+    /** Histograms by name */
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    
+    @Override
+    public void incrementCounter(String name, long delta) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+    }
+    
+    @Override
+    public void setGauge(String name, double value) {
+        gauges.put(name, value);
+    }
+    
+    @Override
+    public void recordValue(String name, long value) {
+        histograms.computeIfAbsent(name, key -> new LatencyHistogram()).record(value);
+    }
+    
+    /**
+     * Gets the current value of a counter.
+     * 
+     * @param name the counter name
+     * @return the counter value, or 0 if it was never incremented
+     */
+    public long getCounter(String name) {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+    
+    /**
+     * Gets the latest value of a gauge.
+     * 
+     * @param name the gauge name
+     * @return the gauge value, or NaN if it was never set
+     */
+    public double getGauge(String name) {
+        return gauges.getOrDefault(name, Double.NaN);
+    }
+    
+    /**
+     * Gets a histogram.
+     * 
+     * @param name the histogram name
+     * @return the histogram, or null if nothing was recorded under that name
+     */
+    public LatencyHistogram getHistogram(String name) {
+        return histograms.get(name);
+    }
+    
+    @Override
+    public String toJson() {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\n  \"counters\": {");
+        String separator = "\n";
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+            json.append(separator).append("    ");
+            appendString(json, entry.getKey()).append(": ").append(entry.getValue().sum());
+            separator = ",\n";
+        }
+        
+        json.append("\n  },\n  \"gauges\": {");
+        separator = "\n";
+        for (Map.Entry<String, Double> entry : new TreeMap<>(gauges).entrySet()) {
+            json.append(separator).append("    ");
+            appendString(json, entry.getKey()).append(": ");
+            appendNumber(json, entry.getValue());
+            separator = ",\n";
+        }
+        
+        json.append("\n  },\n  \"histograms\": {");
+        separator = "\n";
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            json.append(separator).append("    ");
+            appendString(json, entry.getKey()).append(": {")
+                .append("\"count\": ").append(histogram.getCount())
+                .append(", \"min\": ").append(histogram.getMin())
+                .append(", \"max\": ").append(histogram.getMax())
+                .append(", \"mean\": ");
+            appendNumber(json, histogram.getMean());
+            for (double percentile : EXPORTED_PERCENTILES) {
+                json.append(", \"p").append(percentileLabel(percentile)).append("\": ")
+                    .append(histogram.getValueAtPercentile(percentile));
+            }
+            json.append('}');
+            separator = ",\n";
+        }
+        
+        return json.append("\n  }\n}\n").toString();
+    }
+    
+    /**
+     * Formats a percentile for a JSON key, e.g. 99.9 becomes "999".
+     */
+    private static String percentileLabel(double percentile) {
+        return percentile == Math.rint(percentile)
+            ? String.valueOf((long) percentile)
+            : String.valueOf(percentile).replace(".", "");
+    }
+    
+    /**
+     * Appends a JSON number, writing non-finite values as null.
+     */
+    private static void appendNumber(StringBuilder json, double value) {
+        if (Double.isFinite(value)) {
+            json.append(value);
+        } else {
+            json.append("null");
+        }
+    }
+    
+    /**
+     * Appends a JSON string literal with the required escapes.
+     */
+    private static StringBuilder appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+}
@@ -0,0 +1,573 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Incremental ETL run that only transforms products that are new or changed
+ * since the previous run.
+ * 
+ * A compact state file next to the output maps each ProductID to a hash of
+ * its parsed input row and to the location of its transformed row in the
+ * output file. On the next run every input row is hashed; rows whose hash is
+ * unchanged are copied byte for byte from the previous output, in runs of
+ * consecutive rows, and only new or changed rows go through the transformer.
+ * Products no longer in the input are dropped. The result is identical to a
+ * full run of {@link ETLPipeline#processProducts}.
+ * 
+ * If neither the input nor the output has changed since the state was
+ * written, the run does nothing. If the state is missing, unreadable, was
+ * written under different business rules, or the output was modified since,
+ * every row is transformed and a fresh state is written.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class IncrementalETL {
+    
+    /** Identifies a state file ("ETLS") */
+    private static final int STATE_MAGIC = 0x45544C53;
+    
+    /** Version of the state file layout */
+    private static final int STATE_VERSION = 1;
+    
+    /** FNV-1a 64-bit offset basis */
+    private static final long HASH_SEED = 0xCBF29CE484222325L;
+    
+    /** FNV-1a 64-bit prime */
+    private static final long HASH_PRIME = 0x100000001B3L;
+    
+    /** Component responsible for reading CSV files */
+    private final CSVReader csvReader;
+    
+    /** Component responsible for transforming product data */
+    private final DataTransformer dataTransformer;
+    
+    /** Component responsible for writing CSV files */
+    private final CSVWriter csvWriter;
+    
+    /** Registry receiving counts of reused, transformed and removed rows */
+    private PipelineMetrics metrics = PipelineMetrics.NOOP;
+    
+    /** Rows copied from the previous output during the last run */
+    private long reusedRows;
+    
+    /** Rows transformed during the last run */
+    private long transformedRows;
+    
+    /** Products dropped from the output during the last run */
+    private long removedRows;
+    
+    /** Whether the last run found nothing to do */
+    private boolean upToDate;
+    
+    /**
+     * Constructs an incremental run with custom components.
+     * 
+     * @param csvReader the CSV reader
+     * @param dataTransformer the transformer applied to new and changed products
+     * @param csvWriter the CSV writer, which must not compress its output
+     * @throws IllegalArgumentException if any component is null or the writer compresses its output
+     */
+    public IncrementalETL(CSVReader csvReader, DataTransformer dataTransformer, CSVWriter csvWriter) {
+        if (csvReader == null || dataTransformer == null || csvWriter == null) {
+            throw new IllegalArgumentException("Pipeline components cannot be null");
+        }
+        if (csvWriter.getCompression() != CompressionCodec.NONE) {
+            // Unchanged rows are copied by byte offset from the previous output
+            throw new IllegalArgumentException("Incremental runs require uncompressed output");
+        }
+        this.csvReader = csvReader;
+        this.dataTransformer = dataTransformer;
+        this.csvWriter = csvWriter;
+    }
+    
+    /**
+     * Sets the metrics registry that receives counts of reused, transformed and removed rows.
+     * 
+     * @param metrics the registry to report to
+     * @throws IllegalArgumentException if the registry is null
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics registry cannot be null");
+        }
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Brings the output file up to date with the input file.
+     * 
+     * @param inputFilePath path to the source CSV file
+     * @param outputFilePath path of the transformed CSV file to create or patch
+     * @param statePath path of the state file from the previous run, created if missing
+     * @return the number of products in the output file
+     * @throws IOException if file reading or writing operations fail
+     * @throws IllegalArgumentException if any path is null or empty
+     */
+    public int run(String inputFilePath, String outputFilePath, String statePath) throws IOException {
+        validatePath(inputFilePath, "Input file path");
+        validatePath(outputFilePath, "Output file path");
+        validatePath(statePath, "State file path");
+        
+        reusedRows = 0;
+        transformedRows = 0;
+        removedRows = 0;
+        upToDate = false;
+        
+        Path input = Paths.get(inputFilePath);
+        Path output = Paths.get(outputFilePath);
+        if (!Files.exists(input)) {
+            throw new IOException("Input file '" + inputFilePath + "' not found. Please ensure the file exists.");
+        }
+        
+        long rulesFingerprint = dataTransformer.rulesFingerprint();
+        long inputSize = Files.size(input);
+        long inputModified = lastModifiedNanos(input);
+        ProductState previous = ProductState.load(Paths.get(statePath), rulesFingerprint, output);
+        
+        if (previous != null && previous.inputSize == inputSize && previous.inputModified == inputModified) {
+            upToDate = true;
+            reusedRows = previous.productCount;
+            metrics.incrementCounter("incremental.rows_reused", reusedRows);
+            return previous.productCount;
+        }
+        
+        ProductState next = new ProductState(previous == null ? 1024 : previous.size);
+        Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        int productCount;
+        try {
+            try (FileChannel previousOutput = previous == null ? null : FileChannel.open(output, StandardOpenOption.READ);
+                 CSVWriter.ChannelProductSink writer = csvWriter.openChannelSink(temp.toString())) {
+                DeltaSink delta = new DeltaSink(previous, previousOutput, writer, next);
+                productCount = csvReader.readProducts(inputFilePath, delta);
+                delta.flushCopy();
+            }
+            moveReplacing(temp, output);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        
+        if (previous != null) {
+            removedRows = previous.size - previous.seenCount;
+        }
+        metrics.incrementCounter("incremental.rows_reused", reusedRows);
+        metrics.incrementCounter("incremental.rows_transformed", transformedRows);
+        metrics.incrementCounter("incremental.rows_removed", removedRows);
+        
+        next.productCount = productCount;
+        next.inputSize = inputSize;
+        next.inputModified = inputModified;
+        next.save(Paths.get(statePath), rulesFingerprint, output);
+        return productCount;
+    }
+    
+    /**
+     * Sink that copies unchanged rows from the previous output and transforms
+     * everything else, recording the new location of every row.
+     */
+    private final class DeltaSink implements ProductSink {
+        
+        /** State of the previous run, or null if every row must be transformed */
+        private final ProductState previous;
+        
+        /** Output of the previous run, or null if there is no usable state */
+        private final FileChannel previousOutput;
+        
+        /** Sink writing the new output */
+        private final CSVWriter.ChannelProductSink writer;
+        
+        /** State being built for the next run */
+        private final ProductState next;
+        
+        /** Offset in the previous output of the pending run of unchanged rows */
+        private long copyStart;
+        
+        /** Length of the pending run of unchanged rows, or 0 if there is none */
+        private long copyLength;
+        
+        /**
+         * Constructs a delta sink.
+         * 
+         * @param previous the state of the previous run, or null
+         * @param previousOutput the output of the previous run, or null
+         * @param writer the sink writing the new output
+         * @param next the state being built for the next run
+         */
+        DeltaSink(ProductState previous, FileChannel previousOutput, CSVWriter.ChannelProductSink writer,
+                  ProductState next) {
+            this.previous = previous;
+            this.previousOutput = previousOutput;
+            this.writer = writer;
+            this.next = next;
+        }
+        
+        @Override
+        public void accept(Product product) throws IOException {
+            if (product == null) {
+                return;
+            }
+            
+            long idHash = hashText(HASH_SEED, product.getProductId());
+            long rowHash = rowHash(product);
+            int slot = previous == null ? -1 : previous.find(idHash);
+            if (slot >= 0) {
+                previous.markSeen(slot);
+            }
+            
+            if (slot >= 0 && previous.rowHashes[slot] == rowHash) {
+                long offset = previous.offsets[slot];
+                int length = previous.lengths[slot];
+                long newOffset = writer.position() + copyLength;
+                if (copyLength > 0 && copyStart + copyLength == offset) {
+                    copyLength += length;
+                } else {
+                    flushCopy();
+                    copyStart = offset;
+                    copyLength = length;
+                }
+                next.put(idHash, rowHash, newOffset, length);
+                reusedRows++;
+                return;
+            }
+            
+            flushCopy();
+            long start = writer.position();
+            writer.accept(dataTransformer.transformProduct(product));
+            next.put(idHash, rowHash, start, (int) (writer.position() - start));
+            transformedRows++;
+        }
+        
+        /**
+         * Copies the pending run of unchanged rows to the new output.
+         */
+        void flushCopy() throws IOException {
+            if (copyLength > 0) {
+                writer.copyFrom(previousOutput, copyStart, copyLength);
+                copyLength = 0;
+            }
+        }
+    }
+    
+    /**
+     * Open-addressing table from ProductID hash to row hash and output location,
+     * together with the file stamps it was written against.
+     */
+    private static final class ProductState {
+        
+        /** ProductID hashes, 0 marking an empty slot */
+        private long[] keys;
+        
+        /** Hashes of the parsed input rows */
+        private long[] rowHashes;
+        
+        /** Offsets of the transformed rows in the output file */
+        private long[] offsets;
+        
+        /** Lengths of the transformed rows in bytes, including the line separator */
+        private int[] lengths;
+        
+        /** Slots matched by a row of the current input */
+        private boolean[] seen;
+        
+        /** Number of occupied slots */
+        private int size;
+        
+        /** Number of slots matched by a row of the current input */
+        private int seenCount;
+        
+        /** Number of products written to the output */
+        private int productCount;
+        
+        /** Size of the input file the state describes */
+        private long inputSize;
+        
+        /** Modification time in nanoseconds of the input file the state describes */
+        private long inputModified;
+        
+        /**
+         * Constructs an empty table sized for the expected number of products.
+         * 
+         * @param expectedSize the expected number of products
+         */
+        ProductState(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(16, expectedSize) * 2 - 1) << 1;
+            allocate(capacity);
+        }
+        
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            rowHashes = new long[capacity];
+            offsets = new long[capacity];
+            lengths = new int[capacity];
+            seen = new boolean[capacity];
+        }
+        
+        /**
+         * Finds the slot holding a ProductID hash.
+         * 
+         * @param key the ProductID hash
+         * @return the slot, or -1 if the key is absent
+         */
+        int find(long key) {
+            int mask = keys.length - 1;
+            for (int slot = spread(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+        
+        /**
+         * Adds or replaces the entry for a ProductID hash. Duplicate ProductIDs
+         * keep the location of their last row, which is safe because the row
+         * hash is always checked before a location is reused.
+         */
+        void put(long key, long rowHash, long offset, int length) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = spread(key) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                size++;
+            }
+            rowHashes[slot] = rowHash;
+            offsets[slot] = offset;
+            lengths[slot] = length;
+        }
+        
+        /**
+         * Marks a slot as matched by a row of the current input.
+         */
+        void markSeen(int slot) {
+            if (!seen[slot]) {
+                seen[slot] = true;
+                seenCount++;
+            }
+        }
+        
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldRowHashes = rowHashes;
+            long[] oldOffsets = offsets;
+            int[] oldLengths = lengths;
+            allocate(oldKeys.length * 2);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldRowHashes[i], oldOffsets[i], oldLengths[i]);
+                }
+            }
+        }
+        
+        private static int spread(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+        
+        /**
+         * Writes the state atomically, stamped with the current output file.
+         * 
+         * @param statePath the state file
+         * @param rulesFingerprint the fingerprint of the rules the output was produced with
+         * @param output the output file the state describes
+         * @throws IOException if the state cannot be written
+         */
+        void save(Path statePath, long rulesFingerprint, Path output) throws IOException {
+            Path parent = statePath.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(parent, statePath.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                    out.writeInt(STATE_MAGIC);
+                    out.writeInt(STATE_VERSION);
+                    out.writeLong(rulesFingerprint);
+                    out.writeLong(inputSize);
+                    out.writeLong(inputModified);
+                    out.writeLong(Files.size(output));
+                    out.writeLong(lastModifiedNanos(output));
+                    out.writeInt(productCount);
+                    out.writeInt(size);
+                    for (int i = 0; i < keys.length; i++) {
+                        if (keys[i] != 0) {
+                            out.writeLong(keys[i]);
+                            out.writeLong(rowHashes[i]);
+                            out.writeLong(offsets[i]);
+                            out.writeInt(lengths[i]);
+                        }
+                    }
+                }
+                moveReplacing(temp, statePath);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        
+        /**
+         * Reads a state file if it is usable for the given rules and output file.
+         * 
+         * @param statePath the state file
+         * @param rulesFingerprint the fingerprint of the current rules
+         * @param output the output file the state must describe
+         * @return the state, or null if it is missing, unreadable or stale
+         */
+        static ProductState load(Path statePath, long rulesFingerprint, Path output) {
+            if (!Files.exists(statePath) || !Files.exists(output)) {
+                return null;
+            }
+            
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(statePath), 1 << 16))) {
+                if (in.readInt() != STATE_MAGIC || in.readInt() != STATE_VERSION
+                        || in.readLong() != rulesFingerprint) {
+                    return null;
+                }
+                long inputSize = in.readLong();
+                long inputModified = in.readLong();
+                if (in.readLong() != Files.size(output) || in.readLong() != lastModifiedNanos(output)) {
+                    return null;
+                }
+                int productCount = in.readInt();
+                int entries = in.readInt();
+                if (entries < 0) {
+                    return null;
+                }
+                
+                ProductState state = new ProductState(entries);
+                for (int i = 0; i < entries; i++) {
+                    state.put(in.readLong(), in.readLong(), in.readLong(), in.readInt());
+                }
+                state.productCount = productCount;
+                state.inputSize = inputSize;
+                state.inputModified = inputModified;
+                return state;
+            } catch (IOException e) {
+                System.err.println("Warning: Ignoring unreadable state file " + statePath + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+    
+    /**
+     * Hashes the parsed fields of a product, which fully determine its transformed row.
+     * 
+     * @param product the parsed product
+     * @return a 64-bit hash of the product's fields
+     */
+    static long rowHash(Product product) {
+        long hash = hashText(HASH_SEED, product.getProductId());
+        hash = hashText(hash, product.getName());
+        if (product.hasPriceCents()) {
+            hash = hashLong(hash, 1);
+            hash = hashLong(hash, product.getPriceCents());
+        } else {
+            hash = hashLong(hash, 2);
+            hash = hashLong(hash, Double.doubleToLongBits(product.getPrice()));
+        }
+        return hashText(hash, product.getCategory());
+    }
+    
+    /**
+     * Folds a string and its length into an FNV-1a hash, never returning 0.
+     */
+    private static long hashText(long hash, String text) {
+        if (text == null) {
+            return hashLong(hash, -1);
+        }
+        hash = hashLong(hash, text.length());
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * HASH_PRIME;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+    
+    /**
+     * Folds the bytes of a long into an FNV-1a hash.
+     */
+    private static long hashLong(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash = (hash ^ (value & 0xFF)) * HASH_PRIME;
+            value >>>= 8;
+        }
+        return hash;
+    }
+    
+    /**
+     * Gets the modification time of a file in nanoseconds, as precise as the file system allows.
+     */
+    private static long lastModifiedNanos(Path path) throws IOException {
+        return Files.getLastModifiedTime(path).to(TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Replaces the target with the source, atomically where the file system supports it.
+     */
+    static void moveReplacing(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    /**
+     * Validates that a path is not null or empty.
+     */
+    private static void validatePath(String path, String description) {
+        if (path == null || path.trim().isEmpty()) {
+            throw new IllegalArgumentException(description + " cannot be null or empty");
+        }
+    }
+    
+    /**
+     * Gets the number of rows copied from the previous output during the last run.
+     * 
+     * @return the number of reused rows
+     */
+    public long getReusedRows() {
+        return reusedRows;
+    }
+    
+    /**
+     * Gets the number of rows transformed during the last run.
+     * 
+     * @return the number of new or changed rows
+     */
+    public long getTransformedRows() {
+        return transformedRows;
+    }
+    
+    /**
+     * Gets the number of products dropped from the output during the last run.
+     * 
+     * @return the number of removed products
+     */
+    public long getRemovedRows() {
+        return removedRows;
+    }
+    
+    /**
+     * Tells whether the last run found the output already up to date.
+     * 
+     * @return true if neither the input nor the output had changed
+     */
+    public boolean isUpToDate() {
+        return upToDate;
+    }
+}
@@ -0,0 +1,222 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JUnit test class for IncrementalETL.
+ * Checks that patched output is byte for byte the output of a fresh full run,
+ * and that rows are reused, transformed and removed as expected.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class IncrementalETLTest {
+    
+    /** Header row of the generated input files */
+    private static final String HEADER = "ProductID,Name,Price,Category";
+    
+    /** Categories cycled through by the generated rows */
+    private static final String[] CATEGORIES = {"Electronics", "Books", "Toys", "Education"};
+    
+    /**
+     * Builds an input row with a price and category derived from the ID.
+     */
+    private static String row(int id) {
+        return id + ",Item " + id + "," + (id * 37 % 900) + "." + String.format("%02d", id % 100) + ","
+               + CATEGORIES[id % CATEGORIES.length];
+    }
+    
+    /**
+     * Builds the rows of the products with IDs 1 to count.
+     */
+    private static List<String> rows(int count) {
+        List<String> rows = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            rows.add(row(id));
+        }
+        return rows;
+    }
+    
+    /**
+     * Writes an input file and moves its modification time past the previous one,
+     * so a rewrite is noticed even on file systems with coarse timestamps.
+     */
+    private static void writeInput(Path input, List<String> rows) throws IOException {
+        FileTime previous = Files.exists(input) ? Files.getLastModifiedTime(input) : null;
+        List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        lines.addAll(rows);
+        Files.write(input, lines, StandardCharsets.UTF_8);
+        if (previous != null) {
+            Files.setLastModifiedTime(input, FileTime.fromMillis(previous.toMillis() + 2000));
+        }
+    }
+    
+    /**
+     * Writes the output of a fresh full run.
+     */
+    private static byte[] fullRun(Path input, Path output) throws IOException {
+        new CSVWriter().writeProducts(new DataTransformer().transform(new CSVReader().readProducts(input.toString())),
+                                      output.toString());
+        return Files.readAllBytes(output);
+    }
+    
+    /**
+     * Creates an incremental run with default components.
+     */
+    private static IncrementalETL incremental() {
+        return new IncrementalETL(new CSVReader(), new DataTransformer(), new CSVWriter());
+    }
+    
+    /**
+     * Tests that the first run transforms every row.
+     */
+    @Test
+    @DisplayName("Test first run matches full run")
+    public void testFirstRun(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        Path output = tempDir.resolve("out.csv");
+        writeInput(input, rows(200));
+        
+        IncrementalETL etl = incremental();
+        assertEquals(200, etl.run(input.toString(), output.toString(), tempDir.resolve("out.state").toString()));
+        
+        assertFalse(etl.isUpToDate());
+        assertEquals(0, etl.getReusedRows());
+        assertEquals(200, etl.getTransformedRows());
+        assertEquals(0, etl.getRemovedRows());
+        assertArrayEquals(fullRun(input, tempDir.resolve("full.csv")), Files.readAllBytes(output));
+    }
+    
+    /**
+     * Tests that a rerun with unchanged input and output does nothing.
+     */
+    @Test
+    @DisplayName("Test unchanged input is up to date")
+    public void testUpToDate(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        Path output = tempDir.resolve("out.csv");
+        String state = tempDir.resolve("out.state").toString();
+        writeInput(input, rows(50));
+        
+        IncrementalETL etl = incremental();
+        etl.run(input.toString(), output.toString(), state);
+        byte[] first = Files.readAllBytes(output);
+        FileTime written = Files.getLastModifiedTime(output);
+        
+        assertEquals(50, etl.run(input.toString(), output.toString(), state));
+        assertTrue(etl.isUpToDate());
+        assertEquals(50, etl.getReusedRows());
+        assertEquals(0, etl.getTransformedRows());
+        assertEquals(0, etl.getRemovedRows());
+        assertArrayEquals(first, Files.readAllBytes(output));
+        assertEquals(written, Files.getLastModifiedTime(output));
+    }
+    
+    /**
+     * Tests a rerun after rows were edited, deleted and added.
+     */
+    @Test
+    @DisplayName("Test rerun after edits, deletes and adds")
+    public void testPatchedRun(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        Path output = tempDir.resolve("out.csv");
+        String state = tempDir.resolve("out.state").toString();
+        List<String> rows = rows(300);
+        writeInput(input, rows);
+        
+        IncrementalETL etl = incremental();
+        etl.run(input.toString(), output.toString(), state);
+        
+        // Two edits, three deletes in a run, one insert in the middle and five appended rows
+        rows.set(9, "10,Item 10,1234.50,Electronics");
+        rows.set(149, "150,Renamed item,12.00,Books");
+        rows.subList(199, 202).clear();
+        rows.add(100, row(1000));
+        for (int id = 301; id <= 305; id++) {
+            rows.add(row(id));
+        }
+        writeInput(input, rows);
+        
+        assertEquals(rows.size(), etl.run(input.toString(), output.toString(), state));
+        assertFalse(etl.isUpToDate());
+        assertEquals(300 - 2 - 3, etl.getReusedRows());
+        assertEquals(2 + 1 + 5, etl.getTransformedRows());
+        assertEquals(3, etl.getRemovedRows());
+        assertArrayEquals(fullRun(input, tempDir.resolve("full.csv")), Files.readAllBytes(output));
+        assertFalse(Files.exists(tempDir.resolve("out.csv.tmp")), "Temporary output should be moved into place");
+    }
+    
+    /**
+     * Tests that rows moved to a different position are still reused.
+     */
+    @Test
+    @DisplayName("Test reordered rows are reused")
+    public void testReorderedRows(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        Path output = tempDir.resolve("out.csv");
+        String state = tempDir.resolve("out.state").toString();
+        List<String> rows = rows(100);
+        writeInput(input, rows);
+        
+        IncrementalETL etl = incremental();
+        etl.run(input.toString(), output.toString(), state);
+        
+        Collections.reverse(rows);
+        writeInput(input, rows);
+        etl.run(input.toString(), output.toString(), state);
+        
+        assertEquals(100, etl.getReusedRows());
+        assertEquals(0, etl.getTransformedRows());
+        assertArrayEquals(fullRun(input, tempDir.resolve("full.csv")), Files.readAllBytes(output));
+    }
+    
+    /**
+     * Tests that a state written against an output that has since changed is ignored.
+     */
+    @Test
+    @DisplayName("Test modified output forces a full run")
+    public void testModifiedOutput(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        Path output = tempDir.resolve("out.csv");
+        String state = tempDir.resolve("out.state").toString();
+        List<String> rows = rows(80);
+        writeInput(input, rows);
+        
+        IncrementalETL etl = incremental();
+        etl.run(input.toString(), output.toString(), state);
+        Files.write(output, "garbage\n".getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.APPEND);
+        
+        rows.set(0, "1,Item 1,5.00,Books");
+        writeInput(input, rows);
+        etl.run(input.toString(), output.toString(), state);
+        
+        assertEquals(0, etl.getReusedRows());
+        assertEquals(80, etl.getTransformedRows());
+        assertArrayEquals(fullRun(input, tempDir.resolve("full.csv")), Files.readAllBytes(output));
+    }
+    
+    /**
+     * Tests that compressed output is rejected, since unchanged rows are copied by offset.
+     */
+    @Test
+    @DisplayName("Test compressed output is rejected")
+    public void testCompressedOutput() {
+        CSVWriter writer = new CSVWriter(CSVWriter.DEFAULT_BUFFER_SIZE, CSVWriter.SyncPolicy.NONE, CompressionCodec.GZIP);
+        assertThrows(IllegalArgumentException.class,
+                     () -> new IncrementalETL(new CSVReader(), new DataTransformer(), writer));
+    }
+}
@@ -0,0 +1,167 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe histogram of non-negative long values with bounded relative error.
+ * 
+ * Values are bucketed the way HdrHistogram does it: each power of two is split
+ * into 2^{@value #SUB_BUCKET_BITS} linear sub-buckets, so any value is recorded
+ * with a relative error below 1/{@value #SUB_BUCKETS} (about 1.6%) using a
+ * fixed amount of memory and no allocation per sample.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class LatencyHistogram {
+    
+    /** Number of bits used for linear sub-buckets within each power of two */
+    private static final int SUB_BUCKET_BITS = 6;
+    
+    /** Number of sub-buckets within each power of two */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    
+    /** Total bucket count covering the whole non-negative long range */
+    static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    
+    /** Sample counts per bucket */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    
+    /** Total number of samples */
+    private final AtomicLong totalCount = new AtomicLong();
+    
+    /** Sum of all samples */
+    private final AtomicLong sum = new AtomicLong();
+    
+    /** Smallest sample */
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    
+    /** Largest sample */
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+    
+    /**
+     * Records a sample. Negative values are recorded as zero.
+     * 
+     * @param value the sample
+     */
+    public void record(long value) {
+        long sample = Math.max(0, value);
+        counts.incrementAndGet(bucketIndex(sample));
+        totalCount.incrementAndGet();
+        sum.addAndGet(sample);
+        min.accumulateAndGet(sample, Math::min);
+        max.accumulateAndGet(sample, Math::max);
+    }
+    
+    /**
+     * Gets the number of recorded samples.
+     * 
+     * @return the sample count
+     */
+    public long getCount() {
+        return totalCount.get();
+    }
+    
+    /**
+     * Gets the smallest recorded sample.
+     * 
+     * @return the minimum, or 0 if nothing was recorded
+     */
+    public long getMin() {
+        return getCount() == 0 ? 0 : min.get();
+    }
+    
+    /**
+     * Gets the largest recorded sample.
+     * 
+     * @return the maximum, or 0 if nothing was recorded
+     */
+    public long getMax() {
+        return getCount() == 0 ? 0 : max.get();
+    }
+    
+    /**
+     * Gets the mean of the recorded samples.
+     * 
+     * @return the mean, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0.0 : (double) sum.get() / count;
+    }
+    
+    /**
+     * Gets the value at a percentile, accurate to the bucket resolution.
+     * 
+     * @param percentile the percentile between 0 and 100
+     * @return the highest value in the bucket holding that percentile, capped at the maximum
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+    
+    /**
+     * Adds all samples from another histogram into this one.
+     * 
+     * @param other the histogram to merge in
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+        long otherCount = other.getCount();
+        if (otherCount > 0) {
+            totalCount.addAndGet(otherCount);
+            sum.addAndGet(other.sum.get());
+            min.accumulateAndGet(other.getMin(), Math::min);
+            max.accumulateAndGet(other.getMax(), Math::max);
+        }
+    }
+    
+    /**
+     * Maps a value to its bucket.
+     * 
+     * @param value the non-negative value
+     * @return the bucket index, below {@link #BUCKET_COUNT}
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // Keep the top SUB_BUCKET_BITS + 1 bits; the shift decides the power-of-two band
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int top = (int) (value >>> shift);
+        return (shift + 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+    
+    /**
+     * Gets the largest value that maps to a bucket.
+     * 
+     * @param index the bucket index
+     * @return the bucket's upper bound
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long top = index % SUB_BUCKETS + SUB_BUCKETS;
+        return (top << shift) + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,195 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * JUnit test class for LatencyHistogram.
+ * Checks that every value falls in a bucket whose upper bound is within the
+ * documented relative error, and that percentiles, merges and summary
+ * statistics agree with exact values computed from the sorted samples.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class LatencyHistogramTest {
+    
+    /** Largest relative error of a bucket's upper bound: one part in 64 sub-buckets */
+    private static final double MAX_RELATIVE_ERROR = 1.0 / 64;
+    
+    /** Percentiles checked against the exact values */
+    private static final double[] PERCENTILES = {0.1, 1, 10, 25, 50, 75, 90, 99, 99.9, 99.99, 100};
+    
+    /**
+     * Checks that a value maps to a bucket holding it, above the previous
+     * bucket, with an upper bound within the relative error.
+     */
+    private static void assertBucketHolds(long value) {
+        int index = LatencyHistogram.bucketIndex(value);
+        assertTrue(index >= 0 && index < LatencyHistogram.BUCKET_COUNT, value + " mapped to " + index);
+        long upper = LatencyHistogram.bucketUpperBound(index);
+        assertTrue(value <= upper, value + " above the upper bound " + upper);
+        if (index > 0) {
+            assertTrue(value > LatencyHistogram.bucketUpperBound(index - 1), value + " belongs to an earlier bucket");
+        }
+        // Compared in integers, since the error of the largest buckets is within a rounding of 1/64
+        assertTrue(upper - value < Math.max(1, value >> 6), value + " recorded as " + upper);
+    }
+    
+    /**
+     * Gets the exact value at a percentile of sorted samples, using the same
+     * nearest-rank definition as the histogram.
+     */
+    private static long exactPercentile(long[] sorted, double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * sorted.length));
+        return sorted[(int) rank - 1];
+    }
+    
+    /**
+     * Draws samples spread over several orders of magnitude, like latencies in nanoseconds.
+     */
+    private static long[] samples(int count, long seed) {
+        Random random = new Random(seed);
+        long[] samples = new long[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = (long) Math.exp(random.nextDouble() * Math.log(1e10));
+        }
+        return samples;
+    }
+    
+    /**
+     * Tests that small values have a bucket each and are recorded exactly.
+     */
+    @Test
+    @DisplayName("Test exact buckets for small values")
+    public void testSmallValues() {
+        for (long value = 0; value < 128; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertEquals(value, LatencyHistogram.bucketUpperBound(index), "value " + value);
+        }
+    }
+    
+    /**
+     * Tests the bucket bounds of every value up to a few powers of two, of the
+     * values around every power of two and of random values over the whole range.
+     */
+    @Test
+    @DisplayName("Test bucket bounds")
+    public void testBucketBounds() {
+        for (long value = 0; value < 1 << 16; value++) {
+            assertBucketHolds(value);
+        }
+        for (int bit = 1; bit < 63; bit++) {
+            long power = 1L << bit;
+            assertBucketHolds(power - 1);
+            assertBucketHolds(power);
+            assertBucketHolds(power + 1);
+        }
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            assertBucketHolds(random.nextLong() >>> (1 + random.nextInt(63)));
+        }
+        assertBucketHolds(Long.MAX_VALUE);
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketUpperBound(LatencyHistogram.BUCKET_COUNT - 1));
+    }
+    
+    /**
+     * Tests that every bucket's upper bound maps back to that bucket, so
+     * buckets tile the range without gaps or overlaps.
+     */
+    @Test
+    @DisplayName("Test buckets tile the range")
+    public void testBucketsTile() {
+        for (int index = 0; index < LatencyHistogram.BUCKET_COUNT; index++) {
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            assertEquals(index, LatencyHistogram.bucketIndex(upper), "upper bound of bucket " + index);
+            if (index + 1 < LatencyHistogram.BUCKET_COUNT) {
+                assertEquals(index + 1, LatencyHistogram.bucketIndex(upper + 1), "value after bucket " + index);
+            }
+        }
+    }
+    
+    /**
+     * Tests percentiles, count, minimum, maximum and mean against the exact
+     * values of the sorted samples.
+     */
+    @Test
+    @DisplayName("Test percentiles")
+    public void testPercentiles() {
+        long[] samples = samples(200_000, 2);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long sum = 0;
+        for (long sample : samples) {
+            histogram.record(sample);
+            sum += sample;
+        }
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        
+        for (double percentile : PERCENTILES) {
+            long exact = exactPercentile(sorted, percentile);
+            long value = histogram.getValueAtPercentile(percentile);
+            assertTrue(value >= exact && (double) (value - exact) / exact < MAX_RELATIVE_ERROR,
+                       "p" + percentile + " was " + value + ", exactly " + exact);
+        }
+        assertEquals(samples.length, histogram.getCount());
+        assertEquals(sorted[0], histogram.getMin());
+        assertEquals(sorted[sorted.length - 1], histogram.getMax());
+        assertEquals(sorted[sorted.length - 1], histogram.getValueAtPercentile(100));
+        assertEquals((double) sum / samples.length, histogram.getMean(), 1e-6);
+    }
+    
+    /**
+     * Tests that histograms of parts of the samples add up to the histogram of all of them.
+     */
+    @Test
+    @DisplayName("Test adding histograms")
+    public void testAdd() {
+        long[] samples = samples(50_000, 3);
+        LatencyHistogram whole = new LatencyHistogram();
+        LatencyHistogram[] parts = {new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram()};
+        for (int i = 0; i < samples.length; i++) {
+            whole.record(samples[i]);
+            parts[i % parts.length].record(samples[i]);
+        }
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram part : parts) {
+            merged.add(part);
+        }
+        merged.add(new LatencyHistogram());
+        
+        assertEquals(whole.getCount(), merged.getCount());
+        assertEquals(whole.getMin(), merged.getMin());
+        assertEquals(whole.getMax(), merged.getMax());
+        assertEquals(whole.getMean(), merged.getMean(), 1e-9);
+        for (double percentile : PERCENTILES) {
+            assertEquals(whole.getValueAtPercentile(percentile), merged.getValueAtPercentile(percentile),
+                         "p" + percentile);
+        }
+    }
+    
+    /**
+     * Tests an empty histogram and negative samples, which are recorded as zero.
+     */
+    @Test
+    @DisplayName("Test empty histogram and negative samples")
+    public void testEmptyAndNegative() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0.0, histogram.getMean());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        
+        histogram.record(-5);
+        histogram.record(10);
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(10, histogram.getValueAtPercentile(100));
+        assertEquals(5.0, histogram.getMean());
+    }
+}
@@ -0,0 +1,813 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Scans a CSV file through a memory-mapped buffer and locates field
+ * boundaries directly in the mapped bytes.
+ * 
+ * Records are split following {@link CsvSyntax}: quoted fields may hold
+ * commas, quotes and line breaks, and everything else is split and trimmed
+ * exactly like {@code BufferedReader.readLine()}, {@code String.trim()} and
+ * {@code String.split(",")} would. Records and fields are found in a single
+ * pass that tests eight bytes at a time for delimiters, no String is created
+ * until a caller asks for a field's text, and prices are parsed straight from
+ * the bytes. Files larger than a single mapping are scanned through a
+ * sliding window.
+ * 
+ * Text is decoded with the platform default charset, like {@code FileReader},
+ * which must be ASCII-compatible (for example UTF-8 or ISO-8859-1).
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+final class MappedCSVScanner {
+    
+    /** Largest region mapped at once (256 MB) */
+    private static final int MAX_WINDOW_SIZE = 1 << 28;
+    
+    /** Number of bytes read at a time when aligning chunk boundaries */
+    private static final int BOUNDARY_PROBE_SIZE = 8192;
+    
+    /** Field delimiter byte */
+    private static final byte COMMA = ',';
+    
+    /** Line feed byte */
+    private static final byte LF = '\n';
+    
+    /** Carriage return byte */
+    private static final byte CR = '\r';
+    
+    /** Quote byte */
+    private static final byte QUOTE = '"';
+    
+    /** A one bit in every byte of a word */
+    private static final long ONES = 0x0101010101010101L;
+    
+    /** The high bit of every byte of a word */
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    
+    /** Comma in every byte of a word */
+    private static final long COMMAS = ONES * COMMA;
+    
+    /** Line feed in every byte of a word */
+    private static final long LINE_FEEDS = ONES * LF;
+    
+    /** Carriage return in every byte of a word */
+    private static final long CARRIAGE_RETURNS = ONES * CR;
+    
+    /** Quote in every byte of a word */
+    private static final long QUOTES = ONES * QUOTE;
+    
+    /** Charset used to decode field text, matching FileReader */
+    private static final Charset CHARSET = Charset.defaultCharset();
+    
+    /** Maximum digits that always fit exactly in a double mantissa */
+    private static final int MAX_EXACT_DIGITS = 15;
+    
+    /** Powers of ten that are exactly representable as doubles */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+    
+    /**
+     * Callback receiving each non-blank record found by the scanner.
+     */
+    interface LineHandler {
+        
+        /**
+         * Handles a single non-blank record.
+         * The row view is only valid for the duration of the call.
+         * 
+         * @param lineNumber the 1-based number of the record's first line relative to the scanned range
+         * @param row a view over the fields of the record
+         * @throws IOException if the handler fails to process the line
+         */
+        void onLine(int lineNumber, Row row) throws IOException;
+    }
+    
+    /**
+     * Decides from the raw bytes of a record whether it could produce a wanted
+     * product, so records that cannot are skipped before any field is decoded.
+     */
+    interface RowFilter {
+        
+        /**
+         * Checks whether a record could produce a wanted product. A record may
+         * only be ruled out if it is a valid row, so rejected rows are still
+         * reported. Parallel reads call this from several threads at once.
+         * 
+         * @param row a view over the fields of the record, valid for the duration of the call
+         * @return false only if the record is a valid row whose product is certainly not wanted
+         */
+        boolean mayMatch(Row row);
+    }
+    
+    /** Channel of the file being scanned */
+    private final FileChannel channel;
+    
+    /** Size of the mapping window */
+    private final int windowSize;
+    
+    /** Reusable view over the current record */
+    private final Row row = new Row();
+    
+    /** Offset just past the last record handled by the latest scan */
+    private long endOffset;
+    
+    /**
+     * Creates a scanner over an open file channel.
+     * 
+     * @param channel the channel to scan; the caller remains responsible for closing it
+     */
+    MappedCSVScanner(FileChannel channel) {
+        this(channel, MAX_WINDOW_SIZE);
+    }
+    
+    /**
+     * Creates a scanner with a custom mapping window size.
+     * 
+     * @param channel the channel to scan
+     * @param windowSize the maximum number of bytes mapped at once
+     */
+    MappedCSVScanner(FileChannel channel, int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive");
+        }
+        this.channel = channel;
+        this.windowSize = windowSize;
+    }
+    
+    /**
+     * Scans the whole file.
+     * 
+     * @param handler the handler receiving each non-blank record
+     * @return the total number of lines in the file, including blank ones
+     * @throws IOException if the file cannot be mapped or the handler fails
+     */
+    int scan(LineHandler handler) throws IOException {
+        return scan(0, channel.size(), handler);
+    }
+    
+    /**
+     * Scans the records in the byte range [start, end).
+     * The start offset must be the beginning of a record. The end offset is
+     * usually the beginning of a line, found with {@link #nextLineStart}, or
+     * the end of the file; if the range ends inside a quoted field that does
+     * not reach the end of the file, the unfinished record is not handled and
+     * {@link #endOffset()} tells where it starts.
+     * 
+     * @param start the offset of the first byte to scan
+     * @param end the offset just past the last byte to scan
+     * @param handler the handler receiving each non-blank record
+     * @return the number of lines in the handled records, including blank ones
+     *         and line breaks inside quoted fields
+     * @throws IOException if the file cannot be mapped or the handler fails
+     */
+    int scan(long start, long end, LineHandler handler) throws IOException {
+        int lineNumber = 0;
+        long windowStart = start;
+        long fileSize = channel.size();
+        endOffset = end;
+        
+        while (windowStart < end) {
+            int length = (int) Math.min(windowSize, end - windowStart);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            boolean lastWindow = windowStart + length == end;
+            
+            int recordStart = 0;
+            while (recordStart < length) {
+                int next = row.parse(buffer, recordStart, length, lastWindow);
+                if (next < 0) {
+                    // The record continues in the next window; rescan it from its start there
+                    break;
+                }
+                if (row.unterminated && end < fileSize) {
+                    // The range ends inside a quoted field, so this record continues past it
+                    endOffset = windowStart + recordStart;
+                    return lineNumber;
+                }
+                
+                lineNumber++;
+                if (!row.isBlank()) {
+                    handler.onLine(lineNumber, row);
+                }
+                lineNumber += row.lineBreaks;
+                recordStart = next;
+            }
+            
+            if (lastWindow) {
+                break;
+            }
+            if (recordStart == 0) {
+                throw new IOException("Line at offset " + windowStart + " is longer than " + windowSize + " bytes");
+            }
+            windowStart += recordStart;
+        }
+        
+        return lineNumber;
+    }
+    
+    /**
+     * Gets the offset just past the last record handled by the latest scan.
+     * This is the end of the scanned range unless the range ended inside a
+     * quoted field, in which case it is the start of the unfinished record.
+     * 
+     * @return the offset at which scanning should continue
+     */
+    long endOffset() {
+        return endOffset;
+    }
+    
+    /**
+     * Finds the first line start at or after the given offset.
+     * Used to align parallel chunk boundaries so no line is split between chunks.
+     * The boundary may still fall inside a quoted field; {@link #scan(long, long, LineHandler)}
+     * detects that when it scans the range before it.
+     * 
+     * @param offset the nominal boundary offset
+     * @return the offset of the next line start, or the file size if there is none
+     * @throws IOException if the file cannot be read
+     */
+    long nextLineStart(long offset) throws IOException {
+        long size = channel.size();
+        if (offset <= 0) {
+            return 0;
+        }
+        
+        ByteBuffer probe = ByteBuffer.allocate(BOUNDARY_PROBE_SIZE);
+        long position = offset - 1;
+        boolean afterCr = false;
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = probe.get(i);
+                if (afterCr) {
+                    // A lone CR ends the line; a CRLF ends it one byte later
+                    return b == LF ? position + i + 1 : position + i;
+                }
+                if (b == LF) {
+                    return position + i + 1;
+                }
+                afterCr = b == CR;
+            }
+            position += read;
+        }
+        return size;
+    }
+    
+    /**
+     * Finds the first byte at or after an offset that equals one of three bytes,
+     * testing eight bytes at a time.
+     * 
+     * Each pattern holds its byte repeated in all eight positions. XOR turns
+     * matching bytes into zero bytes, and the classic zero-byte test flags them;
+     * a borrow can only flag a byte above a real match, so the lowest flag is
+     * always exact. The buffer must be little-endian so that the lowest flag
+     * belongs to the lowest offset.
+     * 
+     * @return the offset of the first match, or the limit if there is none
+     */
+    private static int find(ByteBuffer buffer, int i, int limit, long first, long second, long third) {
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long word = buffer.getLong(i);
+            long found = zeroBytes(word ^ first) | zeroBytes(word ^ second) | zeroBytes(word ^ third);
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == (byte) first || b == (byte) second || b == (byte) third) {
+                return i;
+            }
+        }
+        return limit;
+    }
+    
+    /**
+     * Checks whether a byte is blank space that can precede a field, but not a line terminator.
+     */
+    private static boolean isFieldSpace(byte b) {
+        return (b & 0xFF) <= ' ' && b != LF && b != CR;
+    }
+    
+    /**
+     * Sets the high bit of every zero byte in a word, and possibly of bytes above the lowest zero byte.
+     */
+    private static long zeroBytes(long word) {
+        return (word - ONES) & ~word & HIGH_BITS;
+    }
+    
+    /**
+     * Flyweight view over the fields of the record currently being handled.
+     */
+    static final class Row {
+        
+        /** Initial capacity of the field boundary arrays */
+        private static final int INITIAL_FIELDS = 8;
+        
+        /** Returned by the parsing methods when the record does not end within the window */
+        private static final int INCOMPLETE = -1;
+        
+        /** Mapped window containing the current record */
+        private MappedByteBuffer buffer;
+        
+        /** Offset of the first byte of the trimmed record */
+        private int lineStart;
+        
+        /** Offset just past the last byte of the trimmed record */
+        private int lineEnd;
+        
+        /** Offsets of the first byte of each trimmed field, in the unquoted text for quoted fields */
+        private int[] fieldStart = new int[INITIAL_FIELDS];
+        
+        /** Offsets just past the last byte of each trimmed field, in the unquoted text for quoted fields */
+        private int[] fieldEnd = new int[INITIAL_FIELDS];
+        
+        /** Offsets of the closing quote of each quoted field, or -1 for unquoted fields */
+        private int[] closeQuote = new int[INITIAL_FIELDS];
+        
+        /** Number of fields found, including trailing empty ones */
+        private int fieldCount;
+        
+        /** Number of columns as reported by String.split */
+        private int columnCount;
+        
+        /** Number of line breaks inside quoted fields of the record */
+        private int lineBreaks;
+        
+        /** Whether the record ends inside a quoted field at the end of the file */
+        private boolean unterminated;
+        
+        /** Text of the quoted fields with their quotes removed */
+        private byte[] unquoted = new byte[64];
+        
+        /** View over the unquoted text used by the field accessors */
+        private ByteBuffer unquotedBuffer = ByteBuffer.wrap(unquoted);
+        
+        /** Number of bytes used in the unquoted text */
+        private int unquotedLength;
+        
+        /** Reusable buffer for decoding field text */
+        private byte[] scratch = new byte[64];
+        
+        /**
+         * Finds the end of the record starting at an offset and records its field boundaries.
+         * 
+         * @param buffer the mapped window, in little-endian order
+         * @param from the offset of the record in the window
+         * @param limit the size of the window
+         * @param lastWindow whether the window ends at the end of the scanned range
+         * @return the offset just past the record's line terminator, or
+         *         INCOMPLETE if the record does not end within the window
+         */
+        private int parse(MappedByteBuffer buffer, int from, int limit, boolean lastWindow) {
+            this.buffer = buffer;
+            fieldCount = 0;
+            lineBreaks = 0;
+            unterminated = false;
+            
+            int start = from;
+            while (true) {
+                // A field is quoted if its first non-blank byte is a quote
+                int i = start;
+                while (i < limit && isFieldSpace(buffer.get(i))) {
+                    i++;
+                }
+                int close = -1;
+                if (i < limit && buffer.get(i) == QUOTE) {
+                    close = closingQuote(i + 1, limit, lastWindow);
+                    if (close == INCOMPLETE) {
+                        return INCOMPLETE;
+                    }
+                    if (close == limit) {
+                        unterminated = true;
+                        addField(start, limit, limit);
+                        return finish(from, limit, limit);
+                    }
+                    i = close + 1;
+                }
+                
+                int delimiter = find(buffer, i, limit, COMMAS, LINE_FEEDS, CARRIAGE_RETURNS);
+                addField(start, delimiter, close);
+                if (delimiter == limit) {
+                    // Final line without a terminator
+                    return lastWindow ? finish(from, limit, limit) : INCOMPLETE;
+                }
+                
+                byte b = buffer.get(delimiter);
+                if (b == COMMA) {
+                    start = delimiter + 1;
+                } else if (b == LF) {
+                    return finish(from, delimiter, delimiter + 1);
+                } else if (delimiter + 1 < limit) {
+                    // A lone CR ends the line; a CRLF ends it one byte later
+                    return finish(from, delimiter, buffer.get(delimiter + 1) == LF ? delimiter + 2 : delimiter + 1);
+                } else {
+                    // A CR at the window edge may be half of a CRLF; rescan it in the next window
+                    return lastWindow ? finish(from, delimiter, limit) : INCOMPLETE;
+                }
+            }
+        }
+        
+        /**
+         * Finds the closing quote of a quoted field, skipping doubled quotes and
+         * counting the line breaks inside the field.
+         * 
+         * @return the offset of the closing quote, the limit if the field is
+         *         still open at the end of the last window, or INCOMPLETE
+         */
+        private int closingQuote(int i, int limit, boolean lastWindow) {
+            while (true) {
+                i = find(buffer, i, limit, QUOTES, LINE_FEEDS, CARRIAGE_RETURNS);
+                if (i == limit) {
+                    return lastWindow ? limit : INCOMPLETE;
+                }
+                byte b = buffer.get(i);
+                if (b == QUOTE) {
+                    if (i + 1 == limit) {
+                        return lastWindow ? i : INCOMPLETE;
+                    }
+                    if (buffer.get(i + 1) != QUOTE) {
+                        return i;
+                    }
+                    i += 2;
+                } else {
+                    if (b == CR && i + 1 < limit && buffer.get(i + 1) == LF) {
+                        i++;
+                    }
+                    lineBreaks++;
+                    i++;
+                }
+            }
+        }
+        
+        /**
+         * Records the raw boundaries of the next field.
+         */
+        private void addField(int start, int end, int close) {
+            if (fieldCount == fieldStart.length) {
+                fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+                fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+                closeQuote = Arrays.copyOf(closeQuote, fieldCount * 2);
+            }
+            fieldStart[fieldCount] = start;
+            fieldEnd[fieldCount] = end;
+            closeQuote[fieldCount] = close;
+            fieldCount++;
+        }
+        
+        /**
+         * Trims the record and its fields, counts columns the way String.split
+         * does and removes the quotes from quoted fields.
+         * 
+         * @param from the offset of the record
+         * @param to the offset of its line terminator
+         * @param next the offset just past its line terminator
+         * @return the offset just past the line terminator
+         */
+        private int finish(int from, int to, int next) {
+            // Trim the whole record the same way String.trim() does
+            while (from < to && (buffer.get(from) & 0xFF) <= ' ') {
+                from++;
+            }
+            while (to > from && (buffer.get(to - 1) & 0xFF) <= ' ') {
+                to--;
+            }
+            lineStart = from;
+            lineEnd = to;
+            
+            columnCount = 0;
+            for (int f = 0; f < fieldCount; f++) {
+                int s = Math.max(fieldStart[f], from);
+                int e = Math.max(s, Math.min(fieldEnd[f], to));
+                // String.split drops trailing empty fields, judged before trimming
+                if (e > s) {
+                    columnCount = f + 1;
+                }
+                fieldStart[f] = s;
+                fieldEnd[f] = e;
+            }
+            
+            unquotedLength = 0;
+            for (int f = 0; f < columnCount; f++) {
+                int s = fieldStart[f];
+                int e = fieldEnd[f];
+                while (s < e && (buffer.get(s) & 0xFF) <= ' ') {
+                    s++;
+                }
+                while (e > s && (buffer.get(e - 1) & 0xFF) <= ' ') {
+                    e--;
+                }
+                fieldStart[f] = s;
+                fieldEnd[f] = e;
+                if (closeQuote[f] >= 0) {
+                    unquote(f);
+                }
+            }
+            return next;
+        }
+        
+        /**
+         * Copies a trimmed quoted field into the unquoted text, dropping its
+         * quotes, undoubling quotes inside it and reading line breaks as LF.
+         * Anything after the closing quote is copied as written.
+         */
+        private void unquote(int column) {
+            int start = fieldStart[column];
+            int end = fieldEnd[column];
+            int close = Math.min(closeQuote[column], end);
+            if (unquoted.length < unquotedLength + (end - start)) {
+                unquoted = Arrays.copyOf(unquoted, Math.max(unquotedLength + (end - start), unquoted.length * 2));
+                unquotedBuffer = ByteBuffer.wrap(unquoted);
+            }
+            
+            int length = unquotedLength;
+            for (int i = start + 1; i < close; i++) {
+                byte b = buffer.get(i);
+                if (b == QUOTE) {
+                    // The closing quote is the only single one, so this is a doubled quote
+                    i++;
+                } else if (b == CR) {
+                    if (i + 1 < close && buffer.get(i + 1) == LF) {
+                        i++;
+                    }
+                    b = LF;
+                }
+                unquoted[length++] = b;
+            }
+            if (close + 1 < end) {
+                buffer.get(close + 1, unquoted, length, end - close - 1);
+                length += end - close - 1;
+            }
+            
+            fieldStart[column] = unquotedLength;
+            fieldEnd[column] = length;
+            unquotedLength = length;
+        }
+        
+        /**
+         * Gets the bytes holding a trimmed field: the mapped window for unquoted
+         * fields and the unquoted text for quoted ones.
+         */
+        private ByteBuffer source(int column) {
+            return closeQuote[column] < 0 ? buffer : unquotedBuffer;
+        }
+        
+        /**
+         * Checks whether the record is blank once trimmed.
+         * 
+         * @return true if the record has no content
+         */
+        boolean isBlank() {
+            return lineStart == lineEnd;
+        }
+        
+        /**
+         * Checks whether the record ends inside a quoted field at the end of the file.
+         * 
+         * @return true if a quoted field is never closed
+         */
+        boolean isUnterminated() {
+            return unterminated;
+        }
+        
+        /**
+         * Gets the number of columns, counted the way {@code String.split(",")} does.
+         * 
+         * @return the number of columns in the line
+         */
+        int columnCount() {
+            return columnCount;
+        }
+        
+        /**
+         * Checks whether a trimmed field is empty.
+         * 
+         * @param column the column index
+         * @return true if the field has no content
+         */
+        boolean isEmpty(int column) {
+            return fieldStart[column] == fieldEnd[column];
+        }
+        
+        /**
+         * Decodes a trimmed field as text.
+         * 
+         * @param column the column index
+         * @return the field text
+         */
+        String text(int column) {
+            return decode(source(column), fieldStart[column], fieldEnd[column]);
+        }
+        
+        /**
+         * Gets the length of a trimmed field in bytes.
+         * 
+         * @param column the column index
+         * @return the field length
+         */
+        int length(int column) {
+            return fieldEnd[column] - fieldStart[column];
+        }
+        
+        /**
+         * Checks whether a trimmed field consists only of ASCII bytes.
+         * 
+         * @param column the column index
+         * @return true if every byte of the field is below 0x80
+         */
+        boolean isAscii(int column) {
+            ByteBuffer source = source(column);
+            for (int i = fieldStart[column]; i < fieldEnd[column]; i++) {
+                if (source.get(i) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Copies the bytes of a trimmed field without decoding them.
+         * 
+         * @param column the column index
+         * @param target the array to copy into
+         * @param offset the offset in the target array
+         */
+        void copyTo(int column, byte[] target, int offset) {
+            source(column).get(fieldStart[column], target, offset, fieldEnd[column] - fieldStart[column]);
+        }
+        
+        /**
+         * Checks whether a trimmed field consists of exactly the given bytes.
+         * 
+         * @param column the column index
+         * @param bytes the encoded text to compare with
+         * @return true if the field holds the same bytes
+         */
+        boolean equalsBytes(int column, byte[] bytes) {
+            if (fieldEnd[column] - fieldStart[column] != bytes.length) {
+                return false;
+            }
+            ByteBuffer source = source(column);
+            int start = fieldStart[column];
+            for (int i = 0; i < bytes.length; i++) {
+                if (source.get(start + i) != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Checks whether a trimmed field equals the given bytes once its ASCII
+         * lowercase letters are uppercased.
+         * 
+         * @param column the column index
+         * @param bytes the encoded text to compare with
+         * @return true if the uppercased field holds the same bytes
+         */
+        boolean equalsAsciiUppercase(int column, byte[] bytes) {
+            if (fieldEnd[column] - fieldStart[column] != bytes.length) {
+                return false;
+            }
+            ByteBuffer source = source(column);
+            int start = fieldStart[column];
+            for (int i = 0; i < bytes.length; i++) {
+                byte b = source.get(start + i);
+                if (b >= 'a' && b <= 'z') {
+                    b = (byte) (b - ('a' - 'A'));
+                }
+                if (b != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Looks up a trimmed field in a category dictionary straight from its bytes.
+         * 
+         * @param column the column index
+         * @param dictionary the dictionary to look up or add the field in
+         * @return the field's code, or CategoryDictionary.NO_CODE if the dictionary is full
+         */
+        int intern(int column, CategoryDictionary dictionary) {
+            int length = fieldEnd[column] - fieldStart[column];
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            source(column).get(fieldStart[column], scratch, 0, length);
+            return dictionary.intern(scratch, 0, length);
+        }
+        
+        /**
+         * Gets the whole trimmed record as text, quotes included, with line
+         * breaks inside quoted fields read as LF like a line reader would join them.
+         * 
+         * @return the record text
+         */
+        String line() {
+            String text = decode(buffer, lineStart, lineEnd);
+            return lineBreaks == 0 ? text : text.replace("\r\n", "\n").replace('\r', '\n');
+        }
+        
+        /**
+         * Parses a trimmed field as a double without creating a String.
+         * Plain decimals with up to 15 significant digits are converted exactly;
+         * anything else is handed to {@link Double#parseDouble(String)} so the
+         * result is identical to the String-based path. Invalid numbers are
+         * reported as NaN rather than thrown, so rejecting them stays cheap.
+         * 
+         * @param column the column index
+         * @return the parsed value, or NaN if the field is not a valid number
+         */
+        double parseDouble(int column) {
+            ByteBuffer source = source(column);
+            int start = fieldStart[column];
+            int end = fieldEnd[column];
+            
+            long mantissa = 0;
+            int digits = 0;
+            int fractionDigits = 0;
+            boolean seenPoint = false;
+            for (int i = start; i < end; i++) {
+                byte b = source.get(i);
+                if (b >= '0' && b <= '9') {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (seenPoint) {
+                        fractionDigits++;
+                    }
+                } else if (b == '.' && !seenPoint) {
+                    seenPoint = true;
+                } else {
+                    digits = MAX_EXACT_DIGITS + 1;
+                    break;
+                }
+            }
+            
+            if (digits == 0 || digits > MAX_EXACT_DIGITS) {
+                String text = decode(source, start, end);
+                return NumberSyntax.isDouble(text) ? Double.parseDouble(text) : Double.NaN;
+            }
+            // Both operands are exact, so the division is correctly rounded like parseDouble
+            return mantissa / POWERS_OF_TEN[fractionDigits];
+        }
+        
+        /**
+         * Parses a trimmed field as a plain decimal price in whole cents.
+         * 
+         * @param column the column index
+         * @return the price in cents, or {@link FixedPointPrice#UNKNOWN} if the
+         *         field is not a plain decimal with at most two decimal places
+         */
+        long parseCents(int column) {
+            ByteBuffer source = source(column);
+            long mantissa = 0;
+            int digits = 0;
+            int fractionDigits = -1;
+            for (int i = fieldStart[column]; i < fieldEnd[column]; i++) {
+                byte b = source.get(i);
+                if (b >= '0' && b <= '9') {
+                    if (fractionDigits == 2 || mantissa > FixedPointPrice.MAX_CENTS / 10) {
+                        return FixedPointPrice.UNKNOWN;
+                    }
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (fractionDigits >= 0) {
+                        fractionDigits++;
+                    }
+                } else if (b == '.' && fractionDigits < 0) {
+                    fractionDigits = 0;
+                } else {
+                    return FixedPointPrice.UNKNOWN;
+                }
+            }
+            return FixedPointPrice.scale(mantissa, digits, fractionDigits);
+        }
+        
+        /**
+         * Decodes a byte range of the current record or its unquoted text.
+         */
+        private String decode(ByteBuffer source, int from, int to) {
+            int length = to - from;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            source.get(from, scratch, 0, length);
+            return new String(scratch, 0, length, CHARSET);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes JSON snapshots of a metrics registry to a file, periodically during a
+ * run and once more when closed.
+ * 
+ * Each snapshot is written to a temporary file and moved into place, so a
+ * reader never sees a partially written report.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class MetricsReporter implements Closeable {
+    
+    /** Registry being reported */
+    private final PipelineMetrics metrics;
+    
+    /** File receiving the snapshots */
+    private final Path reportFile;
+    
+    /** Background scheduler, or null if only a final report is written */
+    private final ScheduledExecutorService scheduler;
+    
+    /**
+     * Starts reporting a registry.
+     * 
+     * @param metrics the registry to report
+     * @param reportFile the file receiving JSON snapshots
+     * @param intervalSeconds seconds between snapshots, or 0 to only write the final report
+     * @throws IllegalArgumentException if an argument is null or the interval is negative
+     */
+    public MetricsReporter(PipelineMetrics metrics, Path reportFile, long intervalSeconds) {
+        if (metrics == null || reportFile == null) {
+            throw new IllegalArgumentException("Metrics registry and report file cannot be null");
+        }
+        if (intervalSeconds < 0) {
+            throw new IllegalArgumentException("Report interval cannot be negative");
+        }
+        this.metrics = metrics;
+        this.reportFile = reportFile;
+        
+        if (intervalSeconds > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-reporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(this::reportQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+    
+    /**
+     * Writes a snapshot of the registry now.
+     * 
+     * @throws IOException if the report cannot be written
+     */
+    public synchronized void report() throws IOException {
+        Path parent = reportFile.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, reportFile.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, metrics.toJson().getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, reportFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    /**
+     * Writes a periodic snapshot, reporting failures instead of stopping the schedule.
+     */
+    private void reportQuietly() {
+        try {
+            report();
+        } catch (IOException e) {
+            System.err.println("Warning: Failed to write metrics report: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Stops periodic reporting and writes the final report.
+     * 
+     * @throws IOException if the final report cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        report();
+    }
+}
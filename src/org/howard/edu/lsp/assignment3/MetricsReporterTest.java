@@ -0,0 +1,176 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * JUnit test class for MetricsReporter and the JSON export of InMemoryPipelineMetrics.
+ * Checks the exact shape of the JSON document, that reports replace the file
+ * whole without leaving temporary files behind, and that a pipeline run with
+ * a metrics report writes one.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class MetricsReporterTest {
+    
+    /** JSON export of a registry with nothing recorded */
+    private static final String EMPTY_JSON =
+        "{\n  \"counters\": {\n  },\n  \"gauges\": {\n  },\n  \"histograms\": {\n  }\n}\n";
+    
+    /**
+     * Reads a report file.
+     */
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Lists the files in a directory.
+     */
+    private static List<String> files(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<String> names = new ArrayList<>();
+            files.forEach(file -> names.add(file.getFileName().toString()));
+            return names;
+        }
+    }
+    
+    /**
+     * Tests the JSON export: sections in a fixed order, names sorted and
+     * escaped, non-finite gauges written as null and each histogram with its
+     * count, extremes, mean and percentiles.
+     */
+    @Test
+    @DisplayName("Test JSON shape")
+    public void testJsonShape() {
+        InMemoryPipelineMetrics metrics = new InMemoryPipelineMetrics();
+        assertEquals(EMPTY_JSON, metrics.toJson());
+        
+        metrics.incrementCounter("load.rows", 6);
+        metrics.incrementCounter("extract.rows", 4);
+        metrics.incrementCounter("extract.rows", 3);
+        metrics.incrementCounter("name \"quoted\"\\\n", 1);
+        metrics.setGauge("transform.rows_per_sec", 1.5);
+        metrics.setGauge("load.rows_per_sec", Double.NaN);
+        for (long value = 1; value <= 100; value++) {
+            metrics.recordValue("extract.latency_ns", value);
+        }
+        metrics.recordValue("load.latency_ns", 7);
+        
+        String expected = "{\n"
+            + "  \"counters\": {\n"
+            + "    \"extract.rows\": 7,\n"
+            + "    \"load.rows\": 6,\n"
+            + "    \"name \\\"quoted\\\"\\\\\\u000a\": 1\n"
+            + "  },\n"
+            + "  \"gauges\": {\n"
+            + "    \"load.rows_per_sec\": null,\n"
+            + "    \"transform.rows_per_sec\": 1.5\n"
+            + "  },\n"
+            + "  \"histograms\": {\n"
+            + "    \"extract.latency_ns\": {\"count\": 100, \"min\": 1, \"max\": 100, \"mean\": 50.5,"
+            + " \"p50\": 50, \"p90\": 90, \"p99\": 99, \"p999\": 100},\n"
+            + "    \"load.latency_ns\": {\"count\": 1, \"min\": 7, \"max\": 7, \"mean\": 7.0,"
+            + " \"p50\": 7, \"p90\": 7, \"p99\": 7, \"p999\": 7}\n"
+            + "  }\n"
+            + "}\n";
+        assertEquals(expected, metrics.toJson());
+    }
+    
+    /**
+     * Tests that a reporter without an interval writes only the final report,
+     * replacing any earlier file, and leaves no temporary files.
+     */
+    @Test
+    @DisplayName("Test final report")
+    public void testFinalReport(@TempDir Path tempDir) throws IOException {
+        Path report = tempDir.resolve("metrics.json");
+        Files.write(report, "stale".getBytes(StandardCharsets.UTF_8));
+        InMemoryPipelineMetrics metrics = new InMemoryPipelineMetrics();
+        
+        MetricsReporter reporter = new MetricsReporter(metrics, report, 0);
+        metrics.incrementCounter("extract.rows", 3);
+        assertEquals("stale", read(report));
+        reporter.close();
+        
+        assertEquals(metrics.toJson(), read(report));
+        assertEquals(List.of("metrics.json"), files(tempDir));
+    }
+    
+    /**
+     * Tests that a reporter with an interval writes reports while running, on
+     * demand, and a final report reflecting everything recorded when closed.
+     */
+    @Test
+    @DisplayName("Test periodic report")
+    public void testPeriodicReport(@TempDir Path tempDir) throws Exception {
+        Path report = tempDir.resolve("metrics.json");
+        InMemoryPipelineMetrics metrics = new InMemoryPipelineMetrics();
+        metrics.incrementCounter("extract.rows", 1);
+        
+        try (MetricsReporter reporter = new MetricsReporter(metrics, report, 1)) {
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (!Files.exists(report) && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(Files.exists(report), "Expected a periodic report within 10 seconds");
+            assertTrue(read(report).contains("\"extract.rows\": 1"), read(report));
+            metrics.incrementCounter("extract.rows", 1);
+            reporter.report();
+            assertTrue(read(report).contains("\"extract.rows\": 2"), read(report));
+            metrics.incrementCounter("extract.rows", 1);
+        }
+        
+        assertTrue(read(report).contains("\"extract.rows\": 3"), read(report));
+        assertEquals(List.of("metrics.json"), files(tempDir));
+    }
+    
+    /**
+     * Tests that a pipeline run with a metrics report writes the stage metrics of the run.
+     */
+    @Test
+    @DisplayName("Test pipeline metrics report")
+    public void testPipelineReport(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        Files.write(input, ("ProductID,Name,Price,Category\n1,Laptop,999.99,Electronics\n2,Novel,12.50,Books\n")
+            .getBytes(StandardCharsets.UTF_8));
+        Path output = tempDir.resolve("transformed.csv");
+        Path report = tempDir.resolve("metrics.json");
+        
+        ETLPipeline pipeline = new ETLPipeline();
+        pipeline.setMetricsReport(report.toString(), 0);
+        pipeline.processProducts(input.toString(), output.toString());
+        
+        String json = read(report);
+        assertTrue(json.contains("\"extract.rows\": 2,"), json);
+        assertTrue(json.contains("\"extract.bytes_read\": " + new File(input.toString()).length() + ","), json);
+        assertTrue(json.contains("\"load.bytes_written\": " + Files.size(output) + ","), json);
+        assertEquals(pipeline.getMetrics().toJson(), json);
+    }
+    
+    /**
+     * Tests that invalid registries, files and intervals are rejected.
+     */
+    @Test
+    @DisplayName("Test invalid arguments")
+    public void testInvalidArguments(@TempDir Path tempDir) {
+        Path report = tempDir.resolve("metrics.json");
+        InMemoryPipelineMetrics metrics = new InMemoryPipelineMetrics();
+        assertThrows(IllegalArgumentException.class, () -> new MetricsReporter(null, report, 0));
+        assertThrows(IllegalArgumentException.class, () -> new MetricsReporter(metrics, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> new MetricsReporter(metrics, report, -1));
+        assertThrows(IllegalArgumentException.class, () -> new ETLPipeline().setMetricsReport(" ", 0));
+        assertThrows(IllegalArgumentException.class, () -> new ETLPipeline().setMetricsReport(report.toString(), -1));
+    }
+}
@@ -0,0 +1,157 @@
+package org.howard.edu.lsp.assignment3;
+
+/**
+ * Checks number syntax without throwing, so that invalid prices can be
+ * rejected without creating an exception per row.
+ * 
+ * {@link #isDouble} accepts exactly the strings {@link Double#parseDouble}
+ * accepts, and {@link #errorMessage} gives the message of the exception
+ * {@code parseDouble} would have thrown, so warnings read the same as when
+ * parsing failures were exceptions.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+final class NumberSyntax {
+    
+    /**
+     * Utility class; not instantiable.
+     */
+    private NumberSyntax() {
+    }
+    
+    /**
+     * Checks whether {@link Double#parseDouble} would accept a trimmed string.
+     * 
+     * @param text the trimmed text
+     * @return true if the text is a decimal or hexadecimal floating-point literal, NaN or Infinity
+     */
+    static boolean isDouble(CharSequence text) {
+        int length = text.length();
+        int i = 0;
+        if (i < length && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+            i++;
+        }
+        if (matches(text, i, "NaN") || matches(text, i, "Infinity")) {
+            return true;
+        }
+        if (isHexPrefix(text, i)) {
+            return isHexDouble(text, i + 2);
+        }
+        
+        int digits = 0;
+        boolean seenPoint = false;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        
+        if (i < length && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i = skipSignedDigits(text, i + 1);
+            if (i < 0) {
+                return false;
+            }
+        }
+        return i == length || (i == length - 1 && isTypeSuffix(text.charAt(i)));
+    }
+    
+    /**
+     * Gets the message of the NumberFormatException {@link Double#parseDouble}
+     * throws for a trimmed string it does not accept.
+     * 
+     * @param text the trimmed text, not accepted by {@link #isDouble}
+     * @return the exception message
+     */
+    static String errorMessage(CharSequence text) {
+        if (text.length() == 0) {
+            return "empty String";
+        }
+        int i = 0;
+        if (text.charAt(0) == '+' || text.charAt(0) == '-') {
+            i++;
+        }
+        if (!isHexPrefix(text, i) && !(i < text.length() && (text.charAt(i) == 'N' || text.charAt(i) == 'I'))) {
+            // parseDouble reports a second decimal point in the leading run of digits and points
+            int points = 0;
+            for (; i < text.length() && (text.charAt(i) == '.' || (text.charAt(i) >= '0' && text.charAt(i) <= '9')); i++) {
+                if (text.charAt(i) == '.' && ++points == 2) {
+                    return "multiple points";
+                }
+            }
+        }
+        return "For input string: \"" + text + "\"";
+    }
+    
+    /**
+     * Checks the rest of a hexadecimal literal after its 0x prefix:
+     * hex digits with an optional point, a binary exponent and an optional suffix.
+     */
+    private static boolean isHexDouble(CharSequence text, int i) {
+        int length = text.length();
+        int digits = 0;
+        boolean seenPoint = false;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (Character.digit(c, 16) >= 0 && c < 128) {
+                digits++;
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0 || i == length || (text.charAt(i) != 'p' && text.charAt(i) != 'P')) {
+            return false;
+        }
+        i = skipSignedDigits(text, i + 1);
+        return i >= 0 && (i == length || (i == length - 1 && isTypeSuffix(text.charAt(i))));
+    }
+    
+    /**
+     * Skips an optionally signed run of at least one decimal digit.
+     * 
+     * @return the index after the digits, or -1 if there are none
+     */
+    private static int skipSignedDigits(CharSequence text, int i) {
+        int length = text.length();
+        if (i < length && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+            i++;
+        }
+        int start = i;
+        while (i < length && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        return i == start ? -1 : i;
+    }
+    
+    private static boolean isHexPrefix(CharSequence text, int i) {
+        return i + 1 < text.length() && text.charAt(i) == '0' && (text.charAt(i + 1) == 'x' || text.charAt(i + 1) == 'X');
+    }
+    
+    private static boolean isTypeSuffix(char c) {
+        return c == 'f' || c == 'F' || c == 'd' || c == 'D';
+    }
+    
+    /**
+     * Checks whether the text from an index to its end is exactly the given word.
+     */
+    private static boolean matches(CharSequence text, int i, String word) {
+        if (text.length() - i != word.length()) {
+            return false;
+        }
+        for (int j = 0; j < word.length(); j++) {
+            if (text.charAt(i + j) != word.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
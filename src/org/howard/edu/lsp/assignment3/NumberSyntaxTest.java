@@ -0,0 +1,121 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Random;
+
+/**
+ * JUnit test class for NumberSyntax.
+ * Checks that the exception-free syntax check accepts exactly what
+ * Double.parseDouble accepts and reports the same error messages.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class NumberSyntaxTest {
+    
+    /** Characters the random inputs are drawn from, covering every branch of the grammar */
+    private static final String ALPHABET = "0123456789.+-eExXpPfFdDaNIy ,_";
+    
+    /**
+     * Checks one trimmed input against Double.parseDouble.
+     */
+    private static void assertMatchesParseDouble(String text) {
+        String expectedMessage = null;
+        try {
+            Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            expectedMessage = e.getMessage();
+        }
+        assertEquals(expectedMessage == null, NumberSyntax.isDouble(text), "isDouble(\"" + text + "\")");
+        if (expectedMessage != null) {
+            assertEquals(expectedMessage, NumberSyntax.errorMessage(text), "errorMessage(\"" + text + "\")");
+        }
+    }
+    
+    /**
+     * Tests signs, points and empty input.
+     */
+    @Test
+    @DisplayName("Test signs, points and empty input")
+    public void testSignsAndPoints() {
+        String[] inputs = {"", "+", "-", ".", "..", "+.", "-.", "1", "+1", "-1", "--1", "+-1", "1.", ".5", "-.5",
+                           "1.2.3", "1..2", "12.34.", "007.10", "0", "-0", "+0.0"};
+        for (String input : inputs) {
+            assertMatchesParseDouble(input);
+        }
+    }
+    
+    /**
+     * Tests exponents and type suffixes.
+     */
+    @Test
+    @DisplayName("Test exponents and suffixes")
+    public void testExponents() {
+        String[] inputs = {"1e5", "1E5", "1e", "1e+", "1e-", "1e-5", "1.5e+10", "e5", ".e5", "1.e3", "1e3.5", "1ee3",
+                           "1f", "1d", "1.5F", "1e5d", "1D", "1fd", "f", "1e5f5"};
+        for (String input : inputs) {
+            assertMatchesParseDouble(input);
+        }
+    }
+    
+    /**
+     * Tests hexadecimal literals, NaN and Infinity.
+     */
+    @Test
+    @DisplayName("Test hexadecimal and special values")
+    public void testHexAndSpecialValues() {
+        String[] inputs = {"0x1p3", "0x1.8p1", "0X1P-2", "0x", "0x1", "0x.p1", "0x.8p1", "0xp1", "0x1p", "0x1pf",
+                           "-0x1p3d", "0xg1p1", "NaN", "-NaN", "+NaN", "nan", "NaNd", "Infinity", "-Infinity",
+                           "+Infinity", "infinity", "Inf", "Infinityf"};
+        for (String input : inputs) {
+            assertMatchesParseDouble(input);
+        }
+    }
+    
+    /**
+     * Tests values that overflow or underflow a double, which parseDouble still accepts.
+     */
+    @Test
+    @DisplayName("Test overflow and underflow")
+    public void testOverflow() {
+        String[] inputs = {"1e400", "-1e400", "1e-400", "99999999999999999999999", "1e2147483648",
+                           "179769313486231570000000000000000000000000000000000000000000000000000000000000000000000000"
+                           + "0000000000000000000000000000000000000000000000000000000000000000000000000000000000000000"
+                           + "0000000000000000000000000000000000000000000000000000000000000000000000000000000000000000"
+                           + "00000000000000000000000000000000000000000000000000000000000"};
+        for (String input : inputs) {
+            assertMatchesParseDouble(input);
+        }
+    }
+    
+    /**
+     * Tests text that only looks numeric.
+     */
+    @Test
+    @DisplayName("Test non-numeric text")
+    public void testNonNumeric() {
+        String[] inputs = {"abc", "12abc", "1 2", "1,5", "1_000", "$5", "5%", "\u0661\u0662", "1\u00a0", "\uff11"};
+        for (String input : inputs) {
+            assertMatchesParseDouble(input);
+        }
+    }
+    
+    /**
+     * Tests random short strings over the characters of the grammar.
+     */
+    @Test
+    @DisplayName("Test random inputs")
+    public void testRandomInputs() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(9);
+            for (int j = 0; j < length; j++) {
+                text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            assertMatchesParseDouble(text.toString().trim());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.howard.edu.lsp.assignment3;
+
+/**
+ * Registry receiving measurements from the ETL pipeline.
+ * 
+ * Metrics are identified by dotted names such as "extract.rows" or
+ * "transform.latency_ns". Implementations must be safe to call from several
+ * threads at once.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public interface PipelineMetrics {
+    
+    /** Registry that discards every measurement */
+    PipelineMetrics NOOP = new PipelineMetrics() {
+        @Override
+        public void incrementCounter(String name, long delta) {
+            // Discard
+        }
+        
+        @Override
+        public void setGauge(String name, double value) {
+            // Discard
+        }
+        
+        @Override
+        public void recordValue(String name, long value) {
+            // Discard
+        }
+        
+        @Override
+        public String toJson() {
+            return "{}";
+        }
+    };
+    
+    /**
+     * Adds to a monotonically increasing counter.
+     * 
+     * @param name the counter name
+     * @param delta the amount to add
+     */
+    void incrementCounter(String name, long delta);
+    
+    /**
+     * Sets a gauge to its latest value.
+     * 
+     * @param name the gauge name
+     * @param value the current value
+     */
+    void setGauge(String name, double value);
+    
+    /**
+     * Records one sample in a histogram, typically a latency in nanoseconds.
+     * 
+     * @param name the histogram name
+     * @param value the non-negative sample
+     */
+    void recordValue(String name, long value);
+    
+    /**
+     * Exports a snapshot of every metric as a JSON document.
+     * 
+     * @return the JSON snapshot
+     */
+    String toJson();
+}
@@ -0,0 +1,225 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ETL run in which extract, transform and load each run on their own thread,
+ * so reading, transforming and writing overlap.
+ * 
+ * The stages pass columnar {@link ProductBatch}es through bounded
+ * {@link SpscRingBuffer}s. A fixed set of batches circulates from the reader
+ * to the transformer to the writer and back to the reader, so no batches are
+ * allocated while the pipeline runs and a slow stage holds back the stages
+ * in front of it once every batch is waiting on it. The end-to-end time
+ * approaches that of the slowest stage rather than the sum of all three.
+ * 
+ * The output is identical to {@link ETLPipeline#processProductsColumnar}.
+ * If any stage fails, the others are stopped and its exception is rethrown.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class PipelinedETL {
+    
+    /** Default number of batches circulating between the stages */
+    public static final int DEFAULT_BATCHES_IN_FLIGHT = 4;
+    
+    /** Component responsible for reading CSV files */
+    private final CSVReader csvReader;
+    
+    /** Component responsible for transforming product data */
+    private final DataTransformer dataTransformer;
+    
+    /** Component responsible for writing CSV files */
+    private final CSVWriter csvWriter;
+    
+    /** Number of rows per batch */
+    private final int batchSize;
+    
+    /** Number of batches circulating between the stages */
+    private final int batchesInFlight;
+    
+    /** Registry receiving the time each stage spent waiting on the others */
+    private PipelineMetrics metrics = PipelineMetrics.NOOP;
+    
+    /** Summary recording the written products, or null */
+    private ProductSummary summary;
+    
+    /** First failure of any stage during the current run */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    
+    /**
+     * Constructs a pipelined run with {@link ProductBatch#DEFAULT_CAPACITY} rows
+     * per batch and {@link #DEFAULT_BATCHES_IN_FLIGHT} batches.
+     * 
+     * @param csvReader the CSV reader
+     * @param dataTransformer the transformer
+     * @param csvWriter the CSV writer
+     * @throws IllegalArgumentException if any component is null
+     */
+    public PipelinedETL(CSVReader csvReader, DataTransformer dataTransformer, CSVWriter csvWriter) {
+        this(csvReader, dataTransformer, csvWriter, ProductBatch.DEFAULT_CAPACITY, DEFAULT_BATCHES_IN_FLIGHT);
+    }
+    
+    /**
+     * Constructs a pipelined run with custom batching.
+     * 
+     * @param csvReader the CSV reader
+     * @param dataTransformer the transformer
+     * @param csvWriter the CSV writer
+     * @param batchSize the number of rows per batch
+     * @param batchesInFlight the number of batches circulating between the stages, at least 2
+     * @throws IllegalArgumentException if any component is null, the batch size is not positive
+     *         or fewer than 2 batches are requested
+     */
+    public PipelinedETL(CSVReader csvReader, DataTransformer dataTransformer, CSVWriter csvWriter,
+                        int batchSize, int batchesInFlight) {
+        if (csvReader == null || dataTransformer == null || csvWriter == null) {
+            throw new IllegalArgumentException("Pipeline components cannot be null");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        if (batchesInFlight < 2) {
+            throw new IllegalArgumentException("At least 2 batches must be in flight");
+        }
+        this.csvReader = csvReader;
+        this.dataTransformer = dataTransformer;
+        this.csvWriter = csvWriter;
+        this.batchSize = batchSize;
+        this.batchesInFlight = batchesInFlight;
+    }
+    
+    /**
+     * Sets the metrics registry that receives the time each stage spent waiting on the others.
+     * 
+     * @param metrics the registry to report to
+     * @throws IllegalArgumentException if the registry is null
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics registry cannot be null");
+        }
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Sets the summary that records every product written. It is only
+     * recorded into on the load stage's thread.
+     * 
+     * @param summary the summary, or null to record none
+     */
+    public void setSummary(ProductSummary summary) {
+        this.summary = summary;
+    }
+    
+    /**
+     * Reads, transforms and writes all products with the three stages running concurrently.
+     * The extract and transform stages get their own threads; the load stage runs
+     * on the calling thread.
+     * 
+     * @param inputFilePath path to the source CSV file
+     * @param outputFilePath path where the transformed CSV file will be created
+     * @return the number of products written
+     * @throws IOException if file reading or writing operations fail
+     * @throws IllegalArgumentException if a file path is null or empty
+     */
+    public int run(String inputFilePath, String outputFilePath) throws IOException {
+        failure.set(null);
+        SpscRingBuffer<ProductBatch> free = new SpscRingBuffer<>(batchesInFlight);
+        SpscRingBuffer<ProductBatch> parsed = new SpscRingBuffer<>(batchesInFlight);
+        SpscRingBuffer<ProductBatch> transformed = new SpscRingBuffer<>(batchesInFlight);
+        SpscRingBuffer<?>[] rings = {free, parsed, transformed};
+        for (int i = 0; i < batchesInFlight; i++) {
+            free.offer(new ProductBatch(batchSize));
+        }
+        
+        int[] productCount = {0};
+        Thread extract = new Thread(() -> {
+            try {
+                productCount[0] = csvReader.readBatches(inputFilePath, new ProductBatch(batchSize), batch -> {
+                    // Hand the filled rows on and keep reading into an empty batch's storage
+                    ProductBatch next = free.take();
+                    next.swapContents(batch);
+                    parsed.put(next);
+                });
+                parsed.close();
+            } catch (Throwable e) {
+                fail(e, rings);
+            }
+        }, "etl-extract");
+        
+        Thread transform = new Thread(() -> {
+            try {
+                ProductBatch batch;
+                while ((batch = parsed.take()) != null) {
+                    dataTransformer.transform(batch);
+                    transformed.put(batch);
+                }
+                transformed.close();
+            } catch (Throwable e) {
+                fail(e, rings);
+            }
+        }, "etl-transform");
+        
+        extract.setDaemon(true);
+        transform.setDaemon(true);
+        extract.start();
+        transform.start();
+        
+        try (ProductBatchSink writer = summary == null ? csvWriter.openBatchSink(outputFilePath)
+                                      : summary.summarizingBatchSink(csvWriter.openBatchSink(outputFilePath))) {
+            ProductBatch batch;
+            while ((batch = transformed.take()) != null) {
+                writer.accept(batch);
+                batch.clear();
+                free.put(batch);
+            }
+        } catch (Throwable e) {
+            fail(e, rings);
+        } finally {
+            joinQuietly(extract, rings);
+            joinQuietly(transform, rings);
+        }
+        
+        Throwable error = failure.get();
+        if (error != null) {
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            } else if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            } else if (error instanceof Error) {
+                throw (Error) error;
+            }
+            throw new IOException("Pipeline stage failed: " + error.getMessage(), error);
+        }
+        
+        metrics.incrementCounter("extract.wait_ns", free.getConsumerWaitNanos() + parsed.getProducerWaitNanos());
+        metrics.incrementCounter("transform.wait_ns", parsed.getConsumerWaitNanos() + transformed.getProducerWaitNanos());
+        metrics.incrementCounter("load.wait_ns", transformed.getConsumerWaitNanos() + free.getProducerWaitNanos());
+        return productCount[0];
+    }
+    
+    /**
+     * Records the first failure and stops every stage.
+     */
+    private void fail(Throwable e, SpscRingBuffer<?>[] rings) {
+        // Stages stopped by the abort fail too; only the original cause is kept
+        failure.compareAndSet(null, e);
+        for (SpscRingBuffer<?> ring : rings) {
+            ring.abort();
+        }
+    }
+    
+    /**
+     * Waits for a stage thread to finish, stopping the pipeline if interrupted.
+     */
+    private void joinQuietly(Thread stage, SpscRingBuffer<?>[] rings) {
+        try {
+            stage.join();
+        } catch (InterruptedException e) {
+            fail(e, rings);
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JUnit test class for PipelinedETL.
+ * Checks that running extract, transform and load concurrently writes the
+ * same file as the sequential pipeline for any batching, and that a failure
+ * in any stage reaches the caller with every stage thread stopped.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class PipelinedETLTest {
+    
+    /** Number of rows in the generated input */
+    private static final int ROWS = 20_000;
+    
+    /** Names of the stage threads PipelinedETL starts */
+    private static final List<String> STAGE_THREADS = List.of("etl-extract", "etl-transform");
+    
+    /**
+     * Transformer that fails on a given batch.
+     */
+    private static final class FailingTransformer extends DataTransformer {
+        
+        /** The failure thrown */
+        final IllegalStateException failure = new IllegalStateException("Transform failed");
+        
+        /** Number of batches to transform before failing */
+        private final int batchesBeforeFailure;
+        
+        /** Number of batches seen so far */
+        private final AtomicInteger batches = new AtomicInteger();
+        
+        /**
+         * Constructs a transformer failing after some batches.
+         */
+        FailingTransformer(int batchesBeforeFailure) {
+            this.batchesBeforeFailure = batchesBeforeFailure;
+        }
+        
+        @Override
+        public void transform(ProductBatch batch) {
+            if (batches.getAndIncrement() == batchesBeforeFailure) {
+                throw failure;
+            }
+            super.transform(batch);
+        }
+    }
+    
+    /**
+     * Generates an input file with quoted, boundary and malformed rows.
+     */
+    private static Path generateInput(Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        ProductCsvGenerator generator = new ProductCsvGenerator(11);
+        generator.setMalformedRate(0.01);
+        generator.generate(input.toString(), ROWS);
+        return input;
+    }
+    
+    /**
+     * Gets the stage threads still running.
+     */
+    private static List<String> runningStages() {
+        List<String> running = new ArrayList<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && STAGE_THREADS.contains(thread.getName())) {
+                running.add(thread.getName());
+            }
+        }
+        return running;
+    }
+    
+    /**
+     * Checks whether a throwable or any of its causes is a given one.
+     */
+    private static boolean causedBy(Throwable thrown, Throwable cause) {
+        for (Throwable t = thrown; t != null; t = t.getCause()) {
+            if (t == cause) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Tests that every batching writes exactly the sequential pipeline's
+     * output, including batches of one row and the fewest batches in flight.
+     */
+    @Test
+    @DisplayName("Test pipelined output matches sequential output")
+    public void testMatchesSequential(@TempDir Path tempDir) throws IOException {
+        Path input = generateInput(tempDir);
+        Path expected = tempDir.resolve("sequential.csv");
+        new ETLPipeline().processProducts(input.toString(), expected.toString());
+        
+        int[][] batchings = {{1, 2}, {7, 2}, {100, 3},
+                             {ProductBatch.DEFAULT_CAPACITY, PipelinedETL.DEFAULT_BATCHES_IN_FLIGHT}};
+        for (int[] batching : batchings) {
+            Path output = tempDir.resolve("pipelined.csv");
+            InMemoryPipelineMetrics metrics = new InMemoryPipelineMetrics();
+            PipelinedETL pipelined = new PipelinedETL(new CSVReader(), new DataTransformer(), new CSVWriter(),
+                                                      batching[0], batching[1]);
+            pipelined.setMetrics(metrics);
+            int written = pipelined.run(input.toString(), output.toString());
+            
+            String description = batching[0] + " rows per batch, " + batching[1] + " batches";
+            assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(output), description);
+            assertEquals(Files.readAllLines(expected).size() - 1, written, description);
+            assertTrue(metrics.getCounter("load.wait_ns") >= 0, description);
+            assertEquals(List.of(), runningStages(), description);
+        }
+    }
+    
+    /**
+     * Tests that a transformer failure, while the extract stage is blocked
+     * waiting for free batches, is thrown to the caller of PipelinedETL.run
+     * and of ETLPipeline.processProductsPipelined with no stage left running.
+     */
+    @Test
+    @DisplayName("Test transformer failure")
+    public void testTransformerFailure(@TempDir Path tempDir) throws IOException {
+        Path input = generateInput(tempDir);
+        Path output = tempDir.resolve("pipelined.csv");
+        
+        FailingTransformer transformer = new FailingTransformer(5);
+        PipelinedETL pipelined = new PipelinedETL(new CSVReader(), transformer, new CSVWriter(), 16, 2);
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                                               () -> pipelined.run(input.toString(), output.toString()));
+        assertSame(transformer.failure, e);
+        assertEquals(List.of(), runningStages());
+        
+        FailingTransformer failing = new FailingTransformer(1);
+        ETLPipeline pipeline = new ETLPipeline(new CSVReader(), failing, new CSVWriter());
+        RuntimeException wrapped = assertThrows(RuntimeException.class,
+                                                () -> pipeline.processProductsPipelined(input.toString(),
+                                                                                        output.toString()));
+        assertTrue(causedBy(wrapped, failing.failure), String.valueOf(wrapped));
+        assertEquals(List.of(), runningStages());
+    }
+    
+    /**
+     * Tests that extract and load failures are thrown as IOExceptions with no
+     * stage left running.
+     */
+    @Test
+    @DisplayName("Test extract and load failures")
+    public void testIoFailures(@TempDir Path tempDir) throws IOException {
+        Path input = generateInput(tempDir);
+        ETLPipeline pipeline = new ETLPipeline();
+        
+        assertThrows(IOException.class, () -> pipeline.processProductsPipelined(
+            tempDir.resolve("missing.csv").toString(), tempDir.resolve("out.csv").toString()));
+        assertEquals(List.of(), runningStages());
+        
+        // The output path is a directory, so the load stage cannot open it
+        Path directory = Files.createDirectory(tempDir.resolve("directory"));
+        assertThrows(IOException.class,
+                     () -> pipeline.processProductsPipelined(input.toString(), directory.toString()));
+        assertEquals(List.of(), runningStages());
+    }
+    
+    /**
+     * Tests that invalid components and batching are rejected.
+     */
+    @Test
+    @DisplayName("Test invalid arguments")
+    public void testInvalidArguments() {
+        CSVReader reader = new CSVReader();
+        DataTransformer transformer = new DataTransformer();
+        CSVWriter writer = new CSVWriter();
+        assertThrows(IllegalArgumentException.class, () -> new PipelinedETL(null, transformer, writer));
+        assertThrows(IllegalArgumentException.class, () -> new PipelinedETL(reader, null, writer));
+        assertThrows(IllegalArgumentException.class, () -> new PipelinedETL(reader, transformer, null));
+        assertThrows(IllegalArgumentException.class, () -> new PipelinedETL(reader, transformer, writer, 0, 2));
+        assertThrows(IllegalArgumentException.class, () -> new PipelinedETL(reader, transformer, writer, 16, 1));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new PipelinedETL(reader, transformer, writer).setMetrics(null));
+    }
+}
@@ -0,0 +1,97 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.nio.charset.Charset;
+
+/**
+ * Price range classification assigned by the transformer.
+ * 
+ * Ranges are carried as enum constants (or their one-byte codes in a
+ * {@link ProductBatch}) from the transformer to the writer, which copies
+ * each range's pre-encoded label instead of encoding a String per row.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public enum PriceRange {
+    
+    /** Prices up to $10.00 */
+    LOW("Low"),
+    
+    /** Prices up to $100.00 */
+    MEDIUM("Medium"),
+    
+    /** Prices up to $500.00 */
+    HIGH("High"),
+    
+    /** Prices above $500.00 */
+    PREMIUM("Premium");
+    
+    /** Code used for a product that has not been classified yet */
+    public static final byte UNSET_CODE = 0;
+    
+    /** Constants indexed by code - 1, cached to avoid copying values() */
+    private static final PriceRange[] BY_CODE = values();
+    
+    /** Label written to the output file */
+    private final String label;
+    
+    /** Label encoded with the output charset */
+    private final byte[] bytes;
+    
+    PriceRange(String label) {
+        this.label = label;
+        this.bytes = label.getBytes(Charset.defaultCharset());
+    }
+    
+    /**
+     * Gets the label written to the output file.
+     * 
+     * @return the label, e.g. "Low"
+     */
+    public String label() {
+        return label;
+    }
+    
+    /**
+     * Gets the label encoded with the output charset.
+     * The returned array must not be modified.
+     * 
+     * @return the encoded label
+     */
+    byte[] bytes() {
+        return bytes;
+    }
+    
+    /**
+     * Gets the one-byte code of this range, never {@link #UNSET_CODE}.
+     * 
+     * @return the code
+     */
+    public byte code() {
+        return (byte) (ordinal() + 1);
+    }
+    
+    /**
+     * Gets the range with a code.
+     * 
+     * @param code a code returned by {@link #code()}, or {@link #UNSET_CODE}
+     * @return the range, or null for {@link #UNSET_CODE}
+     */
+    public static PriceRange fromCode(byte code) {
+        return code == UNSET_CODE ? null : BY_CODE[code - 1];
+    }
+    
+    /**
+     * Gets the range with a label.
+     * 
+     * @param label the label, e.g. "Low"
+     * @return the range, or null if no range has that label
+     */
+    public static PriceRange fromLabel(String label) {
+        for (PriceRange range : BY_CODE) {
+            if (range.label.equals(label)) {
+                return range;
+            }
+        }
+        return null;
+    }
+}
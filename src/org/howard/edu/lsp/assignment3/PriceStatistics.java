@@ -0,0 +1,123 @@
+package org.howard.edu.lsp.assignment3;
+
+/**
+ * Count, sum, extremes and approximate percentiles of the prices of a group of products.
+ * 
+ * Prices carried in whole cents are summed exactly in integer arithmetic, so
+ * the sum does not depend on the order prices were recorded or merged in.
+ * Percentiles come from a {@link QuantileSketch} over cents and are accurate
+ * to about 1.6%.
+ * 
+ * Not thread-safe; each thread records into its own instance, and instances
+ * are combined with {@link #merge}.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public final class PriceStatistics {
+    
+    /** Number of prices recorded */
+    private long count;
+    
+    /** Exact sum of the prices carried in cents */
+    private long centsSum;
+    
+    /** Sum of the prices not carried in cents */
+    private double otherSum;
+    
+    /** Smallest price */
+    private double min = Double.POSITIVE_INFINITY;
+    
+    /** Largest price */
+    private double max = Double.NEGATIVE_INFINITY;
+    
+    /** Distribution of the prices in cents */
+    private final QuantileSketch sketch = new QuantileSketch();
+    
+    /**
+     * Records a price.
+     * 
+     * @param price the price in dollars
+     * @param cents the price in cents, or {@link FixedPointPrice#UNKNOWN} if not carried in cents
+     */
+    void record(double price, long cents) {
+        count++;
+        if (cents != FixedPointPrice.UNKNOWN) {
+            centsSum += cents;
+            sketch.record(cents);
+        } else {
+            otherSum += price;
+            sketch.record(Math.round(price * 100));
+        }
+        min = Math.min(min, price);
+        max = Math.max(max, price);
+    }
+    
+    /**
+     * Adds all prices recorded by another instance into this one.
+     * 
+     * @param other the statistics to merge in
+     */
+    void merge(PriceStatistics other) {
+        count += other.count;
+        centsSum += other.centsSum;
+        otherSum += other.otherSum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sketch.merge(other.sketch);
+    }
+    
+    /**
+     * Gets the number of prices recorded.
+     * 
+     * @return the product count
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * Gets the sum of the prices.
+     * 
+     * @return the sum in dollars
+     */
+    public double getSum() {
+        return centsSum / 100.0 + otherSum;
+    }
+    
+    /**
+     * Gets the smallest price.
+     * 
+     * @return the minimum, or 0 if nothing was recorded
+     */
+    public double getMin() {
+        return count == 0 ? 0.0 : min;
+    }
+    
+    /**
+     * Gets the largest price.
+     * 
+     * @return the maximum, or 0 if nothing was recorded
+     */
+    public double getMax() {
+        return count == 0 ? 0.0 : max;
+    }
+    
+    /**
+     * Gets the mean price.
+     * 
+     * @return the mean, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        return count == 0 ? 0.0 : getSum() / count;
+    }
+    
+    /**
+     * Gets the approximate price at a percentile.
+     * 
+     * @param percentile the percentile between 0 and 100
+     * @return the price in dollars, accurate to about 1.6%, or 0 if nothing was recorded
+     */
+    public double getPercentile(double percentile) {
+        return sketch.getValueAtPercentile(percentile) / 100.0;
+    }
+}
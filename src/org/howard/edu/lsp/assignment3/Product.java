@@ -11,12 +11,21 @@ public class Product {
     /** Price of the product in dollars */
     private double price;
     
-    /** Category classification of the product */
+    /** Price in whole cents, or FixedPointPrice.UNKNOWN if the price is not carried in fixed point */
+    private long priceCents = FixedPointPrice.UNKNOWN;
+    
+    /** Category classification of the product, the dictionary's canonical instance when coded */
     private String category;
     
+    /** Code of the category in the shared CategoryDictionary, or CategoryDictionary.NO_CODE */
+    private int categoryCode = CategoryDictionary.NO_CODE;
+    
     /** Price range classification (Low, Medium, High, Premium) */
     private String priceRange;
     
+    /** Price range matching priceRange, or null if it is not one of the known ranges */
+    private PriceRange range;
+    
     /**
      * Default constructor creating an empty product.
      */
@@ -36,7 +45,7 @@ public class Product {
         this.productId = productId;
         this.name = name;
         this.price = price;
-        this.category = category;
+        setCategory(category);
         this.priceRange = ""; // Will be calculated during transformation
     }
     
@@ -53,8 +62,8 @@ public class Product {
         this.productId = productId;
         this.name = name;
         this.price = price;
-        this.category = category;
-        this.priceRange = priceRange;
+        setCategory(category);
+        setPriceRange(priceRange);
     }
     
     /**
@@ -109,6 +118,40 @@ public class Product {
      */
     public void setPrice(double price) {
         this.price = price;
+        this.priceCents = FixedPointPrice.UNKNOWN;
+    }
+    
+    /**
+     * Checks whether the price is carried as exact whole cents.
+     * 
+     * @return true if {@link #getPriceCents()} is available
+     */
+    public boolean hasPriceCents() {
+        return priceCents != FixedPointPrice.UNKNOWN;
+    }
+    
+    /**
+     * Gets the price in whole cents.
+     * Only meaningful when {@link #hasPriceCents()} returns true.
+     * 
+     * @return the product price in cents
+     */
+    public long getPriceCents() {
+        return priceCents;
+    }
+    
+    /**
+     * Sets the price in whole cents. The dollar price is updated to match.
+     * 
+     * @param priceCents the non-negative product price in cents
+     * @throws IllegalArgumentException if the value is negative or too large to carry exactly
+     */
+    public void setPriceCents(long priceCents) {
+        if (priceCents < 0 || priceCents > FixedPointPrice.MAX_CENTS) {
+            throw new IllegalArgumentException("Price in cents out of range: " + priceCents);
+        }
+        this.price = FixedPointPrice.toDouble(priceCents);
+        this.priceCents = priceCents;
     }
     
     /**
@@ -126,7 +169,28 @@ public class Product {
      * @param category the product category
      */
     public void setCategory(String category) {
-        this.category = category;
+        CategoryDictionary dictionary = CategoryDictionary.shared();
+        this.categoryCode = dictionary.intern(category);
+        this.category = categoryCode != CategoryDictionary.NO_CODE ? dictionary.name(categoryCode) : category;
+    }
+    
+    /**
+     * Gets the code of the product category in the shared {@link CategoryDictionary}.
+     * 
+     * @return the category code, or {@link CategoryDictionary#NO_CODE} if the category has none
+     */
+    public int getCategoryCode() {
+        return categoryCode;
+    }
+    
+    /**
+     * Sets the product category by its dictionary code.
+     * 
+     * @param categoryCode a code from the shared {@link CategoryDictionary}
+     */
+    void setCategoryCode(int categoryCode) {
+        this.category = CategoryDictionary.shared().name(categoryCode);
+        this.categoryCode = categoryCode;
     }
     
     /**
@@ -145,6 +209,30 @@ public class Product {
      */
     public void setPriceRange(String priceRange) {
         this.priceRange = priceRange;
+        this.range = PriceRange.fromLabel(priceRange);
+    }
+    
+    /**
+     * Gets the price range classification as a constant.
+     * 
+     * @return the price range, or null if it is not set to one of the known ranges
+     */
+    public PriceRange getRange() {
+        return range;
+    }
+    
+    /**
+     * Sets the price range classification.
+     * 
+     * @param range the price range
+     * @throws IllegalArgumentException if the range is null
+     */
+    public void setPriceRange(PriceRange range) {
+        if (range == null) {
+            throw new IllegalArgumentException("Price range cannot be null");
+        }
+        this.priceRange = range.label();
+        this.range = range;
     }
     
     /**
@@ -0,0 +1,413 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Columnar batch of products stored as parallel arrays.
+ * 
+ * Each column of the CSV is held in its own array, so a batch of thousands of
+ * rows costs a handful of objects instead of one Product and several Strings
+ * per row, and the transformer can run tight loops over primitive arrays.
+ * ASCII names are stored back to back in a single byte array; other names are
+ * kept as Strings. Categories are stored as codes from the shared
+ * {@link CategoryDictionary} and price ranges as {@link PriceRange} codes.
+ * 
+ * A batch has a fixed row capacity and is meant to be filled, processed and
+ * cleared repeatedly.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public final class ProductBatch {
+    
+    /** Default number of rows per batch */
+    public static final int DEFAULT_CAPACITY = 4096;
+    
+    /** Charset used to decode name bytes, matching the reader and writer */
+    private static final Charset CHARSET = Charset.defaultCharset();
+    
+    /** Average name length the byte arena is initially sized for */
+    private static final int INITIAL_NAME_BYTES_PER_ROW = 24;
+    
+    /** Maximum number of rows */
+    private final int capacity;
+    
+    /** Number of rows currently held */
+    int size;
+    
+    /** Product IDs */
+    String[] productIds;
+    
+    /** ASCII name bytes of all rows, back to back */
+    byte[] nameBytes;
+    
+    /** Number of bytes used in the name arena */
+    int nameBytesUsed;
+    
+    /** Offset of each row's name in the arena */
+    int[] nameStart;
+    
+    /** Length of each row's name in the arena, or -1 if the name is held in nameText */
+    int[] nameLength;
+    
+    /** Names that are not stored in the arena because they are null or not ASCII */
+    String[] nameText;
+    
+    /** Prices in dollars */
+    double[] prices;
+    
+    /** Prices in whole cents, or FixedPointPrice.UNKNOWN where not carried in fixed point */
+    long[] priceCents;
+    
+    /** Category codes from the shared dictionary, or CategoryDictionary.NO_CODE */
+    int[] categoryCodes;
+    
+    /** Categories of rows without a category code */
+    String[] categoryText;
+    
+    /** Price range codes, PriceRange.UNSET_CODE before the transform */
+    byte[] priceRanges;
+    
+    /** Dictionary the category codes refer to */
+    private final CategoryDictionary dictionary = CategoryDictionary.shared();
+    
+    /**
+     * Constructs a batch holding up to {@link #DEFAULT_CAPACITY} rows.
+     */
+    public ProductBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * Constructs a batch with a custom row capacity.
+     * 
+     * @param capacity the maximum number of rows
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public ProductBatch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Batch capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.productIds = new String[capacity];
+        this.nameBytes = new byte[capacity * INITIAL_NAME_BYTES_PER_ROW];
+        this.nameStart = new int[capacity];
+        this.nameLength = new int[capacity];
+        this.nameText = new String[capacity];
+        this.prices = new double[capacity];
+        this.priceCents = new long[capacity];
+        this.categoryCodes = new int[capacity];
+        this.categoryText = new String[capacity];
+        this.priceRanges = new byte[capacity];
+    }
+    
+    /**
+     * Gets the number of rows in the batch.
+     * 
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Gets the maximum number of rows.
+     * 
+     * @return the row capacity
+     */
+    public int capacity() {
+        return capacity;
+    }
+    
+    /**
+     * Checks whether the batch has room for no more rows.
+     * 
+     * @return true if the batch is full
+     */
+    public boolean isFull() {
+        return size == capacity;
+    }
+    
+    /**
+     * Removes all rows.
+     */
+    public void clear() {
+        Arrays.fill(productIds, 0, size, null);
+        Arrays.fill(nameText, 0, size, null);
+        Arrays.fill(categoryText, 0, size, null);
+        size = 0;
+        nameBytesUsed = 0;
+    }
+    
+    /**
+     * Exchanges all rows with another batch of the same capacity without copying them.
+     * Lets a batch filled by one stage be handed to the next while the first
+     * stage carries on with the other batch's now empty storage.
+     * 
+     * @param other the batch to exchange rows with
+     * @throws IllegalArgumentException if the other batch has a different capacity
+     */
+    void swapContents(ProductBatch other) {
+        if (other.capacity != capacity) {
+            throw new IllegalArgumentException("Cannot swap batches of different capacities");
+        }
+        int otherSize = other.size;
+        other.size = size;
+        size = otherSize;
+        
+        byte[] otherNameBytes = other.nameBytes;
+        other.nameBytes = nameBytes;
+        nameBytes = otherNameBytes;
+        
+        int otherNameBytesUsed = other.nameBytesUsed;
+        other.nameBytesUsed = nameBytesUsed;
+        nameBytesUsed = otherNameBytesUsed;
+        
+        String[] otherIds = other.productIds;
+        other.productIds = productIds;
+        productIds = otherIds;
+        
+        int[] otherNameStart = other.nameStart;
+        other.nameStart = nameStart;
+        nameStart = otherNameStart;
+        
+        int[] otherNameLength = other.nameLength;
+        other.nameLength = nameLength;
+        nameLength = otherNameLength;
+        
+        String[] otherNameText = other.nameText;
+        other.nameText = nameText;
+        nameText = otherNameText;
+        
+        double[] otherPrices = other.prices;
+        other.prices = prices;
+        prices = otherPrices;
+        
+        long[] otherCents = other.priceCents;
+        other.priceCents = priceCents;
+        priceCents = otherCents;
+        
+        int[] otherCodes = other.categoryCodes;
+        other.categoryCodes = categoryCodes;
+        categoryCodes = otherCodes;
+        
+        String[] otherCategoryText = other.categoryText;
+        other.categoryText = categoryText;
+        categoryText = otherCategoryText;
+        
+        byte[] otherRanges = other.priceRanges;
+        other.priceRanges = priceRanges;
+        priceRanges = otherRanges;
+    }
+    
+    /**
+     * Appends a product as a new row.
+     * 
+     * @param product the product to append
+     * @throws IllegalArgumentException if the product is null
+     * @throws IllegalStateException if the batch is full
+     */
+    public void add(Product product) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        int row = beginRow(product.getProductId(), product.getPrice(),
+                           product.hasPriceCents() ? product.getPriceCents() : FixedPointPrice.UNKNOWN,
+                           product.getCategoryCode(), product.getCategory());
+        setName(row, product.getName());
+        PriceRange range = product.getRange();
+        priceRanges[row] = range == null ? PriceRange.UNSET_CODE : range.code();
+    }
+    
+    /**
+     * Starts a new row with everything but its name, which the caller sets next.
+     * 
+     * @param productId the product ID
+     * @param price the price in dollars
+     * @param cents the price in cents, or FixedPointPrice.UNKNOWN
+     * @param categoryCode the category code, or CategoryDictionary.NO_CODE
+     * @param category the category, used only if it has no code
+     * @return the index of the new row
+     * @throws IllegalStateException if the batch is full
+     */
+    int beginRow(String productId, double price, long cents, int categoryCode, String category) {
+        if (size == capacity) {
+            throw new IllegalStateException("Product batch is full");
+        }
+        int row = size++;
+        productIds[row] = productId;
+        prices[row] = price;
+        priceCents[row] = cents;
+        categoryCodes[row] = categoryCode;
+        categoryText[row] = categoryCode == CategoryDictionary.NO_CODE ? category : null;
+        priceRanges[row] = PriceRange.UNSET_CODE;
+        nameStart[row] = nameBytesUsed;
+        nameLength[row] = 0;
+        nameText[row] = null;
+        return row;
+    }
+    
+    /**
+     * Reserves space for an ASCII name in the arena and assigns it to a row.
+     * The caller copies the name bytes to the returned offset.
+     * 
+     * @param row the row index
+     * @param length the name length in bytes
+     * @return the arena offset to copy the name to
+     */
+    int reserveName(int row, int length) {
+        if (nameBytesUsed + length > nameBytes.length) {
+            nameBytes = Arrays.copyOf(nameBytes, Math.max(nameBytes.length * 2, nameBytesUsed + length));
+        }
+        int offset = nameBytesUsed;
+        nameStart[row] = offset;
+        nameLength[row] = length;
+        nameText[row] = null;
+        nameBytesUsed += length;
+        return offset;
+    }
+    
+    /**
+     * Sets a row's name, storing ASCII names in the arena.
+     * 
+     * @param row the row index
+     * @param name the name
+     */
+    void setName(int row, String name) {
+        if (name == null || !isAscii(name)) {
+            setNameText(row, name);
+            return;
+        }
+        int offset = reserveName(row, name.length());
+        for (int i = 0; i < name.length(); i++) {
+            nameBytes[offset + i] = (byte) name.charAt(i);
+        }
+    }
+    
+    /**
+     * Sets a row's name as a String outside the arena.
+     * 
+     * @param row the row index
+     * @param name the name
+     */
+    void setNameText(int row, String name) {
+        nameText[row] = name;
+        nameLength[row] = -1;
+    }
+    
+    /**
+     * Gets the product ID of a row.
+     * 
+     * @param row the row index
+     * @return the product ID
+     */
+    public String getProductId(int row) {
+        return productIds[row];
+    }
+    
+    /**
+     * Gets the name of a row.
+     * 
+     * @param row the row index
+     * @return the product name
+     */
+    public String getName(int row) {
+        if (nameLength[row] < 0) {
+            return nameText[row];
+        }
+        return new String(nameBytes, nameStart[row], nameLength[row], CHARSET);
+    }
+    
+    /**
+     * Gets the price of a row in dollars.
+     * 
+     * @param row the row index
+     * @return the price
+     */
+    public double getPrice(int row) {
+        return prices[row];
+    }
+    
+    /**
+     * Checks whether the price of a row is carried as exact whole cents.
+     * 
+     * @param row the row index
+     * @return true if {@link #getPriceCents(int)} is available
+     */
+    public boolean hasPriceCents(int row) {
+        return priceCents[row] != FixedPointPrice.UNKNOWN;
+    }
+    
+    /**
+     * Gets the price of a row in whole cents.
+     * Only meaningful when {@link #hasPriceCents(int)} returns true.
+     * 
+     * @param row the row index
+     * @return the price in cents
+     */
+    public long getPriceCents(int row) {
+        return priceCents[row];
+    }
+    
+    /**
+     * Gets the category of a row.
+     * 
+     * @param row the row index
+     * @return the category name
+     */
+    public String getCategory(int row) {
+        int code = categoryCodes[row];
+        return code == CategoryDictionary.NO_CODE ? categoryText[row] : dictionary.name(code);
+    }
+    
+    /**
+     * Gets the category code of a row.
+     * 
+     * @param row the row index
+     * @return the code in the shared {@link CategoryDictionary}, or {@link CategoryDictionary#NO_CODE}
+     */
+    public int getCategoryCode(int row) {
+        return categoryCodes[row];
+    }
+    
+    /**
+     * Gets the price range of a row.
+     * 
+     * @param row the row index
+     * @return the price range name, or an empty string if not yet transformed
+     */
+    public String getPriceRange(int row) {
+        PriceRange range = PriceRange.fromCode(priceRanges[row]);
+        return range == null ? "" : range.label();
+    }
+    
+    /**
+     * Copies a row into a new Product.
+     * 
+     * @param row the row index
+     * @return the product
+     */
+    public Product toProduct(int row) {
+        Product product = new Product(getProductId(row), getName(row), prices[row], getCategory(row));
+        PriceRange range = PriceRange.fromCode(priceRanges[row]);
+        if (range != null) {
+            product.setPriceRange(range);
+        }
+        if (hasPriceCents(row)) {
+            product.setPriceCents(priceCents[row]);
+        }
+        return product;
+    }
+    
+    /**
+     * Checks whether every character of a string is ASCII.
+     */
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,34 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives columnar batches of products as they flow through the pipeline.
+ * 
+ * The batch passed to {@link #accept} is reused by the caller once the call
+ * returns, so sinks must finish with it, or copy what they need, before returning.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public interface ProductBatchSink extends Closeable {
+    
+    /**
+     * Accepts a batch of products.
+     * 
+     * @param batch the batch to consume
+     * @throws IOException if the batch cannot be written downstream
+     */
+    void accept(ProductBatch batch) throws IOException;
+    
+    /**
+     * Releases any resources held by this sink.
+     * The default implementation does nothing.
+     * 
+     * @throws IOException if the sink cannot be closed cleanly
+     */
+    @Override
+    default void close() throws IOException {
+        // Nothing to release by default
+    }
+}
@@ -0,0 +1,402 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic product CSV files for scale and load testing.
+ * 
+ * Output is fully determined by the seed and settings, so the same command
+ * always produces the same file. Rows are written straight to the output as
+ * they are generated, so files of any size can be created in constant memory.
+ * 
+ * Prices are drawn from a spread of 0.01 to 2,000.00, with a configurable
+ * share placed right around the price-range boundaries ($10, $100, $500) and
+ * the Premium Electronics threshold before discount. A configurable share of
+ * rows is malformed (missing columns, blank IDs, bad or negative prices) and a
+ * share of names is quoted with embedded commas or quotes.
+ * 
+ * Usage:
+ * java org.howard.edu.lsp.assignment3.ProductCsvGenerator --rows 1000000 --out data/large.csv
+ *      [--seed 42] [--malformed 0.01] [--quoted 0.05] [--boundary 0.2]
+ *      [--categories Electronics=3,Stationery=2,Education=1]
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class ProductCsvGenerator {
+    
+    /** Header row matching the pipeline input format */
+    private static final String CSV_HEADER = "ProductID,Name,Price,Category";
+    
+    /** Prices (in cents) that sit on a classification boundary */
+    private static final long[] BOUNDARY_CENTS = {
+        1_000,   // Low / Medium
+        10_000,  // Medium / High
+        50_000,  // High / Premium and Premium Electronics after discount
+        55_556   // Electronics crossing $500 after the 10% discount
+    };
+    
+    /** Largest distance (in cents) from a boundary for boundary prices */
+    private static final int BOUNDARY_SPREAD_CENTS = 5;
+    
+    /** Largest generated price in cents */
+    private static final long MAX_PRICE_CENTS = 200_000;
+    
+    /** Words used to build product names */
+    private static final String[] NAME_WORDS = {
+        "Book", "Laptop", "Notebook", "Headphones", "Pencil", "Smartphone", "Tablet",
+        "Charger", "Marker", "Monitor", "Keyboard", "Atlas", "Backpack", "Camera"
+    };
+    
+    /** Default category mix */
+    private static final Map<String, Integer> DEFAULT_CATEGORY_WEIGHTS = new LinkedHashMap<>();
+    
+    static {
+        DEFAULT_CATEGORY_WEIGHTS.put("Electronics", 4);
+        DEFAULT_CATEGORY_WEIGHTS.put("Stationery", 3);
+        DEFAULT_CATEGORY_WEIGHTS.put("Education", 2);
+        DEFAULT_CATEGORY_WEIGHTS.put("Home", 1);
+    }
+    
+    /** Seed for the random sequence */
+    private final long seed;
+    
+    /** Category names in selection order */
+    private String[] categories;
+    
+    /** Cumulative category weights matching {@link #categories} */
+    private int[] cumulativeWeights;
+    
+    /** Share of rows that are malformed */
+    private double malformedRate = 0.0;
+    
+    /** Share of names that are quoted */
+    private double quotedRate = 0.0;
+    
+    /** Share of prices placed around classification boundaries */
+    private double boundaryRate = 0.2;
+    
+    /**
+     * Constructs a generator with the default category mix, no malformed rows
+     * and no quoted names.
+     * 
+     * @param seed the seed controlling the generated content
+     */
+    public ProductCsvGenerator(long seed) {
+        this.seed = seed;
+        setCategoryWeights(DEFAULT_CATEGORY_WEIGHTS);
+    }
+    
+    /**
+     * Sets the category mix.
+     * 
+     * @param weights relative weight of each category, in a stable iteration order
+     * @throws IllegalArgumentException if the map is empty or has a non-positive weight
+     */
+    public void setCategoryWeights(Map<String, Integer> weights) {
+        if (weights == null || weights.isEmpty()) {
+            throw new IllegalArgumentException("At least one category is required");
+        }
+        
+        String[] names = new String[weights.size()];
+        int[] cumulative = new int[weights.size()];
+        int total = 0;
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            if (entry.getValue() == null || entry.getValue() <= 0) {
+                throw new IllegalArgumentException("Category weight must be positive: " + entry.getKey());
+            }
+            total += entry.getValue();
+            names[i] = entry.getKey();
+            cumulative[i] = total;
+            i++;
+        }
+        this.categories = names;
+        this.cumulativeWeights = cumulative;
+    }
+    
+    /**
+     * Sets the share of rows that are malformed.
+     * 
+     * @param malformedRate a rate between 0 and 1
+     */
+    public void setMalformedRate(double malformedRate) {
+        this.malformedRate = validateRate(malformedRate, "Malformed rate");
+    }
+    
+    /**
+     * Sets the share of names written as quoted fields with embedded commas or quotes.
+     * 
+     * @param quotedRate a rate between 0 and 1
+     */
+    public void setQuotedRate(double quotedRate) {
+        this.quotedRate = validateRate(quotedRate, "Quoted rate");
+    }
+    
+    /**
+     * Sets the share of prices placed within a few cents of a classification boundary.
+     * 
+     * @param boundaryRate a rate between 0 and 1
+     */
+    public void setBoundaryRate(double boundaryRate) {
+        this.boundaryRate = validateRate(boundaryRate, "Boundary rate");
+    }
+    
+    /**
+     * Generates a CSV file with a header and the given number of data rows.
+     * 
+     * @param filePath the file to create or overwrite
+     * @param rows the number of data rows
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the path is empty or rows is negative
+     */
+    public void generate(String filePath, long rows) throws IOException {
+        if (filePath == null || filePath.trim().isEmpty()) {
+            throw new IllegalArgumentException("File path cannot be null or empty");
+        }
+        
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(Paths.get(filePath)), StandardCharsets.UTF_8), 1 << 16)) {
+            generate(writer, rows);
+        }
+    }
+    
+    /**
+     * Writes a header and the given number of data rows to a writer.
+     * The writer is not closed.
+     * 
+     * @param writer the destination
+     * @param rows the number of data rows
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if rows is negative
+     */
+    public void generate(Writer writer, long rows) throws IOException {
+        if (rows < 0) {
+            throw new IllegalArgumentException("Row count cannot be negative");
+        }
+        
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder line = new StringBuilder(96);
+        
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        for (long id = 1; id <= rows; id++) {
+            line.setLength(0);
+            if (random.nextDouble() < malformedRate) {
+                appendMalformedRow(line, id, random);
+            } else {
+                appendRow(line, id, random);
+            }
+            line.append('\n');
+            writer.append(line);
+        }
+    }
+    
+    /**
+     * Appends a valid row.
+     */
+    private void appendRow(StringBuilder line, long id, SplittableRandom random) {
+        line.append(id).append(',');
+        appendName(line, id, random);
+        line.append(',');
+        appendPrice(line, nextPriceCents(random));
+        line.append(',').append(nextCategory(random));
+    }
+    
+    /**
+     * Appends a row the pipeline should reject.
+     */
+    private void appendMalformedRow(StringBuilder line, long id, SplittableRandom random) {
+        switch (random.nextInt(5)) {
+            case 0:
+                // Missing category column
+                line.append(id).append(',').append(NAME_WORDS[random.nextInt(NAME_WORDS.length)]).append(',');
+                appendPrice(line, nextPriceCents(random));
+                break;
+            case 1:
+                // Blank product ID
+                line.append(" ,").append(NAME_WORDS[random.nextInt(NAME_WORDS.length)]).append(',');
+                appendPrice(line, nextPriceCents(random));
+                line.append(',').append(nextCategory(random));
+                break;
+            case 2:
+                // Unparseable price
+                line.append(id).append(',').append(NAME_WORDS[random.nextInt(NAME_WORDS.length)])
+                    .append(",N/A,").append(nextCategory(random));
+                break;
+            case 3:
+                // Negative price
+                line.append(id).append(',').append(NAME_WORDS[random.nextInt(NAME_WORDS.length)]).append(",-");
+                appendPrice(line, nextPriceCents(random));
+                line.append(',').append(nextCategory(random));
+                break;
+            default:
+                // Blank name
+                line.append(id).append(",,");
+                appendPrice(line, nextPriceCents(random));
+                line.append(',').append(nextCategory(random));
+                break;
+        }
+    }
+    
+    /**
+     * Appends a product name, quoted with an embedded comma or quote for a share of rows.
+     */
+    private void appendName(StringBuilder line, long id, SplittableRandom random) {
+        String word = NAME_WORDS[random.nextInt(NAME_WORDS.length)];
+        if (random.nextDouble() < quotedRate) {
+            if (random.nextBoolean()) {
+                line.append('"').append(word).append(", Model ").append(id % 1000).append('"');
+            } else {
+                line.append('"').append(word).append(" \"\"Pro\"\"\"");
+            }
+        } else {
+            line.append(word).append(' ').append(id % 1000);
+        }
+    }
+    
+    /**
+     * Draws a price in cents, either near a boundary or spread across the full range.
+     */
+    private long nextPriceCents(SplittableRandom random) {
+        if (random.nextDouble() < boundaryRate) {
+            long boundary = BOUNDARY_CENTS[random.nextInt(BOUNDARY_CENTS.length)];
+            return boundary + random.nextInt(-BOUNDARY_SPREAD_CENTS, BOUNDARY_SPREAD_CENTS + 1);
+        }
+        // Log-uniform so cheap and expensive products are both well represented
+        return Math.max(1, Math.round(Math.exp(random.nextDouble() * Math.log(MAX_PRICE_CENTS))));
+    }
+    
+    /**
+     * Draws a category according to the configured weights.
+     */
+    private String nextCategory(SplittableRandom random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return categories[i];
+            }
+        }
+        return categories[categories.length - 1];
+    }
+    
+    /**
+     * Appends a price in cents with two decimal places.
+     */
+    private static void appendPrice(StringBuilder line, long cents) {
+        line.append(cents / 100).append('.');
+        if (cents % 100 < 10) {
+            line.append('0');
+        }
+        line.append(cents % 100);
+    }
+    
+    /**
+     * Validates that a rate lies between 0 and 1.
+     */
+    private static double validateRate(double rate, String name) {
+        if (!(rate >= 0.0 && rate <= 1.0)) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1");
+        }
+        return rate;
+    }
+    
+    /**
+     * Parses a category mix such as "Electronics=3,Stationery=1".
+     */
+    private static Map<String, Integer> parseCategoryWeights(String value) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] pair = part.split("=");
+            if (pair.length != 2 || pair[0].trim().isEmpty()) {
+                throw new IllegalArgumentException("Invalid category weight: " + part);
+            }
+            weights.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+    
+    /**
+     * Command-line entry point.
+     * 
+     * @param args --rows and --out, plus optional --seed, --malformed, --quoted,
+     *             --boundary and --categories settings
+     */
+    public static void main(String[] args) {
+        long rows = -1;
+        String out = null;
+        long seed = 42L;
+        Double malformed = null;
+        Double quoted = null;
+        Double boundary = null;
+        Map<String, Integer> categoryWeights = null;
+        
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--rows":
+                        rows = Long.parseLong(value);
+                        break;
+                    case "--out":
+                        out = value;
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--malformed":
+                        malformed = Double.parseDouble(value);
+                        break;
+                    case "--quoted":
+                        quoted = Double.parseDouble(value);
+                        break;
+                    case "--boundary":
+                        boundary = Double.parseDouble(value);
+                        break;
+                    case "--categories":
+                        categoryWeights = parseCategoryWeights(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (rows < 0 || out == null) {
+                throw new IllegalArgumentException("--rows and --out are required");
+            }
+            
+            ProductCsvGenerator generator = new ProductCsvGenerator(seed);
+            if (categoryWeights != null) {
+                generator.setCategoryWeights(categoryWeights);
+            }
+            if (malformed != null) {
+                generator.setMalformedRate(malformed);
+            }
+            if (quoted != null) {
+                generator.setQuotedRate(quoted);
+            }
+            if (boundary != null) {
+                generator.setBoundaryRate(boundary);
+            }
+            generator.generate(out, rows);
+            System.out.println("Generated " + rows + " rows in " + out);
+            
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Usage: ProductCsvGenerator --rows <count> --out <file> [--seed 42] "
+                    + "[--malformed 0.01] [--quoted 0.05] [--boundary 0.2] [--categories Electronics=3,Stationery=1]");
+        } catch (IOException e) {
+            System.err.println("Generation failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,613 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Keeps one product per ProductID, dropping or replacing repeated rows.
+ * 
+ * With {@link Policy#FIRST_WINS} the first row seen for an ID is kept and
+ * passed on at once. With {@link Policy#LAST_WINS} each later row replaces the
+ * earlier one, like an upsert, so products are passed on when the sink is
+ * closed. Either way a product keeps the position where its ID first
+ * appeared, so both policies produce rows in the same order.
+ * 
+ * Seen IDs are kept in an open-addressing table keyed on a 64-bit hash of the
+ * ID; the ID itself is only compared when the hashes match. Once more
+ * distinct IDs arrive than the memory budget allows, rows that may still be
+ * duplicates are spilled to partition files by hash. Each partition is
+ * deduplicated on its own when the sink is closed, partitioning further if it
+ * is still too large, and the survivors are merged back into input order.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class ProductDeduplicator implements ProductSink {
+    
+    /** Default number of distinct IDs (about 1 million) held in memory before spilling */
+    public static final int DEFAULT_MAX_IDS_IN_MEMORY = 1 << 20;
+    
+    /** Number of hash bits choosing a partition at each spill level */
+    private static final int PARTITION_BITS = 6;
+    
+    /** Number of partition files a spilling stage writes */
+    private static final int PARTITION_COUNT = 1 << PARTITION_BITS;
+    
+    /** Deepest spill level; by then 54 hash bits are shared by more IDs than fit in memory */
+    static final int MAX_LEVEL = 64 / PARTITION_BITS - 1;
+    
+    /**
+     * Which row is kept when a ProductID repeats.
+     */
+    public enum Policy {
+        
+        /** Keep the first row seen for each ProductID */
+        FIRST_WINS,
+        
+        /** Keep the last row seen for each ProductID, at the position of the first */
+        LAST_WINS;
+        
+        /**
+         * Looks up a policy by its command-line name.
+         * 
+         * @param name "first" or "last", case-insensitive
+         * @return the policy
+         * @throws IllegalArgumentException if the name is not a known policy
+         */
+        public static Policy fromName(String name) {
+            if (name != null) {
+                switch (name.trim().toLowerCase(Locale.ROOT)) {
+                    case "first":
+                        return FIRST_WINS;
+                    case "last":
+                        return LAST_WINS;
+                    default:
+                        break;
+                }
+            }
+            throw new IllegalArgumentException("Unknown duplicate policy: " + name + " (expected first or last)");
+        }
+    }
+    
+    /** Sink receiving the deduplicated products */
+    private final ProductSink downstream;
+    
+    /** Which row is kept when a ProductID repeats */
+    private final Policy policy;
+    
+    /** Number of distinct IDs each stage holds in memory before spilling */
+    private final int maxIdsInMemory;
+    
+    /** Deepest level a stage may spill at before giving up */
+    private final int maxLevel;
+    
+    /** Partition and survivor files of all stages */
+    private final SpillFiles spillFiles;
+    
+    /** Stage receiving the input rows */
+    private final Stage root;
+    
+    /** Registry receiving duplicate and spill counts */
+    private PipelineMetrics metrics = PipelineMetrics.NOOP;
+    
+    /** Number of products accepted */
+    private long inputCount;
+    
+    /** Number of products passed downstream */
+    private long outputCount;
+    
+    /** Number of rows written to spill files, counted once per level */
+    private long spilledRows;
+    
+    /** Whether the sink has been closed */
+    private boolean closed;
+    
+    /**
+     * Constructs a deduplicator holding up to {@link #DEFAULT_MAX_IDS_IN_MEMORY}
+     * IDs in memory and spilling to the system temporary directory.
+     * 
+     * @param downstream the sink receiving the deduplicated products
+     * @param policy which row is kept when a ProductID repeats
+     * @throws IllegalArgumentException if the sink or policy is null
+     */
+    public ProductDeduplicator(ProductSink downstream, Policy policy) {
+        this(downstream, policy, DEFAULT_MAX_IDS_IN_MEMORY, null);
+    }
+    
+    /**
+     * Constructs a deduplicator with a custom memory budget.
+     * 
+     * @param downstream the sink receiving the deduplicated products
+     * @param policy which row is kept when a ProductID repeats
+     * @param maxIdsInMemory the number of distinct IDs held in memory before spilling
+     * @param spillDirectory the directory under which spill files are created, or null
+     *        for the system temporary directory
+     * @throws IllegalArgumentException if the sink or policy is null or the budget is not positive
+     */
+    public ProductDeduplicator(ProductSink downstream, Policy policy, int maxIdsInMemory, Path spillDirectory) {
+        this(downstream, policy, maxIdsInMemory, spillDirectory, MAX_LEVEL);
+    }
+    
+    /**
+     * Constructs a deduplicator that gives up spilling at a shallower level,
+     * so tests can reach the deepest level without colliding hashes.
+     * 
+     * @param downstream the sink receiving the deduplicated products
+     * @param policy which row is kept when a ProductID repeats
+     * @param maxIdsInMemory the number of distinct IDs held in memory before spilling
+     * @param spillDirectory the directory under which spill files are created, or null
+     *        for the system temporary directory
+     * @param maxLevel the deepest spill level, from 0 to {@link #MAX_LEVEL}
+     * @throws IllegalArgumentException if the sink or policy is null, the budget is not
+     *         positive or the level is out of range
+     */
+    ProductDeduplicator(ProductSink downstream, Policy policy, int maxIdsInMemory, Path spillDirectory,
+                        int maxLevel) {
+        if (downstream == null || policy == null) {
+            throw new IllegalArgumentException("Downstream sink and policy cannot be null");
+        }
+        if (maxIdsInMemory <= 0) {
+            throw new IllegalArgumentException("Maximum IDs in memory must be positive");
+        }
+        if (maxLevel < 0 || maxLevel > MAX_LEVEL) {
+            throw new IllegalArgumentException("Maximum spill level must be between 0 and " + MAX_LEVEL);
+        }
+        this.downstream = downstream;
+        this.policy = policy;
+        this.maxIdsInMemory = maxIdsInMemory;
+        this.maxLevel = maxLevel;
+        this.spillFiles = new SpillFiles(spillDirectory, "dedup-");
+        this.root = new Stage(0, (seq, product) -> {
+            downstream.accept(product);
+            outputCount++;
+        });
+    }
+    
+    /**
+     * Sets the metrics registry that receives duplicate and spill counts.
+     * 
+     * @param metrics the registry to report to
+     * @throws IllegalArgumentException if the registry is null
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics registry cannot be null");
+        }
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Accepts a product, keeping or dropping it according to the policy.
+     * 
+     * @param product the product; null is ignored
+     * @throws IOException if a spill file cannot be written
+     * @throws IllegalArgumentException if the product has no ID
+     * @throws IllegalStateException if the sink has been closed
+     */
+    @Override
+    public void accept(Product product) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Deduplicator has been closed");
+        }
+        if (product == null) {
+            return;
+        }
+        if (product.getProductId() == null) {
+            throw new IllegalArgumentException("Product ID cannot be null");
+        }
+        root.accept(inputCount++, product);
+    }
+    
+    /**
+     * Passes on the products still held back, deletes the spill files and
+     * closes the downstream sink.
+     * 
+     * @throws IOException if a spill file cannot be read or the downstream sink fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            try {
+                root.finish();
+            } finally {
+                spillFiles.close();
+            }
+            metrics.incrementCounter("dedup.duplicates", getDuplicateCount());
+            metrics.incrementCounter("dedup.spilled_rows", spilledRows);
+        } finally {
+            downstream.close();
+        }
+    }
+    
+    /**
+     * Gets the number of repeated rows dropped. Complete once the sink is closed.
+     * 
+     * @return the duplicate row count
+     */
+    public long getDuplicateCount() {
+        return inputCount - outputCount;
+    }
+    
+    /**
+     * Gets the number of rows written to spill files, counting a row once for
+     * every level it was spilled at.
+     * 
+     * @return the spilled row count
+     */
+    public long getSpilledRowCount() {
+        return spilledRows;
+    }
+    
+    /**
+     * Gets the number of products passed downstream (for testing purposes).
+     * 
+     * @return the output product count
+     */
+    protected long getOutputCount() {
+        return outputCount;
+    }
+    
+    /**
+     * Deduplicates the rows of one partition of the ID hash space: the whole
+     * input at level 0, or one spill file of the level above.
+     */
+    private final class Stage {
+        
+        /** Spill level, selecting which hash bits choose a partition */
+        private final int level;
+        
+        /** Receiver of the products this stage keeps */
+        private final SpillFiles.RowSink output;
+        
+        /** IDs held in memory; null once a last-wins stage has spilled them */
+        private IdTable table = new IdTable(policy == Policy.LAST_WINS);
+        
+        /** Writers of the partition files, or null until the stage spills */
+        private DataOutputStream[] partitions;
+        
+        /** Paths of the partition files */
+        private Path[] partitionFiles;
+        
+        /** Number of rows written to each partition file */
+        private long[] partitionRows;
+        
+        /**
+         * Constructs a stage.
+         * 
+         * @param level the spill level
+         * @param output the receiver of the products this stage keeps
+         */
+        Stage(int level, SpillFiles.RowSink output) {
+            this.level = level;
+            this.output = output;
+        }
+        
+        /**
+         * Accepts a row, keeping, replacing, dropping or spilling it.
+         * 
+         * @param seq the position of the row in the input
+         * @param product the product
+         * @throws IOException if a spill file cannot be written
+         */
+        void accept(long seq, Product product) throws IOException {
+            String id = product.getProductId();
+            long hash = hash(id);
+            if (table != null) {
+                int entry = table.find(id, hash);
+                if (entry >= 0) {
+                    if (policy == Policy.LAST_WINS) {
+                        table.products[entry] = product;
+                    }
+                    return;
+                }
+                if (partitions == null) {
+                    if (table.size < maxIdsInMemory) {
+                        entry = table.add(id, hash);
+                        if (policy == Policy.FIRST_WINS) {
+                            output.accept(seq, product);
+                        } else {
+                            table.products[entry] = product;
+                            table.firstSeqs[entry] = seq;
+                        }
+                        return;
+                    }
+                    spill();
+                }
+            }
+            
+            // A first-wins stage keeps its table, so rows reaching here have a new ID
+            writePartition(hash, seq, product);
+        }
+        
+        /**
+         * Starts writing rows with new IDs to partition files. A last-wins
+         * stage moves the rows it holds there too, so that later rows can
+         * still replace them.
+         */
+        private void spill() throws IOException {
+            if (level == maxLevel) {
+                throw new IOException("Cannot deduplicate more than " + maxIdsInMemory
+                                      + " product IDs sharing a hash prefix; raise the memory budget");
+            }
+            partitions = new DataOutputStream[PARTITION_COUNT];
+            partitionFiles = new Path[PARTITION_COUNT];
+            partitionRows = new long[PARTITION_COUNT];
+            if (policy == Policy.LAST_WINS) {
+                IdTable held = table;
+                table = null;
+                for (int entry = 0; entry < held.size; entry++) {
+                    writePartition(held.hashes[entry], held.firstSeqs[entry], held.products[entry]);
+                }
+            }
+        }
+        
+        private void writePartition(long hash, long seq, Product product) throws IOException {
+            int p = (int) (hash >>> (64 - PARTITION_BITS * (level + 1))) & (PARTITION_COUNT - 1);
+            if (partitions[p] == null) {
+                // Files are opened on first use, since a small spilling stage fills few partitions
+                partitionFiles[p] = spillFiles.create();
+                partitions[p] = SpillFiles.openWriter(partitionFiles[p]);
+            }
+            SpillFiles.writeRow(partitions[p], partitionFiles[p], seq, product);
+            partitionRows[p]++;
+            spilledRows++;
+        }
+        
+        /**
+         * Passes on the products still held back: held rows of a last-wins
+         * stage in input order, then the survivors of every partition.
+         * 
+         * @throws IOException if a spill file cannot be read or written
+         */
+        void finish() throws IOException {
+            if (partitions == null) {
+                if (policy == Policy.LAST_WINS) {
+                    for (int entry = 0; entry < table.size; entry++) {
+                        output.accept(table.firstSeqs[entry], table.products[entry]);
+                    }
+                }
+                table = null;
+                return;
+            }
+            
+            // Free the table before the partitions are loaded one by one
+            table = null;
+            for (int p = 0; p < PARTITION_COUNT; p++) {
+                if (partitions[p] != null) {
+                    SpillFiles.closeWriter(partitions[p], partitionFiles[p]);
+                }
+            }
+            
+            Path[] survivorFiles = new Path[PARTITION_COUNT];
+            long[] survivorRows = new long[PARTITION_COUNT];
+            int survivorCount = 0;
+            for (int p = 0; p < PARTITION_COUNT; p++) {
+                if (partitions[p] == null) {
+                    continue;
+                }
+                survivorFiles[survivorCount] = spillFiles.create();
+                survivorRows[survivorCount] = deduplicatePartition(partitionFiles[p], partitionRows[p],
+                                                                   survivorFiles[survivorCount]);
+                survivorCount++;
+                Files.deleteIfExists(partitionFiles[p]);
+            }
+            survivorFiles = Arrays.copyOf(survivorFiles, survivorCount);
+            merge(survivorFiles, Arrays.copyOf(survivorRows, survivorCount), output);
+            for (Path file : survivorFiles) {
+                Files.deleteIfExists(file);
+            }
+        }
+        
+        /**
+         * Deduplicates one partition file with a stage one level down.
+         * 
+         * @return the number of rows written to the survivor file
+         */
+        private long deduplicatePartition(Path partitionFile, long rows, Path survivorFile) throws IOException {
+            long[] written = new long[1];
+            DataOutputStream survivors = SpillFiles.openWriter(survivorFile);
+            try {
+                Stage child = new Stage(level + 1, (seq, product) -> {
+                    SpillFiles.writeRow(survivors, survivorFile, seq, product);
+                    written[0]++;
+                });
+                try (DataInputStream in = SpillFiles.openReader(partitionFile)) {
+                    for (long row = 0; row < rows; row++) {
+                        long seq = SpillFiles.readSeq(in, partitionFile);
+                        child.accept(seq, SpillFiles.readProduct(in, partitionFile));
+                    }
+                }
+                child.finish();
+            } finally {
+                SpillFiles.closeWriter(survivors, survivorFile);
+            }
+            return written[0];
+        }
+    }
+    
+    /**
+     * Merges survivor files, each in input order, into one stream in input
+     * order using a binary heap of file indexes keyed on each file's next position.
+     */
+    private static void merge(Path[] files, long[] rows, SpillFiles.RowSink output) throws IOException {
+        int count = files.length;
+        DataInputStream[] inputs = new DataInputStream[count];
+        long[] remaining = rows.clone();
+        long[] headSeqs = new long[count];
+        Product[] heads = new Product[count];
+        int[] heap = new int[count];
+        int heapSize = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                inputs[i] = SpillFiles.openReader(files[i]);
+                if (remaining[i] > 0) {
+                    remaining[i]--;
+                    headSeqs[i] = SpillFiles.readSeq(inputs[i], files[i]);
+                    heads[i] = SpillFiles.readProduct(inputs[i], files[i]);
+                    heap[heapSize++] = i;
+                }
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(heap, heapSize, i, headSeqs);
+            }
+            
+            while (heapSize > 0) {
+                int top = heap[0];
+                output.accept(headSeqs[top], heads[top]);
+                if (remaining[top] > 0) {
+                    remaining[top]--;
+                    headSeqs[top] = SpillFiles.readSeq(inputs[top], files[top]);
+                    heads[top] = SpillFiles.readProduct(inputs[top], files[top]);
+                } else {
+                    heads[top] = null;
+                    heap[0] = heap[--heapSize];
+                }
+                siftDown(heap, heapSize, 0, headSeqs);
+            }
+        } finally {
+            for (DataInputStream in : inputs) {
+                if (in != null) {
+                    in.close();
+                }
+            }
+        }
+    }
+    
+    private static void siftDown(int[] heap, int size, int i, long[] keys) {
+        int item = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                child++;
+            }
+            if (keys[heap[child]] >= keys[item]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+    
+    /**
+     * Hashes a ProductID to 64 bits: FNV-1a over the characters, then the
+     * MurmurHash3 finalizer so both the low bits (table slots) and the high
+     * bits (partitions) are well mixed. {@link ProductIndex} files are keyed
+     * on the same hash, so changing it needs a new index version.
+     */
+    static long hash(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h = (h ^ id.charAt(i)) * 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+    
+    /**
+     * Open-addressing table of IDs keyed on their 64-bit hash, with linear
+     * probing. Entries are numbered in insertion order and kept in parallel
+     * arrays; slots hold entry + 1 so that 0 marks an empty slot.
+     */
+    private static final class IdTable {
+        
+        /** Number of entries the arrays start with */
+        private static final int INITIAL_CAPACITY = 1024;
+        
+        /** Hash of each entry's ID */
+        long[] hashes = new long[INITIAL_CAPACITY];
+        
+        /** ID of each entry, compared when hashes match */
+        String[] ids = new String[INITIAL_CAPACITY];
+        
+        /** Product held for each entry, or null if the table only tracks IDs */
+        Product[] products;
+        
+        /** Position in the input where each entry's ID first appeared, or null if not tracked */
+        long[] firstSeqs;
+        
+        /** Entry + 1 by hash slot, kept at most half full */
+        int[] slots = new int[INITIAL_CAPACITY * 2];
+        
+        /** Number of entries */
+        int size;
+        
+        /**
+         * Constructs an empty table.
+         * 
+         * @param holdProducts whether to hold a product and first position per entry
+         */
+        IdTable(boolean holdProducts) {
+            if (holdProducts) {
+                products = new Product[INITIAL_CAPACITY];
+                firstSeqs = new long[INITIAL_CAPACITY];
+            }
+        }
+        
+        /**
+         * Finds the entry for an ID.
+         * 
+         * @return the entry, or -1 if the ID is not in the table
+         */
+        int find(String id, long hash) {
+            int mask = slots.length - 1;
+            for (int slot = (int) hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                int entry = slots[slot] - 1;
+                if (hashes[entry] == hash && ids[entry].equals(id)) {
+                    return entry;
+                }
+            }
+            return -1;
+        }
+        
+        /**
+         * Adds an ID that is not in the table.
+         * 
+         * @return the new entry
+         */
+        int add(String id, long hash) {
+            if (size == hashes.length) {
+                grow();
+            }
+            hashes[size] = hash;
+            ids[size] = id;
+            insert(size);
+            return size++;
+        }
+        
+        private void insert(int entry) {
+            int mask = slots.length - 1;
+            int slot = (int) hashes[entry] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry + 1;
+        }
+        
+        private void grow() {
+            int capacity = hashes.length * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            if (products != null) {
+                products = Arrays.copyOf(products, capacity);
+                firstSeqs = Arrays.copyOf(firstSeqs, capacity);
+            }
+            slots = new int[capacity * 2];
+            for (int entry = 0; entry < size; entry++) {
+                insert(entry);
+            }
+        }
+    }
+}
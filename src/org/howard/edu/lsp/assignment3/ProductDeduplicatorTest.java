@@ -0,0 +1,250 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JUnit test class for ProductDeduplicator.
+ * Checks that spilling to partition files, recursing into deeper levels and
+ * merging the survivors back into input order keep exactly the rows an
+ * in-memory LinkedHashMap keeps, under both duplicate policies.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class ProductDeduplicatorTest {
+    
+    /** Memory budget small enough to spill at several levels */
+    private static final int SMALL_BUDGET = 4;
+    
+    /** Number of hash bits choosing a partition at each spill level, as in ProductDeduplicator */
+    private static final int PARTITION_BITS = 6;
+    
+    /**
+     * Deduplicates in memory: each ID keeps the position of its first row and
+     * the fields of its first or last row.
+     */
+    private static List<String> reference(List<Product> products, ProductDeduplicator.Policy policy) {
+        Map<String, Product> kept = new LinkedHashMap<>();
+        for (Product product : products) {
+            if (policy == ProductDeduplicator.Policy.FIRST_WINS) {
+                kept.putIfAbsent(product.getProductId(), product);
+            } else {
+                // Replacing the value of a key keeps its position in a LinkedHashMap
+                kept.put(product.getProductId(), product);
+            }
+        }
+        return TestProducts.describe(new ArrayList<>(kept.values()));
+    }
+    
+    /**
+     * Collects the products passed downstream and whether the sink was closed.
+     */
+    private static final class CollectingSink implements ProductSink {
+        
+        /** Described products in the order received */
+        private final List<String> products = new ArrayList<>();
+        
+        /** Whether close was called */
+        private boolean closed;
+        
+        @Override
+        public void accept(Product product) {
+            products.add(TestProducts.describe(product));
+        }
+        
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+    
+    /**
+     * Gets the level of the deepest stage: a stage at level L receives the IDs
+     * sharing their top 6 * L hash bits and spills to a stage one level down
+     * once more than the budget of them arrive.
+     */
+    private static int deepestLevel(List<Product> products, int maxIds) {
+        Set<String> ids = new HashSet<>();
+        for (Product product : products) {
+            ids.add(product.getProductId());
+        }
+        int deepest = 0;
+        for (int level = 0; PARTITION_BITS * level < 64; level++) {
+            Map<Long, Integer> groups = new HashMap<>();
+            for (String id : ids) {
+                long prefix = level == 0 ? 0 : ProductDeduplicator.hash(id) >>> (64 - PARTITION_BITS * level);
+                groups.merge(prefix, 1, Integer::sum);
+            }
+            if (groups.values().stream().noneMatch(size -> size > maxIds)) {
+                break;
+            }
+            deepest = level + 1;
+        }
+        return deepest;
+    }
+    
+    /**
+     * Runs products through a deduplicator and checks it against the in-memory
+     * reference, returning the deduplicator for further checks.
+     */
+    private static ProductDeduplicator assertMatchesReference(List<Product> products, ProductDeduplicator.Policy policy,
+                                                              int maxIds, Path spillDirectory) throws IOException {
+        CollectingSink sink = new CollectingSink();
+        ProductDeduplicator deduplicator = new ProductDeduplicator(sink, policy, maxIds, spillDirectory);
+        for (Product product : products) {
+            deduplicator.accept(product);
+        }
+        deduplicator.close();
+        
+        List<String> expected = reference(products, policy);
+        assertEquals(expected, sink.products, policy + " with " + maxIds + " IDs in memory");
+        assertEquals(products.size() - expected.size(), deduplicator.getDuplicateCount());
+        assertTrue(sink.closed, "Downstream sink should be closed");
+        return deduplicator;
+    }
+    
+    /**
+     * Tests both policies when every ID fits in memory.
+     */
+    @Test
+    @DisplayName("Test in-memory deduplication")
+    public void testInMemory(@TempDir Path tempDir) throws IOException {
+        List<Product> products = TestProducts.products(5000, 800, 1);
+        for (ProductDeduplicator.Policy policy : ProductDeduplicator.Policy.values()) {
+            ProductDeduplicator deduplicator = assertMatchesReference(products, policy, 1000, tempDir);
+            assertEquals(0, deduplicator.getSpilledRowCount());
+        }
+    }
+    
+    /**
+     * Tests both policies with a budget of a few IDs, so rows are spilled to
+     * partition files, partitions recurse several levels deep and survivors
+     * are merged back into input order.
+     */
+    @Test
+    @DisplayName("Test spilling deduplication")
+    public void testSpilling(@TempDir Path tempDir) throws IOException {
+        List<Product> products = TestProducts.products(20_000, 3000, 2);
+        assertTrue(deepestLevel(products, SMALL_BUDGET) >= 2,
+                   "Expected recursion, deepest level " + deepestLevel(products, SMALL_BUDGET));
+        
+        for (ProductDeduplicator.Policy policy : ProductDeduplicator.Policy.values()) {
+            InMemoryPipelineMetrics metrics = new InMemoryPipelineMetrics();
+            CollectingSink sink = new CollectingSink();
+            ProductDeduplicator deduplicator = assertMatchesReference(products, policy, SMALL_BUDGET, tempDir);
+            assertTrue(deduplicator.getSpilledRowCount() > products.size(),
+                       "Rows should be spilled at more than one level, spilled " + deduplicator.getSpilledRowCount());
+            assertEquals(List.of(), TestProducts.leftovers(tempDir), "Spill files should be deleted on close");
+            
+            ProductDeduplicator counted = new ProductDeduplicator(sink, policy, SMALL_BUDGET, tempDir);
+            counted.setMetrics(metrics);
+            for (Product product : products) {
+                counted.accept(product);
+            }
+            counted.close();
+            assertEquals(deduplicator.getDuplicateCount(), metrics.getCounter("dedup.duplicates"));
+            assertEquals(deduplicator.getSpilledRowCount(), metrics.getCounter("dedup.spilled_rows"));
+        }
+    }
+    
+    /**
+     * Tests a budget of a single ID, the deepest recursion the input allows.
+     */
+    @Test
+    @DisplayName("Test single ID budget")
+    public void testSingleIdBudget(@TempDir Path tempDir) throws IOException {
+        List<Product> products = TestProducts.products(3000, 1000, 3);
+        for (ProductDeduplicator.Policy policy : ProductDeduplicator.Policy.values()) {
+            assertMatchesReference(products, policy, 1, tempDir);
+            assertEquals(List.of(), TestProducts.leftovers(tempDir), "Spill files should be deleted on close");
+        }
+    }
+    
+    /**
+     * Tests that recursion goes exactly as deep as the hashes require: limiting
+     * the deepest level to the one the input needs succeeds, and one level less
+     * fails with the memory budget error and still deletes the spill files.
+     */
+    @Test
+    @DisplayName("Test maximum spill level")
+    public void testMaxLevel(@TempDir Path tempDir) throws IOException {
+        List<Product> products = TestProducts.products(20_000, 3000, 4);
+        int deepest = deepestLevel(products, SMALL_BUDGET);
+        assertTrue(deepest >= 2 && deepest < ProductDeduplicator.MAX_LEVEL, "Deepest level " + deepest);
+        
+        for (ProductDeduplicator.Policy policy : ProductDeduplicator.Policy.values()) {
+            CollectingSink sink = new CollectingSink();
+            try (ProductDeduplicator deduplicator = new ProductDeduplicator(sink, policy, SMALL_BUDGET, tempDir,
+                                                                           deepest)) {
+                for (Product product : products) {
+                    deduplicator.accept(product);
+                }
+            }
+            assertEquals(reference(products, policy), sink.products, policy + " limited to level " + deepest);
+            
+            IOException e = assertThrows(IOException.class, () -> {
+                try (ProductDeduplicator deduplicator = new ProductDeduplicator(new CollectingSink(), policy,
+                                                                               SMALL_BUDGET, tempDir, deepest - 1)) {
+                    for (Product product : products) {
+                        deduplicator.accept(product);
+                    }
+                }
+            }, policy + " limited to level " + (deepest - 1));
+            assertTrue(e.getMessage().contains("Cannot deduplicate more than 4 product IDs sharing a hash prefix"),
+                       e.getMessage());
+            assertEquals(List.of(), TestProducts.leftovers(tempDir), "Spill files should be deleted after a failure");
+        }
+    }
+    
+    /**
+     * Tests that invalid budgets and levels are rejected, by the pipeline
+     * as IllegalArgumentException before the output file is created.
+     */
+    @Test
+    @DisplayName("Test invalid arguments")
+    public void testInvalidArguments(@TempDir Path tempDir) throws IOException {
+        ProductSink sink = product -> { };
+        ProductDeduplicator.Policy policy = ProductDeduplicator.Policy.FIRST_WINS;
+        assertThrows(IllegalArgumentException.class, () -> new ProductDeduplicator(sink, policy, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> new ProductDeduplicator(null, policy, 4, null));
+        assertThrows(IllegalArgumentException.class, () -> new ProductDeduplicator(sink, policy, 4, null, -1));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new ProductDeduplicator(sink, policy, 4, null, ProductDeduplicator.MAX_LEVEL + 1));
+        
+        Path input = Files.write(tempDir.resolve("products.csv"), List.of("ProductID,Name,Price,Category"));
+        String output = tempDir.resolve("output.csv").toString();
+        ETLPipeline pipeline = new ETLPipeline();
+        assertThrows(IllegalArgumentException.class,
+                     () -> pipeline.processProductsDeduplicated(input.toString(), output, null, 4));
+        assertThrows(IllegalArgumentException.class,
+                     () -> pipeline.processProductsDeduplicated(input.toString(), output, policy, 0));
+        assertEquals(List.of(input), TestProducts.leftovers(tempDir));
+    }
+    
+    /**
+     * Tests that rows are refused once the sink is closed.
+     */
+    @Test
+    @DisplayName("Test accept after close")
+    public void testAcceptAfterClose(@TempDir Path tempDir) throws IOException {
+        ProductDeduplicator deduplicator = new ProductDeduplicator(product -> { }, ProductDeduplicator.Policy.LAST_WINS,
+                                                                   SMALL_BUDGET, tempDir);
+        deduplicator.accept(new Product("1", "Item", 1.0, "Books"));
+        deduplicator.close();
+        assertThrows(IllegalStateException.class,
+                     () -> deduplicator.accept(new Product("2", "Item", 1.0, "Books")));
+    }
+}
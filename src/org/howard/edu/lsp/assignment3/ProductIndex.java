@@ -0,0 +1,805 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up rows of a transformed CSV file by ProductID through a sorted
+ * index file written next to it.
+ * 
+ * The index is written by {@link CSVWriter} when indexing is enabled, and
+ * named after the CSV file with {@link #INDEX_SUFFIX} appended. It holds a
+ * short header followed by one 16-byte entry per row: the 64-bit hash of the
+ * ProductID and the byte offset of the row, sorted by hash and then by
+ * offset. The entries are memory-mapped, so a lookup is a binary search over
+ * the mapped pages followed by a single positional read of the row; the CSV
+ * file is never loaded. Hash collisions are resolved by comparing the ID of
+ * each candidate row, and when an ID repeats, the first row in the file wins.
+ * 
+ * The header records the size and modification time of the CSV file, to the
+ * nanosecond, so an index left over from an earlier run is rejected instead
+ * of missing rows. Lookups only read shared state, so one instance can serve
+ * several threads.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public final class ProductIndex implements Closeable {
+    
+    /** Suffix appended to a CSV file name to name its index */
+    public static final String INDEX_SUFFIX = ".idx";
+    
+    /** Magic number at the start of an index file ("PIDX") */
+    static final int MAGIC = 0x50494458;
+    
+    /** Version of the index file layout; version 1 recorded the modification time in milliseconds */
+    static final int VERSION = 2;
+    
+    /** Size of the header: magic, version, entry count, CSV file size and modification time in nanoseconds */
+    static final int HEADER_BYTES = 32;
+    
+    /** Size of an entry: ID hash and row offset */
+    static final int ENTRY_BYTES = 16;
+    
+    /** Number of entries mapped by each segment of a large index (1 GB) */
+    static final long DEFAULT_ENTRIES_PER_SEGMENT = 1L << 26;
+    
+    /** Number of bytes read at first when reading a row */
+    private static final int INITIAL_ROW_BYTES = 256;
+    
+    /** Number of columns of a transformed row */
+    private static final int ROW_COLUMNS = 5;
+    
+    /** Charset the writer encodes rows with */
+    private static final Charset CHARSET = Charset.defaultCharset();
+    
+    /** Path of the indexed CSV file, for error messages */
+    private final String csvFilePath;
+    
+    /** Channel rows are read from */
+    private final FileChannel csv;
+    
+    /** Number of entries mapped by each segment */
+    private final long entriesPerSegment;
+    
+    /** Mapped entries, {@link #entriesPerSegment} per segment */
+    private final MappedByteBuffer[] segments;
+    
+    /** Number of entries */
+    private final long entryCount;
+    
+    /**
+     * Opens a CSV file and its index for lookups.
+     * 
+     * @param csvFilePath path of the transformed CSV file; its index is found with {@link #indexPathFor}
+     * @throws IOException if either file cannot be read, or the index is not a product index
+     *         or does not match the CSV file
+     * @throws IllegalArgumentException if the path is null or empty
+     */
+    public ProductIndex(String csvFilePath) throws IOException {
+        this(csvFilePath, DEFAULT_ENTRIES_PER_SEGMENT);
+    }
+    
+    /**
+     * Opens a CSV file and its index, mapping the index in segments of a
+     * custom size so tests can span several segments with small files.
+     * 
+     * @param csvFilePath path of the transformed CSV file; its index is found with {@link #indexPathFor}
+     * @param entriesPerSegment the number of entries mapped by each segment
+     * @throws IOException if either file cannot be read, or the index is not a product index
+     *         or does not match the CSV file
+     * @throws IllegalArgumentException if the path is null or empty, or the segment size is out of range
+     */
+    ProductIndex(String csvFilePath, long entriesPerSegment) throws IOException {
+        if (csvFilePath == null || csvFilePath.trim().isEmpty()) {
+            throw new IllegalArgumentException("File path cannot be null or empty");
+        }
+        if (entriesPerSegment <= 0 || entriesPerSegment > Integer.MAX_VALUE / ENTRY_BYTES) {
+            throw new IllegalArgumentException("Entries per segment must be between 1 and "
+                                               + Integer.MAX_VALUE / ENTRY_BYTES);
+        }
+        this.csvFilePath = csvFilePath;
+        this.entriesPerSegment = entriesPerSegment;
+        
+        String indexPath = indexPathFor(csvFilePath);
+        try (FileChannel index = FileChannel.open(Paths.get(indexPath), StandardOpenOption.READ)) {
+            if (index.size() < HEADER_BYTES) {
+                throw new IOException("Not a product index");
+            }
+            MappedByteBuffer header = index.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a product index");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported index version " + header.getInt(4));
+            }
+            entryCount = header.getLong(8);
+            if (entryCount < 0 || index.size() != HEADER_BYTES + entryCount * ENTRY_BYTES) {
+                throw new IOException("Index is truncated");
+            }
+            Path csvFile = Paths.get(csvFilePath);
+            if (Files.size(csvFile) != header.getLong(16)
+                    || Files.getLastModifiedTime(csvFile).to(TimeUnit.NANOSECONDS) != header.getLong(24)) {
+                throw new IOException("Index does not match " + csvFilePath + "; rewrite the output to rebuild it");
+            }
+            
+            int segmentCount = (int) ((entryCount + entriesPerSegment - 1) / entriesPerSegment);
+            segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long first = i * entriesPerSegment;
+                long entries = Math.min(entriesPerSegment, entryCount - first);
+                segments[i] = index.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * ENTRY_BYTES,
+                                        entries * ENTRY_BYTES);
+            }
+        } catch (IOException e) {
+            throw new IOException("Failed to read file: " + indexPath + ". " + e.getMessage(), e);
+        }
+        
+        try {
+            csv = FileChannel.open(Paths.get(csvFilePath), StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new IOException("Failed to read file: " + csvFilePath + ". " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Names the index of a CSV file.
+     * 
+     * @param csvFilePath path of the CSV file, e.g. data/transformed_products.csv
+     * @return the index path, e.g. data/transformed_products.csv.idx
+     */
+    public static String indexPathFor(String csvFilePath) {
+        return csvFilePath + INDEX_SUFFIX;
+    }
+    
+    /**
+     * Gets the number of indexed rows.
+     * 
+     * @return the entry count
+     */
+    public long getEntryCount() {
+        return entryCount;
+    }
+    
+    /**
+     * Finds the byte offset of the first row with a ProductID.
+     * 
+     * @param productId the ProductID
+     * @return the offset of the row in the CSV file, or -1 if no row has that ID
+     * @throws IOException if a candidate row cannot be read
+     * @throws IllegalArgumentException if the ID is null
+     */
+    public long offsetOf(String productId) throws IOException {
+        validateProductId(productId);
+        long hash = ProductDeduplicator.hash(productId);
+        Match match = find(productId, hash, lowerBound(hash, 0));
+        return match == null ? -1 : match.offset;
+    }
+    
+    /**
+     * Looks up the first row with a ProductID.
+     * 
+     * @param productId the ProductID
+     * @return the product in the row, or null if no row has that ID
+     * @throws IOException if a candidate row cannot be read
+     * @throws IllegalArgumentException if the ID is null
+     */
+    public Product lookup(String productId) throws IOException {
+        validateProductId(productId);
+        long hash = ProductDeduplicator.hash(productId);
+        Match match = find(productId, hash, lowerBound(hash, 0));
+        return match == null ? null : toProduct(match);
+    }
+    
+    /**
+     * Looks up many ProductIDs at once. The IDs are searched in hash order, so
+     * each search starts where the previous one ended and the index pages are
+     * visited once, front to back.
+     * 
+     * @param productIds the ProductIDs; repeated IDs are looked up once
+     * @return the product of each ID found, in the order the IDs were given
+     * @throws IOException if a candidate row cannot be read
+     * @throws IllegalArgumentException if the collection or any ID is null
+     */
+    public Map<String, Product> lookupAll(Collection<String> productIds) throws IOException {
+        if (productIds == null) {
+            throw new IllegalArgumentException("Product IDs cannot be null");
+        }
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        long[] keys = new long[ids.size()];
+        for (int i = 0; i < keys.length; i++) {
+            validateProductId(ids.get(i));
+            keys[i] = ProductDeduplicator.hash(ids.get(i));
+        }
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compareUnsigned(keys[a], keys[b]));
+        
+        Product[] found = new Product[keys.length];
+        long from = 0;
+        for (int i : order) {
+            from = lowerBound(keys[i], from);
+            Match match = find(ids.get(i), keys[i], from);
+            if (match != null) {
+                found[i] = toProduct(match);
+            }
+        }
+        
+        Map<String, Product> products = new LinkedHashMap<>();
+        for (int i = 0; i < found.length; i++) {
+            if (found[i] != null) {
+                products.put(ids.get(i), found[i]);
+            }
+        }
+        return products;
+    }
+    
+    /**
+     * Closes the CSV file. The index mapping is released once the instance is garbage collected.
+     * 
+     * @throws IOException if the CSV file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        csv.close();
+    }
+    
+    /**
+     * A row whose ProductID matched a lookup.
+     */
+    private static final class Match {
+        
+        /** Offset of the row in the CSV file */
+        final long offset;
+        
+        /** Fields of the row */
+        final String[] fields;
+        
+        Match(long offset, String[] fields) {
+            this.offset = offset;
+            this.fields = fields;
+        }
+    }
+    
+    /**
+     * Finds the first entry whose hash is not below a hash, in unsigned order.
+     * 
+     * @param hash the hash
+     * @param from an entry known not to be past the result
+     * @return the entry index, or the entry count if every hash is below
+     */
+    private long lowerBound(long hash, long from) {
+        long low = from;
+        long high = entryCount;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(hashAt(middle), hash) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Reads the candidate rows of a hash in file order until one has the ID.
+     * 
+     * @param productId the ProductID
+     * @param hash the hash of the ID
+     * @param entry the first entry with that hash, if any
+     * @return the matching row, or null if none
+     */
+    private Match find(String productId, long hash, long entry) throws IOException {
+        for (long i = entry; i < entryCount && hashAt(i) == hash; i++) {
+            long offset = offsetAt(i);
+            String[] fields = readFields(offset);
+            if (productId.equals(fields[0])) {
+                return new Match(offset, fields);
+            }
+        }
+        return null;
+    }
+    
+    private long hashAt(long entry) {
+        return segments[(int) (entry / entriesPerSegment)].getLong((int) (entry % entriesPerSegment) * ENTRY_BYTES);
+    }
+    
+    private long offsetAt(long entry) {
+        return segments[(int) (entry / entriesPerSegment)]
+            .getLong((int) (entry % entriesPerSegment) * ENTRY_BYTES + Long.BYTES);
+    }
+    
+    /**
+     * Reads and splits the row at an offset, which ends at the first line
+     * break outside quotes.
+     * 
+     * @param offset the offset of the row
+     * @return the fields of the row
+     * @throws IOException if the row cannot be read or is not a transformed row
+     */
+    private String[] readFields(long offset) throws IOException {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(INITIAL_ROW_BYTES);
+            boolean inQuotes = false;
+            int scanned = 0;
+            while (true) {
+                if (!buffer.hasRemaining()) {
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+                }
+                int read = csv.read(buffer, offset + buffer.position());
+                for (; scanned < buffer.position(); scanned++) {
+                    byte b = buffer.get(scanned);
+                    if (b == CsvSyntax.QUOTE) {
+                        // Doubled quotes inside a quoted field toggle twice
+                        inQuotes = !inQuotes;
+                    } else if ((b == '\n' || b == '\r') && !inQuotes) {
+                        return split(buffer.array(), scanned, offset);
+                    }
+                }
+                if (read < 0) {
+                    return split(buffer.array(), scanned, offset);
+                }
+            }
+        } catch (IOException e) {
+            throw new IOException("Failed to read file: " + csvFilePath + ". " + e.getMessage(), e);
+        }
+    }
+    
+    private static String[] split(byte[] bytes, int length, long offset) throws IOException {
+        String record = new String(bytes, 0, length, CHARSET).replace("\r\n", "\n").replace('\r', '\n');
+        String[] fields = CsvSyntax.split(record.trim());
+        if (fields == null || fields.length < ROW_COLUMNS) {
+            throw new IOException("Malformed row at offset " + offset);
+        }
+        return fields;
+    }
+    
+    /**
+     * Rebuilds the product written in a row.
+     */
+    private Product toProduct(Match match) throws IOException {
+        String[] fields = match.fields;
+        long cents = FixedPointPrice.parseCents(fields[2]);
+        double price;
+        if (cents != FixedPointPrice.UNKNOWN) {
+            price = FixedPointPrice.toDouble(cents);
+        } else if (NumberSyntax.isDouble(fields[2])) {
+            price = Double.parseDouble(fields[2]);
+        } else {
+            throw new IOException("Failed to read file: " + csvFilePath + ". Invalid price at offset " + match.offset);
+        }
+        Product product = new Product(fields[0], fields[1], price, fields[3]);
+        if (cents != FixedPointPrice.UNKNOWN) {
+            product.setPriceCents(cents);
+        }
+        product.setPriceRange(fields[4]);
+        return product;
+    }
+    
+    private static void validateProductId(String productId) {
+        if (productId == null) {
+            throw new IllegalArgumentException("Product ID cannot be null");
+        }
+    }
+    
+    /**
+     * Collects the entries of an index while its CSV file is written and
+     * writes the sorted index once the file is complete.
+     * 
+     * At most a fixed number of entries is held in memory. Beyond that, the
+     * entries are sorted into runs written to spill files, which are merged
+     * into the index at the end, so building the index of a file of any size
+     * takes bounded memory.
+     */
+    static final class Builder implements Closeable {
+        
+        /** Default number of entries held in memory (64 MB including the sort buffers) */
+        static final int DEFAULT_MAX_ENTRIES_IN_MEMORY = 1 << 21;
+        
+        /** Number of entries the arrays start with */
+        private static final int INITIAL_CAPACITY = 1024;
+        
+        /** Bits of the hash sorted by each radix pass */
+        private static final int RADIX_BITS = 16;
+        
+        /** Size of the write buffer */
+        private static final int WRITE_BUFFER_SIZE = 1 << 16;
+        
+        /** Largest number of run files merged at once */
+        private static final int MAX_MERGE_WIDTH = ProductSorter.MAX_MERGE_WIDTH;
+        
+        /** Number of entries held in memory before a sorted run is written */
+        private final int maxEntriesInMemory;
+        
+        /** Run files, deleted once the index is written */
+        private final SpillFiles spillFiles;
+        
+        /** Runs written so far, in write order */
+        private List<Run> runs = new ArrayList<>();
+        
+        /** ID hash of each entry held in memory, in write order until sorted */
+        private long[] hashes;
+        
+        /** Offset of each entry held in memory, in write order until sorted */
+        private long[] offsets;
+        
+        /** Scratch array for the hashes while sorting, reused between runs */
+        private long[] hashBuffer;
+        
+        /** Scratch array for the offsets while sorting, reused between runs */
+        private long[] offsetBuffer;
+        
+        /** Number of entries held in memory */
+        private int size;
+        
+        /** Number of entries, including those written to runs */
+        private long count;
+        
+        /**
+         * A sorted run file of entries.
+         */
+        private static final class Run {
+            
+            /** The run file */
+            final Path file;
+            
+            /** Number of entries in the file */
+            final long entries;
+            
+            /**
+             * Constructs a run.
+             * 
+             * @param file the run file
+             * @param entries the number of entries in the file
+             */
+            Run(Path file, long entries) {
+                this.file = file;
+                this.entries = entries;
+            }
+        }
+        
+        /**
+         * Receives entries in index order.
+         */
+        @FunctionalInterface
+        private interface EntrySink {
+            
+            /**
+             * Accepts an entry.
+             * 
+             * @param hash the ID hash
+             * @param offset the row offset
+             * @throws IOException if the entry cannot be written
+             */
+            void accept(long hash, long offset) throws IOException;
+        }
+        
+        /**
+         * Constructs a builder holding up to {@link #DEFAULT_MAX_ENTRIES_IN_MEMORY}
+         * entries in memory and writing runs to the system temporary directory.
+         */
+        Builder() {
+            this(DEFAULT_MAX_ENTRIES_IN_MEMORY, null);
+        }
+        
+        /**
+         * Constructs a builder with a custom memory budget.
+         * 
+         * @param maxEntriesInMemory the number of entries held in memory before a sorted run is written
+         * @param spillDirectory the directory under which run files are created, or null
+         *        for the system temporary directory
+         * @throws IllegalArgumentException if the budget is not positive
+         */
+        Builder(int maxEntriesInMemory, Path spillDirectory) {
+            if (maxEntriesInMemory <= 0) {
+                throw new IllegalArgumentException("Maximum entries in memory must be positive");
+            }
+            this.maxEntriesInMemory = maxEntriesInMemory;
+            this.spillFiles = new SpillFiles(spillDirectory, "index-");
+            int capacity = Math.min(INITIAL_CAPACITY, maxEntriesInMemory);
+            this.hashes = new long[capacity];
+            this.offsets = new long[capacity];
+        }
+        
+        /**
+         * Records a row about to be written.
+         * 
+         * @param productId the row's ProductID; null is indexed as the text the writer writes for it
+         * @param offset the offset of the row in the CSV file
+         * @throws IOException if a run file cannot be written
+         */
+        void add(String productId, long offset) throws IOException {
+            if (size == maxEntriesInMemory) {
+                writeRun();
+            } else if (size == hashes.length) {
+                // The arrays never grow past the budget, so the new length cannot overflow
+                int capacity = (int) Math.min(2L * size, maxEntriesInMemory);
+                hashes = Arrays.copyOf(hashes, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+            }
+            hashes[size] = ProductDeduplicator.hash(String.valueOf(productId));
+            offsets[size] = offset;
+            size++;
+            count++;
+        }
+        
+        /**
+         * Sorts the entries and writes the index of a CSV file, replacing any
+         * earlier one, then deletes the run files. Called once the CSV file is
+         * complete, so its size and modification time are final.
+         * 
+         * @param csvFilePath path of the CSV file
+         * @param csvSize size of the CSV file
+         * @param force whether to force the index to the storage device
+         * @throws IOException if the index or a run file cannot be written or read
+         */
+        void write(String csvFilePath, long csvSize, boolean force) throws IOException {
+            try {
+                if (runs.isEmpty()) {
+                    sort();
+                } else {
+                    if (size > 0) {
+                        writeRun();
+                    }
+                    hashes = null;
+                    offsets = null;
+                    hashBuffer = null;
+                    offsetBuffer = null;
+                    mergeRuns();
+                }
+                
+                String indexPath = indexPathFor(csvFilePath);
+                try (FileChannel channel = FileChannel.open(Paths.get(indexPath), StandardOpenOption.CREATE,
+                                                            StandardOpenOption.TRUNCATE_EXISTING,
+                                                            StandardOpenOption.WRITE)) {
+                    ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+                    long csvModified = Files.getLastModifiedTime(Paths.get(csvFilePath)).to(TimeUnit.NANOSECONDS);
+                    buffer.putInt(MAGIC).putInt(VERSION).putLong(count).putLong(csvSize).putLong(csvModified);
+                    EntrySink output = (hash, offset) -> {
+                        if (buffer.remaining() < ENTRY_BYTES) {
+                            writeFully(channel, buffer);
+                        }
+                        buffer.putLong(hash).putLong(offset);
+                    };
+                    if (runs.isEmpty()) {
+                        for (int i = 0; i < size; i++) {
+                            output.accept(hashes[i], offsets[i]);
+                        }
+                    } else {
+                        merge(runs, output);
+                    }
+                    writeFully(channel, buffer);
+                    if (force) {
+                        channel.force(true);
+                    }
+                } catch (IOException e) {
+                    throw new IOException("Failed to write to file: " + indexPath + ". " + e.getMessage(), e);
+                }
+            } finally {
+                close();
+            }
+        }
+        
+        /**
+         * Deletes the run files. Called by {@link #write}, and by the writer
+         * when the CSV file is abandoned before its index is written.
+         * 
+         * @throws IOException if a run file cannot be deleted
+         */
+        @Override
+        public void close() throws IOException {
+            spillFiles.close();
+        }
+        
+        private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+        
+        /**
+         * Sorts the entries held in memory and writes them to a new run file.
+         */
+        private void writeRun() throws IOException {
+            sort();
+            Path file = spillFiles.create();
+            DataOutputStream out = SpillFiles.openWriter(file);
+            try {
+                for (int i = 0; i < size; i++) {
+                    writeEntry(out, file, hashes[i], offsets[i]);
+                }
+            } finally {
+                SpillFiles.closeWriter(out, file);
+            }
+            runs.add(new Run(file, size));
+            size = 0;
+        }
+        
+        /**
+         * Merges groups of runs into longer runs until all of them can be merged at once.
+         */
+        private void mergeRuns() throws IOException {
+            while (runs.size() > MAX_MERGE_WIDTH) {
+                List<Run> merged = new ArrayList<>();
+                for (int from = 0; from < runs.size(); from += MAX_MERGE_WIDTH) {
+                    List<Run> group = runs.subList(from, Math.min(from + MAX_MERGE_WIDTH, runs.size()));
+                    if (group.size() == 1) {
+                        merged.add(group.get(0));
+                        continue;
+                    }
+                    Path file = spillFiles.create();
+                    long[] entries = new long[1];
+                    DataOutputStream out = SpillFiles.openWriter(file);
+                    try {
+                        merge(group, (hash, offset) -> {
+                            writeEntry(out, file, hash, offset);
+                            entries[0]++;
+                        });
+                    } finally {
+                        SpillFiles.closeWriter(out, file);
+                    }
+                    for (Run run : group) {
+                        Files.deleteIfExists(run.file);
+                    }
+                    merged.add(new Run(file, entries[0]));
+                }
+                runs = merged;
+            }
+        }
+        
+        /**
+         * Merges sorted runs using a binary heap of run indexes ordered by each
+         * run's next entry. Runs hold the offsets of consecutive parts of the
+         * file, so ordering equal hashes by offset keeps them in file order.
+         */
+        private static void merge(List<Run> group, EntrySink output) throws IOException {
+            int count = group.size();
+            DataInputStream[] inputs = new DataInputStream[count];
+            long[] remaining = new long[count];
+            long[] headHashes = new long[count];
+            long[] headOffsets = new long[count];
+            int[] heap = new int[count];
+            int heapSize = 0;
+            try {
+                for (int i = 0; i < count; i++) {
+                    Run run = group.get(i);
+                    inputs[i] = SpillFiles.openReader(run.file);
+                    remaining[i] = run.entries;
+                    if (remaining[i] > 0) {
+                        remaining[i]--;
+                        readEntry(inputs[i], run.file, headHashes, headOffsets, i);
+                        heap[heapSize++] = i;
+                    }
+                }
+                for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                    siftDown(heap, heapSize, i, headHashes, headOffsets);
+                }
+                
+                while (heapSize > 0) {
+                    int top = heap[0];
+                    output.accept(headHashes[top], headOffsets[top]);
+                    if (remaining[top] > 0) {
+                        remaining[top]--;
+                        readEntry(inputs[top], group.get(top).file, headHashes, headOffsets, top);
+                    } else {
+                        heap[0] = heap[--heapSize];
+                    }
+                    siftDown(heap, heapSize, 0, headHashes, headOffsets);
+                }
+            } finally {
+                for (DataInputStream in : inputs) {
+                    if (in != null) {
+                        in.close();
+                    }
+                }
+            }
+        }
+        
+        private static void siftDown(int[] heap, int size, int i, long[] headHashes, long[] headOffsets) {
+            int item = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && precedes(heap[child + 1], heap[child], headHashes, headOffsets)) {
+                    child++;
+                }
+                if (!precedes(heap[child], item, headHashes, headOffsets)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = item;
+        }
+        
+        private static boolean precedes(int a, int b, long[] headHashes, long[] headOffsets) {
+            int c = Long.compareUnsigned(headHashes[a], headHashes[b]);
+            return c != 0 ? c < 0 : headOffsets[a] < headOffsets[b];
+        }
+        
+        private static void writeEntry(DataOutputStream out, Path file, long hash, long offset) throws IOException {
+            try {
+                out.writeLong(hash);
+                out.writeLong(offset);
+            } catch (IOException e) {
+                throw new IOException("Failed to write to file: " + file + ". " + e.getMessage(), e);
+            }
+        }
+        
+        private static void readEntry(DataInputStream in, Path file, long[] headHashes, long[] headOffsets, int i)
+                throws IOException {
+            try {
+                headHashes[i] = in.readLong();
+                headOffsets[i] = in.readLong();
+            } catch (IOException e) {
+                throw new IOException("Failed to read file: " + file + ". " + e.getMessage(), e);
+            }
+        }
+        
+        /**
+         * Sorts the entries held in memory by unsigned hash with a
+         * least-significant-digit radix sort. Each pass is stable, so rows
+         * with equal hashes keep their offsets in ascending order.
+         */
+        private void sort() {
+            if (hashBuffer == null || hashBuffer.length < size) {
+                hashBuffer = new long[hashes.length];
+                offsetBuffer = new long[hashes.length];
+            }
+            long[] keys = hashes;
+            long[] values = offsets;
+            long[] keyBuffer = hashBuffer;
+            long[] valueBuffer = offsetBuffer;
+            int[] starts = new int[(1 << RADIX_BITS) + 1];
+            int mask = (1 << RADIX_BITS) - 1;
+            for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+                Arrays.fill(starts, 0);
+                for (int i = 0; i < size; i++) {
+                    starts[((int) (keys[i] >>> shift) & mask) + 1]++;
+                }
+                for (int digit = 0; digit < mask + 1; digit++) {
+                    starts[digit + 1] += starts[digit];
+                }
+                for (int i = 0; i < size; i++) {
+                    int position = starts[(int) (keys[i] >>> shift) & mask]++;
+                    keyBuffer[position] = keys[i];
+                    valueBuffer[position] = values[i];
+                }
+                long[] swap = keys;
+                keys = keyBuffer;
+                keyBuffer = swap;
+                swap = values;
+                values = valueBuffer;
+                valueBuffer = swap;
+            }
+            hashes = keys;
+            offsets = values;
+            hashBuffer = keyBuffer;
+            offsetBuffer = valueBuffer;
+        }
+    }
+}
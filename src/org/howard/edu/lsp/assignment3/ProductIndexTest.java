@@ -0,0 +1,250 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JUnit test class for ProductIndex.
+ * Checks lookups of present, absent and repeated ProductIDs, indexes mapped
+ * in several segments, indexes built from spilled runs and the rejection of
+ * an index whose CSV file has changed since it was written.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class ProductIndexTest {
+    
+    /** Number of rows in the generated files */
+    private static final int ROWS = 2000;
+    
+    /** Number of distinct ProductIDs in the generated files, so most IDs repeat */
+    private static final int DISTINCT_IDS = 600;
+    
+    /** IDs that no generated row has */
+    private static final String[] ABSENT_IDS = {"P-1", "P" + DISTINCT_IDS, "", "p1", "P1 ", "missing"};
+    
+    /** Categories cycled through by the generated rows */
+    private static final String[] CATEGORIES = {"Electronics", "Books", "Toys", "Premium Electronics"};
+    
+    /**
+     * Generates transformed products with repeated IDs, each repeat carrying
+     * a different name and price, and some names needing quotes.
+     */
+    private static List<Product> products(long seed) {
+        Random random = new Random(seed);
+        List<Product> products = new ArrayList<>();
+        for (int row = 0; row < ROWS; row++) {
+            String name = row % 40 == 0 ? "ROW " + row + ", \"QUOTED\"\nTWO LINES" : "ROW " + row;
+            long cents = random.nextInt(100_000);
+            Product product = new Product("P" + random.nextInt(DISTINCT_IDS), name, cents / 100.0,
+                                          CATEGORIES[row % CATEGORIES.length]);
+            product.setPriceCents(cents);
+            product.setPriceRange(cents < 1000 ? "Low" : "High");
+            products.add(product);
+        }
+        return products;
+    }
+    
+    /**
+     * Gets the first product written with each ID, which lookups must return.
+     */
+    private static Map<String, String> firstRows(List<Product> products) {
+        Map<String, String> first = new LinkedHashMap<>();
+        for (Product product : products) {
+            first.putIfAbsent(product.getProductId(), TestProducts.describe(product));
+        }
+        return first;
+    }
+    
+    /**
+     * Writes products to a CSV file with its index.
+     */
+    private static Path writeIndexed(Path tempDir, List<Product> products) throws IOException {
+        Path csv = tempDir.resolve("products.csv");
+        CSVWriter writer = new CSVWriter();
+        writer.setIndexing(true);
+        writer.writeProducts(products, csv.toString());
+        return csv;
+    }
+    
+    /**
+     * Checks every present and absent ID against the first row written with it.
+     */
+    private static void assertLookups(ProductIndex index, Map<String, String> expected, String description)
+            throws IOException {
+        assertEquals(ROWS, index.getEntryCount(), description);
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            Product product = index.lookup(entry.getKey());
+            assertNotNull(product, description + ": " + entry.getKey());
+            assertEquals(entry.getValue(), TestProducts.describe(product), description);
+            assertTrue(index.offsetOf(entry.getKey()) > 0, description);
+        }
+        for (String id : ABSENT_IDS) {
+            assertNull(index.lookup(id), description + ": " + id);
+            assertEquals(-1, index.offsetOf(id), description + ": " + id);
+        }
+    }
+    
+    /**
+     * Adds every row of a CSV file to an index builder, finding each row's
+     * offset by scanning for line breaks outside quoted fields.
+     */
+    private static void addRows(Path csv, ProductIndex.Builder builder) throws IOException {
+        byte[] bytes = Files.readAllBytes(csv);
+        boolean inQuotes = false;
+        int start = -1;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '"') {
+                inQuotes = !inQuotes;
+            } else if (bytes[i] == '\n' && !inQuotes) {
+                if (start >= 0) {
+                    String row = new String(bytes, start, i - start, Charset.defaultCharset());
+                    builder.add(CsvSyntax.split(row)[0], start);
+                }
+                // The first line is the header, which is not indexed
+                start = i + 1;
+            }
+        }
+    }
+    
+    /**
+     * Tests lookups of present, absent and repeated IDs, one at a time and together.
+     */
+    @Test
+    @DisplayName("Test lookups")
+    public void testLookups(@TempDir Path tempDir) throws IOException {
+        List<Product> products = products(1);
+        Map<String, String> expected = firstRows(products);
+        Path csv = writeIndexed(tempDir, products);
+        
+        try (ProductIndex index = new ProductIndex(csv.toString())) {
+            assertLookups(index, expected, "single segment");
+            
+            List<String> ids = new ArrayList<>(expected.keySet());
+            ids.add(ABSENT_IDS[0]);
+            ids.add(ids.get(0));
+            Map<String, String> found = new LinkedHashMap<>();
+            for (Map.Entry<String, Product> entry : index.lookupAll(ids).entrySet()) {
+                found.put(entry.getKey(), TestProducts.describe(entry.getValue()));
+            }
+            assertEquals(expected, found);
+            assertIterableEquals(expected.keySet(), found.keySet());
+        }
+    }
+    
+    /**
+     * Tests an index mapped in many small segments, so binary searches and
+     * runs of repeated hashes cross segment boundaries.
+     */
+    @Test
+    @DisplayName("Test index spanning several segments")
+    public void testSegments(@TempDir Path tempDir) throws IOException {
+        List<Product> products = products(2);
+        Map<String, String> expected = firstRows(products);
+        Path csv = writeIndexed(tempDir, products);
+        
+        for (long entriesPerSegment : new long[] {1, 3, 64, ROWS - 1}) {
+            try (ProductIndex index = new ProductIndex(csv.toString(), entriesPerSegment)) {
+                assertLookups(index, expected, entriesPerSegment + " entries per segment");
+            }
+        }
+    }
+    
+    /**
+     * Tests that an index built from sorted runs spilled to disk, with one or
+     * more merge passes, is byte for byte the index built in memory.
+     */
+    @Test
+    @DisplayName("Test index built from spilled runs")
+    public void testSpilledBuild(@TempDir Path tempDir) throws IOException {
+        List<Product> products = products(3);
+        Path csv = writeIndexed(tempDir, products);
+        Path indexFile = Paths.get(ProductIndex.indexPathFor(csv.toString()));
+        byte[] inMemory = Files.readAllBytes(indexFile);
+        Path spillDirectory = Files.createDirectory(tempDir.resolve("spill"));
+        
+        // One entry per run needs an intermediate merge pass, since there are more runs than are merged at once
+        for (int maxEntries : new int[] {1, 4, 100, ROWS - 1, ROWS}) {
+            Files.delete(indexFile);
+            ProductIndex.Builder builder = new ProductIndex.Builder(maxEntries, spillDirectory);
+            addRows(csv, builder);
+            builder.write(csv.toString(), Files.size(csv), false);
+            
+            assertArrayEquals(inMemory, Files.readAllBytes(indexFile), maxEntries + " entries in memory");
+            assertEquals(List.of(), TestProducts.leftovers(spillDirectory), "Run files should be deleted");
+        }
+        try (ProductIndex index = new ProductIndex(csv.toString())) {
+            assertLookups(index, firstRows(products), "spilled");
+        }
+    }
+    
+    /**
+     * Tests that an index is rejected once rows are appended to its CSV file.
+     */
+    @Test
+    @DisplayName("Test stale index after append")
+    public void testStaleAfterAppend(@TempDir Path tempDir) throws IOException {
+        Path csv = writeIndexed(tempDir, products(4));
+        Files.write(csv, "P9999,ROW,1.00,Books,Low\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        
+        IOException e = assertThrows(IOException.class, () -> new ProductIndex(csv.toString()));
+        assertTrue(e.getMessage().contains("Index does not match"), e.getMessage());
+    }
+    
+    /**
+     * Tests that an index is rejected once its CSV file is rewritten with the
+     * same size within the same millisecond, which only the full-precision
+     * modification time tells apart.
+     */
+    @Test
+    @DisplayName("Test stale index after rewrite")
+    public void testStaleAfterRewrite(@TempDir Path tempDir) throws IOException {
+        Path csv = writeIndexed(tempDir, products(5));
+        FileTime written = Files.getLastModifiedTime(csv);
+        byte[] bytes = Files.readAllBytes(csv);
+        int digit = new String(bytes, StandardCharsets.ISO_8859_1).indexOf(".") - 1;
+        bytes[digit] = (byte) (bytes[digit] == '1' ? '2' : '1');
+        Files.write(csv, bytes);
+        
+        // Move the time by a microsecond, staying within the millisecond it was written in
+        long nanos = written.to(TimeUnit.NANOSECONDS);
+        long moved = nanos % 1_000_000 < 500_000 ? nanos + 1000 : nanos - 1000;
+        Files.setLastModifiedTime(csv, FileTime.from(moved, TimeUnit.NANOSECONDS));
+        assertEquals(written.toMillis(), Files.getLastModifiedTime(csv).toMillis());
+        
+        IOException e = assertThrows(IOException.class, () -> new ProductIndex(csv.toString()));
+        assertTrue(e.getMessage().contains("Index does not match"), e.getMessage());
+    }
+    
+    /**
+     * Tests that invalid budgets, segment sizes and IDs are rejected.
+     */
+    @Test
+    @DisplayName("Test invalid arguments")
+    public void testInvalidArguments(@TempDir Path tempDir) throws IOException {
+        Path csv = writeIndexed(tempDir, products(6));
+        assertThrows(IllegalArgumentException.class, () -> new ProductIndex.Builder(0, tempDir));
+        assertThrows(IllegalArgumentException.class, () -> new ProductIndex(csv.toString(), 0));
+        assertThrows(IllegalArgumentException.class, () -> new ProductIndex(""));
+        try (ProductIndex index = new ProductIndex(csv.toString())) {
+            assertThrows(IllegalArgumentException.class, () -> index.lookup(null));
+            assertThrows(IllegalArgumentException.class, () -> index.lookupAll(null));
+        }
+    }
+}
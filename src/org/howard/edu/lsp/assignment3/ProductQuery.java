@@ -0,0 +1,666 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Selects transformed products by conditions on their fields and the
+ * columns written for each match.
+ * 
+ * Conditions compare the fields of the transformed product, exactly as they
+ * appear in the output file: the name is uppercased, the price discounted
+ * and the category promoted. All conditions must hold for a product to match.
+ * 
+ * Besides checking transformed products, a query compiles into a filter
+ * pushed down into the memory-mapped CSV scan. The transformed price,
+ * category and price range depend only on the original price and category,
+ * so for plain rows the filter derives them from the raw bytes with the same
+ * rules the transformer applies, and compares IDs and ASCII names byte by
+ * byte. Rows that certainly cannot match are skipped without creating any
+ * String or Product; every other row is parsed, transformed and checked in
+ * full, so the results are the same whether or not a row was filtered early.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public final class ProductQuery {
+    
+    /** Charset the scanner decodes fields with, used to compare values as bytes */
+    private static final Charset CHARSET = Charset.defaultCharset();
+    
+    /** The word joining conditions, with the blanks around it */
+    private static final Pattern AND = Pattern.compile("\\s+and(\\s+|$)", Pattern.CASE_INSENSITIVE);
+    
+    /** Column of the product ID in the input file */
+    private static final int ID_COLUMN = 0;
+    
+    /** Column of the name in the input file */
+    private static final int NAME_COLUMN = 1;
+    
+    /** Column of the price in the input file */
+    private static final int PRICE_COLUMN = 2;
+    
+    /** Column of the category in the input file */
+    private static final int CATEGORY_COLUMN = 3;
+    
+    /** Number of columns a valid input row has at least */
+    private static final int MIN_COLUMNS = 4;
+    
+    /**
+     * A field of a transformed product that can be compared and selected.
+     */
+    public enum Field {
+        
+        /** The product ID */
+        ID("id", "ProductID"),
+        
+        /** The uppercased name */
+        NAME("name", "Name"),
+        
+        /** The discounted price */
+        PRICE("price", "Price"),
+        
+        /** The category after promotion */
+        CATEGORY("category", "Category"),
+        
+        /** The price range */
+        RANGE("range", "PriceRange");
+        
+        /** Name of the field in queries */
+        private final String key;
+        
+        /** Name of the column in the output header */
+        private final String header;
+        
+        Field(String key, String header) {
+            this.key = key;
+            this.header = header;
+        }
+        
+        /**
+         * Gets the name of the column in the output header.
+         * 
+         * @return the header name, e.g. "ProductID"
+         */
+        public String header() {
+            return header;
+        }
+        
+        /**
+         * Gets a field by its name in queries.
+         * 
+         * @param key the name, case-insensitive, e.g. "price"
+         * @return the field
+         * @throws IllegalArgumentException if no field has that name
+         */
+        public static Field fromKey(String key) {
+            String name = key.trim().toLowerCase(Locale.ROOT);
+            for (Field field : values()) {
+                if (field.key.equals(name)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Unknown field: " + key.trim()
+                                               + " (expected id, name, price, category or range)");
+        }
+    }
+    
+    /**
+     * A comparison between a field and a value.
+     */
+    private enum Operator {
+        
+        /** The field differs from the value */
+        NOT_EQUAL("!="),
+        
+        /** The field is at most the value */
+        LESS_OR_EQUAL("<="),
+        
+        /** The field is at least the value */
+        GREATER_OR_EQUAL(">="),
+        
+        /** The field equals the value */
+        EQUAL("="),
+        
+        /** The field is below the value */
+        LESS("<"),
+        
+        /** The field is above the value */
+        GREATER(">");
+        
+        /** Symbol of the operator in queries */
+        private final String symbol;
+        
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+        
+        /**
+         * Finds the operator starting at a position, preferring the longest symbol.
+         * 
+         * @param text the query text
+         * @param position the position to look at
+         * @return the operator, or null if none starts there
+         */
+        static Operator at(String text, int position) {
+            // Declared with the two-character symbols first, so "<=" is not read as "<"
+            for (Operator operator : values()) {
+                if (text.startsWith(operator.symbol, position)) {
+                    return operator;
+                }
+            }
+            return null;
+        }
+        
+        /**
+         * Applies the operator to the result of comparing the field with the value.
+         * 
+         * @param comparison negative, zero or positive as the field is less than, equal to or greater than the value
+         * @return true if the comparison satisfies the operator
+         */
+        boolean test(int comparison) {
+            switch (this) {
+                case EQUAL:
+                    return comparison == 0;
+                case NOT_EQUAL:
+                    return comparison != 0;
+                case LESS:
+                    return comparison < 0;
+                case LESS_OR_EQUAL:
+                    return comparison <= 0;
+                case GREATER:
+                    return comparison > 0;
+                default:
+                    return comparison >= 0;
+            }
+        }
+    }
+    
+    /**
+     * A single condition on one field.
+     */
+    private static final class Condition {
+        
+        /** The compared field */
+        final Field field;
+        
+        /** The comparison */
+        final Operator operator;
+        
+        /** The value as written in the query */
+        final String text;
+        
+        /** The value of a price condition */
+        final double price;
+        
+        /** The value of a price range condition */
+        final PriceRange range;
+        
+        /**
+         * Constructs a condition, checking that the operator and value suit the field.
+         * 
+         * @param field the compared field
+         * @param operator the comparison
+         * @param text the value
+         * @throws IllegalArgumentException if the operator or value does not suit the field
+         */
+        Condition(Field field, Operator operator, String text) {
+            this.field = field;
+            this.operator = operator;
+            this.text = text;
+            if (field == Field.PRICE) {
+                if (!NumberSyntax.isDouble(text) || Double.isNaN(Double.parseDouble(text))) {
+                    throw new IllegalArgumentException("Invalid price in query: " + text);
+                }
+                // Adding zero turns -0.0 into 0.0, which compares equal to a zero price
+                price = Double.parseDouble(text) + 0.0;
+                range = null;
+            } else if (field == Field.RANGE) {
+                price = 0;
+                range = rangeFromLabel(text);
+            } else {
+                if (operator != Operator.EQUAL && operator != Operator.NOT_EQUAL) {
+                    throw new IllegalArgumentException("Operator " + operator.symbol + " is not supported for "
+                                                       + field.key + " (expected = or !=)");
+                }
+                price = 0;
+                range = null;
+            }
+        }
+        
+        /**
+         * Checks the condition against a transformed product.
+         * 
+         * @param product the product
+         * @return true if the condition holds
+         */
+        boolean matches(Product product) {
+            switch (field) {
+                case ID:
+                    return testEquality(text.equals(product.getProductId()));
+                case NAME:
+                    return testEquality(text.equals(product.getName()));
+                case CATEGORY:
+                    return testEquality(text.equals(product.getCategory()));
+                case PRICE:
+                    return testPrice(product.getPrice());
+                default:
+                    return testRange(product.getRange());
+            }
+        }
+        
+        /**
+         * Applies an equality operator.
+         * 
+         * @param equal whether the field equals the value
+         * @return true if the condition holds
+         */
+        boolean testEquality(boolean equal) {
+            return equal == (operator == Operator.EQUAL);
+        }
+        
+        /**
+         * Checks a price condition.
+         * 
+         * @param value the transformed price
+         * @return true if the condition holds
+         */
+        boolean testPrice(double value) {
+            return operator.test(Double.compare(value, price));
+        }
+        
+        /**
+         * Checks a price range condition. Ranges are ordered from Low to Premium.
+         * 
+         * @param value the price range, or null if it is not a known range
+         * @return true if the condition holds
+         */
+        boolean testRange(PriceRange value) {
+            if (value == null) {
+                return operator == Operator.NOT_EQUAL;
+            }
+            return operator.test(value.compareTo(range));
+        }
+        
+        @Override
+        public String toString() {
+            String value = field == Field.PRICE ? text
+                : field == Field.RANGE ? range.label()
+                : '"' + text.replace("\"", "\"\"") + '"';
+            return field.key + " " + operator.symbol + " " + value;
+        }
+    }
+    
+    /** Conditions that must all hold, in query order */
+    private final List<Condition> conditions;
+    
+    /** Columns written for each match, in output order */
+    private final List<Field> columns;
+    
+    private ProductQuery(List<Condition> conditions, List<Field> columns) {
+        this.conditions = conditions;
+        this.columns = columns;
+    }
+    
+    /**
+     * Parses a query selecting every column.
+     * 
+     * @param conditions the conditions, see {@link #parse(String, String)}
+     * @return the query
+     * @throws IllegalArgumentException if the conditions cannot be parsed
+     */
+    public static ProductQuery parse(String conditions) {
+        return parse(conditions, null);
+    }
+    
+    /**
+     * Parses a query.
+     * 
+     * Conditions have the form {@code field operator value} and are joined by
+     * {@code and}, for example {@code category = "Premium Electronics" and price > 800}.
+     * Fields are id, name, price, category and range. Every field supports =
+     * and !=; price and range also support &lt;, &lt;=, &gt; and &gt;=, with
+     * ranges ordered from Low to Premium. Values containing blanks around the
+     * word "and", or blanks at either end, are enclosed in double quotes, with
+     * quotes inside doubled as in CSV. An empty condition list matches every product.
+     * 
+     * @param conditions the conditions joined by "and", or an empty string to match everything
+     * @param columns comma-separated fields written for each match, in order, or null
+     *        or an empty string for all columns
+     * @return the query
+     * @throws IllegalArgumentException if the conditions are null or cannot be parsed, or a
+     *         column is unknown or repeated
+     */
+    public static ProductQuery parse(String conditions, String columns) {
+        if (conditions == null) {
+            throw new IllegalArgumentException("Query conditions cannot be null");
+        }
+        return new ProductQuery(parseConditions(conditions), parseColumns(columns));
+    }
+    
+    private static List<Condition> parseConditions(String query) {
+        List<Condition> conditions = new ArrayList<>();
+        int length = query.length();
+        int i = skipBlanks(query, 0);
+        while (i < length) {
+            if (!conditions.isEmpty()) {
+                if (!query.regionMatches(true, i, "and", 0, 3)
+                        || (i + 3 < length && !Character.isWhitespace(query.charAt(i + 3)))) {
+                    throw new IllegalArgumentException("Expected 'and' at position " + i + " in query: " + query);
+                }
+                i = skipBlanks(query, i + 3);
+            }
+            
+            int start = i;
+            while (i < length && Character.isLetter(query.charAt(i))) {
+                i++;
+            }
+            if (i == start) {
+                throw new IllegalArgumentException("Expected a field at position " + i + " in query: " + query);
+            }
+            Field field = Field.fromKey(query.substring(start, i));
+            i = skipBlanks(query, i);
+            Operator operator = Operator.at(query, i);
+            if (operator == null) {
+                throw new IllegalArgumentException("Expected a comparison after " + field.key + " in query: " + query);
+            }
+            i = skipBlanks(query, i + operator.symbol.length());
+            
+            String value;
+            if (i < length && query.charAt(i) == CsvSyntax.QUOTE) {
+                StringBuilder text = new StringBuilder();
+                i = unquote(query, i + 1, text);
+                value = text.toString();
+            } else {
+                Matcher and = AND.matcher(query);
+                int end = and.find(i) ? and.start() : length;
+                value = query.substring(i, end).trim();
+                i = end;
+                if (value.isEmpty()) {
+                    throw new IllegalArgumentException("Missing value after " + field.key + " " + operator.symbol
+                                                       + " in query: " + query);
+                }
+            }
+            conditions.add(new Condition(field, operator, value));
+            i = skipBlanks(query, i);
+        }
+        return Collections.unmodifiableList(conditions);
+    }
+    
+    /**
+     * Reads a quoted value up to its closing quote.
+     * 
+     * @param query the query text
+     * @param i the position just past the opening quote
+     * @param text receives the value with doubled quotes undone
+     * @return the position just past the closing quote
+     * @throws IllegalArgumentException if the quote is never closed
+     */
+    private static int unquote(String query, int i, StringBuilder text) {
+        while (i < query.length()) {
+            char c = query.charAt(i++);
+            if (c != CsvSyntax.QUOTE) {
+                text.append(c);
+            } else if (i < query.length() && query.charAt(i) == CsvSyntax.QUOTE) {
+                text.append(c);
+                i++;
+            } else {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated quoted value in query: " + query);
+    }
+    
+    private static int skipBlanks(String text, int i) {
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+    
+    private static List<Field> parseColumns(String columns) {
+        if (columns == null || columns.trim().isEmpty()) {
+            return Collections.unmodifiableList(Arrays.asList(Field.values()));
+        }
+        List<Field> fields = new ArrayList<>();
+        for (String key : columns.split(",")) {
+            Field field = Field.fromKey(key);
+            if (fields.contains(field)) {
+                throw new IllegalArgumentException("Duplicate column: " + key.trim());
+            }
+            fields.add(field);
+        }
+        return Collections.unmodifiableList(fields);
+    }
+    
+    private static PriceRange rangeFromLabel(String label) {
+        for (PriceRange range : PriceRange.values()) {
+            if (range.label().equalsIgnoreCase(label)) {
+                return range;
+            }
+        }
+        throw new IllegalArgumentException("Unknown price range: " + label + " (expected Low, Medium, High or Premium)");
+    }
+    
+    /**
+     * Gets the columns written for each match.
+     * 
+     * @return the columns in output order
+     */
+    public List<Field> getColumns() {
+        return columns;
+    }
+    
+    /**
+     * Checks whether a transformed product satisfies every condition.
+     * 
+     * @param product the transformed product
+     * @return true if the product matches; false for null
+     */
+    public boolean matches(Product product) {
+        if (product == null) {
+            return false;
+        }
+        for (Condition condition : conditions) {
+            if (!condition.matches(product)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Wraps a sink so only matching products are passed on.
+     * 
+     * @param downstream the sink receiving matching transformed products
+     * @return a sink dropping products that do not match
+     * @throws IllegalArgumentException if the downstream sink is null
+     */
+    public ProductSink filteringSink(ProductSink downstream) {
+        if (downstream == null) {
+            throw new IllegalArgumentException("Downstream sink cannot be null");
+        }
+        
+        return new ProductSink() {
+            @Override
+            public void accept(Product product) throws IOException {
+                if (matches(product)) {
+                    downstream.accept(product);
+                }
+            }
+            
+            @Override
+            public void close() throws IOException {
+                downstream.close();
+            }
+        };
+    }
+    
+    /**
+     * Compiles the conditions into a filter over raw input rows.
+     * 
+     * @param rules the rules the transformer applies to the rows
+     * @return the filter, or null if there are no conditions
+     */
+    MappedCSVScanner.RowFilter pushdown(TransformationRules rules) {
+        return conditions.isEmpty() ? null : new Pushdown(rules);
+    }
+    
+    /**
+     * Returns the conditions in query syntax, with text values quoted.
+     * 
+     * @return the conditions joined by "and"
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Condition condition : conditions) {
+            if (text.length() > 0) {
+                text.append(" and ");
+            }
+            text.append(condition);
+        }
+        return text.toString();
+    }
+    
+    /**
+     * Filter ruling out plain input rows from their raw bytes. It holds no
+     * mutable state, so parallel reads share one instance.
+     */
+    private final class Pushdown implements MappedCSVScanner.RowFilter {
+        
+        /** The rules the transformer applies */
+        private final TransformationRules rules;
+        
+        /** Dictionary the reader codes categories with */
+        private final CategoryDictionary dictionary = CategoryDictionary.shared();
+        
+        /** The ID and name conditions' values as the scanner sees them, or null where bytes cannot decide */
+        private final byte[][] valueBytes = new byte[conditions.size()][];
+        
+        /** Whether any condition needs the transformed price or category */
+        private final boolean priced;
+        
+        Pushdown(TransformationRules rules) {
+            this.rules = rules;
+            boolean anyPriced = false;
+            for (int i = 0; i < conditions.size(); i++) {
+                Condition condition = conditions.get(i);
+                if (condition.field == Field.ID) {
+                    valueBytes[i] = encode(condition.text);
+                } else if (condition.field == Field.NAME) {
+                    // A non-ASCII character may uppercase to an ASCII one, so only ASCII names are compared
+                    valueBytes[i] = DataTransformer.ASCII_UPPERCASE_IS_EXACT && isAscii(condition.text)
+                        ? encode(condition.text) : null;
+                } else {
+                    anyPriced = true;
+                }
+            }
+            this.priced = anyPriced;
+        }
+        
+        @Override
+        public boolean mayMatch(MappedCSVScanner.Row row) {
+            // Only rows the reader is sure to accept may be ruled out
+            if (row.isUnterminated() || row.columnCount() < MIN_COLUMNS || row.isEmpty(ID_COLUMN)
+                    || row.isEmpty(NAME_COLUMN) || row.isEmpty(CATEGORY_COLUMN)) {
+                return true;
+            }
+            long cents = row.parseCents(PRICE_COLUMN);
+            if (cents == FixedPointPrice.UNKNOWN) {
+                return true;
+            }
+            
+            for (int i = 0; i < valueBytes.length; i++) {
+                byte[] bytes = valueBytes[i];
+                if (bytes == null) {
+                    continue;
+                }
+                Condition condition = conditions.get(i);
+                if (condition.field == Field.ID) {
+                    if (!condition.testEquality(row.equalsBytes(ID_COLUMN, bytes))) {
+                        return false;
+                    }
+                } else if (row.isAscii(NAME_COLUMN)
+                           && !condition.testEquality(row.equalsAsciiUppercase(NAME_COLUMN, bytes))) {
+                    return false;
+                }
+            }
+            if (!priced) {
+                return true;
+            }
+            
+            // Derive the transformed price, category and range as DataTransformer does
+            int category = row.intern(CATEGORY_COLUMN, dictionary);
+            if (category == CategoryDictionary.NO_CODE) {
+                return true;
+            }
+            double discountRate = rules.discountRate(category);
+            if (discountRate != 0) {
+                cents = FixedPointPrice.applyDiscount(cents, FixedPointPrice.toDouble(cents), discountRate,
+                                                      rules.discountBasisPoints(category));
+                if (cents == FixedPointPrice.UNKNOWN) {
+                    return true;
+                }
+            }
+            double price = FixedPointPrice.toDouble(cents);
+            if (price > rules.promotionThreshold(category)) {
+                category = rules.promotionCode(category);
+            }
+            PriceRange range = rules.classify(price);
+            
+            for (Condition condition : conditions) {
+                switch (condition.field) {
+                    case PRICE:
+                        if (!condition.testPrice(price)) {
+                            return false;
+                        }
+                        break;
+                    case CATEGORY:
+                        if (!condition.testEquality(condition.text.equals(dictionary.name(category)))) {
+                            return false;
+                        }
+                        break;
+                    case RANGE:
+                        if (!condition.testRange(range)) {
+                            return false;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Encodes a value the way the scanner's fields are encoded.
+         * 
+         * @param value the value
+         * @return the encoded value, or null if a field could decode to it from different bytes
+         */
+        private byte[] encode(String value) {
+            byte[] bytes = value.getBytes(CHARSET);
+            // Unmappable characters and malformed input both decode to a replacement, so bytes cannot decide
+            if (value.indexOf('\uFFFD') >= 0 || !new String(bytes, CHARSET).equals(value)) {
+                return null;
+            }
+            return bytes;
+        }
+        
+        private boolean isAscii(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) >= 0x80) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
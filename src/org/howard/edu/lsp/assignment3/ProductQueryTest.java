@@ -0,0 +1,213 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * JUnit test class for ProductQuery.
+ * Checks that a query pushed down into the CSV scan selects exactly the rows
+ * found by transforming the whole file and filtering afterwards, on the line,
+ * memory-mapped and parallel reader paths.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class ProductQueryTest {
+    
+    /** Chunk sizes for the parallel reader, small enough to split the test files many times */
+    private static final long[] CHUNK_SIZES = {64, 1000};
+    
+    /** Queries covering every field and operator, alone and combined */
+    private static final String[] QUERIES = {
+        "price > 100", "price >= 450", "price = 450", "price < 9.999", "price <= 10", "price != 0",
+        "price > -1 and price < 500.01", "price = 500", "price > 1e3",
+        "category = \"Electronics\"", "category = \"Premium Electronics\"", "category != \"Books\"",
+        "category = \"Home, Garden\"", "category = \"electronics\"",
+        "range = Low", "range != Medium", "range >= High", "range < Premium and category = \"Electronics\"",
+        "id = \"5\"", "id != \"5\"", "id = \"42\" and price > 1", "id = \"\"",
+        "name = \"WIDGET, LARGE\"", "name = \"THE \"\"BEST\"\" WIDGET\"", "name != \"ITEM 3\"",
+        "name = \"ITEM 7\" and category = \"Toys\"",
+        "price >= 10 and price <= 100 and range = Medium and category != \"Toys\""
+    };
+    
+    /** Prices written in every form the readers accept or reject */
+    private static final String[] PRICES = {
+        "10.00", "11.11", "555.56", "555.55", "500.00", "500.01", "0", "0.00", "-1.00", " 3.00 ", "\"12.50\"",
+        "\"1,200.00\"", "abc", "", "1e2", "1.5e3", "10.005", "9.999", "+5.00", "100", "100.0", "0x10p0", "NaN",
+        "Infinity", "99999999999999999999", "450.00", "555.5556", "7."
+    };
+    
+    /** Categories written in every form the readers accept or reject */
+    private static final String[] CATEGORIES = {
+        "Electronics", "Books", "Toys", " Toys ", "\"Home, Garden\"", "electronics", "Premium Electronics", "",
+        "\"Electronics\""
+    };
+    
+    /** Names written in every form the readers accept or reject */
+    private static final String[] NAMES = {
+        "Widget, large", "\"Widget, large\"", "\"The \"\"Best\"\" Widget\"", "Item 3", "item 7", "caf\u00e9",
+        "stra\u00dfe", "\"Two\nlines\"", "", " Spaced ", "\"\""
+    };
+    
+    /**
+     * Writes rows combining the IDs, names, prices and categories in a
+     * pseudo-random but repeatable way, with a few malformed rows.
+     */
+    private static Path writeInput(Path tempDir, int count) throws IOException {
+        Random random = new Random(7);
+        StringBuilder text = new StringBuilder("ProductID,Name,Price,Category\n");
+        for (int row = 0; row < count; row++) {
+            String id = row % 17 == 0 ? "" : String.valueOf(random.nextInt(60));
+            String name = NAMES[random.nextInt(NAMES.length)];
+            String price = PRICES[random.nextInt(PRICES.length)];
+            String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            if (row % 53 == 0) {
+                text.append(id).append(',').append(name).append(',').append(price).append('\n');
+            } else {
+                text.append(id).append(',').append(name).append(',').append(price).append(',').append(category);
+                text.append(row % 41 == 0 ? ",extra\n" : "\n");
+            }
+        }
+        Path input = tempDir.resolve("products.csv");
+        Files.write(input, text.toString().getBytes(StandardCharsets.UTF_8));
+        return input;
+    }
+    
+    /**
+     * Selects matching products by transforming every row and filtering afterwards.
+     */
+    private static List<String> postFiltered(Path input, DataTransformer transformer, ProductQuery query)
+            throws IOException {
+        List<String> matches = new ArrayList<>();
+        for (Product product : transformer.transform(new CSVReader(Long.MAX_VALUE).readProducts(input.toString()))) {
+            if (query.matches(product)) {
+                matches.add(TestProducts.describe(product));
+            }
+        }
+        return matches;
+    }
+    
+    /**
+     * Selects matching products with the query pushed down into the read.
+     */
+    private static List<String> pushedDown(CSVReader reader, Path input, DataTransformer transformer,
+                                           ProductQuery query) throws IOException {
+        List<String> matches = new ArrayList<>();
+        try (ProductSink sink = transformer.transformingSink(query.filteringSink(product -> {
+            matches.add(TestProducts.describe(product));
+        }))) {
+            reader.readProducts(input.toString(), sink, query.pushdown(transformer.getRules()));
+        }
+        return matches;
+    }
+    
+    /**
+     * Gets the test queries, plus a condition on each transformed name that is
+     * not ASCII. These are taken from the file as the readers decode it, since
+     * that depends on the default charset.
+     */
+    private static List<String> queries(Path input, DataTransformer transformer) throws IOException {
+        Set<String> queries = new LinkedHashSet<>(Arrays.asList(QUERIES));
+        for (Product product : transformer.transform(new CSVReader(Long.MAX_VALUE).readProducts(input.toString()))) {
+            String name = product.getName();
+            if (!name.chars().allMatch(c -> c < 0x80)) {
+                queries.add("name = \"" + name.replace("\"", "\"\"") + "\"");
+                queries.add("name != \"" + name.replace("\"", "\"\"") + "\" and price < 100");
+            }
+        }
+        return new ArrayList<>(queries);
+    }
+    
+    /**
+     * Checks every query on every reader path against post-filtering.
+     */
+    private static void assertPushdownMatches(Path input, DataTransformer transformer) throws IOException {
+        List<String> queries = queries(input, transformer);
+        assertTrue(queries.size() > QUERIES.length, "Expected conditions on names that are not ASCII");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (String text : queries) {
+                ProductQuery query = ProductQuery.parse(text);
+                List<String> expected = postFiltered(input, transformer, query);
+                for (Map.Entry<String, CSVReader> reader : TestProducts.readers(pool, CHUNK_SIZES).entrySet()) {
+                    assertEquals(expected, pushedDown(reader.getValue(), input, transformer, query),
+                                 text + " on the " + reader.getKey() + " reader");
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Tests pushdown with the default transformation rules.
+     */
+    @Test
+    @DisplayName("Test pushdown with default rules")
+    public void testDefaultRules(@TempDir Path tempDir) throws IOException {
+        Path input = writeInput(tempDir, 3000);
+        assertPushdownMatches(input, new DataTransformer());
+    }
+    
+    /**
+     * Tests pushdown with custom discounts, promotions and range limits, so the
+     * filter must derive transformed fields from the rules rather than the defaults.
+     */
+    @Test
+    @DisplayName("Test pushdown with custom rules")
+    public void testCustomRules(@TempDir Path tempDir) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("category.Books.discount", "0.25");
+        properties.setProperty("category.Books.premium.threshold", "100.00");
+        properties.setProperty("category.Books.premium.category", "Electronics");
+        properties.setProperty("category.Toys.discount", "0.333");
+        properties.setProperty("range.low.max", "5.00");
+        properties.setProperty("range.high.max", "450.00");
+        Path input = writeInput(tempDir, 3000);
+        assertPushdownMatches(input, new DataTransformer(TransformationRules.fromProperties(properties)));
+    }
+    
+    /**
+     * Tests that the memory-mapped paths skip rows that cannot match, while the
+     * line reader, which cannot filter raw bytes, still parses every row.
+     */
+    @Test
+    @DisplayName("Test pushdown skips rows")
+    public void testRowsSkipped(@TempDir Path tempDir) throws IOException {
+        Path input = writeInput(tempDir, 3000);
+        DataTransformer transformer = new DataTransformer();
+        ProductQuery query = ProductQuery.parse("id = \"5\" and price > 100");
+        int parsed = new CSVReader(Long.MAX_VALUE).readProducts(input.toString()).size();
+        
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Map.Entry<String, CSVReader> reader : TestProducts.readers(pool, CHUNK_SIZES).entrySet()) {
+                int passed = reader.getValue().readProducts(input.toString(), product -> { },
+                                                            query.pushdown(transformer.getRules()));
+                if (reader.getKey().equals("line")) {
+                    assertEquals(parsed, passed, reader.getKey());
+                } else {
+                    assertTrue(passed < parsed / 2, reader.getKey() + " parsed " + passed + " of " + parsed);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertNull(ProductQuery.parse("").pushdown(transformer.getRules()));
+    }
+}
@@ -0,0 +1,35 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives products one at a time as they flow through the pipeline.
+ * 
+ * Sinks allow the reader, transformer and writer to be chained together so
+ * each row is read, transformed and written before the next one is read,
+ * instead of collecting every row into a list between phases.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public interface ProductSink extends Closeable {
+    
+    /**
+     * Accepts a single product.
+     * 
+     * @param product the product to consume
+     * @throws IOException if the product cannot be written downstream
+     */
+    void accept(Product product) throws IOException;
+    
+    /**
+     * Releases any resources held by this sink.
+     * The default implementation does nothing.
+     * 
+     * @throws IOException if the sink cannot be closed cleanly
+     */
+    @Override
+    default void close() throws IOException {
+        // Nothing to release by default
+    }
+}
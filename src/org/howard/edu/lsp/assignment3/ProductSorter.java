@@ -0,0 +1,429 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Sorts products by configurable keys, using disk when they do not fit in memory.
+ * 
+ * Products are buffered until their estimated size reaches the memory
+ * budget, then sorted and written to a run file. When the sink is closed the
+ * runs are merged with a binary heap of run indexes, reading one product per
+ * run at a time, and passed downstream in order. If there are more runs than
+ * can be open at once, groups of runs are first merged into longer ones. If
+ * everything fits in the budget, no file is written.
+ * 
+ * The sort is stable: products with equal keys keep their input order.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class ProductSorter implements ProductSink {
+    
+    /** Default memory budget (256 MB) for buffered products */
+    public static final long DEFAULT_MEMORY_BUDGET = 256L << 20;
+    
+    /** Largest number of run files merged at once */
+    static final int MAX_MERGE_WIDTH = 128;
+    
+    /** Estimated heap use of a buffered product besides its ID and name characters */
+    private static final int PRODUCT_OVERHEAD_BYTES = 160;
+    
+    /** Number of products the buffer starts with */
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    /** Sink receiving the sorted products */
+    private final ProductSink downstream;
+    
+    /** Order the products are sorted in */
+    private final Comparator<Product> order;
+    
+    /** Estimated bytes of products buffered before a run is written */
+    private final long memoryBudget;
+    
+    /** Run files, deleted on close */
+    private final SpillFiles spillFiles;
+    
+    /** Runs written so far, in input order */
+    private List<Run> runs = new ArrayList<>();
+    
+    /** Products buffered for the next run, in input order */
+    private Product[] buffer = new Product[INITIAL_CAPACITY];
+    
+    /** Number of buffered products */
+    private int size;
+    
+    /** Estimated bytes of the buffered products */
+    private long bufferedBytes;
+    
+    /** Position in the input of the first buffered product */
+    private long runStart;
+    
+    /** Registry receiving run counts */
+    private PipelineMetrics metrics = PipelineMetrics.NOOP;
+    
+    /** Number of rows written to run files, counted once per merge pass */
+    private long spilledRows;
+    
+    /** Number of run files written, including those of intermediate merges */
+    private int runCount;
+    
+    /** Whether the sink has been closed */
+    private boolean closed;
+    
+    /**
+     * A sorted run file. Every row is tagged with the input position where
+     * its original run started, which orders ties between runs the way they
+     * appeared in the input.
+     */
+    private static final class Run {
+        
+        /** The run file */
+        final Path file;
+        
+        /** Number of rows in the file */
+        final long rows;
+        
+        /**
+         * Constructs a run.
+         * 
+         * @param file the run file
+         * @param rows the number of rows in the file
+         */
+        Run(Path file, long rows) {
+            this.file = file;
+            this.rows = rows;
+        }
+    }
+    
+    /**
+     * Constructs a sorter with {@link #DEFAULT_MEMORY_BUDGET} that writes runs
+     * to the system temporary directory.
+     * 
+     * @param downstream the sink receiving the sorted products
+     * @param order the order to sort in, for example from {@link #parseOrder}
+     * @throws IllegalArgumentException if the sink or order is null
+     */
+    public ProductSorter(ProductSink downstream, Comparator<Product> order) {
+        this(downstream, order, DEFAULT_MEMORY_BUDGET, null);
+    }
+    
+    /**
+     * Constructs a sorter with a custom memory budget. The budget is compared
+     * with an estimate of the buffered products' heap use, so the heap should
+     * leave some headroom above it.
+     * 
+     * @param downstream the sink receiving the sorted products
+     * @param order the order to sort in, for example from {@link #parseOrder}
+     * @param memoryBudget the estimated bytes of products buffered before a run is written
+     * @param spillDirectory the directory under which run files are created, or null
+     *        for the system temporary directory
+     * @throws IllegalArgumentException if the sink or order is null or the budget is not positive
+     */
+    public ProductSorter(ProductSink downstream, Comparator<Product> order, long memoryBudget,
+                         Path spillDirectory) {
+        if (downstream == null || order == null) {
+            throw new IllegalArgumentException("Downstream sink and sort order cannot be null");
+        }
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive");
+        }
+        this.downstream = downstream;
+        this.order = order;
+        this.memoryBudget = memoryBudget;
+        this.spillFiles = new SpillFiles(spillDirectory, "sort-");
+    }
+    
+    /**
+     * Builds a sort order from a comma-separated list of keys, most
+     * significant first. Each key is id, name, category or price, optionally
+     * followed by :asc or :desc; text compares by character code, and missing
+     * values sort first.
+     * 
+     * @param keys the sort keys, for example "category,price:desc"
+     * @return the sort order
+     * @throws IllegalArgumentException if the list is empty or has an unknown key or direction
+     */
+    public static Comparator<Product> parseOrder(String keys) {
+        if (keys == null || keys.trim().isEmpty()) {
+            throw new IllegalArgumentException("Sort keys cannot be null or empty");
+        }
+        Comparator<Product> order = null;
+        for (String key : keys.split(",")) {
+            String[] parts = key.trim().toLowerCase(Locale.ROOT).split(":", -1);
+            Comparator<Product> comparator;
+            switch (parts[0]) {
+                case "id":
+                    comparator = Comparator.comparing(Product::getProductId,
+                                                      Comparator.nullsFirst(Comparator.naturalOrder()));
+                    break;
+                case "name":
+                    comparator = Comparator.comparing(Product::getName,
+                                                      Comparator.nullsFirst(Comparator.naturalOrder()));
+                    break;
+                case "category":
+                    comparator = Comparator.comparing(Product::getCategory,
+                                                      Comparator.nullsFirst(Comparator.naturalOrder()));
+                    break;
+                case "price":
+                    comparator = Comparator.comparingDouble(Product::getPrice);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown sort key: " + key.trim()
+                                                       + " (expected id, name, category or price)");
+            }
+            if (parts.length == 2 && "desc".equals(parts[1])) {
+                comparator = comparator.reversed();
+            } else if (parts.length > 2 || (parts.length == 2 && !"asc".equals(parts[1]))) {
+                throw new IllegalArgumentException("Unknown sort direction: " + key.trim()
+                                                   + " (expected asc or desc)");
+            }
+            order = order == null ? comparator : order.thenComparing(comparator);
+        }
+        return order;
+    }
+    
+    /**
+     * Sets the metrics registry that receives run counts.
+     * 
+     * @param metrics the registry to report to
+     * @throws IllegalArgumentException if the registry is null
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics registry cannot be null");
+        }
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Buffers a product, writing a sorted run once the memory budget is reached.
+     * 
+     * @param product the product; null is ignored
+     * @throws IOException if a run file cannot be written
+     * @throws IllegalStateException if the sink has been closed
+     */
+    @Override
+    public void accept(Product product) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Sorter has been closed");
+        }
+        if (product == null) {
+            return;
+        }
+        if (size == buffer.length) {
+            buffer = Arrays.copyOf(buffer, size * 2);
+        }
+        buffer[size++] = product;
+        bufferedBytes += estimateSize(product);
+        if (bufferedBytes >= memoryBudget) {
+            writeRun();
+        }
+    }
+    
+    /**
+     * Passes all products downstream in sorted order, deletes the run files
+     * and closes the downstream sink.
+     * 
+     * @throws IOException if a run file cannot be read or the downstream sink fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            try {
+                if (runs.isEmpty()) {
+                    Arrays.sort(buffer, 0, size, order);
+                    for (int i = 0; i < size; i++) {
+                        downstream.accept(buffer[i]);
+                    }
+                } else {
+                    if (size > 0) {
+                        writeRun();
+                    }
+                    buffer = null;
+                    mergeRuns();
+                }
+            } finally {
+                spillFiles.close();
+            }
+            metrics.incrementCounter("sort.runs_written", runCount);
+            metrics.incrementCounter("sort.spilled_rows", spilledRows);
+        } finally {
+            downstream.close();
+        }
+    }
+    
+    /**
+     * Gets the number of run files written, including those of intermediate merges.
+     * 
+     * @return the run file count
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+    
+    /**
+     * Gets the number of rows written to run files, counting a row once for
+     * every merge pass it went through.
+     * 
+     * @return the spilled row count
+     */
+    public long getSpilledRowCount() {
+        return spilledRows;
+    }
+    
+    /**
+     * Sorts the buffered products and writes them to a new run file.
+     */
+    private void writeRun() throws IOException {
+        // TimSort is stable, so equal products stay in input order within the run
+        Arrays.sort(buffer, 0, size, order);
+        Path file = spillFiles.create();
+        DataOutputStream out = SpillFiles.openWriter(file);
+        try {
+            for (int i = 0; i < size; i++) {
+                SpillFiles.writeRow(out, file, runStart, buffer[i]);
+            }
+        } finally {
+            SpillFiles.closeWriter(out, file);
+        }
+        runs.add(new Run(file, size));
+        runCount++;
+        spilledRows += size;
+        runStart += size;
+        Arrays.fill(buffer, 0, size, null);
+        size = 0;
+        bufferedBytes = 0;
+    }
+    
+    /**
+     * Merges the runs downstream, first merging consecutive groups of runs
+     * into longer ones while there are too many to open at once.
+     */
+    private void mergeRuns() throws IOException {
+        while (runs.size() > MAX_MERGE_WIDTH) {
+            List<Run> merged = new ArrayList<>();
+            for (int from = 0; from < runs.size(); from += MAX_MERGE_WIDTH) {
+                List<Run> group = runs.subList(from, Math.min(from + MAX_MERGE_WIDTH, runs.size()));
+                if (group.size() == 1) {
+                    merged.add(group.get(0));
+                    continue;
+                }
+                Path file = spillFiles.create();
+                long[] rows = new long[1];
+                DataOutputStream out = SpillFiles.openWriter(file);
+                try {
+                    merge(group, (seq, product) -> {
+                        SpillFiles.writeRow(out, file, seq, product);
+                        rows[0]++;
+                    });
+                } finally {
+                    SpillFiles.closeWriter(out, file);
+                }
+                for (Run run : group) {
+                    Files.deleteIfExists(run.file);
+                }
+                merged.add(new Run(file, rows[0]));
+                runCount++;
+                spilledRows += rows[0];
+            }
+            runs = merged;
+        }
+        merge(runs, (seq, product) -> downstream.accept(product));
+    }
+    
+    /**
+     * Merges sorted runs using a binary heap of run indexes ordered by each
+     * run's next product, then by input position.
+     */
+    private void merge(List<Run> group, SpillFiles.RowSink output) throws IOException {
+        int count = group.size();
+        DataInputStream[] inputs = new DataInputStream[count];
+        long[] remaining = new long[count];
+        long[] headSeqs = new long[count];
+        Product[] heads = new Product[count];
+        int[] heap = new int[count];
+        int heapSize = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                Run run = group.get(i);
+                inputs[i] = SpillFiles.openReader(run.file);
+                remaining[i] = run.rows;
+                if (remaining[i] > 0) {
+                    remaining[i]--;
+                    headSeqs[i] = SpillFiles.readSeq(inputs[i], run.file);
+                    heads[i] = SpillFiles.readProduct(inputs[i], run.file);
+                    heap[heapSize++] = i;
+                }
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(heap, heapSize, i, heads, headSeqs);
+            }
+            
+            while (heapSize > 0) {
+                int top = heap[0];
+                output.accept(headSeqs[top], heads[top]);
+                if (remaining[top] > 0) {
+                    remaining[top]--;
+                    Path file = group.get(top).file;
+                    headSeqs[top] = SpillFiles.readSeq(inputs[top], file);
+                    heads[top] = SpillFiles.readProduct(inputs[top], file);
+                } else {
+                    heads[top] = null;
+                    heap[0] = heap[--heapSize];
+                }
+                siftDown(heap, heapSize, 0, heads, headSeqs);
+            }
+        } finally {
+            for (DataInputStream in : inputs) {
+                if (in != null) {
+                    in.close();
+                }
+            }
+        }
+    }
+    
+    private void siftDown(int[] heap, int size, int i, Product[] heads, long[] headSeqs) {
+        int item = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && precedes(heap[child + 1], heap[child], heads, headSeqs)) {
+                child++;
+            }
+            if (!precedes(heap[child], item, heads, headSeqs)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+    
+    private boolean precedes(int a, int b, Product[] heads, long[] headSeqs) {
+        int c = order.compare(heads[a], heads[b]);
+        if (c != 0) {
+            return c < 0;
+        }
+        return headSeqs[a] != headSeqs[b] ? headSeqs[a] < headSeqs[b] : a < b;
+    }
+    
+    private static long estimateSize(Product product) {
+        String id = product.getProductId();
+        String name = product.getName();
+        return PRODUCT_OVERHEAD_BYTES + 2L * ((id != null ? id.length() : 0) + (name != null ? name.length() : 0));
+    }
+}
@@ -0,0 +1,141 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * JUnit test class for ProductSorter.
+ * Checks that external merge sorts with memory budgets small enough to write
+ * many runs give exactly the order of a stable in-memory List.sort.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class ProductSorterTest {
+    
+    /** Sort orders checked, covering single, multiple and descending keys */
+    private static final String[] ORDERS = {"id", "price", "category,price:desc", "price:desc,id",
+                                            "category:desc,name", "name:desc", "category, price , id:desc"};
+    
+    /** Memory budget of a few products per run */
+    private static final long SMALL_BUDGET = 2000;
+    
+    /** Number of distinct IDs in the generated rows, few enough that ID orders have runs of ties */
+    private static final int DISTINCT_IDS = 200;
+    
+    /**
+     * Sorts products in memory with the stable List.sort.
+     */
+    private static List<String> reference(List<Product> products, Comparator<Product> order) {
+        List<Product> sorted = new ArrayList<>(products);
+        sorted.sort(order);
+        return TestProducts.describe(sorted);
+    }
+    
+    /**
+     * Sorts products through a sorter, returning the described output.
+     */
+    private static List<String> sort(ProductSorter sorter, List<Product> products, List<String> output)
+            throws IOException {
+        for (Product product : products) {
+            sorter.accept(product);
+        }
+        sorter.close();
+        return output;
+    }
+    
+    /**
+     * Tests every order when all products fit in memory.
+     */
+    @Test
+    @DisplayName("Test in-memory sort")
+    public void testInMemory(@TempDir Path tempDir) throws IOException {
+        List<Product> products = TestProducts.products(3000, DISTINCT_IDS, 1);
+        for (String keys : ORDERS) {
+            Comparator<Product> order = ProductSorter.parseOrder(keys);
+            List<String> output = new ArrayList<>();
+            ProductSorter sorter = new ProductSorter(product -> output.add(TestProducts.describe(product)), order,
+                                                     ProductSorter.DEFAULT_MEMORY_BUDGET, tempDir);
+            assertEquals(reference(products, order), sort(sorter, products, output), keys);
+            assertEquals(0, sorter.getRunCount(), keys);
+        }
+    }
+    
+    /**
+     * Tests every order with a budget of a few products, so dozens of runs
+     * are merged in one pass and ties between runs keep their input order.
+     */
+    @Test
+    @DisplayName("Test external merge sort")
+    public void testExternalMerge(@TempDir Path tempDir) throws IOException {
+        List<Product> products = TestProducts.products(800, DISTINCT_IDS, 2);
+        for (String keys : ORDERS) {
+            Comparator<Product> order = ProductSorter.parseOrder(keys);
+            List<String> output = new ArrayList<>();
+            ProductSorter sorter = new ProductSorter(product -> output.add(TestProducts.describe(product)), order,
+                                                     SMALL_BUDGET, tempDir);
+            assertEquals(reference(products, order), sort(sorter, products, output), keys);
+            assertTrue(sorter.getRunCount() > 10 && sorter.getRunCount() <= ProductSorter.MAX_MERGE_WIDTH,
+                       keys + ": " + sorter.getRunCount() + " runs");
+            assertEquals(products.size(), sorter.getSpilledRowCount(), keys);
+            assertEquals(List.of(), TestProducts.leftovers(tempDir), "Run files should be deleted on close");
+        }
+    }
+    
+    /**
+     * Tests a budget of one product per run, so there are more runs than are
+     * merged at once and rows go through intermediate merge passes.
+     */
+    @Test
+    @DisplayName("Test multi-pass merge")
+    public void testMultiPassMerge(@TempDir Path tempDir) throws IOException {
+        List<Product> products = TestProducts.products(ProductSorter.MAX_MERGE_WIDTH * 3 + 17, DISTINCT_IDS, 3);
+        for (String keys : new String[] {"category,price:desc", "price:desc,id"}) {
+            Comparator<Product> order = ProductSorter.parseOrder(keys);
+            InMemoryPipelineMetrics metrics = new InMemoryPipelineMetrics();
+            List<String> output = new ArrayList<>();
+            ProductSorter sorter = new ProductSorter(product -> output.add(TestProducts.describe(product)), order, 1,
+                                                     tempDir);
+            sorter.setMetrics(metrics);
+            assertEquals(reference(products, order), sort(sorter, products, output), keys);
+            assertTrue(sorter.getRunCount() > products.size(), keys + ": " + sorter.getRunCount() + " runs");
+            assertTrue(sorter.getSpilledRowCount() > products.size(),
+                       keys + ": rows should go through more than one pass");
+            assertEquals(sorter.getRunCount(), metrics.getCounter("sort.runs_written"));
+            assertEquals(sorter.getSpilledRowCount(), metrics.getCounter("sort.spilled_rows"));
+            assertEquals(List.of(), TestProducts.leftovers(tempDir), "Run files should be deleted on close");
+        }
+    }
+    
+    /**
+     * Tests that sort keys, directions and budgets are validated, by the
+     * pipeline as IllegalArgumentException before the output file is created.
+     */
+    @Test
+    @DisplayName("Test invalid sort keys")
+    public void testInvalidKeys(@TempDir Path tempDir) throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> ProductSorter.parseOrder(""));
+        assertThrows(IllegalArgumentException.class, () -> ProductSorter.parseOrder("weight"));
+        assertThrows(IllegalArgumentException.class, () -> ProductSorter.parseOrder("price:down"));
+        assertThrows(IllegalArgumentException.class, () -> ProductSorter.parseOrder("price:asc:desc"));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new ProductSorter(product -> { }, ProductSorter.parseOrder("id"), 0, null));
+        
+        Path input = Files.write(tempDir.resolve("products.csv"), List.of("ProductID,Name,Price,Category"));
+        String output = tempDir.resolve("output.csv").toString();
+        ETLPipeline pipeline = new ETLPipeline();
+        assertThrows(IllegalArgumentException.class, () -> pipeline.processProductsSorted(input.toString(), output,
+                                                                                          null, 1000));
+        assertThrows(IllegalArgumentException.class,
+                     () -> pipeline.processProductsSorted(input.toString(), output, ProductSorter.parseOrder("id"), 0));
+        assertEquals(List.of(input), TestProducts.leftovers(tempDir));
+    }
+}
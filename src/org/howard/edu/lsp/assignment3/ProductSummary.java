@@ -0,0 +1,316 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Price statistics of transformed products in total, per category and per
+ * price range, gathered while the products are written.
+ * 
+ * A summary wraps the sink that writes the output, so the aggregates come
+ * from the same single pass as the output file rather than from reading it
+ * back. Categories are looked up by dictionary code in an array, so
+ * recording a row does not hash its category name.
+ * 
+ * A summary is not thread-safe. Parallel runs give each thread its own
+ * summary and {@link #merge} them into one when the thread is done; merging is
+ * exact, so the totals do not depend on how the work was split.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class ProductSummary {
+    
+    /** Suffix replacing the extension of an output file to name its summary report */
+    public static final String REPORT_SUFFIX = "_summary.csv";
+    
+    /** Header row of the summary report */
+    static final String REPORT_HEADER = "Group,Key,Products,Sum,Min,Max,Mean,P50,P90,P99";
+    
+    /** Percentiles written to the summary report */
+    private static final double[] REPORT_PERCENTILES = {50, 90, 99};
+    
+    /** Number of category codes the per-category array starts with */
+    private static final int INITIAL_CATEGORY_CODES = 16;
+    
+    /** Statistics per category, indexed by dictionary code; null for categories not seen */
+    private PriceStatistics[] byCategoryCode = new PriceStatistics[INITIAL_CATEGORY_CODES];
+    
+    /** Statistics of categories without a dictionary code, by name; a null category is keyed by "" */
+    private final Map<String, PriceStatistics> byCategoryName = new HashMap<>();
+    
+    /** Statistics per price range, indexed by ordinal; null for ranges not seen */
+    private final PriceStatistics[] byRange = new PriceStatistics[PriceRange.values().length];
+    
+    /**
+     * Records a transformed product.
+     * 
+     * @param product the product; null is ignored
+     */
+    public void add(Product product) {
+        if (product == null) {
+            return;
+        }
+        double price = product.getPrice();
+        long cents = product.hasPriceCents() ? product.getPriceCents() : FixedPointPrice.UNKNOWN;
+        record(price, cents, product.getCategoryCode(), product.getCategory(), product.getRange());
+    }
+    
+    /**
+     * Records every row of a transformed batch.
+     * 
+     * @param batch the batch; null is ignored
+     */
+    public void add(ProductBatch batch) {
+        if (batch == null) {
+            return;
+        }
+        for (int row = 0; row < batch.size; row++) {
+            int code = batch.categoryCodes[row];
+            record(batch.prices[row], batch.priceCents[row], code,
+                   code == CategoryDictionary.NO_CODE ? batch.getCategory(row) : null,
+                   PriceRange.fromCode(batch.priceRanges[row]));
+        }
+    }
+    
+    private void record(double price, long cents, int categoryCode, String category, PriceRange range) {
+        categoryStatistics(categoryCode, category).record(price, cents);
+        if (range != null) {
+            rangeStatistics(range).record(price, cents);
+        }
+    }
+    
+    /**
+     * Adds everything recorded by another summary into this one. Merging is
+     * synchronized, so threads can merge their own summaries into a shared
+     * one as they finish.
+     * 
+     * @param other the summary to merge in, which must no longer be recorded into
+     * @throws IllegalArgumentException if the other summary is null
+     */
+    public synchronized void merge(ProductSummary other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Summary cannot be null");
+        }
+        for (int code = 0; code < other.byCategoryCode.length; code++) {
+            if (other.byCategoryCode[code] != null) {
+                categoryStatistics(code, null).merge(other.byCategoryCode[code]);
+            }
+        }
+        for (Map.Entry<String, PriceStatistics> entry : other.byCategoryName.entrySet()) {
+            byCategoryName.computeIfAbsent(entry.getKey(), key -> new PriceStatistics()).merge(entry.getValue());
+        }
+        for (PriceRange range : PriceRange.values()) {
+            if (other.byRange[range.ordinal()] != null) {
+                rangeStatistics(range).merge(other.byRange[range.ordinal()]);
+            }
+        }
+    }
+    
+    /**
+     * Gets the statistics of all products.
+     * 
+     * @return the total statistics
+     */
+    public PriceStatistics getTotal() {
+        // Every product has exactly one category, so the total is merged from them instead of recorded per row
+        PriceStatistics total = new PriceStatistics();
+        for (PriceStatistics statistics : byCategoryCode) {
+            if (statistics != null) {
+                total.merge(statistics);
+            }
+        }
+        for (PriceStatistics statistics : byCategoryName.values()) {
+            total.merge(statistics);
+        }
+        return total;
+    }
+    
+    /**
+     * Gets the statistics of one category.
+     * 
+     * @param category the category name
+     * @return the statistics, or null if no product had that category
+     */
+    public PriceStatistics getCategory(String category) {
+        // Looked up by name so that asking about an unseen category does not add it to the dictionary
+        CategoryDictionary dictionary = CategoryDictionary.shared();
+        for (int code = 0; code < byCategoryCode.length; code++) {
+            if (byCategoryCode[code] != null && dictionary.name(code).equals(category)) {
+                return byCategoryCode[code];
+            }
+        }
+        return byCategoryName.get(category == null ? "" : category);
+    }
+    
+    /**
+     * Gets the statistics of one price range.
+     * 
+     * @param range the price range
+     * @return the statistics, or null if no product was in that range
+     * @throws IllegalArgumentException if the range is null
+     */
+    public PriceStatistics getPriceRange(PriceRange range) {
+        if (range == null) {
+            throw new IllegalArgumentException("Price range cannot be null");
+        }
+        return byRange[range.ordinal()];
+    }
+    
+    /**
+     * Wraps a sink so every product is recorded before it is passed on.
+     * 
+     * @param downstream the sink receiving the products
+     * @return a sink recording each product into this summary
+     * @throws IllegalArgumentException if the downstream sink is null
+     */
+    public ProductSink summarizingSink(ProductSink downstream) {
+        if (downstream == null) {
+            throw new IllegalArgumentException("Downstream sink cannot be null");
+        }
+        
+        return new ProductSink() {
+            @Override
+            public void accept(Product product) throws IOException {
+                add(product);
+                downstream.accept(product);
+            }
+            
+            @Override
+            public void close() throws IOException {
+                downstream.close();
+            }
+        };
+    }
+    
+    /**
+     * Wraps a batch sink so every batch is recorded before it is passed on.
+     * 
+     * @param downstream the sink receiving the batches
+     * @return a sink recording each batch into this summary
+     * @throws IllegalArgumentException if the downstream sink is null
+     */
+    public ProductBatchSink summarizingBatchSink(ProductBatchSink downstream) {
+        if (downstream == null) {
+            throw new IllegalArgumentException("Downstream sink cannot be null");
+        }
+        
+        return new ProductBatchSink() {
+            @Override
+            public void accept(ProductBatch batch) throws IOException {
+                add(batch);
+                downstream.accept(batch);
+            }
+            
+            @Override
+            public void close() throws IOException {
+                downstream.close();
+            }
+        };
+    }
+    
+    /**
+     * Writes the summary report: a total row, then one row per category in
+     * name order, then one row per price range. Prices are in dollars with
+     * two decimals.
+     * 
+     * @param reportPath path of the report file to create or replace
+     * @throws IOException if the report cannot be written
+     * @throws IllegalArgumentException if the path is null or empty
+     */
+    public void writeReport(String reportPath) throws IOException {
+        if (reportPath == null || reportPath.trim().isEmpty()) {
+            throw new IllegalArgumentException("Report path cannot be null or empty");
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(REPORT_HEADER);
+        lines.add(reportRow("Total", "", getTotal()));
+        
+        Map<String, PriceStatistics> categories = new TreeMap<>(byCategoryName);
+        CategoryDictionary dictionary = CategoryDictionary.shared();
+        for (int code = 0; code < byCategoryCode.length; code++) {
+            if (byCategoryCode[code] != null) {
+                categories.put(dictionary.name(code), byCategoryCode[code]);
+            }
+        }
+        for (Map.Entry<String, PriceStatistics> entry : categories.entrySet()) {
+            lines.add(reportRow("Category", entry.getKey(), entry.getValue()));
+        }
+        for (PriceRange range : PriceRange.values()) {
+            if (byRange[range.ordinal()] != null) {
+                lines.add(reportRow("PriceRange", range.label(), byRange[range.ordinal()]));
+            }
+        }
+        
+        try {
+            Files.write(Paths.get(reportPath), lines, Charset.defaultCharset());
+        } catch (IOException e) {
+            throw new IOException("Failed to write to file: " + reportPath + ". " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Names the summary report of an output file by replacing its extension,
+     * and any compression extension, with {@link #REPORT_SUFFIX}.
+     * 
+     * @param outputFilePath path of the output file, e.g. data/transformed_products.csv.gz
+     * @return the report path, e.g. data/transformed_products_summary.csv
+     */
+    public static String reportPathFor(String outputFilePath) {
+        String path = CompressionCodec.stripExtension(outputFilePath);
+        int dot = path.lastIndexOf('.');
+        if (dot > Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'))) {
+            path = path.substring(0, dot);
+        }
+        return path + REPORT_SUFFIX;
+    }
+    
+    private static String reportRow(String group, String key, PriceStatistics statistics) {
+        StringBuilder row = new StringBuilder();
+        row.append(group).append(',').append(CsvSyntax.quote(key)).append(',').append(statistics.getCount());
+        appendPrice(row, statistics.getSum());
+        appendPrice(row, statistics.getMin());
+        appendPrice(row, statistics.getMax());
+        appendPrice(row, statistics.getMean());
+        for (double percentile : REPORT_PERCENTILES) {
+            appendPrice(row, statistics.getPercentile(percentile));
+        }
+        return row.toString();
+    }
+    
+    private static void appendPrice(StringBuilder row, double price) {
+        row.append(',').append(String.format(Locale.ROOT, "%.2f", price));
+    }
+    
+    private PriceStatistics categoryStatistics(int code, String category) {
+        if (code == CategoryDictionary.NO_CODE) {
+            return byCategoryName.computeIfAbsent(category == null ? "" : category, key -> new PriceStatistics());
+        }
+        if (code >= byCategoryCode.length) {
+            byCategoryCode = Arrays.copyOf(byCategoryCode, Math.max(code + 1, byCategoryCode.length * 2));
+        }
+        PriceStatistics statistics = byCategoryCode[code];
+        if (statistics == null) {
+            statistics = new PriceStatistics();
+            byCategoryCode[code] = statistics;
+        }
+        return statistics;
+    }
+    
+    private PriceStatistics rangeStatistics(PriceRange range) {
+        PriceStatistics statistics = byRange[range.ordinal()];
+        if (statistics == null) {
+            statistics = new PriceStatistics();
+            byRange[range.ordinal()] = statistics;
+        }
+        return statistics;
+    }
+}
@@ -0,0 +1,254 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * JUnit test class for ProductSummary and QuantileSketch.
+ * Checks that summaries and sketches built over any split of the input and
+ * merged answer exactly like one built over all of it, that percentiles are
+ * within the sketch's relative error of the exact values, and that every
+ * pipeline mode writes the same summary report.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class ProductSummaryTest {
+    
+    /** Largest relative error of a percentile: one part in 64 sub-buckets, about 1.6% */
+    private static final double MAX_RELATIVE_ERROR = 1.0 / 64;
+    
+    /** Percentiles checked against the exact values */
+    private static final double[] PERCENTILES = {0.1, 1, 10, 25, 50, 75, 90, 99, 99.9, 100};
+    
+    /** Numbers of parts the input is split into before merging */
+    private static final int[] PART_COUNTS = {1, 2, 3, 7, 16};
+    
+    /**
+     * Generates, reads and transforms products, so they carry cents, category codes and price ranges.
+     */
+    private static List<Product> transformedProducts(Path tempDir, int rows, long seed) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        ProductCsvGenerator generator = new ProductCsvGenerator(seed);
+        generator.setBoundaryRate(0.1);
+        generator.generate(input.toString(), rows);
+        return new DataTransformer().transform(new CSVReader().readProducts(input.toString()));
+    }
+    
+    /**
+     * Writes a summary's report and reads it back, so every statistic of every group is compared at once.
+     */
+    private static List<String> report(ProductSummary summary, Path tempDir) throws IOException {
+        Path report = tempDir.resolve("summary.csv");
+        summary.writeReport(report.toString());
+        return Files.readAllLines(report);
+    }
+    
+    /**
+     * Gets the exact value at a percentile of sorted values, by nearest rank as the sketch defines it.
+     */
+    private static long exactPercentile(long[] sorted, double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * sorted.length));
+        return sorted[(int) rank - 1];
+    }
+    
+    /**
+     * Checks that an approximate percentile is at or just above the exact value.
+     */
+    private static void assertWithinError(long exact, long value, String description) {
+        assertTrue(value >= exact && value - exact <= exact * MAX_RELATIVE_ERROR,
+                   description + " was " + value + ", exactly " + exact);
+    }
+    
+    /**
+     * Tests that summaries of the parts of the input, filled row by row or in
+     * batches and split contiguously or round robin, merge into the same
+     * report as one summary of the whole input.
+     */
+    @Test
+    @DisplayName("Test merging summaries")
+    public void testMergeSummaries(@TempDir Path tempDir) throws IOException {
+        List<Product> products = transformedProducts(tempDir, 20_000, 4);
+        ProductSummary whole = new ProductSummary();
+        for (Product product : products) {
+            whole.add(product);
+        }
+        List<String> expected = report(whole, tempDir);
+        
+        for (int partCount : PART_COUNTS) {
+            for (boolean roundRobin : new boolean[] {false, true}) {
+                ProductSummary[] parts = new ProductSummary[partCount];
+                ProductBatch[] batches = new ProductBatch[partCount];
+                for (int p = 0; p < partCount; p++) {
+                    parts[p] = new ProductSummary();
+                    batches[p] = new ProductBatch(64);
+                }
+                for (int i = 0; i < products.size(); i++) {
+                    int p = roundRobin ? i % partCount : (int) ((long) i * partCount / products.size());
+                    if (p % 2 == 0) {
+                        parts[p].add(products.get(i));
+                    } else {
+                        batches[p].add(products.get(i));
+                        if (batches[p].isFull()) {
+                            parts[p].add(batches[p]);
+                            batches[p].clear();
+                        }
+                    }
+                }
+                ProductSummary merged = new ProductSummary();
+                merged.merge(new ProductSummary());
+                for (int p = 0; p < partCount; p++) {
+                    parts[p].add(batches[p]);
+                    merged.merge(parts[p]);
+                }
+                
+                String description = partCount + (roundRobin ? " round-robin parts" : " contiguous parts");
+                assertEquals(expected, report(merged, tempDir), description);
+                assertEquals(products.size(), merged.getTotal().getCount(), description);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> whole.merge(null));
+    }
+    
+    /**
+     * Tests that sketches of the parts of the values merge into exactly the
+     * sketch of all of them, at every percentile.
+     */
+    @Test
+    @DisplayName("Test merging sketches")
+    public void testMergeSketches() {
+        Random random = new Random(5);
+        long[] values = new long[50_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * Math.log(1e9));
+        }
+        QuantileSketch whole = new QuantileSketch();
+        for (long value : values) {
+            whole.record(value);
+        }
+        
+        for (int partCount : PART_COUNTS) {
+            QuantileSketch[] parts = new QuantileSketch[partCount];
+            for (int p = 0; p < partCount; p++) {
+                parts[p] = new QuantileSketch();
+            }
+            // Contiguous parts, so each part's counts grow to a different length
+            for (int i = 0; i < values.length; i++) {
+                parts[(int) ((long) i * partCount / values.length)].record(values[i]);
+            }
+            QuantileSketch merged = new QuantileSketch();
+            for (int p = partCount - 1; p >= 0; p--) {
+                merged.merge(parts[p]);
+            }
+            assertEquals(whole.getCount(), merged.getCount(), partCount + " parts");
+            for (double percentile = 0; percentile <= 100; percentile += 0.5) {
+                assertEquals(whole.getValueAtPercentile(percentile), merged.getValueAtPercentile(percentile),
+                             partCount + " parts, p" + percentile);
+            }
+        }
+    }
+    
+    /**
+     * Tests sketch percentiles against the exact values of sorted samples
+     * spread over several orders of magnitude.
+     */
+    @Test
+    @DisplayName("Test sketch percentiles")
+    public void testSketchPercentiles() {
+        Random random = new Random(6);
+        long[] values = new long[200_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * Math.log(1e12));
+            sketch.record(values[i]);
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        
+        for (double percentile : PERCENTILES) {
+            assertWithinError(exactPercentile(sorted, percentile), sketch.getValueAtPercentile(percentile),
+                              "p" + percentile);
+        }
+        assertEquals(sorted[sorted.length - 1], sketch.getValueAtPercentile(100));
+        
+        QuantileSketch empty = new QuantileSketch();
+        assertEquals(0, empty.getValueAtPercentile(50));
+        empty.record(-3);
+        assertEquals(0, empty.getValueAtPercentile(100));
+    }
+    
+    /**
+     * Tests the price percentiles of the summary, overall and per category,
+     * against the exact percentiles of the sorted prices in cents.
+     */
+    @Test
+    @DisplayName("Test summary percentiles")
+    public void testSummaryPercentiles(@TempDir Path tempDir) throws IOException {
+        List<Product> products = transformedProducts(tempDir, 20_000, 7);
+        ProductSummary summary = new ProductSummary();
+        List<Long> all = new ArrayList<>();
+        List<Long> electronics = new ArrayList<>();
+        for (Product product : products) {
+            summary.add(product);
+            long cents = product.hasPriceCents() ? product.getPriceCents() : Math.round(product.getPrice() * 100);
+            all.add(cents);
+            if ("Electronics".equals(product.getCategory())) {
+                electronics.add(cents);
+            }
+        }
+        assertFalse(electronics.isEmpty());
+        
+        PriceStatistics[] statistics = {summary.getTotal(), summary.getCategory("Electronics")};
+        List<List<Long>> groups = List.of(all, electronics);
+        for (int g = 0; g < statistics.length; g++) {
+            long[] sorted = groups.get(g).stream().mapToLong(Long::longValue).sorted().toArray();
+            assertEquals(sorted.length, statistics[g].getCount());
+            assertEquals(sorted[0] / 100.0, statistics[g].getMin(), 1e-9);
+            assertEquals(sorted[sorted.length - 1] / 100.0, statistics[g].getMax(), 1e-9);
+            for (double percentile : PERCENTILES) {
+                long value = Math.round(statistics[g].getPercentile(percentile) * 100);
+                assertWithinError(exactPercentile(sorted, percentile), value, "group " + g + " p" + percentile);
+            }
+        }
+        assertNull(summary.getCategory("No such category"));
+    }
+    
+    /**
+     * Tests that the batch, streaming and pipelined modes write the same
+     * summary report as the list mode, which summarizes while writing.
+     */
+    @Test
+    @DisplayName("Test summary report of every mode")
+    public void testPipelineReports(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        ProductCsvGenerator generator = new ProductCsvGenerator(9);
+        generator.setMalformedRate(0.01);
+        generator.generate(input.toString(), 20_000);
+        ETLPipeline pipeline = new ETLPipeline();
+        pipeline.setSummaryReport(true);
+        
+        Path output = tempDir.resolve("list.csv");
+        pipeline.processProducts(input.toString(), output.toString());
+        List<String> expected = Files.readAllLines(Path.of(ProductSummary.reportPathFor(output.toString())));
+        assertEquals(report(pipeline.getLastSummary(), tempDir), expected);
+        assertTrue(expected.size() > 2, String.valueOf(expected));
+        
+        Path streaming = tempDir.resolve("streaming.csv");
+        pipeline.processProductsStreaming(input.toString(), streaming.toString());
+        Path pipelined = tempDir.resolve("pipelined.csv");
+        pipeline.processProductsPipelined(input.toString(), pipelined.toString());
+        for (Path file : new Path[] {streaming, pipelined}) {
+            assertEquals(expected, Files.readAllLines(Path.of(ProductSummary.reportPathFor(file.toString()))),
+                         file.toString());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable sketch of non-negative long values answering percentile queries
+ * with bounded relative error.
+ * 
+ * Values are bucketed exactly like {@link LatencyHistogram}, so percentiles
+ * are accurate to about 1.6%, but counts are plain longs in an array that
+ * only grows as far as the largest bucket used. That keeps a sketch cheap
+ * enough to hold one per group and per thread. Merging adds bucket counts,
+ * so sketches built separately and merged answer exactly like one sketch of
+ * all the values, however the work was split.
+ * 
+ * Not thread-safe; each thread records into its own sketch.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+final class QuantileSketch {
+    
+    /** Number of buckets the counts start with, covering values below 2^10 */
+    private static final int INITIAL_BUCKETS = 5 * 64;
+    
+    /** Value count per bucket, up to the largest bucket used */
+    private long[] counts = new long[INITIAL_BUCKETS];
+    
+    /** Number of recorded values */
+    private long count;
+    
+    /** Largest recorded value */
+    private long max;
+    
+    /**
+     * Records a value. Negative values are recorded as zero.
+     * 
+     * @param value the value
+     */
+    void record(long value) {
+        long sample = Math.max(0, value);
+        int index = LatencyHistogram.bucketIndex(sample);
+        if (index >= counts.length) {
+            grow(index);
+        }
+        counts[index]++;
+        count++;
+        max = Math.max(max, sample);
+    }
+    
+    /**
+     * Adds all values recorded by another sketch into this one.
+     * 
+     * @param other the sketch to merge in
+     */
+    void merge(QuantileSketch other) {
+        if (other.counts.length > counts.length) {
+            grow(other.counts.length - 1);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        max = Math.max(max, other.max);
+    }
+    
+    /**
+     * Gets the number of recorded values.
+     * 
+     * @return the value count
+     */
+    long getCount() {
+        return count;
+    }
+    
+    /**
+     * Gets the value at a percentile, accurate to the bucket resolution.
+     * 
+     * @param percentile the percentile between 0 and 100
+     * @return the highest value in the bucket holding that percentile, capped at the
+     *         maximum, or 0 if nothing was recorded
+     */
+    long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+    
+    private void grow(int index) {
+        int length = Math.min(LatencyHistogram.BUCKET_COUNT, Math.max(index + 1, counts.length * 2));
+        counts = Arrays.copyOf(counts, length);
+    }
+}
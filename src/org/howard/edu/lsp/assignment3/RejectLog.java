@@ -0,0 +1,174 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Records the rows rejected while reading one file.
+ * 
+ * Each rejected row is counted by reason in the metrics registry and either
+ * printed as a warning or, if a quarantine file is configured, appended to
+ * it with its line number, reason and original text. The quarantine file is
+ * CSV with the raw row quoted as a single field, so it reads back with the
+ * same CSV rules as the input. Once the share of rejected rows exceeds the maximum error
+ * ratio, reading fails instead of silently dropping most of a bad feed.
+ * 
+ * Rows are rejected through a reusable {@link Rejection} rather than an
+ * exception, so a feed with millions of malformed rows does not capture a
+ * stack trace per row.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+final class RejectLog implements Closeable {
+    
+    /** Header row of the quarantine file */
+    static final String QUARANTINE_HEADER = "LineNumber,Reason,Row";
+    
+    /** Number of rows read before the error ratio is enforced, so a few early rejects do not abort */
+    static final long MIN_ROWS_FOR_RATIO = 1000;
+    
+    /** Registry receiving counts of rejected rows by reason */
+    private final PipelineMetrics metrics;
+    
+    /** Path of the quarantine file, or null */
+    private final String quarantinePath;
+    
+    /** Writer of the quarantine file, or null to print warnings instead */
+    private final BufferedWriter quarantine;
+    
+    /** Largest tolerated share of rejected rows */
+    private final double maxErrorRatio;
+    
+    /** Number of rows accepted so far */
+    private long acceptedRows;
+    
+    /** Number of rows rejected so far */
+    private long rejectedRows;
+    
+    /**
+     * Reason and message of a rejected row, filled in by the parser.
+     * One instance is reused for every row parsed on a thread.
+     */
+    static final class Rejection {
+        
+        /** Why the row was rejected */
+        RejectReason reason;
+        
+        /** Warning message describing the problem */
+        String message;
+        
+        /**
+         * Records why a row was rejected.
+         * 
+         * @param reason the reject reason
+         * @param message the warning message
+         */
+        void set(RejectReason reason, String message) {
+            this.reason = reason;
+            this.message = message;
+        }
+    }
+    
+    /**
+     * Starts recording rejects, creating or truncating the quarantine file if there is one.
+     * 
+     * @param metrics the registry receiving counts of rejected rows by reason
+     * @param quarantinePath the quarantine file, or null to print warnings instead
+     * @param maxErrorRatio the largest tolerated share of rejected rows, between 0 and 1
+     * @throws IOException if the quarantine file cannot be created
+     */
+    RejectLog(PipelineMetrics metrics, String quarantinePath, double maxErrorRatio) throws IOException {
+        this.metrics = metrics;
+        this.quarantinePath = quarantinePath;
+        this.maxErrorRatio = maxErrorRatio;
+        if (quarantinePath == null) {
+            quarantine = null;
+            return;
+        }
+        try {
+            quarantine = Files.newBufferedWriter(Paths.get(quarantinePath), StandardCharsets.UTF_8);
+            quarantine.write(QUARANTINE_HEADER);
+            quarantine.newLine();
+        } catch (IOException e) {
+            throw new IOException("Failed to write to file: " + quarantinePath + ". " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Records a row that was parsed successfully.
+     */
+    void accept() {
+        acceptedRows++;
+    }
+    
+    /**
+     * Records a rejected row.
+     * 
+     * @param lineNumber the line number of the row
+     * @param rejection why the row was rejected
+     * @param row the trimmed text of the row
+     * @throws IOException if the quarantine file cannot be written or too many rows were rejected
+     */
+    void reject(int lineNumber, Rejection rejection, String row) throws IOException {
+        rejectedRows++;
+        metrics.incrementCounter("extract.errors." + rejection.reason.metricName(), 1);
+        if (quarantine == null) {
+            System.err.println("Warning: Skipping row " + lineNumber + " due to error: " + rejection.message);
+        } else {
+            try {
+                quarantine.write(Integer.toString(lineNumber));
+                quarantine.write(',');
+                quarantine.write(rejection.reason.metricName());
+                quarantine.write(',');
+                quarantine.write(CsvSyntax.quote(row));
+                quarantine.newLine();
+            } catch (IOException e) {
+                throw new IOException("Failed to write to file: " + quarantinePath + ". " + e.getMessage(), e);
+            }
+        }
+        
+        long rows = acceptedRows + rejectedRows;
+        if (rows >= MIN_ROWS_FOR_RATIO) {
+            checkRatio(rows);
+        }
+    }
+    
+    /**
+     * Checks the error ratio over the whole file once it has been read.
+     * 
+     * @throws IOException if too many rows were rejected
+     */
+    void finish() throws IOException {
+        checkRatio(acceptedRows + rejectedRows);
+        if (quarantine != null && rejectedRows > 0) {
+            System.err.println("Warning: Skipped " + rejectedRows + " rows; see " + quarantinePath);
+        }
+    }
+    
+    private void checkRatio(long rows) throws IOException {
+        if (rejectedRows > maxErrorRatio * rows) {
+            throw new IOException("Rejected " + rejectedRows + " of " + rows
+                                  + " rows, more than the maximum error ratio of " + maxErrorRatio);
+        }
+    }
+    
+    /**
+     * Gets the number of rows rejected so far.
+     * 
+     * @return the rejected row count
+     */
+    long getRejectedRows() {
+        return rejectedRows;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (quarantine != null) {
+            quarantine.close();
+        }
+    }
+}
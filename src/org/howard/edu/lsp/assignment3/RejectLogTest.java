@@ -0,0 +1,249 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * JUnit test class for RejectLog.
+ * Checks the quarantine file, the maximum error ratio and the warnings for
+ * rejected rows on the line, mapped and parallel reader paths.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class RejectLogTest {
+    
+    /** Chunk size of the parallel reader, small enough to split the test files many times */
+    private static final long CHUNK_SIZE = 64;
+    
+    /**
+     * Writes an input file from a header and rows.
+     */
+    private static Path writeInput(Path tempDir, List<String> rows) throws IOException {
+        Path input = tempDir.resolve("products.csv");
+        List<String> lines = new ArrayList<>();
+        lines.add("ProductID,Name,Price,Category");
+        lines.addAll(rows);
+        Files.write(input, lines, StandardCharsets.UTF_8);
+        return input;
+    }
+    
+    /**
+     * Builds rows that are valid except where the ID is a multiple of badEvery.
+     */
+    private static List<String> rows(int count, int badEvery) {
+        List<String> rows = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            rows.add(id + ",Item " + id + "," + (id % badEvery == 0 ? "bad" : id + ".00") + ",Books");
+        }
+        return rows;
+    }
+    
+    /**
+     * Tests that quarantined rows keep their line number in the whole file,
+     * counting line breaks inside quoted fields, on every reader path.
+     */
+    @Test
+    @DisplayName("Test quarantine line numbers")
+    public void testQuarantineLineNumbers(@TempDir Path tempDir) throws IOException {
+        List<String> rows = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        expected.add(RejectLog.QUARANTINE_HEADER);
+        int line = 1;
+        for (int id = 1; id <= 400; id++) {
+            String row;
+            String reason = null;
+            if (id % 7 == 0) {
+                row = id + ",\"Two\nlines\"," + id + ".00,Toys";
+            } else if (id % 13 == 0) {
+                row = id + ",Bad price,x" + id + ",Toys";
+                reason = "invalid_price";
+            } else if (id % 29 == 0) {
+                row = id + ",Missing category," + id + ".00";
+                reason = "insufficient_columns";
+            } else if (id % 31 == 0) {
+                row = id + ",,1.00,Toys";
+                reason = "empty_name";
+            } else {
+                row = id + ",Item " + id + "," + id + ".00,Toys";
+            }
+            line++;
+            if (reason != null) {
+                expected.add(line + "," + reason + "," + CsvSyntax.quote(row));
+            }
+            line += row.split("\n", -1).length - 1;
+            rows.add(row);
+        }
+        Path input = writeInput(tempDir, rows);
+        Path quarantine = tempDir.resolve("quarantine.csv");
+        
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Map.Entry<String, CSVReader> reader : TestProducts.readers(pool, CHUNK_SIZE).entrySet()) {
+                InMemoryPipelineMetrics metrics = new InMemoryPipelineMetrics();
+                reader.getValue().setMetrics(metrics);
+                reader.getValue().setQuarantineFile(quarantine.toString());
+                reader.getValue().readProducts(input.toString(), product -> { });
+                
+                assertEquals(expected, Files.readAllLines(quarantine, StandardCharsets.UTF_8), reader.getKey());
+                assertEquals(400 / 13 - 400 / (7 * 13), metrics.getCounter("extract.errors.invalid_price"),
+                             reader.getKey());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Tests that a read fails once the share of rejected rows exceeds the
+     * maximum error ratio, and succeeds at exactly the ratio.
+     */
+    @Test
+    @DisplayName("Test maximum error ratio threshold")
+    public void testErrorRatioThreshold(@TempDir Path tempDir) throws IOException {
+        Path input = writeInput(tempDir, rows(2000, 10));
+        
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Map.Entry<String, CSVReader> entry : TestProducts.readers(pool, CHUNK_SIZE).entrySet()) {
+                CSVReader reader = entry.getValue();
+                reader.setQuarantineFile(tempDir.resolve("quarantine.csv").toString());
+                
+                reader.setMaxErrorRatio(0.10);
+                assertEquals(1800, reader.readProducts(input.toString(), product -> { }), entry.getKey());
+                
+                reader.setMaxErrorRatio(0.09);
+                IOException e = assertThrows(IOException.class,
+                                             () -> reader.readProducts(input.toString(), product -> { }),
+                                             entry.getKey());
+                assertTrue(e.getMessage().contains("more than the maximum error ratio of 0.09"), e.getMessage());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Tests that a feed turning bad is stopped while it is read, not only at the end.
+     */
+    @Test
+    @DisplayName("Test error ratio aborts early")
+    public void testErrorRatioAbortsEarly(@TempDir Path tempDir) throws IOException {
+        List<String> rows = rows(1000, Integer.MAX_VALUE);
+        for (int id = 1001; id <= 5000; id++) {
+            rows.add(id + ",Item " + id + ",bad,Books");
+        }
+        Path input = writeInput(tempDir, rows);
+        
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Map.Entry<String, CSVReader> entry : TestProducts.readers(pool, CHUNK_SIZE).entrySet()) {
+                CSVReader reader = entry.getValue();
+                reader.setQuarantineFile(tempDir.resolve("quarantine.csv").toString());
+                reader.setMaxErrorRatio(0.5);
+                
+                IOException e = assertThrows(IOException.class,
+                                             () -> reader.readProducts(input.toString(), product -> { }),
+                                             entry.getKey());
+                assertTrue(e.getMessage().contains("Rejected 1001 of 2001 rows"),
+                           entry.getKey() + ": " + e.getMessage());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Tests that a few rejected rows at the start of a file do not abort it
+     * before enough rows were read to judge the ratio.
+     */
+    @Test
+    @DisplayName("Test early rejects are tolerated")
+    public void testEarlyRejectsTolerated(@TempDir Path tempDir) throws IOException {
+        List<String> rows = new ArrayList<>();
+        for (int id = 1; id <= 20; id++) {
+            rows.add(id + ",Item " + id + ",bad,Books");
+        }
+        for (int id = 21; id <= 2000; id++) {
+            rows.add(id + ",Item " + id + "," + id + ".00,Books");
+        }
+        Path input = writeInput(tempDir, rows);
+        
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Map.Entry<String, CSVReader> entry : TestProducts.readers(pool, CHUNK_SIZE).entrySet()) {
+                CSVReader reader = entry.getValue();
+                reader.setQuarantineFile(tempDir.resolve("quarantine.csv").toString());
+                reader.setMaxErrorRatio(0.015);
+                assertEquals(1980, reader.readProducts(input.toString(), product -> { }), entry.getKey());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Tests that warnings for invalid prices carry the message Double.parseDouble
+     * would have thrown, and that every path accepts and rejects the same prices.
+     */
+    @Test
+    @DisplayName("Test invalid price warnings")
+    public void testPriceWarnings(@TempDir Path tempDir) throws IOException {
+        String[] prices = {"", "abc", "1.2.3", "1..2", "1e", "1e5", "+5", "-0", "0x1p3", "NaN", "Infinity", "1e400",
+                           "12.5f", "\"1,5\"", "\"1,200.00\"", "5.", ".5", ".", "-", "0x", "1_000"};
+        List<String> rows = new ArrayList<>();
+        List<String> expectedWarnings = new ArrayList<>();
+        for (int i = 0; i < prices.length; i++) {
+            rows.add((i + 1) + ",Item," + prices[i] + ",Books");
+            String text = prices[i].replace("\"", "");
+            try {
+                Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                expectedWarnings.add("Warning: Skipping row " + (i + 2) + " due to error: Invalid price format in line "
+                                     + (i + 2) + ": " + e.getMessage());
+            }
+        }
+        Path input = writeInput(tempDir, rows);
+        
+        PrintStream originalErr = System.err;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<String> expectedProducts = null;
+            for (Map.Entry<String, CSVReader> entry : TestProducts.readers(pool, CHUNK_SIZE).entrySet()) {
+                ByteArrayOutputStream err = new ByteArrayOutputStream();
+                System.setErr(new PrintStream(err, true, "UTF-8"));
+                List<String> products = new ArrayList<>();
+                entry.getValue().readProducts(input.toString(), product -> products.add(product.getProductId()));
+                System.setErr(originalErr);
+                
+                List<String> warnings = new ArrayList<>();
+                for (String warning : new String(err.toByteArray(), StandardCharsets.UTF_8).split("\\R")) {
+                    if (warning.contains("Invalid price format")) {
+                        warnings.add(warning);
+                    }
+                }
+                assertEquals(expectedWarnings, warnings, entry.getKey());
+                if (expectedProducts == null) {
+                    expectedProducts = products;
+                } else {
+                    assertEquals(expectedProducts, products, entry.getKey());
+                }
+            }
+        } finally {
+            System.setErr(originalErr);
+            pool.shutdown();
+        }
+    }
+}
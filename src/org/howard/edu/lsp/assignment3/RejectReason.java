@@ -0,0 +1,44 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.util.Locale;
+
+/**
+ * Reasons an input row can be rejected while reading products.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public enum RejectReason {
+    
+    /** The row has fewer columns than expected */
+    INSUFFICIENT_COLUMNS,
+    
+    /** The price column is not a valid number */
+    INVALID_PRICE,
+    
+    /** The price is negative */
+    NEGATIVE_PRICE,
+    
+    /** The product ID column is blank */
+    EMPTY_PRODUCT_ID,
+    
+    /** The name column is blank */
+    EMPTY_NAME,
+    
+    /** The category column is blank */
+    EMPTY_CATEGORY,
+    
+    /** A quoted field is never closed before the end of the file */
+    UNTERMINATED_QUOTE,
+    
+    /** Any other failure */
+    OTHER;
+    
+    /**
+     * Gets the name used for this reason in metrics and reports.
+     * 
+     * @return the lowercase reason name, e.g. "invalid_price"
+     */
+    public String metricName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,239 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Temporary files that hold products while a stage works on more rows than
+ * fit in memory.
+ * 
+ * The files live in a private directory created on first use under a parent
+ * directory and deleted with everything in it on close. Each row holds its
+ * position in the input followed by the product's fields, so a stage can
+ * restore input order or break ties by it when reading rows back.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+final class SpillFiles implements Closeable {
+    
+    /** Buffer size of each spill file stream */
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    /** Length written in place of a null string */
+    private static final int NULL_LENGTH = -1;
+    
+    /**
+     * Receives rows with their input position, as read back from spill files.
+     */
+    interface RowSink {
+        
+        /**
+         * Accepts a row.
+         * 
+         * @param seq the position of the row in the input
+         * @param product the product
+         * @throws IOException if the row cannot be written
+         */
+        void accept(long seq, Product product) throws IOException;
+    }
+    
+    /** Directory under which the private directory is created */
+    private final Path parent;
+    
+    /** Name prefix of the private directory */
+    private final String prefix;
+    
+    /** Private directory holding the files, or null until the first file is created */
+    private Path directory;
+    
+    /**
+     * Prepares to create spill files. Nothing is created until the first call to {@link #create()}.
+     * 
+     * @param parent the directory under which spill files are created, or null for the
+     *        system temporary directory
+     * @param prefix name prefix of the private directory, identifying the stage using it
+     */
+    SpillFiles(Path parent, String prefix) {
+        this.parent = parent != null ? parent : Paths.get(System.getProperty("java.io.tmpdir"));
+        this.prefix = prefix;
+    }
+    
+    /**
+     * Creates a new empty spill file.
+     * 
+     * @return the path of the file
+     * @throws IOException if the file cannot be created
+     */
+    Path create() throws IOException {
+        try {
+            if (directory == null) {
+                directory = Files.createTempDirectory(parent, prefix);
+            }
+            return Files.createTempFile(directory, "spill-", ".bin");
+        } catch (IOException e) {
+            throw new IOException("Failed to write to file: " + parent + ". " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Deletes all spill files and their directory.
+     * 
+     * @throws IOException if a file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+        directory = null;
+    }
+    
+    /**
+     * Opens a spill file for writing, replacing its contents.
+     * 
+     * @param file the spill file
+     * @return a buffered stream writing to the file
+     * @throws IOException if the file cannot be opened
+     */
+    static DataOutputStream openWriter(Path file) throws IOException {
+        try {
+            return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+        } catch (IOException e) {
+            throw new IOException("Failed to write to file: " + file + ". " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Flushes and closes a spill file opened with {@link #openWriter}.
+     * 
+     * @param out the stream writing to the file
+     * @param file the spill file, named in the error message
+     * @throws IOException if the file cannot be written
+     */
+    static void closeWriter(DataOutputStream out, Path file) throws IOException {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new IOException("Failed to write to file: " + file + ". " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Opens a spill file for reading.
+     * 
+     * @param file the spill file
+     * @return a buffered stream reading the file
+     * @throws IOException if the file cannot be opened
+     */
+    static DataInputStream openReader(Path file) throws IOException {
+        try {
+            return new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+        } catch (IOException e) {
+            throw new IOException("Failed to read file: " + file + ". " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Writes a row: its input position, then the product's ID, name,
+     * category, dollar price, price in cents and price range.
+     * 
+     * @param out the stream writing to the file
+     * @param file the spill file, named in the error message
+     * @param seq the position of the row in the input
+     * @param product the product
+     * @throws IOException if the file cannot be written
+     */
+    static void writeRow(DataOutputStream out, Path file, long seq, Product product) throws IOException {
+        try {
+            out.writeLong(seq);
+            writeString(out, product.getProductId());
+            writeString(out, product.getName());
+            writeString(out, product.getCategory());
+            out.writeDouble(product.getPrice());
+            out.writeLong(product.getPriceCents());
+            writeString(out, product.getPriceRange());
+        } catch (IOException e) {
+            throw new IOException("Failed to write to file: " + file + ". " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Reads the input position that starts a row.
+     * 
+     * @param in the stream reading the file
+     * @param file the spill file, named in the error message
+     * @return the position of the row in the input
+     * @throws IOException if the file cannot be read
+     */
+    static long readSeq(DataInputStream in, Path file) throws IOException {
+        try {
+            return in.readLong();
+        } catch (IOException e) {
+            throw new IOException("Failed to read file: " + file + ". " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Reads the product that follows a row's input position.
+     * 
+     * @param in the stream reading the file
+     * @param file the spill file, named in the error message
+     * @return the product, equal to the one written
+     * @throws IOException if the file cannot be read
+     */
+    static Product readProduct(DataInputStream in, Path file) throws IOException {
+        try {
+            String id = readString(in);
+            String name = readString(in);
+            String category = readString(in);
+            double price = in.readDouble();
+            long priceCents = in.readLong();
+            String priceRange = readString(in);
+            Product product = new Product(id, name, price, category);
+            if (priceCents != FixedPointPrice.UNKNOWN) {
+                product.setPriceCents(priceCents);
+            }
+            if (priceRange != null) {
+                product.setPriceRange(priceRange);
+            }
+            return product;
+        } catch (IOException e) {
+            throw new IOException("Failed to read file: " + file + ". " + e.getMessage(), e);
+        }
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
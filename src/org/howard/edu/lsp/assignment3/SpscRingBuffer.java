@@ -0,0 +1,261 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free queue connecting exactly one producer thread to exactly
+ * one consumer thread.
+ * 
+ * Each side only ever writes its own index, so handing an element over costs
+ * one array store and one volatile write and never takes a lock. A full queue
+ * blocks the producer and an empty one blocks the consumer, which is what
+ * applies backpressure between pipeline stages. Blocked threads spin briefly
+ * and then park until the other side signals them.
+ * 
+ * The producer calls {@link #close()} after its last element; the consumer
+ * then drains the queue and gets null. Either side, or a third thread, may
+ * call {@link #abort()} to make both sides fail instead of waiting.
+ * 
+ * @param <T> the element type
+ * @author Kafilat Sarki-Umar
+ */
+final class SpscRingBuffer<T> {
+    
+    /** Number of times a blocked thread retries before parking */
+    private static final int SPIN_LIMIT = 64;
+    
+    /** Longest a blocked thread parks before checking again, guarding against missed signals */
+    private static final long MAX_PARK_NANOS = 1_000_000L;
+    
+    /** Element slots, indexed by sequence number modulo their length */
+    private final Object[] slots;
+    
+    /** Mask turning a sequence number into a slot index */
+    private final int mask;
+    
+    /** Sequence number of the next element to take; written by the consumer only */
+    private final AtomicLong head = new AtomicLong();
+    
+    /** Sequence number of the next element to put; written by the producer only */
+    private final AtomicLong tail = new AtomicLong();
+    
+    /** Producer's last view of head, refreshed only when the queue looks full */
+    private long cachedHead;
+    
+    /** Consumer's last view of tail, refreshed only when the queue looks empty */
+    private long cachedTail;
+    
+    /** Producer thread while it is parked, otherwise null */
+    private volatile Thread parkedProducer;
+    
+    /** Consumer thread while it is parked, otherwise null */
+    private volatile Thread parkedConsumer;
+    
+    /** Whether the producer has put its last element */
+    private volatile boolean closed;
+    
+    /** Whether the pipeline has failed and both sides must stop */
+    private volatile boolean aborted;
+    
+    /** Nanoseconds the producer spent waiting for space */
+    private long producerWaitNanos;
+    
+    /** Nanoseconds the consumer spent waiting for elements */
+    private long consumerWaitNanos;
+    
+    /**
+     * Constructs a queue.
+     * 
+     * @param capacity the minimum number of elements held, rounded up to a power of two
+     * @throws IllegalArgumentException if the capacity is not positive or too large
+     */
+    SpscRingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Ring buffer capacity must be between 1 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new Object[size];
+        this.mask = size - 1;
+    }
+    
+    /**
+     * Adds an element if there is space. Producer only.
+     * 
+     * @param element the element to add
+     * @return true if the element was added, false if the queue is full
+     */
+    boolean offer(T element) {
+        long sequence = tail.get();
+        if (sequence - cachedHead == slots.length) {
+            cachedHead = head.get();
+            if (sequence - cachedHead == slots.length) {
+                return false;
+            }
+        }
+        slots[(int) sequence & mask] = element;
+        tail.set(sequence + 1);
+        
+        Thread consumer = parkedConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+    
+    /**
+     * Removes the next element if there is one. Consumer only.
+     * 
+     * @return the next element, or null if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    T poll() {
+        long sequence = head.get();
+        if (sequence == cachedTail) {
+            cachedTail = tail.get();
+            if (sequence == cachedTail) {
+                return null;
+            }
+        }
+        int index = (int) sequence & mask;
+        T element = (T) slots[index];
+        slots[index] = null;
+        head.set(sequence + 1);
+        
+        Thread producer = parkedProducer;
+        if (producer != null) {
+            LockSupport.unpark(producer);
+        }
+        return element;
+    }
+    
+    /**
+     * Adds an element, waiting for space if the queue is full. Producer only.
+     * 
+     * @param element the element to add
+     * @throws IOException if the queue is aborted or the thread is interrupted while waiting
+     */
+    void put(T element) throws IOException {
+        if (offer(element)) {
+            return;
+        }
+        
+        long start = System.nanoTime();
+        for (int attempt = 0; !offer(element); attempt++) {
+            checkAborted();
+            if (attempt < SPIN_LIMIT) {
+                Thread.onSpinWait();
+                continue;
+            }
+            parkedProducer = Thread.currentThread();
+            if (offer(element)) {
+                parkedProducer = null;
+                break;
+            }
+            LockSupport.parkNanos(this, MAX_PARK_NANOS);
+            parkedProducer = null;
+        }
+        producerWaitNanos += System.nanoTime() - start;
+    }
+    
+    /**
+     * Removes the next element, waiting for one if the queue is empty. Consumer only.
+     * 
+     * @return the next element, or null once the queue is closed and drained
+     * @throws IOException if the queue is aborted or the thread is interrupted while waiting
+     */
+    T take() throws IOException {
+        T element = poll();
+        if (element != null) {
+            return element;
+        }
+        
+        long start = System.nanoTime();
+        for (int attempt = 0; (element = poll()) == null; attempt++) {
+            checkAborted();
+            if (closed) {
+                // The producer may have put its last element just before closing
+                element = poll();
+                break;
+            }
+            if (attempt < SPIN_LIMIT) {
+                Thread.onSpinWait();
+                continue;
+            }
+            parkedConsumer = Thread.currentThread();
+            element = poll();
+            if (element != null || closed) {
+                parkedConsumer = null;
+                if (element == null) {
+                    element = poll();
+                }
+                break;
+            }
+            LockSupport.parkNanos(this, MAX_PARK_NANOS);
+            parkedConsumer = null;
+        }
+        consumerWaitNanos += System.nanoTime() - start;
+        return element;
+    }
+    
+    /**
+     * Marks the end of the stream. Producer only, after its last element.
+     */
+    void close() {
+        closed = true;
+        Thread consumer = parkedConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+    
+    /**
+     * Makes every current and future wait on this queue fail. Any thread.
+     */
+    void abort() {
+        aborted = true;
+        Thread producer = parkedProducer;
+        if (producer != null) {
+            LockSupport.unpark(producer);
+        }
+        Thread consumer = parkedConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+    
+    /**
+     * Gets the time the producer spent blocked on a full queue.
+     * Only accurate once the producer has finished.
+     * 
+     * @return the wait time in nanoseconds
+     */
+    long getProducerWaitNanos() {
+        return producerWaitNanos;
+    }
+    
+    /**
+     * Gets the time the consumer spent blocked on an empty queue.
+     * Only accurate once the consumer has finished.
+     * 
+     * @return the wait time in nanoseconds
+     */
+    long getConsumerWaitNanos() {
+        return consumerWaitNanos;
+    }
+    
+    private void checkAborted() throws IOException {
+        if (aborted) {
+            throw new IOException("Pipeline stage aborted");
+        }
+        if (Thread.interrupted()) {
+            abort();
+            throw new InterruptedIOException("Interrupted while waiting for pipeline stage");
+        }
+    }
+}
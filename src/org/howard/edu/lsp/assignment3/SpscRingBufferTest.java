@@ -0,0 +1,215 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JUnit test class for SpscRingBuffer.
+ * Checks that one producer and one consumer hand over millions of elements
+ * in order through a queue far smaller than the stream, that closing ends
+ * the stream once it is drained, and that aborting or interrupting wakes a
+ * blocked side with an IOException.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class SpscRingBufferTest {
+    
+    /** Longest a test waits for another thread, in seconds */
+    private static final long TIMEOUT_SECONDS = 30;
+    
+    /**
+     * A task running on its own thread.
+     */
+    private static final class Stage<T> {
+        
+        /** The task, holding its result or failure */
+        final FutureTask<T> task;
+        
+        /** The thread running the task */
+        final Thread thread;
+        
+        /**
+         * Starts a task on a new thread.
+         */
+        Stage(String name, Callable<T> body) {
+            task = new FutureTask<>(body);
+            thread = new Thread(task, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        
+        /**
+         * Waits for the task to finish.
+         */
+        T get() throws Exception {
+            return task.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        
+        /**
+         * Waits for the task to fail and gets the cause.
+         */
+        Throwable failure() {
+            ExecutionException e = assertThrows(ExecutionException.class, this::get);
+            return e.getCause();
+        }
+        
+        /**
+         * Waits until the thread has stopped spinning and parked.
+         */
+        void awaitParked() throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+            while (thread.getState() != Thread.State.TIMED_WAITING && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(Thread.State.TIMED_WAITING, thread.getState(), thread.getName() + " did not block");
+        }
+    }
+    
+    /**
+     * Tests millions of elements handed over in order through queues of a
+     * few slots, so both sides repeatedly wait for each other.
+     */
+    @Test
+    @DisplayName("Test ordered hand-over")
+    public void testOrderedHandOff() throws Exception {
+        // Fewer elements through the smallest queues, where nearly every hand-over parks a thread
+        int[][] capacitiesAndCounts = {{1, 100_000}, {4, 300_000}, {64, 2_000_000}};
+        for (int[] capacityAndCount : capacitiesAndCounts) {
+            int capacity = capacityAndCount[0];
+            int count = capacityAndCount[1];
+            SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(capacity);
+            Stage<Void> producer = new Stage<>("producer", () -> {
+                for (int i = 0; i < count; i++) {
+                    ring.put(i);
+                }
+                ring.close();
+                return null;
+            });
+            
+            int expected = 0;
+            Integer element;
+            while ((element = ring.take()) != null) {
+                if (element != expected) {
+                    fail("Expected " + expected + " but took " + element + " with capacity " + capacity);
+                }
+                expected++;
+            }
+            producer.get();
+            assertEquals(count, expected, "capacity " + capacity);
+            assertNull(ring.take());
+        }
+    }
+    
+    /**
+     * Tests that capacities are rounded up to a power of two and that offer
+     * and poll do not wait.
+     */
+    @Test
+    @DisplayName("Test capacity and non-blocking calls")
+    public void testCapacity() {
+        SpscRingBuffer<String> ring = new SpscRingBuffer<>(3);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer("item " + i), "item " + i);
+        }
+        assertFalse(ring.offer("item 4"));
+        assertEquals("item 0", ring.poll());
+        assertTrue(ring.offer("item 4"));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals("item " + i, ring.poll());
+        }
+        assertNull(ring.poll());
+        
+        assertThrows(IllegalArgumentException.class, () -> new SpscRingBuffer<>(0));
+        assertThrows(IllegalArgumentException.class, () -> new SpscRingBuffer<>((1 << 30) + 1));
+    }
+    
+    /**
+     * Tests that take returns the remaining elements after close and then null,
+     * and that close wakes a consumer blocked on an empty queue.
+     */
+    @Test
+    @DisplayName("Test take after close")
+    public void testTakeAfterClose() throws Exception {
+        SpscRingBuffer<String> ring = new SpscRingBuffer<>(4);
+        ring.put("a");
+        ring.put("b");
+        ring.close();
+        assertEquals("a", ring.take());
+        assertEquals("b", ring.take());
+        assertNull(ring.take());
+        assertNull(ring.take());
+        
+        SpscRingBuffer<String> empty = new SpscRingBuffer<>(4);
+        Stage<String> consumer = new Stage<>("consumer", empty::take);
+        consumer.awaitParked();
+        empty.close();
+        assertNull(consumer.get());
+    }
+    
+    /**
+     * Tests that abort wakes a consumer blocked on an empty queue.
+     */
+    @Test
+    @DisplayName("Test abort wakes a blocked take")
+    public void testAbortTake() throws Exception {
+        SpscRingBuffer<String> ring = new SpscRingBuffer<>(4);
+        Stage<String> consumer = new Stage<>("consumer", ring::take);
+        consumer.awaitParked();
+        ring.abort();
+        
+        Throwable cause = consumer.failure();
+        assertTrue(cause instanceof IOException, String.valueOf(cause));
+        assertEquals("Pipeline stage aborted", cause.getMessage());
+    }
+    
+    /**
+     * Tests that abort wakes a producer blocked on a full queue, and that
+     * every later wait fails too.
+     */
+    @Test
+    @DisplayName("Test abort wakes a blocked put")
+    public void testAbortPut() throws Exception {
+        SpscRingBuffer<String> ring = new SpscRingBuffer<>(2);
+        ring.put("a");
+        ring.put("b");
+        Stage<Void> producer = new Stage<>("producer", () -> {
+            ring.put("c");
+            return null;
+        });
+        producer.awaitParked();
+        ring.abort();
+        
+        Throwable cause = producer.failure();
+        assertTrue(cause instanceof IOException, String.valueOf(cause));
+        assertThrows(IOException.class, () -> ring.put("d"));
+        assertEquals("a", ring.take());
+        assertEquals("b", ring.take());
+        assertThrows(IOException.class, ring::take);
+    }
+    
+    /**
+     * Tests that interrupting a blocked side fails it with an
+     * InterruptedIOException and aborts the queue for the other side.
+     */
+    @Test
+    @DisplayName("Test interrupt while blocked")
+    public void testInterrupt() throws Exception {
+        SpscRingBuffer<String> ring = new SpscRingBuffer<>(1);
+        Stage<String> consumer = new Stage<>("consumer", ring::take);
+        consumer.awaitParked();
+        consumer.thread.interrupt();
+        
+        Throwable cause = consumer.failure();
+        assertTrue(cause instanceof InterruptedIOException, String.valueOf(cause));
+        ring.put("a");
+        assertThrows(IOException.class, () -> ring.put("b"));
+    }
+}
@@ -0,0 +1,107 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures one pipeline stage from construction until {@link #finish} and
+ * reports its duration, throughput, GC activity and allocation to a registry.
+ * 
+ * Allocation is summed over all live threads, so work done on pool threads is
+ * included; threads that exit during the stage are not counted.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+class StageRecorder {
+    
+    /** Registry receiving the stage metrics */
+    private final PipelineMetrics metrics;
+    
+    /** Metric name prefix, e.g. "extract" */
+    private final String stage;
+    
+    /** Time the stage started */
+    private final long startNanos;
+    
+    /** GC collection count when the stage started */
+    private final long startGcCount;
+    
+    /** GC time when the stage started */
+    private final long startGcMillis;
+    
+    /** Bytes allocated by all threads when the stage started, or -1 if unavailable */
+    private final long startAllocatedBytes;
+    
+    /**
+     * Starts measuring a stage.
+     * 
+     * @param metrics the registry to report to
+     * @param stage the metric name prefix for the stage
+     */
+    StageRecorder(PipelineMetrics metrics, String stage) {
+        this.metrics = metrics;
+        this.stage = stage;
+        this.startGcCount = gcCount();
+        this.startGcMillis = gcMillis();
+        this.startAllocatedBytes = allocatedBytes();
+        this.startNanos = System.nanoTime();
+    }
+    
+    /**
+     * Stops measuring and reports the stage metrics.
+     * 
+     * @param rows the number of rows the stage produced
+     */
+    void finish(long rows) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        
+        metrics.incrementCounter(stage + ".rows", rows);
+        metrics.recordValue(stage + ".duration_ns", elapsedNanos);
+        metrics.setGauge(stage + ".rows_per_sec", elapsedNanos == 0 ? 0.0 : rows * 1e9 / elapsedNanos);
+        metrics.incrementCounter(stage + ".gc.count", gcCount() - startGcCount);
+        metrics.incrementCounter(stage + ".gc.time_ms", gcMillis() - startGcMillis);
+        if (startAllocatedBytes >= 0) {
+            metrics.incrementCounter(stage + ".allocated_bytes", allocatedBytes() - startAllocatedBytes);
+        }
+    }
+    
+    /**
+     * Gets the total number of collections across all collectors.
+     */
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+    
+    /**
+     * Gets the total collection time across all collectors.
+     */
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+    
+    /**
+     * Gets the bytes allocated so far by all live threads, or -1 if the JVM cannot report it.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        long total = 0;
+        for (long bytes : ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(bean.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,130 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Products, readers and checks shared by the JUnit test classes.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+final class TestProducts {
+    
+    /** Categories drawn by the generated rows, including a missing one */
+    private static final String[] CATEGORIES = {"Electronics", "Books", "Toys", null, "Education"};
+    
+    /**
+     * Utility class; not instantiable.
+     */
+    private TestProducts() {
+    }
+    
+    /**
+     * Generates rows drawing IDs at random from a pool and their other keys
+     * from a few values each, so IDs repeat and every sort key has long runs
+     * of equal values. Some names need quoting and a few names and categories
+     * are missing. Each row carries its input position in the price range,
+     * which no sort order or duplicate policy compares, so any reordering or
+     * mix-up of rows shows in {@link #describe(Product)}.
+     * 
+     * @param count the number of rows
+     * @param distinctIds the size of the ID pool
+     * @param seed the random seed
+     * @return the generated products
+     */
+    static List<Product> products(int count, int distinctIds, long seed) {
+        Random random = new Random(seed);
+        List<Product> products = new ArrayList<>();
+        for (int row = 0; row < count; row++) {
+            String id = "P" + random.nextInt(distinctIds);
+            String name = row % 97 == 0 ? null
+                          : "Row " + random.nextInt(20) + (row % 50 == 0 ? ", \"quoted\"\nand caf\u00e9" : "");
+            long cents = random.nextInt(12) * 250;
+            Product product = new Product(id, name, cents / 100.0, CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            if (row % 3 != 0) {
+                product.setPriceCents(cents);
+            }
+            product.setPriceRange("#" + row);
+            products.add(product);
+        }
+        return products;
+    }
+    
+    /**
+     * Describes a product with every field, so comparisons see cents,
+     * categories and price ranges too.
+     * 
+     * @param product the product
+     * @return the fields separated by bars, with "-" for unknown cents
+     */
+    static String describe(Product product) {
+        return describeIgnoringCents(product) + "|" + (product.hasPriceCents() ? product.getPriceCents() : "-");
+    }
+    
+    /**
+     * Describes a product with every field but the exact cents, for formats
+     * that store only the double price.
+     * 
+     * @param product the product
+     * @return the fields separated by bars
+     */
+    static String describeIgnoringCents(Product product) {
+        return product.getProductId() + "|" + product.getName() + "|" + product.getPrice() + "|"
+               + product.getCategory() + "|" + product.getPriceRange();
+    }
+    
+    /**
+     * Describes every product in a list with {@link #describe(Product)}.
+     * 
+     * @param products the products
+     * @return the descriptions in list order
+     */
+    static List<String> describe(List<Product> products) {
+        List<String> described = new ArrayList<>();
+        for (Product product : products) {
+            described.add(describe(product));
+        }
+        return described;
+    }
+    
+    /**
+     * Creates the line, mapped and parallel readers, by name, so every reader
+     * path can be checked against the same expectations.
+     * 
+     * @param pool the pool of the parallel readers
+     * @param chunkSizes the chunk size of each parallel reader, small enough to split the test files
+     * @return the readers keyed by a description
+     */
+    static Map<String, CSVReader> readers(ForkJoinPool pool, long... chunkSizes) {
+        Map<String, CSVReader> readers = new LinkedHashMap<>();
+        readers.put("line", new CSVReader(Long.MAX_VALUE));
+        readers.put("mapped", new CSVReader(0));
+        for (long chunkSize : chunkSizes) {
+            readers.put("parallel with " + chunkSize + "-byte chunks", new CSVReader(0, pool, chunkSize));
+        }
+        return readers;
+    }
+    
+    /**
+     * Lists the files left under a directory, to check that temporary files are deleted.
+     * 
+     * @param directory the directory
+     * @return every file and directory below it
+     * @throws IOException if the directory cannot be listed
+     */
+    static List<Path> leftovers(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            List<Path> left = new ArrayList<>();
+            files.filter(file -> !file.equals(directory)).forEach(left::add);
+            return left;
+        }
+    }
+}
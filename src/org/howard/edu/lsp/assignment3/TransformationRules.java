@@ -0,0 +1,408 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Business rules applied by {@link DataTransformer}, compiled into a flat
+ * decision table.
+ * 
+ * Rules are given per category: a discount rate, and a price threshold above
+ * which the product moves to another category. A single ladder of upper
+ * limits assigns the price range. At load time every category named in the
+ * rules is encoded in the shared {@link CategoryDictionary} and its rule is
+ * written into arrays indexed by category code, so evaluating a row is one
+ * array lookup whatever the number of rules.
+ * 
+ * Rules are read from a properties file:
+ * <pre>
+ * category.Electronics.discount=0.10
+ * category.Electronics.premium.threshold=500.00
+ * category.Electronics.premium.category=Premium Electronics
+ * range.low.max=10.00
+ * range.medium.max=100.00
+ * range.high.max=500.00
+ * </pre>
+ * Spaces in category names must be escaped in keys ({@code category.Home\ Goods.discount}).
+ * A file with any category rules replaces the default category rules
+ * entirely; range limits that are not given keep their defaults.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public final class TransformationRules {
+    
+    /** Default discount rate applied to Electronics (10%) */
+    private static final double DEFAULT_DISCOUNT_RATE = 0.10;
+    
+    /** Default price threshold for Premium Electronics classification */
+    private static final double DEFAULT_PREMIUM_THRESHOLD = 500.00;
+    
+    /** Default highest prices of the Low, Medium and High ranges */
+    private static final double[] DEFAULT_RANGE_LIMITS = {10.00, 100.00, 500.00};
+    
+    /** Prefix of per-category rule keys */
+    private static final String CATEGORY_PREFIX = "category.";
+    
+    /** Suffix of discount rule keys */
+    private static final String DISCOUNT_SUFFIX = ".discount";
+    
+    /** Suffix of promotion threshold keys */
+    private static final String THRESHOLD_SUFFIX = ".premium.threshold";
+    
+    /** Suffix of promotion target keys */
+    private static final String TARGET_SUFFIX = ".premium.category";
+    
+    /** Keys of the range limits, in ladder order */
+    private static final String[] RANGE_KEYS = {"range.low.max", "range.medium.max", "range.high.max"};
+    
+    /** Rules with the original hard-coded behaviour */
+    private static final TransformationRules DEFAULTS = createDefaults();
+    
+    /**
+     * Rule for one category while the rules are being read.
+     */
+    private static final class CategoryRule {
+        
+        /** Discount as a fraction, 0 for none */
+        double discountRate;
+        
+        /** Price above which the product is moved, or NaN for never */
+        double threshold = Double.NaN;
+        
+        /** Category the product is moved to, or null for none */
+        String target;
+    }
+    
+    /** Discount rates indexed by category code */
+    private final double[] discountRates;
+    
+    /** Discount rates in basis points indexed by category code, -1 if not a whole number of them */
+    private final long[] discountBasisPoints;
+    
+    /** Promotion thresholds indexed by category code, infinite for never */
+    private final double[] promotionThresholds;
+    
+    /** Promotion target codes indexed by category code, NO_CODE for none */
+    private final int[] promotionCodes;
+    
+    /** Highest prices of the Low, Medium and High ranges */
+    private final double[] rangeLimits;
+    
+    /** Hash of the rules independent of category code assignment */
+    private final long fingerprint;
+    
+    /**
+     * Compiles rules into the decision table.
+     * 
+     * @param rules the rules by category name
+     * @param rangeLimits the highest prices of the Low, Medium and High ranges
+     * @throws IllegalArgumentException if a category cannot be encoded
+     */
+    private TransformationRules(Map<String, CategoryRule> rules, double[] rangeLimits) {
+        CategoryDictionary dictionary = CategoryDictionary.shared();
+        int[] codes = new int[rules.size()];
+        int[] targets = new int[rules.size()];
+        int tableSize = 0;
+        int index = 0;
+        for (Map.Entry<String, CategoryRule> entry : rules.entrySet()) {
+            codes[index] = encode(dictionary, entry.getKey());
+            targets[index] = entry.getValue().target == null ? CategoryDictionary.NO_CODE
+                                                            : encode(dictionary, entry.getValue().target);
+            tableSize = Math.max(tableSize, codes[index] + 1);
+            index++;
+        }
+        
+        this.discountRates = new double[tableSize];
+        this.discountBasisPoints = new long[tableSize];
+        this.promotionThresholds = new double[tableSize];
+        this.promotionCodes = new int[tableSize];
+        Arrays.fill(promotionThresholds, Double.POSITIVE_INFINITY);
+        Arrays.fill(promotionCodes, CategoryDictionary.NO_CODE);
+        
+        StringBuilder canonical = new StringBuilder();
+        index = 0;
+        for (Map.Entry<String, CategoryRule> entry : rules.entrySet()) {
+            CategoryRule rule = entry.getValue();
+            int code = codes[index];
+            discountRates[code] = rule.discountRate;
+            discountBasisPoints[code] = FixedPointPrice.toBasisPoints(rule.discountRate);
+            if (rule.target != null) {
+                promotionThresholds[code] = rule.threshold;
+                promotionCodes[code] = targets[index];
+            }
+            canonical.append(entry.getKey()).append('\u0000').append(rule.discountRate).append('\u0000')
+                     .append(rule.threshold).append('\u0000').append(rule.target).append('\u0001');
+            index++;
+        }
+        
+        this.rangeLimits = rangeLimits.clone();
+        canonical.append(Arrays.toString(rangeLimits));
+        this.fingerprint = hash(canonical);
+    }
+    
+    /**
+     * Gets the rules with the original behaviour: a 10% Electronics discount,
+     * Electronics above $500.00 moved to Premium Electronics, and ranges up to
+     * $10.00, $100.00 and $500.00.
+     * 
+     * @return the default rules
+     */
+    public static TransformationRules defaults() {
+        return DEFAULTS;
+    }
+    
+    private static TransformationRules createDefaults() {
+        CategoryDictionary dictionary = CategoryDictionary.shared();
+        CategoryRule electronics = new CategoryRule();
+        electronics.discountRate = DEFAULT_DISCOUNT_RATE;
+        electronics.threshold = DEFAULT_PREMIUM_THRESHOLD;
+        electronics.target = dictionary.name(CategoryDictionary.PREMIUM_ELECTRONICS);
+        
+        Map<String, CategoryRule> rules = new TreeMap<>();
+        rules.put(dictionary.name(CategoryDictionary.ELECTRONICS), electronics);
+        return new TransformationRules(rules, DEFAULT_RANGE_LIMITS);
+    }
+    
+    /**
+     * Loads rules from a properties file.
+     * 
+     * @param filePath the path of the rules file, read as UTF-8
+     * @return the compiled rules
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the path is empty or the file contains an invalid rule
+     */
+    public static TransformationRules load(String filePath) throws IOException {
+        if (filePath == null || filePath.trim().isEmpty()) {
+            throw new IllegalArgumentException("Rules file path cannot be null or empty");
+        }
+        
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(Paths.get(filePath), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new IOException("Failed to read rules file: " + filePath + ". " + e.getMessage(), e);
+        }
+        return fromProperties(properties);
+    }
+    
+    /**
+     * Compiles rules from properties in the format described in the class documentation.
+     * 
+     * @param properties the rule properties
+     * @return the compiled rules
+     * @throws IllegalArgumentException if the properties are null or contain an invalid rule
+     */
+    public static TransformationRules fromProperties(Properties properties) {
+        if (properties == null) {
+            throw new IllegalArgumentException("Rule properties cannot be null");
+        }
+        
+        Map<String, CategoryRule> rules = new TreeMap<>();
+        double[] rangeLimits = DEFAULT_RANGE_LIMITS.clone();
+        boolean hasCategoryRules = false;
+        
+        for (String key : new TreeMap<>(toMap(properties)).keySet()) {
+            String value = properties.getProperty(key).trim();
+            int rangeIndex = Arrays.asList(RANGE_KEYS).indexOf(key);
+            if (rangeIndex >= 0) {
+                rangeLimits[rangeIndex] = parseAmount(key, value);
+                continue;
+            }
+            if (!key.startsWith(CATEGORY_PREFIX)) {
+                throw new IllegalArgumentException("Unknown rule key: " + key);
+            }
+            
+            hasCategoryRules = true;
+            if (key.endsWith(DISCOUNT_SUFFIX)) {
+                double rate = parseAmount(key, value);
+                if (rate >= 1) {
+                    throw new IllegalArgumentException("Discount must be below 1 for " + key + ": " + value);
+                }
+                ruleFor(rules, key, DISCOUNT_SUFFIX).discountRate = rate;
+            } else if (key.endsWith(THRESHOLD_SUFFIX)) {
+                ruleFor(rules, key, THRESHOLD_SUFFIX).threshold = parseAmount(key, value);
+            } else if (key.endsWith(TARGET_SUFFIX)) {
+                if (value.isEmpty()) {
+                    throw new IllegalArgumentException("Premium category cannot be empty for " + key);
+                }
+                ruleFor(rules, key, TARGET_SUFFIX).target = value;
+            } else {
+                throw new IllegalArgumentException("Unknown rule key: " + key);
+            }
+        }
+        
+        for (Map.Entry<String, CategoryRule> entry : rules.entrySet()) {
+            CategoryRule rule = entry.getValue();
+            if ((rule.target == null) != Double.isNaN(rule.threshold)) {
+                throw new IllegalArgumentException("Category '" + entry.getKey()
+                    + "' needs both a premium threshold and a premium category");
+            }
+        }
+        for (int i = 1; i < rangeLimits.length; i++) {
+            if (rangeLimits[i] < rangeLimits[i - 1]) {
+                throw new IllegalArgumentException("Range limits must be in ascending order: " + Arrays.toString(rangeLimits));
+            }
+        }
+        
+        if (!hasCategoryRules) {
+            rules.putAll(DEFAULTS.categoryRules());
+        }
+        return new TransformationRules(rules, rangeLimits);
+    }
+    
+    /**
+     * Gets the discount rate of a category.
+     * 
+     * @param categoryCode the category code, or CategoryDictionary.NO_CODE
+     * @return the discount as a fraction, 0 for none
+     */
+    public double discountRate(int categoryCode) {
+        return inTable(categoryCode) ? discountRates[categoryCode] : 0;
+    }
+    
+    /**
+     * Gets the discount rate of a category in basis points.
+     * 
+     * @param categoryCode the category code, or CategoryDictionary.NO_CODE
+     * @return the discount in basis points, or -1 if it is not a whole number of them
+     */
+    long discountBasisPoints(int categoryCode) {
+        return inTable(categoryCode) ? discountBasisPoints[categoryCode] : 0;
+    }
+    
+    /**
+     * Gets the price above which products of a category are moved to another category.
+     * 
+     * @param categoryCode the category code, or CategoryDictionary.NO_CODE
+     * @return the threshold, or positive infinity if the category is never moved
+     */
+    public double promotionThreshold(int categoryCode) {
+        return inTable(categoryCode) ? promotionThresholds[categoryCode] : Double.POSITIVE_INFINITY;
+    }
+    
+    /**
+     * Gets the category that products of a category are moved to above the threshold.
+     * 
+     * @param categoryCode the category code, or CategoryDictionary.NO_CODE
+     * @return the target category code, or CategoryDictionary.NO_CODE if the category is never moved
+     */
+    public int promotionCode(int categoryCode) {
+        return inTable(categoryCode) ? promotionCodes[categoryCode] : CategoryDictionary.NO_CODE;
+    }
+    
+    /**
+     * Classifies a final price into a price range.
+     * 
+     * @param price the final price after transformations
+     * @return the price range
+     */
+    public PriceRange classify(double price) {
+        if (price <= rangeLimits[0]) {
+            return PriceRange.LOW;
+        } else if (price <= rangeLimits[1]) {
+            return PriceRange.MEDIUM;
+        } else if (price <= rangeLimits[2]) {
+            return PriceRange.HIGH;
+        } else {
+            return PriceRange.PREMIUM;
+        }
+    }
+    
+    /**
+     * Gets a fingerprint of the rules that does not depend on category code assignment.
+     * 
+     * @return a value that changes whenever any rule changes
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+    
+    private boolean inTable(int categoryCode) {
+        return categoryCode >= 0 && categoryCode < discountRates.length;
+    }
+    
+    /**
+     * Rebuilds the per-category rules by name from the decision table.
+     */
+    private Map<String, CategoryRule> categoryRules() {
+        CategoryDictionary dictionary = CategoryDictionary.shared();
+        Map<String, CategoryRule> rules = new TreeMap<>();
+        for (int code = 0; code < discountRates.length; code++) {
+            if (discountRates[code] == 0 && promotionCodes[code] == CategoryDictionary.NO_CODE) {
+                continue;
+            }
+            CategoryRule rule = new CategoryRule();
+            rule.discountRate = discountRates[code];
+            if (promotionCodes[code] != CategoryDictionary.NO_CODE) {
+                rule.threshold = promotionThresholds[code];
+                rule.target = dictionary.name(promotionCodes[code]);
+            }
+            rules.put(dictionary.name(code), rule);
+        }
+        return rules;
+    }
+    
+    /**
+     * Gets the rule being built for the category named in a key.
+     */
+    private static CategoryRule ruleFor(Map<String, CategoryRule> rules, String key, String suffix) {
+        String category = key.substring(CATEGORY_PREFIX.length(), key.length() - suffix.length()).trim();
+        if (category.isEmpty()) {
+            throw new IllegalArgumentException("Missing category name in rule key: " + key);
+        }
+        return rules.computeIfAbsent(category, name -> new CategoryRule());
+    }
+    
+    /**
+     * Parses a non-negative finite number.
+     */
+    private static double parseAmount(String key, String value) {
+        double amount;
+        try {
+            amount = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + key + ": " + value);
+        }
+        if (!(amount >= 0) || Double.isInfinite(amount)) {
+            throw new IllegalArgumentException("Value for " + key + " must be a non-negative number: " + value);
+        }
+        return amount;
+    }
+    
+    /**
+     * Encodes a category named in the rules.
+     */
+    private static int encode(CategoryDictionary dictionary, String category) {
+        int code = dictionary.intern(category);
+        if (code == CategoryDictionary.NO_CODE) {
+            throw new IllegalArgumentException("Too many categories to encode rule for '" + category + "'");
+        }
+        return code;
+    }
+    
+    private static Map<String, String> toMap(Properties properties) {
+        Map<String, String> map = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            map.put(key, properties.getProperty(key));
+        }
+        return map;
+    }
+    
+    /**
+     * Hashes text to 64 bits.
+     */
+    private static long hash(CharSequence text) {
+        long hash = 1125899906842597L;
+        for (int i = 0; i < text.length(); i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return hash;
+    }
+}
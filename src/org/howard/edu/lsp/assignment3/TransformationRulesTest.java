@@ -0,0 +1,311 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * JUnit test class for TransformationRules.
+ * Checks how rules files are read, which defaults they replace or keep, that
+ * invalid rules are rejected, that discounts finer than a basis point are
+ * still applied exactly as before, and that fingerprints depend only on the
+ * rules themselves.
+ * 
+ * @author Kafilat Sarki-Umar
+ */
+public class TransformationRulesTest {
+    
+    /** Fingerprint of the default rules, which must not change between runs or releases */
+    private static final long DEFAULT_FINGERPRINT = -4491419940113883372L;
+    
+    /** Fingerprint of {@link #customRules()}, which must not change between runs or releases */
+    private static final long CUSTOM_FINGERPRINT = -900511014527763596L;
+    
+    /**
+     * Gets the code of a category in the shared dictionary.
+     */
+    private static int code(String category) {
+        return CategoryDictionary.shared().intern(category);
+    }
+    
+    /**
+     * Writes a rules file and loads it.
+     */
+    private static TransformationRules load(Path tempDir, String text) throws IOException {
+        Path file = tempDir.resolve("rules.properties");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        return TransformationRules.load(file.toString());
+    }
+    
+    /**
+     * Creates properties from alternating keys and values.
+     */
+    private static Properties properties(String... keysAndValues) {
+        Properties properties = new Properties();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            properties.setProperty(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return properties;
+    }
+    
+    /**
+     * Gets rules naming categories that no other rules name.
+     */
+    private static TransformationRules customRules() {
+        return TransformationRules.fromProperties(properties(
+            "category.Fingerprint Zeta.discount", "0.05",
+            "category.Fingerprint Alpha.discount", "0.15",
+            "category.Fingerprint Alpha.premium.threshold", "250.00",
+            "category.Fingerprint Alpha.premium.category", "Fingerprint Omega",
+            "range.medium.max", "150.00"));
+    }
+    
+    /**
+     * Checks the price range of prices just at and above each limit.
+     */
+    private static void assertRanges(TransformationRules rules, double low, double medium, double high) {
+        assertEquals(PriceRange.LOW, rules.classify(low));
+        assertEquals(PriceRange.MEDIUM, rules.classify(low + 0.01));
+        assertEquals(PriceRange.MEDIUM, rules.classify(medium));
+        assertEquals(PriceRange.HIGH, rules.classify(medium + 0.01));
+        assertEquals(PriceRange.HIGH, rules.classify(high));
+        assertEquals(PriceRange.PREMIUM, rules.classify(high + 0.01));
+    }
+    
+    /**
+     * Discounts and rounds a price the way the pipeline did before fixed-point pricing.
+     */
+    private static double legacyDiscount(double price, double discountRate) {
+        return new BigDecimal(price * (1 - discountRate)).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+    
+    /**
+     * Tests the default rules: a 10% Electronics discount, promotion above
+     * $500.00 and ranges up to $10.00, $100.00 and $500.00.
+     */
+    @Test
+    @DisplayName("Test default rules")
+    public void testDefaults() {
+        TransformationRules rules = TransformationRules.defaults();
+        int electronics = CategoryDictionary.ELECTRONICS;
+        assertEquals(0.10, rules.discountRate(electronics));
+        assertEquals(1000, rules.discountBasisPoints(electronics));
+        assertEquals(500.00, rules.promotionThreshold(electronics));
+        assertEquals(CategoryDictionary.PREMIUM_ELECTRONICS, rules.promotionCode(electronics));
+        assertEquals(0.0, rules.discountRate(code("Books")));
+        assertEquals(Double.POSITIVE_INFINITY, rules.promotionThreshold(code("Books")));
+        assertEquals(0.0, rules.discountRate(CategoryDictionary.NO_CODE));
+        assertEquals(CategoryDictionary.NO_CODE, rules.promotionCode(CategoryDictionary.NO_CODE));
+        assertRanges(rules, 10.00, 100.00, 500.00);
+    }
+    
+    /**
+     * Tests category names with spaces, escaped in the keys of a rules file.
+     */
+    @Test
+    @DisplayName("Test escaped spaces in category keys")
+    public void testEscapedSpaces(@TempDir Path tempDir) throws IOException {
+        TransformationRules rules = load(tempDir, "# Rules for categories with spaces\n"
+            + "category.Home\\ Goods.discount=0.20\n"
+            + "category.Home\\ Goods.premium.threshold=300.00\n"
+            + "category.Home\\ Goods.premium.category=Luxury Home Goods\n"
+            + "category.Garden\\ \\ Tools.discount = 0.05 \n");
+        
+        int homeGoods = code("Home Goods");
+        assertEquals(0.20, rules.discountRate(homeGoods));
+        assertEquals(300.00, rules.promotionThreshold(homeGoods));
+        assertEquals(code("Luxury Home Goods"), rules.promotionCode(homeGoods));
+        assertEquals(0.05, rules.discountRate(code("Garden  Tools")));
+        assertEquals(0.0, rules.discountRate(code("Home")));
+        assertEquals(0.0, rules.discountRate(code("Garden Tools")));
+        
+        Product product = new DataTransformer(rules).transformProduct(new Product("1", "Sofa", 400.00, "Home Goods"));
+        assertEquals(320.00, product.getPrice());
+        assertEquals("Luxury Home Goods", product.getCategory());
+    }
+    
+    /**
+     * Tests that a file with category rules replaces the default category
+     * rules entirely, while range limits it does not give keep their defaults.
+     */
+    @Test
+    @DisplayName("Test rules file replacing defaults")
+    public void testReplacesDefaults(@TempDir Path tempDir) throws IOException {
+        TransformationRules rules = load(tempDir, "category.Books.discount=0.25\nrange.medium.max=200.00\n");
+        assertEquals(0.25, rules.discountRate(code("Books")));
+        assertEquals(0.0, rules.discountRate(CategoryDictionary.ELECTRONICS));
+        assertEquals(Double.POSITIVE_INFINITY, rules.promotionThreshold(CategoryDictionary.ELECTRONICS));
+        assertEquals(CategoryDictionary.NO_CODE, rules.promotionCode(CategoryDictionary.ELECTRONICS));
+        assertRanges(rules, 10.00, 200.00, 500.00);
+        
+        Product laptop = new DataTransformer(rules).transformProduct(new Product("2", "Laptop", 999.99, "Electronics"));
+        assertEquals(999.99, laptop.getPrice());
+        assertEquals("Electronics", laptop.getCategory());
+    }
+    
+    /**
+     * Tests that a file with only range limits keeps the default category rules.
+     */
+    @Test
+    @DisplayName("Test range-only rules file keeping default categories")
+    public void testRangesOnly(@TempDir Path tempDir) throws IOException {
+        TransformationRules rules = load(tempDir, "range.low.max=5.00\nrange.high.max=1000.00\n");
+        assertEquals(0.10, rules.discountRate(CategoryDictionary.ELECTRONICS));
+        assertEquals(500.00, rules.promotionThreshold(CategoryDictionary.ELECTRONICS));
+        assertEquals(CategoryDictionary.PREMIUM_ELECTRONICS, rules.promotionCode(CategoryDictionary.ELECTRONICS));
+        assertRanges(rules, 5.00, 100.00, 1000.00);
+        
+        TransformationRules empty = load(tempDir, "# No rules\n");
+        assertEquals(TransformationRules.defaults().fingerprint(), empty.fingerprint());
+        assertRanges(empty, 10.00, 100.00, 500.00);
+    }
+    
+    /**
+     * Tests that range limits out of order are rejected, whether both are
+     * given or one falls on the wrong side of a default.
+     */
+    @Test
+    @DisplayName("Test out-of-order range limits")
+    public void testRangeOrder() {
+        Properties reversed = properties("range.low.max", "50", "range.medium.max", "20");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                                                  () -> TransformationRules.fromProperties(reversed));
+        assertTrue(e.getMessage().contains("ascending order"), e.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                     () -> TransformationRules.fromProperties(properties("range.high.max", "50.00")));
+        assertThrows(IllegalArgumentException.class,
+                     () -> TransformationRules.fromProperties(properties("range.low.max", "100.01")));
+        
+        TransformationRules equal = TransformationRules.fromProperties(
+            properties("range.low.max", "100.00", "range.medium.max", "100.00"));
+        assertEquals(PriceRange.LOW, equal.classify(100.00));
+        assertEquals(PriceRange.HIGH, equal.classify(100.01));
+    }
+    
+    /**
+     * Tests that unknown keys, garbled lines and invalid values are rejected.
+     */
+    @Test
+    @DisplayName("Test invalid rules")
+    public void testInvalidRules(@TempDir Path tempDir) throws IOException {
+        String[][] invalid = {
+            {"unknown.key", "1"},
+            {"range.lowest.max", "1"},
+            {"category.Books.discont", "0.1"},
+            {"category.Books", "0.1"},
+            {"category..discount", "0.1"},
+            {"category. .discount", "0.1"},
+            {"category.Books.discount", "abc"},
+            {"category.Books.discount", ""},
+            {"category.Books.discount", "-0.10"},
+            {"category.Books.discount", "1.0"},
+            {"category.Books.discount", "NaN"},
+            {"category.Books.discount", "10%"},
+            {"category.Books.premium.threshold", "100.00"},
+            {"category.Books.premium.category", "Rare Books"},
+            {"category.Books.premium.category", " "},
+            {"range.low.max", "Infinity"},
+            {"range.low.max", "1e400"},
+            {"range.low.max", "-1"},
+            {"range.low.max", "ten"}
+        };
+        for (String[] rule : invalid) {
+            assertThrows(IllegalArgumentException.class,
+                         () -> TransformationRules.fromProperties(properties(rule[0], rule[1])),
+                         rule[0] + "=" + rule[1]);
+        }
+        
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                                                  () -> load(tempDir, "this is not a rule\n"));
+        assertTrue(e.getMessage().contains("Unknown rule key: this"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> TransformationRules.fromProperties(null));
+        assertThrows(IllegalArgumentException.class, () -> TransformationRules.load(" "));
+        IOException missing = assertThrows(IOException.class,
+                                           () -> TransformationRules.load(tempDir.resolve("missing").toString()));
+        assertTrue(missing.getMessage().startsWith("Failed to read rules file: "), missing.getMessage());
+    }
+    
+    /**
+     * Tests that a discount finer than a basis point takes the double path and
+     * rounds exactly as before fixed-point pricing, while one that is a whole
+     * number of basis points takes the fixed-point path with the same result.
+     */
+    @Test
+    @DisplayName("Test discount finer than a basis point")
+    public void testFineDiscount() {
+        double fine = 0.12345;
+        double coarse = 0.1234;
+        TransformationRules rules = TransformationRules.fromProperties(properties(
+            "category.Books.discount", String.valueOf(fine),
+            "category.Toys.discount", String.valueOf(coarse)));
+        assertEquals(-1, rules.discountBasisPoints(code("Books")));
+        assertEquals(1234, rules.discountBasisPoints(code("Toys")));
+        
+        DataTransformer transformer = new DataTransformer(rules);
+        for (long cents = 0; cents <= 100_000; cents += 7) {
+            double price = cents / 100.0;
+            Product book = new Product("1", "Book", price, "Books");
+            book.setPriceCents(cents);
+            Product transformedBook = transformer.transformProduct(book);
+            assertEquals(legacyDiscount(price, fine), transformedBook.getPrice(), "Books at " + price);
+            assertFalse(transformedBook.hasPriceCents(), "Books at " + price + " should take the double path");
+            
+            Product toy = new Product("2", "Toy", price, "Toys");
+            toy.setPriceCents(cents);
+            Product transformedToy = transformer.transformProduct(toy);
+            assertEquals(legacyDiscount(price, coarse), transformedToy.getPrice(), "Toys at " + price);
+            assertTrue(transformedToy.hasPriceCents(), "Toys at " + price + " should take the fixed-point path");
+        }
+    }
+    
+    /**
+     * Tests that fingerprints are fixed values computed from category names,
+     * whatever codes the categories were given, and that any change to a
+     * rule changes the fingerprint.
+     */
+    @Test
+    @DisplayName("Test rules fingerprint")
+    public void testFingerprint() {
+        // Give the categories codes in the reverse of the order the rules list them
+        code("Fingerprint Omega");
+        code("Fingerprint Zeta");
+        code("Fingerprint Alpha");
+        assertEquals(DEFAULT_FINGERPRINT, TransformationRules.defaults().fingerprint());
+        assertEquals(CUSTOM_FINGERPRINT, customRules().fingerprint());
+        assertEquals(customRules().fingerprint(), customRules().fingerprint());
+        assertEquals(TransformationRules.defaults().fingerprint(), new DataTransformer().rulesFingerprint());
+        
+        Properties[] changed = {
+            properties("category.Fingerprint Zeta.discount", "0.06"),
+            properties("category.Fingerprint Alpha.premium.threshold", "250.01"),
+            properties("category.Fingerprint Alpha.premium.category", "Fingerprint Zeta"),
+            properties("range.medium.max", "150.01"),
+            properties("range.high.max", "600.00"),
+            properties("category.Fingerprint Beta.discount", "0")
+        };
+        Set<Long> fingerprints = new HashSet<>();
+        fingerprints.add(CUSTOM_FINGERPRINT);
+        for (Properties change : changed) {
+            Properties properties = properties(
+                "category.Fingerprint Zeta.discount", "0.05",
+                "category.Fingerprint Alpha.discount", "0.15",
+                "category.Fingerprint Alpha.premium.threshold", "250.00",
+                "category.Fingerprint Alpha.premium.category", "Fingerprint Omega",
+                "range.medium.max", "150.00");
+            properties.putAll(change);
+            assertTrue(fingerprints.add(TransformationRules.fromProperties(properties).fingerprint()),
+                       "Fingerprint unchanged by " + change);
+        }
+    }
+}